@@ -64,7 +64,8 @@ CREATE TABLE `candidat` (
   `email` varchar(100) DEFAULT NULL,
   `date_naissance` date DEFAULT NULL,
   `type_permis` int(11) DEFAULT NULL,
-  `created_at` timestamp NOT NULL DEFAULT current_timestamp()
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  `updated_at` timestamp(6) NOT NULL DEFAULT current_timestamp(6) ON UPDATE current_timestamp(6)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
 --
@@ -80,6 +81,19 @@ CREATE TABLE `candidat` (
 
 
 
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `daily_rollup`
+--
+
+CREATE TABLE `daily_rollup` (
+  `metric` varchar(40) NOT NULL,
+  `jour` date NOT NULL,
+  `dimension` varchar(100) NOT NULL DEFAULT '',
+  `valeur` decimal(14,2) NOT NULL DEFAULT 0.00
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
 -- --------------------------------------------------------
 
 --
@@ -92,6 +106,7 @@ CREATE TABLE `document` (
   `type_document_id` int(11) NOT NULL,
   `nom_fichier` varchar(255) NOT NULL,
   `chemin_fichier` varchar(255) NOT NULL,
+  `sha256` char(64) DEFAULT NULL,
   `date_upload` timestamp NOT NULL DEFAULT current_timestamp()
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
@@ -243,6 +258,8 @@ CREATE TABLE `inscription` (
   `cycle_paiement` varchar(20) NOT NULL DEFAULT 'Totale',
   `date_inscription` date NOT NULL DEFAULT current_timestamp(),
   `date_paiement_suivant` date DEFAULT NULL,
+  `seances_code_effectuees` int(11) NOT NULL DEFAULT 0,
+  `seances_conduite_effectuees` int(11) NOT NULL DEFAULT 0,
   `created_at` timestamp NOT NULL DEFAULT current_timestamp()
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
@@ -770,7 +787,15 @@ ALTER TABLE `candidat`
   ADD PRIMARY KEY (`id`),
   ADD UNIQUE KEY `cin` (`cin`),
   ADD UNIQUE KEY `email` (`email`),
-  ADD KEY `fk_candidat_type_permis` (`type_permis`);
+  ADD KEY `fk_candidat_type_permis` (`type_permis`),
+  ADD KEY `idx_candidat_created_at` (`created_at`),
+  ADD KEY `idx_candidat_updated_at` (`updated_at`);
+
+--
+-- Indexes for table `daily_rollup`
+--
+ALTER TABLE `daily_rollup`
+  ADD PRIMARY KEY (`metric`,`jour`,`dimension`);
 
 --
 -- Indexes for table `document`
@@ -778,7 +803,8 @@ ALTER TABLE `candidat`
 ALTER TABLE `document`
   ADD PRIMARY KEY (`id`),
   ADD KEY `dossier_id` (`dossier_id`),
-  ADD KEY `type_document_id` (`type_document_id`);
+  ADD KEY `type_document_id` (`type_document_id`),
+  ADD KEY `idx_document_sha256` (`sha256`);
 
 --
 -- Indexes for table `dossier`
@@ -792,7 +818,8 @@ ALTER TABLE `dossier`
 --
 ALTER TABLE `entretien`
   ADD PRIMARY KEY (`id`),
-  ADD KEY `vehicule_id` (`vehicule_id`);
+  ADD KEY `vehicule_id` (`vehicule_id`),
+  ADD KEY `idx_entretien_date` (`date_entretien`);
 
 --
 -- Indexes for table `examen`
@@ -800,7 +827,8 @@ ALTER TABLE `entretien`
 ALTER TABLE `examen`
   ADD PRIMARY KEY (`id`),
   ADD KEY `candidat_id` (`candidat_id`),
-  ADD KEY `type_examen_id` (`type_examen_id`);
+  ADD KEY `type_examen_id` (`type_examen_id`),
+  ADD KEY `idx_examen_resultat_date` (`resultat`,`date_examen`,`id`);
 
 --
 -- Indexes for table `inscription`
@@ -808,7 +836,8 @@ ALTER TABLE `examen`
 ALTER TABLE `inscription`
   ADD PRIMARY KEY (`id`),
   ADD KEY `plan_id` (`plan_id`),
-  ADD KEY `cin` (`cin`);
+  ADD KEY `cin` (`cin`),
+  ADD KEY `idx_inscription_date` (`date_inscription`);
 
 --
 -- Indexes for table `moniteur`
@@ -833,7 +862,8 @@ ALTER TABLE `paiement`
   ADD PRIMARY KEY (`id`),
   ADD KEY `inscription_id` (`inscription_id`),
   ADD KEY `id_examen` (`id_examen`),
-  ADD KEY `id_candidat` (`id_candidat`);
+  ADD KEY `id_candidat` (`id_candidat`),
+  ADD KEY `idx_paiement_date` (`date_paiement`,`id`);
 
 --
 -- Indexes for table `plan`
@@ -881,7 +911,9 @@ ALTER TABLE `seance`
   ADD PRIMARY KEY (`id`),
   ADD KEY `fk_seance_moniteur` (`moniteur_id`),
   ADD KEY `fk_seance_candidat` (`candidat_id`),
-  ADD KEY `fk_seance_vehicule` (`vehicule_id`);
+  ADD KEY `fk_seance_vehicule` (`vehicule_id`),
+  ADD KEY `idx_seance_type_statut_date` (`type`,`statut`,`date`,`heure`,`id`),
+  ADD KEY `idx_seance_date` (`date`);
 
 --
 -- Indexes for table `session_code`
@@ -1179,6 +1211,52 @@ ALTER TABLE `session_conduite`
 --
 ALTER TABLE `vehicule`
   ADD CONSTRAINT `vehicule_ibfk_1` FOREIGN KEY (`type_permis_id`) REFERENCES `type_permis` (`id`);
+
+--
+-- Presence counters for the seed data
+--
+UPDATE `inscription` i
+  JOIN `candidat` c ON c.cin = i.cin
+SET i.seances_code_effectuees = (
+      SELECT COUNT(*) FROM `presence_code` p
+        JOIN `session_code` s ON s.id = p.session_code_id
+      WHERE p.candidat_id = c.id AND s.date_session > i.date_inscription),
+    i.seances_conduite_effectuees = (
+      SELECT COUNT(*) FROM `presence_conduite` p
+        JOIN `session_conduite` s ON s.id = p.session_conduite_id
+      WHERE p.candidat_id = c.id AND s.date_session > i.date_inscription);
+
+--
+-- Dashboard rollups for the seed data
+--
+INSERT INTO `daily_rollup` (`metric`, `dimension`, `jour`, `valeur`)
+SELECT 'REVENUE', '', p.date_paiement, SUM(p.montant) FROM `paiement` p GROUP BY p.date_paiement
+UNION ALL
+SELECT 'REVENUE_INSCRIPTION', '', p.date_paiement, SUM(p.montant) FROM `paiement` p
+  WHERE p.inscription_id IS NOT NULL GROUP BY p.date_paiement
+UNION ALL
+SELECT 'REVENUE_EXAMEN', '', p.date_paiement, SUM(p.montant) FROM `paiement` p
+  WHERE p.id_examen IS NOT NULL GROUP BY p.date_paiement
+UNION ALL
+SELECT 'REVENUE_BY_PLAN', pl.libelle, p.date_paiement, SUM(p.montant) FROM `paiement` p
+  JOIN `inscription` i ON i.id = p.inscription_id JOIN `plan` pl ON pl.id = i.plan_id
+  GROUP BY pl.libelle, p.date_paiement
+UNION ALL
+SELECT 'REVENUE_BY_TYPE', COALESCE(p.type_paiement, ''), p.date_paiement, SUM(p.montant) FROM `paiement` p
+  GROUP BY COALESCE(p.type_paiement, ''), p.date_paiement
+UNION ALL
+SELECT 'PAYMENTS', '', p.date_paiement, COUNT(*) FROM `paiement` p GROUP BY p.date_paiement
+UNION ALL
+SELECT 'INSCRIPTIONS', '', i.date_inscription, COUNT(*) FROM `inscription` i GROUP BY i.date_inscription
+UNION ALL
+SELECT 'REGISTRATIONS', '', DATE(c.created_at), COUNT(*) FROM `candidat` c GROUP BY DATE(c.created_at)
+UNION ALL
+SELECT 'SEANCES', '', s.date, COUNT(*) FROM `seance` s GROUP BY s.date
+UNION ALL
+SELECT 'MAINTENANCES', '', e.date_entretien, COUNT(*) FROM `entretien` e GROUP BY e.date_entretien
+UNION ALL
+SELECT 'MAINTENANCE_COST', e.type_entretien, e.date_entretien, SUM(e.cout) FROM `entretien` e
+  GROUP BY e.type_entretien, e.date_entretien;
 COMMIT;
 
 /*!40101 SET CHARACTER_SET_CLIENT=@OLD_CHARACTER_SET_CLIENT */;
@@ -0,0 +1,17 @@
+-- Per-inscription presence counters maintained by PresenceRepository on insert.
+-- Run once on databases created before this change, then the application keeps them up to date.
+
+ALTER TABLE `inscription`
+  ADD COLUMN `seances_code_effectuees` int(11) NOT NULL DEFAULT 0 AFTER `date_paiement_suivant`,
+  ADD COLUMN `seances_conduite_effectuees` int(11) NOT NULL DEFAULT 0 AFTER `seances_code_effectuees`;
+
+UPDATE `inscription` i
+  JOIN `candidat` c ON c.cin = i.cin
+SET i.seances_code_effectuees = (
+      SELECT COUNT(*) FROM `presence_code` p
+        JOIN `session_code` s ON s.id = p.session_code_id
+      WHERE p.candidat_id = c.id AND s.date_session > i.date_inscription),
+    i.seances_conduite_effectuees = (
+      SELECT COUNT(*) FROM `presence_conduite` p
+        JOIN `session_conduite` s ON s.id = p.session_conduite_id
+      WHERE p.candidat_id = c.id AND s.date_session > i.date_inscription);
@@ -0,0 +1,11 @@
+-- Indexes matching the (date, id) orderings read page by page by the payment history,
+-- the pending exam list and the code seance list.
+
+ALTER TABLE `paiement`
+  ADD KEY `idx_paiement_date` (`date_paiement`,`id`);
+
+ALTER TABLE `examen`
+  ADD KEY `idx_examen_resultat_date` (`resultat`,`date_examen`,`id`);
+
+ALTER TABLE `seance`
+  ADD KEY `idx_seance_type_statut_date` (`type`,`statut`,`date`,`id`);
@@ -0,0 +1,52 @@
+-- Per-day dashboard totals (DailyRollupRepository), with the date indexes the per-day refresh
+-- uses on the source tables. The backfill below matches the metric definitions in the code;
+-- "java org.cpi2.Main --rebuild-rollups" recomputes the table the same way at any time.
+
+CREATE TABLE `daily_rollup` (
+  `metric` varchar(40) NOT NULL,
+  `jour` date NOT NULL,
+  `dimension` varchar(100) NOT NULL DEFAULT '',
+  `valeur` decimal(14,2) NOT NULL DEFAULT 0.00,
+  PRIMARY KEY (`metric`,`jour`,`dimension`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+ALTER TABLE `candidat`
+  ADD KEY `idx_candidat_created_at` (`created_at`);
+
+ALTER TABLE `entretien`
+  ADD KEY `idx_entretien_date` (`date_entretien`);
+
+ALTER TABLE `inscription`
+  ADD KEY `idx_inscription_date` (`date_inscription`);
+
+ALTER TABLE `seance`
+  ADD KEY `idx_seance_date` (`date`);
+
+INSERT INTO `daily_rollup` (`metric`, `dimension`, `jour`, `valeur`)
+SELECT 'REVENUE', '', p.date_paiement, SUM(p.montant) FROM `paiement` p GROUP BY p.date_paiement
+UNION ALL
+SELECT 'REVENUE_INSCRIPTION', '', p.date_paiement, SUM(p.montant) FROM `paiement` p
+  WHERE p.inscription_id IS NOT NULL GROUP BY p.date_paiement
+UNION ALL
+SELECT 'REVENUE_EXAMEN', '', p.date_paiement, SUM(p.montant) FROM `paiement` p
+  WHERE p.id_examen IS NOT NULL GROUP BY p.date_paiement
+UNION ALL
+SELECT 'REVENUE_BY_PLAN', pl.libelle, p.date_paiement, SUM(p.montant) FROM `paiement` p
+  JOIN `inscription` i ON i.id = p.inscription_id JOIN `plan` pl ON pl.id = i.plan_id
+  GROUP BY pl.libelle, p.date_paiement
+UNION ALL
+SELECT 'REVENUE_BY_TYPE', COALESCE(p.type_paiement, ''), p.date_paiement, SUM(p.montant) FROM `paiement` p
+  GROUP BY COALESCE(p.type_paiement, ''), p.date_paiement
+UNION ALL
+SELECT 'PAYMENTS', '', p.date_paiement, COUNT(*) FROM `paiement` p GROUP BY p.date_paiement
+UNION ALL
+SELECT 'INSCRIPTIONS', '', i.date_inscription, COUNT(*) FROM `inscription` i GROUP BY i.date_inscription
+UNION ALL
+SELECT 'REGISTRATIONS', '', DATE(c.created_at), COUNT(*) FROM `candidat` c GROUP BY DATE(c.created_at)
+UNION ALL
+SELECT 'SEANCES', '', s.date, COUNT(*) FROM `seance` s GROUP BY s.date
+UNION ALL
+SELECT 'MAINTENANCES', '', e.date_entretien, COUNT(*) FROM `entretien` e GROUP BY e.date_entretien
+UNION ALL
+SELECT 'MAINTENANCE_COST', e.type_entretien, e.date_entretien, SUM(e.cout) FROM `entretien` e
+  GROUP BY e.type_entretien, e.date_entretien;
@@ -0,0 +1,8 @@
+-- Documents are stored once per distinct content in the blob store (uploads/blobs/<ab>/<sha256>),
+-- and the rows holding a hash are its references: a blob is deleted with its last document.
+-- After applying this file, run "java org.cpi2.Main --migrate-documents" once to move the files
+-- of the former uploads/documents/<dossier>/ layout into the store and fill in the hashes.
+
+ALTER TABLE `document`
+  ADD COLUMN `sha256` char(64) DEFAULT NULL AFTER `chemin_fichier`,
+  ADD KEY `idx_document_sha256` (`sha256`);
@@ -0,0 +1,7 @@
+-- updated_at moves on every change of a candidat, whichever desk makes it. With COUNT(*) and
+-- MAX(id) it gives a cheap version of the table, which the in-memory candidat caches compare
+-- before trusting what they hold.
+
+ALTER TABLE `candidat`
+  ADD COLUMN `updated_at` timestamp(6) NOT NULL DEFAULT current_timestamp(6) ON UPDATE current_timestamp(6) AFTER `created_at`,
+  ADD KEY `idx_candidat_updated_at` (`updated_at`);
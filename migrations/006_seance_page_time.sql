@@ -0,0 +1,6 @@
+-- The code seance list is ordered by (date, heure, id) so that seances of one day come in time
+-- order; the index follows the new ordering.
+
+ALTER TABLE `seance`
+  DROP KEY `idx_seance_type_statut_date`,
+  ADD KEY `idx_seance_type_statut_date` (`type`,`statut`,`date`,`heure`,`id`);
@@ -0,0 +1,7 @@
+package org.cpi2.Exceptions;
+
+public class CalendarUnavailable extends RuntimeException {
+    public CalendarUnavailable(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -5,8 +5,19 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.Parent;
 import javafx.stage.Stage;
+import org.cpi2.repository.DailyRollupRepository;
+import org.cpi2.repository.DatabaseConfig;
+import org.cpi2.repository.QueryCache;
+import org.cpi2.service.DocumentService;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class Main extends Application {
+    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+
     @Override
     public void start(Stage primaryStage) throws Exception {
         Parent root = FXMLLoader.load(getClass().getResource("/fxmls/login.fxml"));
@@ -16,7 +27,46 @@ public class Main extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        QueryCache.logStats();
+        DatabaseConfig.shutdown();
+    }
+
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--rebuild-rollups")) {
+            rebuildRollups();
+            return;
+        }
+        if (Arrays.asList(args).contains("--migrate-documents")) {
+            migrateDocuments();
+            return;
+        }
         launch(args);
     }
+
+    /** Recomputes the dashboard rollups from the source tables, without starting the UI. */
+    private static void rebuildRollups() {
+        try {
+            new DailyRollupRepository().rebuild();
+            LOGGER.info("Dashboard rollups rebuilt");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error rebuilding the dashboard rollups", e);
+            System.exit(1);
+        } finally {
+            DatabaseConfig.shutdown();
+        }
+    }
+
+    /** Moves the uploaded documents into the content-addressed blob store, without starting the UI. */
+    private static void migrateDocuments() {
+        try {
+            new DocumentService().migrateToBlobStore();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error moving the documents to the blob store", e);
+            System.exit(1);
+        } finally {
+            DatabaseConfig.shutdown();
+        }
+    }
 }
@@ -12,10 +12,12 @@ import javafx.scene.control.*;
 import javafx.scene.text.Text;
 import org.cpi2.entities.AutoEcole;
 import org.cpi2.entities.Candidat;
+import org.cpi2.entities.DashboardSnapshot;
 import org.cpi2.entities.Seance;
 import org.cpi2.repository.DashboardRepository;
 import org.cpi2.service.DashboardService;
 import org.cpi2.utils.EventBus;
+import org.cpi2.utils.Events;
 
 import java.net.URL;
 import java.time.LocalDate;
@@ -61,11 +63,12 @@ public class AccueilPageController implements Initializable {
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         setupTableColumns();
-        loadStatistics();
+        DashboardSnapshot snapshot = dashboardService.getSnapshot();
+        loadStatistics(snapshot);
         loadUpcomingSessions();
         loadAutoEcoleInfo();
-        setupNotificationsDisplay();
-        setupDashboardCards();
+        setupNotificationsDisplay(snapshot);
+        setupDashboardCards(snapshot);
         setupProgressionChart();
         subscribeToEvents();
     }
@@ -110,10 +113,14 @@ public class AccueilPageController implements Initializable {
     }
 
     private void loadStatistics() {
+        loadStatistics(dashboardService.getSnapshot());
+    }
+
+    private void loadStatistics(DashboardSnapshot snapshot) {
         try {
-            candidateCountText.setText(String.valueOf(dashboardService.getCandidatesCount()));
-            sessionCountText.setText(String.valueOf(dashboardService.getSessionsCount()));
-            moniteurCountText.setText(String.valueOf(dashboardService.getMoniteursCount()));
+            candidateCountText.setText(String.valueOf(snapshot.getCandidatesCount()));
+            sessionCountText.setText(String.valueOf(snapshot.getSessionsCount()));
+            moniteurCountText.setText(String.valueOf(snapshot.getMoniteursCount()));
         } catch (Exception e) {
             System.err.println("Erreur lors du chargement des statistiques: " + e.getMessage());
             candidateCountText.setText("0");
@@ -147,7 +154,7 @@ public class AccueilPageController implements Initializable {
         }
     }
 
-    private void setupNotificationsDisplay() {
+    private void setupNotificationsDisplay(DashboardSnapshot snapshot) {
         try {
             notificationsListView.setCellFactory(lv -> {
                 ListCell<String> cell = new ListCell<>() {
@@ -170,15 +177,19 @@ public class AccueilPageController implements Initializable {
                 return cell;
             });
 
-            checkSystemNotifications();
+            checkSystemNotifications(snapshot);
         } catch (Exception e) {
             System.err.println("Erreur lors de la configuration des notifications: " + e.getMessage());
         }
     }
     
     private void checkSystemNotifications() {
+        checkSystemNotifications(dashboardService.getSnapshot());
+    }
+
+    private void checkSystemNotifications(DashboardSnapshot snapshot) {
         try {
-            List<String> notifications = dashboardService.getSystemNotifications();
+            List<String> notifications = dashboardService.getSystemNotifications(snapshot);
             ObservableList<String> systemNotifications = FXCollections.observableArrayList(notifications);
             if (systemNotifications.isEmpty()) {
                 systemNotifications.add("✅ Tout est en ordre. Aucune notification importante.");
@@ -192,21 +203,24 @@ public class AccueilPageController implements Initializable {
     }
 
     private void setupDashboardCards() {
+        setupDashboardCards(dashboardService.getSnapshot());
+    }
+
+    private void setupDashboardCards(DashboardSnapshot snapshot) {
         try {
-            double monthlyIncome = dashboardService.getMonthlyIncome();
+            double monthlyIncome = snapshot.getMonthlyIncome();
             monthlyIncomeText.setText(String.format("%,.0f", monthlyIncome));
-            double changePercent = dashboardService.getIncomeChangePercent();
+            double changePercent = dashboardService.getIncomeChangePercent(snapshot);
             incomeComparisonLabel.setText(String.format("%+.1f%% par rapport au mois précédent", changePercent));
             incomeProgress.setProgress(Math.min(1.0, monthlyIncome / 10000));
 
-            double successRate = dashboardService.getExamSuccessRate();
+            double successRate = dashboardService.getExamSuccessRate(snapshot);
             successRateText.setText(String.format("%.1f%%", successRate));
             successRateLabel.setText("Taux moyen sur 6 mois");
             successProgress.setProgress(successRate / 100);
 
-            int[] vehicleCounts = dashboardService.getVehicleCounts();
-            int availableVehicles = vehicleCounts[0];
-            int totalVehicles = vehicleCounts[1];
+            int availableVehicles = snapshot.getAvailableVehicles();
+            int totalVehicles = snapshot.getTotalVehicles();
             vehiclesAvailableText.setText(availableVehicles + "/" + totalVehicles);
             int inMaintenance = totalVehicles - availableVehicles;
             vehicleStatusLabel.setText(inMaintenance + " véhicule" + (inMaintenance > 1 ? "s" : "") + " en maintenance");
@@ -242,25 +256,32 @@ public class AccueilPageController implements Initializable {
     }
 
     private void subscribeToEvents() {
-        EventBus.subscribe("CANDIDAT_UPDATED", event -> loadStatistics());
-        EventBus.subscribe("SEANCE_UPDATED", event -> {
-            loadStatistics();
-            loadUpcomingSessions();
-            checkSystemNotifications();
-            setupProgressionChart();
+        EventBus.subscribe(this, Events.CandidatUpdated.class, EventBus.Delivery.FX,
+                (page, event) -> page.loadStatistics());
+        EventBus.subscribe(this, Events.SeanceUpdated.class, EventBus.Delivery.FX, (page, event) -> {
+            DashboardSnapshot snapshot = page.dashboardService.getSnapshot();
+            page.loadStatistics(snapshot);
+            page.loadUpcomingSessions();
+            page.checkSystemNotifications(snapshot);
+            page.setupProgressionChart();
         });
-        EventBus.subscribe("MONITEUR_UPDATED", event -> loadStatistics());
-        EventBus.subscribe("NOTIFICATION_ADDED", event -> checkSystemNotifications());
-        EventBus.subscribe("autoecole_UPDATED", event -> {
-            if (event instanceof AutoEcole autoEcole) {
-                schoolNameLabel.setText(autoEcole.getNom());
-                schoolAddressLabel.setText(autoEcole.getAdresse());
-                schoolPhoneLabel.setText(autoEcole.getTelephone());
-                schoolEmailLabel.setText(autoEcole.getEmail());
+        EventBus.subscribe(this, Events.MoniteurUpdated.class, EventBus.Delivery.FX,
+                (page, event) -> page.loadStatistics());
+        EventBus.subscribe(this, Events.NotificationAdded.class, EventBus.Delivery.FX,
+                (page, event) -> page.checkSystemNotifications());
+        EventBus.subscribe(this, Events.AutoEcoleUpdated.class, EventBus.Delivery.FX, (page, event) -> {
+            AutoEcole autoEcole = event.autoEcole();
+            if (autoEcole != null) {
+                page.schoolNameLabel.setText(autoEcole.getNom());
+                page.schoolAddressLabel.setText(autoEcole.getAdresse());
+                page.schoolPhoneLabel.setText(autoEcole.getTelephone());
+                page.schoolEmailLabel.setText(autoEcole.getEmail());
             }
         });
-        EventBus.subscribe("FINANCE_UPDATED", event -> setupDashboardCards());
-        EventBus.subscribe("VEHICLE_UPDATED", event -> setupDashboardCards());
+        EventBus.subscribe(this, Events.FinanceUpdated.class, EventBus.Delivery.FX,
+                (page, event) -> page.setupDashboardCards());
+        EventBus.subscribe(this, Events.VehicleUpdated.class, EventBus.Delivery.FX,
+                (page, event) -> page.setupDashboardCards());
     }
 
     @FXML public void loadAfficherCandidat() { MainWindowNavigator.loadAfficherCandidat(); }
@@ -4,21 +4,24 @@ import org.cpi2.entities.Candidat;
 import org.cpi2.entities.Document;
 import org.cpi2.entities.Dossier;
 import org.cpi2.entities.TypeDocument;
+import org.cpi2.service.CandidatImportService;
 import org.cpi2.service.CandidatService;
 import org.cpi2.service.DocumentService;
 import org.cpi2.service.DossierService;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.ThumbnailCache;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.util.Duration;
 
 import java.awt.Desktop;
 import java.io.File;
@@ -29,8 +32,16 @@ import java.time.chrono.ChronoLocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class AfficherCandidat {
+    private static final Logger LOGGER = Logger.getLogger(AfficherCandidat.class.getName());
+
     @FXML
     private ListView<Candidat> candidatListView;
     @FXML
@@ -77,11 +88,38 @@ public class AfficherCandidat {
     @FXML
     private VBox detailsContainer;
 
-    private ObservableList<Candidat> candidatsList = FXCollections.observableArrayList();
-    private FilteredList<Candidat> filteredCandidats;
+    @FXML
+    private Button previousPageButton;
+
+    @FXML
+    private Button nextPageButton;
+
+    @FXML
+    private Label pageLabel;
+    @FXML
+    private Button importButton;
+
+    private static final int PAGE_SIZE = 50;
+    private static final int MAX_REPORTED_ERRORS = 15;
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(250);
+
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "candidat-search");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private String currentQuery = "";
+    private int currentPage = 0;
+    private int pageCount = 1;
     private final CandidatService candidatService = new CandidatService();
     private final DocumentService documentService = new DocumentService();
     private final DossierService dossierService = new DossierService();
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+    // Bumped on every search so a slow page does not replace a newer one
+    private final AtomicLong searchGeneration = new AtomicLong();
+    // Bumped on every selection so a late photo does not replace the current one
+    private long photoGeneration;
     private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     public void initialize() {
@@ -112,52 +150,120 @@ public class AfficherCandidat {
     }
 
     private void setupSearch() {
-        filteredCandidats = new FilteredList<>(candidatsList, p -> true);
-
+        searchDebounce.setOnFinished(e -> showPage(0));
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredCandidats.setPredicate(candidat -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-
-                String lowerCaseFilter = newValue.toLowerCase();
-
-                if (candidat.getNom().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (candidat.getPrenom().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (candidat.getCin().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (candidat.getTelephone().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                }
-                return false;
-            });
-
-            candidatListView.setItems(filteredCandidats);
+            currentQuery = newValue == null ? "" : newValue;
+            searchDebounce.playFromStart();
         });
     }
 
+    /** Lists the first page; the search catches the index up with other desks' changes first. */
     @FXML
     private void loadCandidats() {
-        try {
-            List<Candidat> loadedCandidats = candidatService.getAllCandidats();
+        showPage(0);
+    }
 
-            if (loadedCandidats != null && !loadedCandidats.isEmpty()) {
-                candidatsList.clear();
-                candidatsList.addAll(loadedCandidats);
-                candidatListView.setItems(candidatsList);
+    @FXML
+    private void handleImportCsv() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Importer des candidats");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichiers CSV", "*.csv"));
+        File file = fileChooser.showOpenDialog(candidatListView.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
 
-                if (!candidatsList.isEmpty()) {
-                    candidatListView.getSelectionModel().select(0);
-                    displayCandidatDetails(candidatsList.get(0));
-                }
-            } else {
-                clearCandidatDetails();
+        importButton.setDisable(true);
+        Thread thread = new Thread(() -> {
+            try {
+                CandidatImportService.ImportReport report =
+                        new CandidatImportService(candidatService).importCsv(file.toPath());
+                Platform.runLater(() -> {
+                    showImportReport(report);
+                    showPage(0);
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> AlertUtil.showError("Erreur d'import", "Import impossible: " + e.getMessage()));
+            } finally {
+                Platform.runLater(() -> importButton.setDisable(false));
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            AlertUtil.showError( "Loading Error", "Failed to load candidates: " + e.getMessage());
+        }, "candidat-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void showImportReport(CandidatImportService.ImportReport report) {
+        String summary = report.imported() + " candidat(s) importé(s) sur " + report.rows() + " ligne(s).";
+        if (report.errors().isEmpty()) {
+            AlertUtil.showSuccess("Import terminé", summary);
+            return;
+        }
+        StringBuilder details = new StringBuilder(summary)
+                .append("\n").append(report.errors().size()).append(" ligne(s) rejetée(s):");
+        for (CandidatImportService.RowError error : report.errors().subList(0, Math.min(MAX_REPORTED_ERRORS, report.errors().size()))) {
+            details.append("\nLigne ").append(error.line());
+            if (error.cin() != null && !error.cin().isEmpty()) {
+                details.append(" (CIN ").append(error.cin()).append(")");
+            }
+            details.append(": ").append(error.message());
+        }
+        if (report.errors().size() > MAX_REPORTED_ERRORS) {
+            details.append("\n... et ").append(report.errors().size() - MAX_REPORTED_ERRORS).append(" autre(s)");
+        }
+        AlertUtil.showWarning("Import terminé avec des erreurs", details.toString());
+    }
+
+    @FXML
+    private void handlePreviousPage() {
+        if (currentPage > 0) {
+            showPage(currentPage - 1);
+        }
+    }
+
+    @FXML
+    private void handleNextPage() {
+        if (currentPage + 1 < pageCount) {
+            showPage(currentPage + 1);
+        }
+    }
+
+    /** Searches in the background, then shows the page unless a newer search was started meanwhile. */
+    private void showPage(int page) {
+        String query = currentQuery;
+        long current = searchGeneration.incrementAndGet();
+
+        CompletableFuture
+                .supplyAsync(() -> current == searchGeneration.get()
+                        ? candidatService.searchCandidats(query, page, PAGE_SIZE)
+                        : null, SEARCH_EXECUTOR)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        LOGGER.log(Level.SEVERE, "Error searching candidats for '" + query + "'", error);
+                        Platform.runLater(() -> AlertUtil.showError("Loading Error", "Failed to load candidates: " + error.getMessage()));
+                        return;
+                    }
+                    if (result != null) {
+                        Platform.runLater(() -> showResult(current, result));
+                    }
+                });
+    }
+
+    private void showResult(long searchGeneration, CandidatService.SearchPage result) {
+        if (searchGeneration != this.searchGeneration.get()) {
+            return;
+        }
+        currentPage = result.page();
+        pageCount = result.pageCount();
+
+        candidatListView.setItems(FXCollections.observableArrayList(result.candidats()));
+        pageLabel.setText("Page " + (currentPage + 1) + " / " + pageCount + " (" + result.total() + " candidats)");
+        previousPageButton.setDisable(currentPage == 0);
+        nextPageButton.setDisable(currentPage + 1 >= pageCount);
+
+        if (!result.candidats().isEmpty()) {
+            candidatListView.getSelectionModel().select(0);
+        } else {
+            clearCandidatDetails();
         }
     }
 
@@ -206,40 +312,26 @@ public class AfficherCandidat {
     }
 
     private void loadCandidatPhoto(Candidat candidat) {
-        try {
-            String photoPath = "path/to/default/profile.png";
-            if(dossierService.getDossierByCandidat(candidat.getCin()).isPresent()){
-                Dossier dossier = dossierService.getDossierByCandidat(candidat.getCin()).get();
-                candidat.setDossier(dossier);
-            }
+        long generation = ++photoGeneration;
+        candidatPhoto.setImage(ThumbnailCache.placeholder(ThumbnailCache.AVATAR_SIZE));
 
-            for(Map.Entry<TypeDocument, TreeSet<Document>> entry : candidat.getDossier().getDocuments().entrySet()){
-                for(Document doc : entry.getValue()){
-                    if(doc.getTypeDocument() == TypeDocument.PHOTO){
-                        photoPath = doc.getCheminFichier();
-                        break;
-                    }
-                }
+        Document photo = null;
+        if (candidat.getDossier() != null) {
+            TreeSet<Document> photos = candidat.getDossier().getDocuments().get(TypeDocument.PHOTO);
+            if (photos != null && !photos.isEmpty()) {
+                photo = photos.last();
             }
+        }
+        if (photo == null) {
+            return;
+        }
 
-            File photoFile = new File(photoPath);
-            photoPath = photoFile.toURI().toString();
-            Image image = new Image(photoPath, true);
-            candidatPhoto.setImage(image);
-
-            if (image.isError()) {
-                Image defaultImage = new Image(getClass().getResourceAsStream("/images/default_profile.png"));
-                candidatPhoto.setImage(defaultImage);
+        ThumbnailCache.thumbnail(photo, ThumbnailCache.AVATAR_SIZE).thenAccept(image -> Platform.runLater(() -> {
+            // Another candidat may have been selected meanwhile
+            if (generation == photoGeneration) {
+                image.ifPresent(candidatPhoto::setImage);
             }
-        } catch (Exception e) {
-            System.err.println("Erreur lors du chargement de la photo: " + e.getMessage());
-            try {
-                Image defaultImage = new Image(getClass().getResourceAsStream("/images/default_profile.png"));
-                candidatPhoto.setImage(defaultImage);
-            } catch (Exception ex) {
-                System.err.println("Impossible de charger l'image par défaut: " + ex.getMessage());
-            }
-        }
+        }));
     }
 
     private void loadCandidatDocuments(Candidat candidat) {
@@ -248,10 +340,8 @@ public class AfficherCandidat {
             Dossier dossier = candidat.getDossier();
 
             if (dossier == null) {
-                if(dossierService.getDossierByCandidat(candidat.getCin()).isPresent()){
-                    dossier = dossierService.getDossierByCandidat(candidat.getCin()).get();
-                    candidat.setDossier(dossier);
-                }
+                dossier = dossierService.getDossierByCandidat(candidat.getCin()).orElse(null);
+                candidat.setDossier(dossier);
             }
             String actifDate= "";
             ChronoLocalDateTime minDate = LocalDateTime.now();
@@ -417,6 +507,18 @@ public class AfficherCandidat {
         infoBox.getChildren().addAll(titleLabel, dateLabel);
         docItem.getChildren().addAll(iconLabel, infoBox);
 
+        if (ThumbnailCache.isImage(document)) {
+            // The icon stays until the preview is ready
+            ThumbnailCache.thumbnail(document, ThumbnailCache.PREVIEW_SIZE).thenAccept(image -> image.ifPresent(preview ->
+                    Platform.runLater(() -> {
+                        ImageView previewView = new ImageView(preview);
+                        previewView.setFitWidth(40);
+                        previewView.setFitHeight(40);
+                        previewView.setPreserveRatio(true);
+                        docItem.getChildren().set(0, previewView);
+                    })));
+        }
+
         return docItem;
     }
 
@@ -455,6 +557,7 @@ public class AfficherCandidat {
         dateNaissanceLabel.setText("--");
         typePermisLabel.setText("--");
 
+        photoGeneration++;
         candidatPhoto.setImage(null);
         clearDocumentContainers();
     }
@@ -1,7 +1,6 @@
 package org.cpi2.controllers;
 
 import org.cpi2.entities.*;
-import org.cpi2.entities.Moniteur;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -218,15 +217,15 @@ public class AfficherSeance {
     private void loadMoniteurs() {
         try {
             
-            List<Moniteur> moniteursList = moniteurService.getAllMoniteurs();
+            List<MoniteurSummary> moniteursList = moniteurService.getMoniteurSummaries();
             
             ObservableList<String> moniteurs = FXCollections.observableArrayList();
             moniteurs.add("Tous les moniteurs"); 
             
             if (moniteursList != null && !moniteursList.isEmpty()) {
                 
-                for (Moniteur moniteur : moniteursList) {
-                    moniteurs.add(moniteur.getId() + " - " + moniteur.getNom() + " " + moniteur.getPrenom());
+                for (MoniteurSummary moniteur : moniteursList) {
+                    moniteurs.add(moniteur.id() + " - " + moniteur.fullName());
                 }
             }
             
@@ -18,37 +18,11 @@ import java.sql.Date;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 public class AjouterCandidat {
     private final CandidatService candidatService = new CandidatService();
     private final InscriptionService inscriptionService = new InscriptionService();
 
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@([A-Za-z0-9-]+\\.)+[A-Za-z]{2,}$");
-    private static final Pattern PHONE_PATTERN = Pattern.compile("^[0-9]{8}$");
-    private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Za-zÀ-ÿ\\s]+$");
-    private static final Pattern CIN_PATTERN = Pattern.compile("^[0-9]{8,}$");
-
-    private boolean isValidEmail(String email) {
-        return email != null && EMAIL_PATTERN.matcher(email).matches();
-    }
-
-    private boolean isValidPhone(String phone) {
-        return phone != null && PHONE_PATTERN.matcher(phone).matches();
-    }
-
-    private boolean isValidName(String name) {
-        return name != null && NAME_PATTERN.matcher(name).matches();
-    }
-
-    private boolean isValidCIN(String cin) {
-        return cin != null && CIN_PATTERN.matcher(cin).matches();
-    }
-    
-    private boolean isValidAddress(String address) {
-        return address != null && address.length() >= 10;
-    }
-
     @FXML private TextField nomField;
     @FXML private TextField prenomField;
     @FXML private TextField cinField;
@@ -85,35 +59,31 @@ public class AjouterCandidat {
         setupValidation();
     }
     
-    private boolean isValidBirthDate(LocalDate date) {
-        return date != null && !date.isAfter(LocalDate.now());
-    }
-    
     private void setupValidation() {
 
         ValidationUtils.addValidation(nomField, 
             text -> !text.trim().isEmpty(), 
             "Le nom est obligatoire", 1);
         ValidationUtils.addValidation(nomField, 
-            this::isValidName, 
+            ValidationUtils::isValidName, 
             "Le nom ne doit contenir que des lettres et des espaces", 2);
 
         ValidationUtils.addValidation(birthDatePicker,
-            this::isValidBirthDate,
+            ValidationUtils::isValidBirthDate,
             "La date de naissance ne peut pas être dans le futur", 1);
 
         ValidationUtils.addValidation(prenomField, 
             text -> !text.trim().isEmpty(), 
             "Le prénom est obligatoire", 1);
         ValidationUtils.addValidation(prenomField, 
-            this::isValidName, 
+            ValidationUtils::isValidName, 
             "Le prénom ne doit contenir que des lettres et des espaces", 2);
 
         ValidationUtils.addValidation(cinField, 
             text -> !text.trim().isEmpty(), 
             "Le CIN est obligatoire", 1);
         ValidationUtils.addValidation(cinField, 
-            this::isValidCIN, 
+            ValidationUtils::isValidCIN, 
             "Le CIN doit contenir au moins 8 chiffres et ne doit contenir que des chiffres", 2);
 
         ValidationUtils.<String>addValidation(typeComboBox,
@@ -124,18 +94,18 @@ public class AjouterCandidat {
             text -> !text.trim().isEmpty(), 
             "L'adresse est obligatoire", 1);
         ValidationUtils.addValidation(addressField,
-                this::isValidAddress,
+                ValidationUtils::isValidAddress,
             "L'adresse doit contenir au moins 10 caractères", 2);
 
         ValidationUtils.addValidation(phoneField, 
             text -> !text.trim().isEmpty(), 
             "Le numéro de téléphone est obligatoire", 1);
         ValidationUtils.addValidation(phoneField, 
-            this::isValidPhone, 
+            ValidationUtils::isValidPhone, 
             "Le numéro de téléphone doit contenir exactement 8 chiffres", 2);
 
         ValidationUtils.addValidation(emailField, 
-            text -> text.trim().isEmpty() || isValidEmail(text), 
+            text -> text.trim().isEmpty() || ValidationUtils.isValidEmail(text), 
             "L'adresse email n'est pas valide", 1);
     }
 
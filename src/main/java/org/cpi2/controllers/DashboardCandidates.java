@@ -19,8 +19,9 @@ import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.cpi2.repository.DatabaseConfig;
+import org.cpi2.repository.DailyRollupRepository;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.DashboardLoader;
 
 
 public class DashboardCandidates implements Initializable {
@@ -64,6 +65,8 @@ public class DashboardCandidates implements Initializable {
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private LocalDate filterStartDate;
     private LocalDate filterEndDate;
+    private final DashboardLoader dashboardLoader = new DashboardLoader("candidates");
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
     
     
     @Override
@@ -90,7 +93,6 @@ public class DashboardCandidates implements Initializable {
         System.out.println("Date range set to: " + firstDay + " to " + now);
         
         loadChartData();
-        loadTableData();
         
         periodCombo.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             updateDateRange(newVal);
@@ -139,7 +141,6 @@ public class DashboardCandidates implements Initializable {
         }
 
         loadChartData();
-        loadTableData();
     }
     
     
@@ -189,117 +190,94 @@ public class DashboardCandidates implements Initializable {
     
     
     private void loadChartData() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            loadKPIData(conn);
-            loadRegistrationChartData(conn);
-            loadAgeDistributionChartData(conn);
-            loadAttendanceChartData(conn);
-            loadExamResultsChartData(conn);
-        } catch (SQLException e) {
-            e.printStackTrace();
-            AlertUtil.showError("Erreur de base de données", "Impossible de charger les données: " + e.getMessage());
-        }
+        dashboardLoader.batch()
+            .panel("kpi", DashboardLoader.withConnection(this::loadKPIData))
+            .panel("registrations", this::loadRegistrationChartData)
+            .panel("ageDistribution", DashboardLoader.withConnection(this::loadAgeDistributionChartData))
+            .panel("attendance", DashboardLoader.withConnection(this::loadAttendanceChartData))
+            .panel("examResults", DashboardLoader.withConnection(this::loadExamResultsChartData))
+            .panel("recentCandidates", DashboardLoader.withConnection(this::loadTableData))
+            .onError(() -> AlertUtil.showError("Erreur de base de données", "Impossible de charger les données du tableau de bord"))
+            .submit();
     }
     
     
-    private void loadKPIData(Connection conn) throws SQLException {
+    private Runnable loadKPIData(Connection conn) throws SQLException {
 
         String totalSql = "SELECT COUNT(*) as total FROM candidat";
 
-        String newSql = "SELECT COUNT(*) as nouveaux FROM candidat WHERE created_at BETWEEN ? AND ?";
-
         String activeSql = "SELECT COUNT(DISTINCT c.id) as actifs FROM candidat c " +
                           "JOIN inscription i ON c.cin = i.cin " +
                           "WHERE i.statut = 'En Cours'";
 
         String completedExamsSql = "SELECT COUNT(DISTINCT candidat_id) as completed FROM examen WHERE resultat = 1";
 
+        int total = 0;
+        int nouveaux = (int) rollups.total(DailyRollupRepository.Metric.REGISTRATIONS, filterStartDate, filterEndDate);
+        int actifs = 0;
+        int completed = 0;
+
         try (Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(totalSql)) {
             if (rs.next()) {
-                int total = rs.getInt("total");
-                totalCandidatsLabel.setText(String.valueOf(total));
-            }
-        }
-        
-        try (PreparedStatement pstmt = conn.prepareStatement(newSql)) {
-
-            pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    int nouveaux = rs.getInt("nouveaux");
-                    newCandidatsLabel.setText(String.valueOf(nouveaux));
-                }
+                total = rs.getInt("total");
             }
         }
         
         try (Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(activeSql)) {
             if (rs.next()) {
-                int actifs = rs.getInt("actifs");
-                activeCandidatsLabel.setText(String.valueOf(actifs));
+                actifs = rs.getInt("actifs");
             }
         }
         
         try (Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(completedExamsSql)) {
             if (rs.next()) {
-                int completed = rs.getInt("completed");
-                int total = Integer.parseInt(totalCandidatsLabel.getText());
-                int completionRate = total > 0 ? (completed * 100) / total : 0;
-                completionRateLabel.setText(completionRate + "%");
+                completed = rs.getInt("completed");
             }
         }
 
-
-        candidatsChangeLabel.setText("+12% vs période précédente");
-        newCandidatsChangeLabel.setText("+8% vs période précédente");
-        completionChangeLabel.setText("+5% vs période précédente");
-        activeChangeLabel.setText("+3% vs période précédente");
+        int finalTotal = total;
+        int finalNouveaux = nouveaux;
+        int finalActifs = actifs;
+        int completionRate = total > 0 ? (completed * 100) / total : 0;
+        return () -> {
+            totalCandidatsLabel.setText(String.valueOf(finalTotal));
+            newCandidatsLabel.setText(String.valueOf(finalNouveaux));
+            activeCandidatsLabel.setText(String.valueOf(finalActifs));
+            completionRateLabel.setText(completionRate + "%");
+
+            candidatsChangeLabel.setText("+12% vs période précédente");
+            newCandidatsChangeLabel.setText("+8% vs période précédente");
+            completionChangeLabel.setText("+5% vs période précédente");
+            activeChangeLabel.setText("+3% vs période précédente");
+        };
     }
     
     
-    private void loadRegistrationChartData(Connection conn) throws SQLException {
+    private Runnable loadRegistrationChartData() {
         XYChart.Series<String, Number> registrationSeries = new XYChart.Series<>();
         registrationSeries.setName("Inscriptions");
-        
-        String sql = "SELECT DATE_FORMAT(date_inscription, '%d/%m') as date, COUNT(*) as count " +
-                    "FROM inscription WHERE date_inscription BETWEEN ? AND ? " +
-                    "GROUP BY DATE_FORMAT(date_inscription, '%d/%m') " +
-                    "ORDER BY date_inscription";
-        
-        Map<String, Integer> registrationByDate = new HashMap<>();
-        
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    String date = rs.getString("date");
-                    int count = rs.getInt("count");
-                    registrationByDate.put(date, count);
-                }
-            }
-        }
-        
-        if (!registrationByDate.isEmpty()) {
-            for (Map.Entry<String, Integer> entry : registrationByDate.entrySet()) {
-                registrationSeries.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
-            }
-        } else {
 
-            registrationSeries.getData().add(new XYChart.Data<>(filterStartDate.format(DateTimeFormatter.ofPattern("dd/MM")), 0));
+        Map<LocalDate, Double> registrationByDay =
+                rollups.daily(DailyRollupRepository.Metric.INSCRIPTIONS, filterStartDate, filterEndDate);
+        DateTimeFormatter dayFormat = DateTimeFormatter.ofPattern("dd/MM");
+        for (Map.Entry<LocalDate, Double> entry : registrationByDay.entrySet()) {
+            registrationSeries.getData().add(new XYChart.Data<>(entry.getKey().format(dayFormat), entry.getValue().intValue()));
+        }
+        if (registrationByDay.isEmpty()) {
+            registrationSeries.getData().add(new XYChart.Data<>(filterStartDate.format(dayFormat), 0));
         }
         
-        registrationChart.getData().clear();
-        registrationChart.getData().add(registrationSeries);
+        return () -> {
+            registrationChart.getData().clear();
+            registrationChart.getData().add(registrationSeries);
+        };
     }
     
     
-    private void loadAgeDistributionChartData(Connection conn) throws SQLException {
+    private Runnable loadAgeDistributionChartData(Connection conn) throws SQLException {
         Map<String, Integer> ageGroups = new HashMap<>();
         ageGroups.put("<18 ans", 0);
         ageGroups.put("18-20 ans", 0);
@@ -324,8 +302,7 @@ public class DashboardCandidates implements Initializable {
                     if (total == 0) {
                         ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
                         pieChartData.add(new PieChart.Data("Aucune donnée", 1));
-                        ageDistributionChart.setData(pieChartData);
-                        return;
+                        return () -> ageDistributionChart.setData(pieChartData);
                     }
                 }
             }
@@ -472,19 +449,21 @@ public class DashboardCandidates implements Initializable {
             System.out.println("Total candidates shown in chart: " + totalShown);
         }
 
-        ageDistributionChart.setData(pieChartData);
-        ageDistributionChart.setTitle("Répartition par Âge");
-        ageDistributionChart.setLegendVisible(true);
-        ageDistributionChart.setLabelsVisible(true);
-
-        pieChartData.forEach(data -> {
-            Tooltip tooltip = new Tooltip(data.getName() + ": " + (int)data.getPieValue() + " candidat(s)");
-            Tooltip.install(data.getNode(), tooltip);
-        });
+        return () -> {
+            ageDistributionChart.setData(pieChartData);
+            ageDistributionChart.setTitle("Répartition par Âge");
+            ageDistributionChart.setLegendVisible(true);
+            ageDistributionChart.setLabelsVisible(true);
+
+            pieChartData.forEach(data -> {
+                Tooltip tooltip = new Tooltip(data.getName() + ": " + (int)data.getPieValue() + " candidat(s)");
+                Tooltip.install(data.getNode(), tooltip);
+            });
+        };
     }
     
     
-    private void loadAttendanceChartData(Connection conn) throws SQLException {
+    private Runnable loadAttendanceChartData(Connection conn) throws SQLException {
 
         Map<String, Integer> attendanceData = new HashMap<>();
         attendanceData.put("Code", 0);
@@ -580,12 +559,14 @@ public class DashboardCandidates implements Initializable {
             attendanceSeries.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
         }
         
-        attendanceChart.getData().clear();
-        attendanceChart.getData().add(attendanceSeries);
+        return () -> {
+            attendanceChart.getData().clear();
+            attendanceChart.getData().add(attendanceSeries);
+        };
     }
     
     
-    private void loadExamResultsChartData(Connection conn) throws SQLException {
+    private Runnable loadExamResultsChartData(Connection conn) throws SQLException {
         Map<String, Integer> passData = new HashMap<>();
         passData.put("Code", 0);
         passData.put("Conduite", 0);
@@ -655,12 +636,14 @@ public class DashboardCandidates implements Initializable {
             failSeries.getData().add(new XYChart.Data<>(examType, failData.get(examType)));
         }
         
-        examResultsChart.getData().clear();
-        examResultsChart.getData().addAll(passSeries, failSeries);
+        return () -> {
+            examResultsChart.getData().clear();
+            examResultsChart.getData().addAll(passSeries, failSeries);
+        };
     }
     
     
-    private void loadTableData() {
+    private Runnable loadTableData(Connection conn) throws SQLException {
         ObservableList<CandidateEntry> candidateData = FXCollections.observableArrayList();
         
         System.out.println("Loading table data for date range: " + filterStartDate + " to " + filterEndDate);
@@ -675,8 +658,7 @@ public class DashboardCandidates implements Initializable {
                    "WHERE c.created_at BETWEEN ? AND ? OR c.created_at IS NULL " +
                    "ORDER BY c.created_at DESC LIMIT 10";
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
             pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
@@ -707,13 +689,9 @@ public class DashboardCandidates implements Initializable {
                 candidateData.add(new CandidateEntry(1L, "Aucune donnée trouvée", 0, "", "", "Inactif", ""));
                 System.out.println("No candidates found for the selected date range");
             }
-            
-            recentCandidatesTable.setItems(candidateData);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            AlertUtil.showError("Erreur de base de données", "Impossible de charger les données des candidats: " + e.getMessage());
         }
+        
+        return () -> recentCandidatesTable.setItems(candidateData);
     }
     
 
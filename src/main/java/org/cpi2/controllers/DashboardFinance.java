@@ -1,6 +1,5 @@
 package org.cpi2.controllers;
 
-import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -21,9 +20,10 @@ import java.util.Set;
 import java.util.List;
 import java.util.ArrayList;
 
+import org.cpi2.repository.DailyRollupRepository;
 import org.cpi2.repository.DatabaseConfig;
-import org.cpi2.service.EntretienService;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.DashboardLoader;
 
 public class DashboardFinance implements Initializable {
 
@@ -64,6 +64,8 @@ public class DashboardFinance implements Initializable {
     private LocalDate filterStartDate;
     private LocalDate filterEndDate;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private final DashboardLoader dashboardLoader = new DashboardLoader("finance");
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -89,14 +91,7 @@ public class DashboardFinance implements Initializable {
 
         initializeEmptyCharts();
 
-        Platform.runLater(() -> {
-            try {
-                loadChartData();
-            } catch (Exception e) {
-                e.printStackTrace();
-                AlertUtil.showError("Erreur de chargement", "Impossible de charger les données: " + e.getMessage());
-            }
-        });
+        loadChartData();
 
         periodCombo.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             updateDateRange(newVal);
@@ -172,33 +167,12 @@ public class DashboardFinance implements Initializable {
         netProfitLabel.setText("Chargement...");
         newStudentsLabel.setText("Chargement...");
 
-        Platform.runLater(() -> {
-            try {
-                loadChartData();
-            } catch (Exception e) {
-                e.printStackTrace();
-
-                Platform.runLater(() -> {
-                    totalRevenueLabel.setText("0.00 DT");
-                    totalExpensesLabel.setText("0.00 DT");
-                    netProfitLabel.setText("0.00 DT");
-                    newStudentsLabel.setText("0");
-                });
-            }
-        });
+        loadChartData();
     }
     
     private void loadChartData() {
-
-        List<Exception> criticalErrors = new ArrayList<>();
-
-
-        try {
-            loadKPIData();
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            Platform.runLater(() -> {
+        dashboardLoader.batch()
+            .panel("kpi", this::loadKPIData, () -> {
                 totalRevenueLabel.setText("0.00 DT");
                 totalExpensesLabel.setText("0.00 DT");
                 netProfitLabel.setText("0.00 DT");
@@ -207,220 +181,47 @@ public class DashboardFinance implements Initializable {
                 expensesChangeLabel.setText("--% vs période précédente");
                 profitChangeLabel.setText("--% vs période précédente");
                 studentsChangeLabel.setText("--% vs période précédente");
-            });
-        }
-        
-        try {
-            loadRevenueChartData();
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            Platform.runLater(() -> {
+            })
+            .panel("revenue", this::loadRevenueChartData, () -> {
                 revenueChart.getData().clear();
                 XYChart.Series<String, Number> emptySeries = new XYChart.Series<>();
                 emptySeries.setName("Revenus");
                 revenueChart.getData().add(emptySeries);
-            });
-        }
-        
-        try {
-            loadExpensesBreakdownData();
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            Platform.runLater(() -> {
+            })
+            .panel("expenses", this::loadExpensesBreakdownData, () -> {
                 ObservableList<PieChart.Data> emptyData = FXCollections.observableArrayList();
                 emptyData.add(new PieChart.Data("Aucune dépense", 1));
                 expensesPieChart.setData(emptyData);
-            });
-        }
-        
-        try {
-            loadRevenueByServiceData();
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            Platform.runLater(() -> {
+            })
+            .panel("revenueByService", this::loadRevenueByServiceData, () -> {
                 revenueByServiceChart.getData().clear();
                 XYChart.Series<String, Number> emptySeries = new XYChart.Series<>();
                 emptySeries.setName("Revenus par Service");
                 revenueByServiceChart.getData().add(emptySeries);
-            });
-        }
-        
-        try {
-            loadMonthlyComparisonData();
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            Platform.runLater(() -> {
+            })
+            .panel("monthlyComparison", this::loadMonthlyComparisonData, () -> {
                 monthlyComparisonChart.getData().clear();
                 XYChart.Series<String, Number> emptySeries = new XYChart.Series<>();
                 emptySeries.setName("Comparaison Mensuelle");
                 monthlyComparisonChart.getData().add(emptySeries);
-            });
-        }
-        
-        try {
-            loadTransactionsData();
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            Platform.runLater(() -> {
-                transactionsTable.setItems(FXCollections.observableArrayList());
-            });
-        }
-
-        if (!criticalErrors.isEmpty()) {
-            Platform.runLater(() -> {
-                AlertUtil.showError("Erreur", "Erreur critique lors du chargement des données financières.");
-            });
-        }
+            })
+            .panel("transactions", this::loadTransactionsData,
+                () -> transactionsTable.setItems(FXCollections.observableArrayList()))
+            .submit();
     }
     
-    private void loadKPIData() {
-
-
-        String revenueSql = "SELECT SUM(montant) as total_revenue FROM paiement " +
-                           "WHERE date_paiement BETWEEN ? AND ?";
-
-        String expensesSql = "SELECT SUM(cout) as total_expenses FROM entretien " +
-                           "WHERE date_entretien BETWEEN ? AND ?";
-
-        String newStudentsSql = "SELECT COUNT(*) as new_students FROM inscription " +
-                              "WHERE date_inscription BETWEEN ? AND ?";
+    private Runnable loadKPIData() {
 
         LocalDate prevPeriodEndDate = filterStartDate.minusDays(1);
         int daysBetween = (int) java.time.temporal.ChronoUnit.DAYS.between(filterStartDate, filterEndDate);
         LocalDate prevPeriodStartDate = prevPeriodEndDate.minusDays(daysBetween);
-        
-        double totalRevenue = 0;
-        double prevRevenue = 0;
-        double totalExpenses = 0;
-        double prevExpenses = 0;
-        int newStudents = 0;
-        int prevStudents = 0;
 
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(revenueSql)) {
-            
-            pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next() && !rs.wasNull()) {
-                    totalRevenue = rs.getDouble("total_revenue");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-
-        }
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(revenueSql)) {
-            
-            pstmt.setDate(1, java.sql.Date.valueOf(prevPeriodStartDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(prevPeriodEndDate));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next() && !rs.wasNull()) {
-                    prevRevenue = rs.getDouble("total_revenue");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-
-        }
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(expensesSql)) {
-            
-            pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next() && !rs.wasNull()) {
-                    totalExpenses = rs.getDouble("total_expenses");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-
-        }
-
-        try {
-            EntretienService entretienService = new EntretienService();
-            double serviceTotalCost = entretienService.getTotalCost(filterStartDate, filterEndDate);
-            
-            if (serviceTotalCost > 0) {
-                totalExpenses = serviceTotalCost;
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-
-        }
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(expensesSql)) {
-            
-            pstmt.setDate(1, java.sql.Date.valueOf(prevPeriodStartDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(prevPeriodEndDate));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next() && !rs.wasNull()) {
-                    prevExpenses = rs.getDouble("total_expenses");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-
-        }
-
-        try {
-            EntretienService entretienService = new EntretienService();
-            double prevServiceCost = entretienService.getTotalCost(prevPeriodStartDate, prevPeriodEndDate);
-            
-            if (prevServiceCost > 0) {
-                prevExpenses = prevServiceCost;
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-
-        }
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(newStudentsSql)) {
-            
-            pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    newStudents = rs.getInt("new_students");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-
-        }
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(newStudentsSql)) {
-            
-            pstmt.setDate(1, java.sql.Date.valueOf(prevPeriodStartDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(prevPeriodEndDate));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    prevStudents = rs.getInt("new_students");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-
-        }
+        double totalRevenue = rollups.total(DailyRollupRepository.Metric.REVENUE, filterStartDate, filterEndDate);
+        double prevRevenue = rollups.total(DailyRollupRepository.Metric.REVENUE, prevPeriodStartDate, prevPeriodEndDate);
+        double totalExpenses = rollups.total(DailyRollupRepository.Metric.MAINTENANCE_COST, filterStartDate, filterEndDate);
+        double prevExpenses = rollups.total(DailyRollupRepository.Metric.MAINTENANCE_COST, prevPeriodStartDate, prevPeriodEndDate);
+        int newStudents = (int) rollups.total(DailyRollupRepository.Metric.INSCRIPTIONS, filterStartDate, filterEndDate);
+        int prevStudents = (int) rollups.total(DailyRollupRepository.Metric.INSCRIPTIONS, prevPeriodStartDate, prevPeriodEndDate);
 
         try (Connection conn = DatabaseConfig.getConnection();
              Statement stmt = conn.createStatement();
@@ -472,7 +273,7 @@ public class DashboardFinance implements Initializable {
         final int finalNewStudents = newStudents;
         final int finalPrevStudents = prevStudents;
         
-        Platform.runLater(() -> {
+        return () -> {
 
             totalRevenueLabel.setText(String.format("%.2f DT", finalTotalRevenue));
 
@@ -517,67 +318,26 @@ public class DashboardFinance implements Initializable {
             } else {
                 studentsChangeLabel.setText("--% vs période précédente");
             }
-        });
+        };
     }
     
-    private void loadRevenueChartData() throws SQLException {
-
-        String sql = "SELECT DATE_FORMAT(date_paiement, '%d/%m') as date, SUM(montant) as amount " +
-                    "FROM paiement WHERE date_paiement BETWEEN ? AND ? " +
-                    "GROUP BY DATE_FORMAT(date_paiement, '%d/%m') ORDER BY date_paiement";
-        
+    private Runnable loadRevenueChartData() {
         XYChart.Series<String, Number> revenueSeries = new XYChart.Series<>();
         revenueSeries.setName("Revenus");
-        
-        try (Connection conn = DatabaseConfig.getConnection()) {
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-                pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-                
-                Map<String, Double> revenueByDate = new HashMap<>();
-                
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        String date = rs.getString("date");
-                        double amount = rs.getDouble("amount");
-                        revenueByDate.put(date, amount);
-                    }
-                }
-
-                LocalDate current = filterStartDate;
-                while (!current.isAfter(filterEndDate)) {
-                    String dateStr = current.format(DateTimeFormatter.ofPattern("dd/MM"));
-                    if (!revenueByDate.containsKey(dateStr)) {
-                        revenueByDate.put(dateStr, 0.0);
-                    }
-                    current = current.plusDays(1);
-                }
-
-                revenueByDate.entrySet().stream()
-                    .sorted((e1, e2) -> {
-
-                        String[] parts1 = e1.getKey().split("/");
-                        String[] parts2 = e2.getKey().split("/");
-
-                        int val1 = Integer.parseInt(parts1[1]) * 100 + Integer.parseInt(parts1[0]);
-                        int val2 = Integer.parseInt(parts2[1]) * 100 + Integer.parseInt(parts2[0]);
-                        
-                        return val1 - val2;
-                    })
-                    .forEach(entry -> {
-                        revenueSeries.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
-                    });
-            }
+        Map<LocalDate, Double> revenueByDay = rollups.daily(DailyRollupRepository.Metric.REVENUE, filterStartDate, filterEndDate);
+        DateTimeFormatter dayFormat = DateTimeFormatter.ofPattern("dd/MM");
+        for (LocalDate day = filterStartDate; !day.isAfter(filterEndDate); day = day.plusDays(1)) {
+            revenueSeries.getData().add(new XYChart.Data<>(day.format(dayFormat), revenueByDay.getOrDefault(day, 0.0)));
         }
 
-        Platform.runLater(() -> {
+        return () -> {
             revenueChart.getData().clear();
             revenueChart.getData().add(revenueSeries);
-        });
+        };
     }
     
-    private void loadExpensesBreakdownData() throws SQLException {
+    private Runnable loadExpensesBreakdownData() throws SQLException {
 
         Map<String, Double> expensesCategories = new HashMap<>();
         expensesCategories.put("Salaires", 0.0);
@@ -588,29 +348,16 @@ public class DashboardFinance implements Initializable {
         
         try (Connection conn = DatabaseConfig.getConnection()) {
 
-            String maintenanceSql = "SELECT type_entretien, SUM(cout) as total FROM entretien " +
-                                  "WHERE date_entretien BETWEEN ? AND ? " +
-                                  "GROUP BY type_entretien";
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(maintenanceSql)) {
-                pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-                pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-                
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        String type = rs.getString("type_entretien");
-                        double amount = rs.getDouble("total");
-                        
-                        if (type != null) {
-                            if (type.equalsIgnoreCase("Vidange")) {
-                                expensesCategories.put("Maintenance", expensesCategories.get("Maintenance") + amount);
-                            } else if (type.equalsIgnoreCase("Carburant")) {
-                                expensesCategories.put("Carburant", expensesCategories.get("Carburant") + amount);
-                            } else {
-                                expensesCategories.put("Autres", expensesCategories.get("Autres") + amount);
-                            }
-                        }
-                    }
+            for (Map.Entry<String, Double> cost : rollups.totalsByDimension(
+                    DailyRollupRepository.Metric.MAINTENANCE_COST, filterStartDate, filterEndDate).entrySet()) {
+                String type = cost.getKey();
+                double amount = cost.getValue();
+                if (type.equalsIgnoreCase("Vidange")) {
+                    expensesCategories.merge("Maintenance", amount, Double::sum);
+                } else if (type.equalsIgnoreCase("Carburant")) {
+                    expensesCategories.merge("Carburant", amount, Double::sum);
+                } else if (!type.isEmpty()) {
+                    expensesCategories.merge("Autres", amount, Double::sum);
                 }
             }
 
@@ -656,171 +403,45 @@ public class DashboardFinance implements Initializable {
             pieChartData.add(new PieChart.Data("Aucune dépense", 1));
         }
 
-        Platform.runLater(() -> {
+        return () -> {
             expensesPieChart.setData(pieChartData);
-        });
+        };
     }
     
-    private void loadRevenueByServiceData() throws SQLException {
+    private Runnable loadRevenueByServiceData() {
         XYChart.Series<String, Number> serviceSeries = new XYChart.Series<>();
         serviceSeries.setName("Revenus par Service");
         
         Map<String, Double> serviceRevenues = new HashMap<>();
-        
-        try (Connection conn = DatabaseConfig.getConnection()) {
-
-            boolean hasData = false;
 
-            String planSql = "SELECT p.libelle as service, SUM(pay.montant) as revenue " +
-                           "FROM paiement pay " +
-                           "JOIN inscription i ON pay.inscription_id = i.id " +
-                           "JOIN plan p ON i.plan_id = p.id " +
-                           "WHERE pay.date_paiement BETWEEN ? AND ? " +
-                           "GROUP BY p.libelle";
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(planSql)) {
-                pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-                pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-                
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        String service = rs.getString("service");
-                        double revenue = rs.getDouble("revenue");
-                        if (service != null && !service.trim().isEmpty() && revenue > 0) {
-                            serviceRevenues.put(service, revenue);
-                            hasData = true;
-                        }
+        rollups.totalsByDimension(DailyRollupRepository.Metric.REVENUE_BY_PLAN, filterStartDate, filterEndDate)
+                .forEach((plan, revenue) -> {
+                    if (plan != null && !plan.trim().isEmpty() && revenue > 0) {
+                        serviceRevenues.put(plan, revenue);
                     }
-                }
-            } catch (SQLException e) {
-
-                e.printStackTrace();
-            }
+                });
 
-            if (!hasData) {
-                String typeSql = "SELECT COALESCE(type_paiement, 'Paiement général') as service, " +
-                               "SUM(montant) as revenue " +
-                               "FROM paiement " +
-                               "WHERE date_paiement BETWEEN ? AND ? " +
-                               "GROUP BY type_paiement";
-                
-                try (PreparedStatement pstmt = conn.prepareStatement(typeSql)) {
-                    pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-                    pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-                    
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        while (rs.next()) {
-                            String service = rs.getString("service");
-                            double revenue = rs.getDouble("revenue");
-                            if (revenue > 0) {
-                                serviceRevenues.put(service, revenue);
-                                hasData = true;
-                            }
+        if (serviceRevenues.isEmpty()) {
+            rollups.totalsByDimension(DailyRollupRepository.Metric.REVENUE_BY_TYPE, filterStartDate, filterEndDate)
+                    .forEach((type, revenue) -> {
+                        if (revenue > 0) {
+                            serviceRevenues.merge(type.isEmpty() ? "Paiement général" : type, revenue, Double::sum);
                         }
-                    }
-                } catch (SQLException e) {
+                    });
+        }
 
-                    e.printStackTrace();
-                }
+        if (serviceRevenues.isEmpty()) {
+            double total = rollups.total(DailyRollupRepository.Metric.REVENUE, filterStartDate, filterEndDate);
+            double formation = rollups.total(DailyRollupRepository.Metric.REVENUE_INSCRIPTION, filterStartDate, filterEndDate);
+            double examen = rollups.total(DailyRollupRepository.Metric.REVENUE_EXAMEN, filterStartDate, filterEndDate);
+            if (formation > 0) {
+                serviceRevenues.put("Formation", formation);
             }
-
-            if (!hasData) {
-                String inscriptionSql = "SELECT 'Formation' as service, SUM(montant) as revenue " +
-                                      "FROM paiement " +
-                                      "WHERE date_paiement BETWEEN ? AND ? " +
-                                      "AND inscription_id IS NOT NULL " +
-                                      "GROUP BY 'Formation'";
-                
-                try (PreparedStatement pstmt = conn.prepareStatement(inscriptionSql)) {
-                    pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-                    pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-                    
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            double revenue = rs.getDouble("revenue");
-                            if (revenue > 0) {
-                                serviceRevenues.put("Formation", revenue);
-                                hasData = true;
-                            }
-                        }
-                    }
-                } catch (SQLException e) {
-
-                    e.printStackTrace();
-                }
-                
-                String examenSql = "SELECT 'Examen' as service, SUM(montant) as revenue " +
-                                 "FROM paiement " +
-                                 "WHERE date_paiement BETWEEN ? AND ? " +
-                                 "AND id_examen IS NOT NULL " +
-                                 "GROUP BY 'Examen'";
-                
-                try (PreparedStatement pstmt = conn.prepareStatement(examenSql)) {
-                    pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-                    pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-                    
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            double revenue = rs.getDouble("revenue");
-                            if (revenue > 0) {
-                                serviceRevenues.put("Examen", revenue);
-                                hasData = true;
-                            }
-                        }
-                    }
-                } catch (SQLException e) {
-
-                    e.printStackTrace();
-                }
-                
-                String otherSql = "SELECT 'Autre service' as service, SUM(montant) as revenue " +
-                                "FROM paiement " +
-                                "WHERE date_paiement BETWEEN ? AND ? " +
-                                "AND inscription_id IS NULL " +
-                                "AND id_examen IS NULL " +
-                                "GROUP BY 'Autre service'";
-                
-                try (PreparedStatement pstmt = conn.prepareStatement(otherSql)) {
-                    pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-                    pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-                    
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            double revenue = rs.getDouble("revenue");
-                            if (revenue > 0) {
-                                serviceRevenues.put("Autre service", revenue);
-                                hasData = true;
-                            }
-                        }
-                    }
-                } catch (SQLException e) {
-
-                    e.printStackTrace();
-                }
+            if (examen > 0) {
+                serviceRevenues.put("Examen", examen);
             }
-
-            if (!hasData) {
-                String totalSql = "SELECT SUM(montant) as total_revenue " +
-                                "FROM paiement " +
-                                "WHERE date_paiement BETWEEN ? AND ?";
-                
-                try (PreparedStatement pstmt = conn.prepareStatement(totalSql)) {
-                    pstmt.setDate(1, java.sql.Date.valueOf(filterStartDate));
-                    pstmt.setDate(2, java.sql.Date.valueOf(filterEndDate));
-                    
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            double totalRevenue = rs.getDouble("total_revenue");
-                            if (totalRevenue > 0) {
-
-                                serviceRevenues.put("Formation", totalRevenue * 0.55);
-                                serviceRevenues.put("Conduite", totalRevenue * 0.30);
-                                serviceRevenues.put("Examen", totalRevenue * 0.15);
-                                hasData = true;
-                            }
-                        }
-                    }
-                }
+            if (total - formation - examen > 0) {
+                serviceRevenues.put("Autre service", total - formation - examen);
             }
         }
 
@@ -835,13 +456,13 @@ public class DashboardFinance implements Initializable {
             serviceSeries.getData().add(new XYChart.Data<>("Aucune donnée", 0));
         }
 
-        Platform.runLater(() -> {
+        return () -> {
             revenueByServiceChart.getData().clear();
             revenueByServiceChart.getData().add(serviceSeries);
-        });
+        };
     }
     
-    private void loadMonthlyComparisonData() throws SQLException {
+    private Runnable loadMonthlyComparisonData() throws SQLException {
         XYChart.Series<String, Number> revenueMonthlySeries = new XYChart.Series<>();
         revenueMonthlySeries.setName("Revenus");
         
@@ -854,41 +475,14 @@ public class DashboardFinance implements Initializable {
         Map<String, Double> monthlyRevenues = new HashMap<>();
         Map<String, Double> monthlyExpenses = new HashMap<>();
         
-        try (Connection conn = DatabaseConfig.getConnection()) {
-
-            String revenueSql = "SELECT DATE_FORMAT(date_paiement, '%Y-%m') as yearMonth, " +
-                              "DATE_FORMAT(date_paiement, '%b') as monthName, " +
-                              "SUM(montant) as revenue " +
-                              "FROM paiement " +
-                              "WHERE date_paiement >= DATE_SUB(CURDATE(), INTERVAL 4 MONTH) " +
-                              "GROUP BY yearMonth, monthName " +
-                              "ORDER BY yearMonth";
-            
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(revenueSql)) {
-                while (rs.next()) {
-                    String monthName = rs.getString("monthName");
-                    double revenue = rs.getDouble("revenue");
-                    monthlyRevenues.put(monthName, revenue);
-                }
-            }
+        LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).minusMonths(3);
+        LocalDate lastDay = LocalDate.now().withDayOfMonth(1).plusMonths(1).minusDays(1);
+        rollups.daily(DailyRollupRepository.Metric.REVENUE, firstMonth, lastDay).forEach((day, revenue) ->
+                monthlyRevenues.merge(day.getMonth().toString().substring(0, 3), revenue, Double::sum));
+        rollups.daily(DailyRollupRepository.Metric.MAINTENANCE_COST, firstMonth, lastDay).forEach((day, cost) ->
+                monthlyExpenses.merge(day.getMonth().toString().substring(0, 3), cost, Double::sum));
 
-            String expensesSql = "SELECT DATE_FORMAT(date_entretien, '%Y-%m') as yearMonth, " +
-                               "DATE_FORMAT(date_entretien, '%b') as monthName, " +
-                               "SUM(cout) as expenses " +
-                               "FROM entretien " +
-                               "WHERE date_entretien >= DATE_SUB(CURDATE(), INTERVAL 4 MONTH) " +
-                               "GROUP BY yearMonth, monthName " +
-                               "ORDER BY yearMonth";
-            
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(expensesSql)) {
-                while (rs.next()) {
-                    String monthName = rs.getString("monthName");
-                    double expenses = rs.getDouble("expenses");
-                    monthlyExpenses.put(monthName, expenses);
-                }
-            }
+        try (Connection conn = DatabaseConfig.getConnection()) {
 
             String monitorCountSql = "SELECT COUNT(*) as total FROM moniteur";
             double salaireMoyen = 1000.0;
@@ -949,10 +543,10 @@ public class DashboardFinance implements Initializable {
             profitMonthlySeries.getData().add(new XYChart.Data<>(month, profit));
         }
 
-        Platform.runLater(() -> {
+        return () -> {
             monthlyComparisonChart.getData().clear();
             monthlyComparisonChart.getData().addAll(revenueMonthlySeries, expenseMonthlySeries, profitMonthlySeries);
-        });
+        };
     }
     
     private void setupTransactionsTable() {
@@ -1002,7 +596,7 @@ public class DashboardFinance implements Initializable {
         });
     }
     
-    private void loadTransactionsData() throws SQLException {
+    private Runnable loadTransactionsData() throws SQLException {
         ObservableList<Transaction> data = FXCollections.observableArrayList();
         
         try (Connection conn = DatabaseConfig.getConnection()) {
@@ -1117,9 +711,9 @@ public class DashboardFinance implements Initializable {
         }
 
         ObservableList<Transaction> finalData = data;
-        Platform.runLater(() -> {
+        return () -> {
             transactionsTable.setItems(finalData);
-        });
+        };
     }
 
     public static class Transaction {
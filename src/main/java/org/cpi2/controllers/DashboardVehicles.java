@@ -15,10 +15,12 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ResourceBundle;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-import org.cpi2.repository.DatabaseConfig;
+import org.cpi2.repository.DailyRollupRepository;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.DashboardLoader;
 
 
 public class DashboardVehicles implements Initializable {
@@ -54,7 +56,9 @@ public class DashboardVehicles implements Initializable {
     @FXML private TableColumn<MaintenanceAlertEntry, Void> alertActionsColumn;
 
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-    private String currentFilter = "Tous les véhicules";
+    private volatile String currentFilter = "Tous les véhicules";
+    private final DashboardLoader dashboardLoader = new DashboardLoader("vehicles");
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
     
     
     @Override
@@ -82,20 +86,18 @@ public class DashboardVehicles implements Initializable {
     
     
     private void loadDashboardData() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            loadKPIData(conn);
-            loadVehicleUsageChart(conn);
-            loadMaintenanceHistoryChart(conn);
-            loadVehiclesTableData(conn);
-            loadMaintenanceAlertsData(conn);
-        } catch (SQLException e) {
-            e.printStackTrace();
-            AlertUtil.showError("Erreur de base de données", "Impossible de charger les données: " + e.getMessage());
-        }
+        dashboardLoader.batch()
+            .panel("kpi", DashboardLoader.withConnection(this::loadKPIData))
+            .panel("vehicleUsage", DashboardLoader.withConnection(this::loadVehicleUsageChart))
+            .panel("maintenanceHistory", this::loadMaintenanceHistoryChart)
+            .panel("vehicles", DashboardLoader.withConnection(this::loadVehiclesTableData))
+            .panel("maintenanceAlerts", DashboardLoader.withConnection(this::loadMaintenanceAlertsData))
+            .onError(() -> AlertUtil.showError("Erreur de base de données", "Impossible de charger les données des véhicules"))
+            .submit();
     }
     
     
-    private void loadKPIData(Connection conn) throws SQLException {
+    private Runnable loadKPIData(Connection conn) throws SQLException {
         String totalSql = "SELECT COUNT(*) as total FROM vehicule";
         
         String availableSql = "SELECT COUNT(*) as available FROM vehicule WHERE statut = 'Disponible'";
@@ -106,47 +108,51 @@ public class DashboardVehicles implements Initializable {
         
         String totalKmSql = "SELECT SUM(kilometrage_total) as total_km FROM vehicule";
         
+        int total = 0;
+        int available = 0;
+        int due = 0;
+        int totalKm = 0;
+
         try (Statement stmt = conn.createStatement()) {
             try (ResultSet rs = stmt.executeQuery(totalSql)) {
                 if (rs.next()) {
-                    int total = rs.getInt("total");
-                    totalVehiclesLabel.setText(String.valueOf(total));
-                } else {
-                    totalVehiclesLabel.setText("0");
+                    total = rs.getInt("total");
                 }
             }
             
             try (ResultSet rs = stmt.executeQuery(availableSql)) {
                 if (rs.next()) {
-                    int available = rs.getInt("available");
-                    availableVehiclesLabel.setText(String.valueOf(available));
-                } else {
-                    availableVehiclesLabel.setText("0");
+                    available = rs.getInt("available");
                 }
             }
             
             try (ResultSet rs = stmt.executeQuery(maintenanceDueSql)) {
                 if (rs.next()) {
-                    int due = rs.getInt("due");
-                    maintenanceDueLabel.setText(String.valueOf(due));
-                } else {
-                    maintenanceDueLabel.setText("0");
+                    due = rs.getInt("due");
                 }
             }
             
             try (ResultSet rs = stmt.executeQuery(totalKmSql)) {
                 if (rs.next()) {
-                    int totalKm = rs.getInt("total_km");
-                    totalKmLabel.setText(String.format("%,d km", totalKm));
-                } else {
-                    totalKmLabel.setText("0 km");
+                    totalKm = rs.getInt("total_km");
                 }
             }
         }
+
+        int finalTotal = total;
+        int finalAvailable = available;
+        int finalDue = due;
+        int finalTotalKm = totalKm;
+        return () -> {
+            totalVehiclesLabel.setText(String.valueOf(finalTotal));
+            availableVehiclesLabel.setText(String.valueOf(finalAvailable));
+            maintenanceDueLabel.setText(String.valueOf(finalDue));
+            totalKmLabel.setText(String.format("%,d km", finalTotalKm));
+        };
     }
     
     
-    private void loadVehicleUsageChart(Connection conn) throws SQLException {
+    private Runnable loadVehicleUsageChart(Connection conn) throws SQLException {
         String sql = "SELECT statut, COUNT(*) as count FROM vehicule GROUP BY statut";
         
         Map<String, Integer> statusCounts = new HashMap<>();
@@ -186,46 +192,30 @@ public class DashboardVehicles implements Initializable {
             pieChartData.add(new PieChart.Data("Aucun véhicule", 1));
         }
         
-        vehicleUsageChart.setData(pieChartData);
+        return () -> vehicleUsageChart.setData(pieChartData);
     }
     
     
-    private void loadMaintenanceHistoryChart(Connection conn) throws SQLException {
-        String sql = "SELECT DATE_FORMAT(date_entretien, '%b') as month, COUNT(*) as count " +
-                   "FROM entretien " +
-                   "WHERE date_entretien >= DATE_SUB(CURDATE(), INTERVAL 6 MONTH) " +
-                   "GROUP BY DATE_FORMAT(date_entretien, '%b') " +
-                   "ORDER BY date_entretien";
-        
+    private Runnable loadMaintenanceHistoryChart() {
         XYChart.Series<String, Number> maintenanceSeries = new XYChart.Series<>();
         maintenanceSeries.setName("Entretiens");
-        
-        Map<String, Integer> monthCounts = new HashMap<>();
-        
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                String month = rs.getString("month");
-                int count = rs.getInt("count");
-                monthCounts.put(month, count);
-            }
+
+        LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).minusMonths(5);
+        Map<String, Integer> monthCounts = new LinkedHashMap<>();
+        for (int i = 0; i < 6; i++) {
+            monthCounts.put(firstMonth.plusMonths(i).getMonth().toString().substring(0, 3), 0);
         }
-        
-        if (!monthCounts.isEmpty()) {
-            for (Map.Entry<String, Integer> entry : monthCounts.entrySet()) {
-                maintenanceSeries.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
-            }
-        } else {
-            LocalDate now = LocalDate.now();
-            for (int i = 5; i >= 0; i--) {
-                LocalDate monthDate = now.minusMonths(i);
-                String monthName = monthDate.getMonth().toString().substring(0, 3);
-                maintenanceSeries.getData().add(new XYChart.Data<>(monthName, 0));
-            }
+        rollups.daily(DailyRollupRepository.Metric.MAINTENANCES, firstMonth, LocalDate.now()).forEach((day, count) ->
+                monthCounts.merge(day.getMonth().toString().substring(0, 3), count.intValue(), Integer::sum));
+
+        for (Map.Entry<String, Integer> entry : monthCounts.entrySet()) {
+            maintenanceSeries.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
         }
         
-        maintenanceHistoryChart.getData().clear();
-        maintenanceHistoryChart.getData().add(maintenanceSeries);
+        return () -> {
+            maintenanceHistoryChart.getData().clear();
+            maintenanceHistoryChart.getData().add(maintenanceSeries);
+        };
     }
     
     
@@ -346,7 +336,7 @@ public class DashboardVehicles implements Initializable {
     }
     
     
-    private void loadVehiclesTableData(Connection conn) throws SQLException {
+    private Runnable loadVehiclesTableData(Connection conn) throws SQLException {
         ObservableList<VehicleEntry> vehicleData = FXCollections.observableArrayList();
         
         StringBuilder sqlBuilder = new StringBuilder();
@@ -394,11 +384,11 @@ public class DashboardVehicles implements Initializable {
             vehicleData.add(new VehicleEntry(3L, "Citroën C3", "134 TU 9012", 32145.0, "En entretien", "10/01/2023", "10/01/2024"));
         }
         
-        vehiclesTable.setItems(vehicleData);
+        return () -> vehiclesTable.setItems(vehicleData);
     }
     
     
-    private void loadMaintenanceAlertsData(Connection conn) throws SQLException {
+    private Runnable loadMaintenanceAlertsData(Connection conn) throws SQLException {
         ObservableList<MaintenanceAlertEntry> alertData = FXCollections.observableArrayList();
         
         String sql = "SELECT CONCAT(v.marque, ' ', v.modele) as vehicle_name, " +
@@ -446,7 +436,7 @@ public class DashboardVehicles implements Initializable {
             alertData.add(new MaintenanceAlertEntry("Citroën C3", "Pneus", "15/06/2023", "Planifié", "Moyenne"));
         }
         
-        maintenanceAlertsTable.setItems(alertData);
+        return () -> maintenanceAlertsTable.setItems(alertData);
     }
 
     
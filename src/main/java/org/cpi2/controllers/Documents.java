@@ -1,5 +1,6 @@
 package org.cpi2.controllers;
 
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -9,13 +10,13 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import javafx.util.StringConverter;
 
 import org.cpi2.entities.Candidat;
 
@@ -24,18 +25,26 @@ import java.util.Optional;
 import org.cpi2.entities.Dossier;
 import org.cpi2.entities.TypeDocument;
 import org.cpi2.service.CandidatService;
+import org.cpi2.service.DocumentIngestionService;
 import org.cpi2.service.DocumentService;
 import org.cpi2.service.DossierService;
 import org.cpi2.service.TypeDocumentService;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.CandidatPicker;
 
 import java.io.File;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class Documents {
+    private static final Logger LOGGER = Logger.getLogger(Documents.class.getName());
 
     @FXML private ComboBox<Candidat> candidatComboBox;
     @FXML private TextField nomDocumentField;
@@ -43,18 +52,24 @@ public class Documents {
     @FXML private DatePicker dateAjoutPicker;
     @FXML private Label selectedFileLabel;
     @FXML private Button browseButton;
-    @FXML private Button saveButton;
+    @FXML private Button submitButton;
+    @FXML private ProgressBar uploadProgressBar;
+    @FXML private Label uploadStatusLabel;
     @FXML private Button loadButton;
     @FXML private TableView<Document> documentsTableView;
     @FXML private TableColumn<Document, String> nomColumn;
     @FXML private TableColumn<Document, String> typeColumn;
     @FXML private TableColumn<Document, LocalDate> dateColumn;
+    @FXML private Label completenessLabel;
+    @FXML private Label dossiersSummaryLabel;
 
-    private File selectedFile;
+    private List<File> selectedFiles = new ArrayList<>();
     private final TypeDocumentService typeDocumentService = new TypeDocumentService();
     private final DossierService dossierService = new DossierService();
     private final CandidatService candidatService = new CandidatService();
+    private CandidatPicker candidatPicker;
     private final DocumentService documentService = new DocumentService();
+    private final DocumentIngestionService ingestionService = new DocumentIngestionService(documentService);
     private ObservableList<Document> documentsList = FXCollections.observableArrayList();
 
     
@@ -67,6 +82,7 @@ public class Documents {
         dateAjoutPicker.setValue(LocalDate.now());
         setupTableColumns();
         loadCandidates();
+        candidatComboBox.valueProperty().addListener((obs, oldValue, candidat) -> showCompleteness(candidat));
     }
     
     
@@ -78,21 +94,7 @@ public class Documents {
     
     
     private void loadCandidates() {
-        List<Candidat> candidats = candidatService.getAllCandidats();
-        candidatComboBox.setItems(FXCollections.observableArrayList(candidats));
-        
-        candidatComboBox.setConverter(new StringConverter<Candidat>() {
-            @Override
-            public String toString(Candidat candidat) {
-                if (candidat == null) return "";
-                return candidat.getNom() + " " + candidat.getPrenom();
-            }
-
-            @Override
-            public Candidat fromString(String string) {
-                return null;
-            }
-        });
+        candidatPicker = CandidatPicker.attach(candidatComboBox, candidatService);
     }
 
     
@@ -106,9 +108,10 @@ public class Documents {
             new FileChooser.ExtensionFilter("Tous les fichiers", "*.*")
         );
         
-        selectedFile = fileChooser.showOpenDialog(browseButton.getScene().getWindow());
-        if (selectedFile != null) {
-            selectedFileLabel.setText(selectedFile.getName());
+        List<File> files = fileChooser.showOpenMultipleDialog(browseButton.getScene().getWindow());
+        if (files != null && !files.isEmpty()) {
+            selectedFiles = new ArrayList<>(files);
+            selectedFileLabel.setText(files.size() == 1 ? files.get(0).getName() : files.size() + " fichiers sélectionnés");
         }
     }
 
@@ -154,28 +157,15 @@ public class Documents {
                 selectedCandidat.setDossier(dossier);
 
                 TypeDocument typeDocument = TypeDocument.valueOf(typeDocumentComboBox.getValue());
-                org.cpi2.entities.Document document = new org.cpi2.entities.Document(
-                    typeDocument, 
-                    nomDocumentField.getText(), 
-                    selectedFile.getAbsolutePath()
-                );
 
                 Long dossierId = dossier.getId();
                 if (dossierId == null) {
                     AlertUtil.showError( "Erreur", "ID du dossier est null");
                     return;
                 }
-                System.out.println("Adding document to dossier with ID: " + dossierId);
+                LOGGER.fine("Adding " + selectedFiles.size() + " document(s) to dossier " + dossierId);
 
-                boolean success = dossierService.ajouterDocument(dossierId, document, selectedFile);
-                
-                if (success) {
-                    AlertUtil.showInfo( "Succès", "Document enregistré avec succès!");
-                    loadDocuments();
-                    clearForm();
-                } else {
-                    AlertUtil.showError( "Erreur", "Impossible d'enregistrer le document");
-                }
+                startUploads(dossierId, typeDocument, nomDocumentField.getText());
             } catch (Exception e) {
                 AlertUtil.showError( "Erreur", "Une erreur est survenue: " + e.getMessage());
                 e.printStackTrace();
@@ -186,6 +176,64 @@ public class Documents {
     }
 
     
+    /**
+     * Uploads the selected files in the background, all at once, with one progress bar for the
+     * whole batch; the form stays disabled until every file is done.
+     */
+    private void startUploads(Long dossierId, TypeDocument typeDocument, String nom) {
+        List<File> files = List.copyOf(selectedFiles);
+        long[] done = new long[files.size()];
+        long[] totals = new long[files.size()];
+        List<CompletableFuture<Boolean>> uploads = new ArrayList<>();
+
+        submitButton.setDisable(true);
+        browseButton.setDisable(true);
+        uploadProgressBar.setProgress(0);
+        uploadProgressBar.setVisible(true);
+        uploadStatusLabel.setText("Envoi de " + files.size() + " fichier(s)...");
+
+        for (int i = 0; i < files.size(); i++) {
+            int index = i;
+            File file = files.get(i);
+            org.cpi2.entities.Document document = new org.cpi2.entities.Document(
+                    typeDocument,
+                    files.size() == 1 ? nom : nom + " (" + (i + 1) + ")",
+                    file.getAbsolutePath()
+            );
+            totals[i] = 2 * file.length();
+            uploads.add(ingestionService.submit(dossierId, document, file, (bytes, total) ->
+                    Platform.runLater(() -> {
+                        done[index] = bytes;
+                        totals[index] = total;
+                        long sumDone = Arrays.stream(done).sum();
+                        long sumTotal = Arrays.stream(totals).sum();
+                        uploadProgressBar.setProgress(sumTotal == 0 ? ProgressBar.INDETERMINATE_PROGRESS : (double) sumDone / sumTotal);
+                    })));
+        }
+
+        CompletableFuture.allOf(uploads.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            long saved = uploads.stream().filter(upload -> Boolean.TRUE.equals(upload.getNow(false))).count();
+            Platform.runLater(() -> {
+                submitButton.setDisable(false);
+                browseButton.setDisable(false);
+                uploadProgressBar.setVisible(false);
+                uploadStatusLabel.setText("");
+                if (saved == files.size()) {
+                    AlertUtil.showInfo( "Succès", saved == 1 ? "Document enregistré avec succès!"
+                            : saved + " documents enregistrés avec succès!");
+                    loadDocuments();
+                    clearForm();
+                } else if (saved > 0) {
+                    AlertUtil.showWarning( "Attention", saved + " document(s) sur " + files.size()
+                            + " enregistré(s); les autres n'ont pas pu être enregistrés");
+                    loadDocuments();
+                } else {
+                    AlertUtil.showError( "Erreur", "Impossible d'enregistrer le document");
+                }
+            });
+        });
+    }
+
     @FXML
     private void loadDocuments() {
         Candidat selectedCandidat = candidatComboBox.getValue();
@@ -195,6 +243,7 @@ public class Documents {
         }
         
         documentsList.clear();
+        showCompleteness(selectedCandidat);
 
         Optional<Dossier> dossierOpt = dossierService.getDossierByCandidat(selectedCandidat.getCin());
         
@@ -246,12 +295,25 @@ public class Documents {
     }
 
     
+    /** Missing required documents of the candidat, and the school-wide count, from the completeness index. */
+    private void showCompleteness(Candidat candidat) {
+        dossiersSummaryLabel.setText(dossierService.countCompleteDossiers() + " dossier(s) complet(s) sur "
+                + dossierService.countDossiers());
+        if (candidat == null || candidat.getId() == null) {
+            completenessLabel.setText("");
+            return;
+        }
+        Set<TypeDocument> missing = dossierService.getMissingDocuments(candidat.getId());
+        completenessLabel.setText(missing.isEmpty() ? "✅ Dossier complet"
+                : "📄 Documents manquants : " + missing.stream().map(Enum::name).collect(Collectors.joining(", ")));
+    }
+
     private boolean validateForm() {
         if (candidatComboBox.getValue() == null || 
             nomDocumentField.getText().isEmpty() || 
             typeDocumentComboBox.getValue() == null || 
             dateAjoutPicker.getValue() == null || 
-            selectedFile == null) {
+            selectedFiles.isEmpty()) {
             
             AlertUtil.showError( "Erreur de validation",
                     "Veuillez remplir tous les champs et sélectionner un fichier.");
@@ -265,12 +327,12 @@ public class Documents {
 
     
     private void clearForm() {
-        candidatComboBox.getSelectionModel().clearSelection();
+        candidatPicker.clear();
         nomDocumentField.clear();
         typeDocumentComboBox.getSelectionModel().clearSelection();
         dateAjoutPicker.setValue(LocalDate.now());
         selectedFileLabel.setText("Aucun fichier sélectionné");
-        selectedFile = null;
+        selectedFiles = new ArrayList<>();
     }
     
     
@@ -4,6 +4,7 @@ import javafx.fxml.FXML;
 import org.cpi2.entities.Examen;
 import org.cpi2.entities.TypeExamen;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.CandidatPicker;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
@@ -17,12 +18,10 @@ import org.cpi2.service.ExamenService;
 
 import java.time.LocalDate;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Optional;
 
 public class ExamRegistration {
 
-    @FXML private ComboBox<String> candidatComboBox;
+    @FXML private ComboBox<Candidat> candidatComboBox;
     @FXML private TextField nomField;
     @FXML private TextField prenomField;
     @FXML private TextField cinField;
@@ -38,6 +37,7 @@ public class ExamRegistration {
     private final ExamenService examenService = new ExamenService();
     private final HashMap<String,Double> examTypePrices = examenService.getType_Price();
     private final CandidatService candidatService = new CandidatService();
+    private CandidatPicker candidatPicker;
 
 
     @FXML
@@ -61,49 +61,25 @@ public class ExamRegistration {
     }
     
     private void loadCandidats() {
-
-        List<org.cpi2.entities.Candidat> candidatsList = candidatService.getAllCandidats();
-        
-        if (candidatsList.isEmpty()) {
-
-            AlertUtil.showWarning("Warning", "Aucun candidat n'est disponible dans la base de données. Veuillez ajouter des candidats avant de planifier des examens.");
-        } else {
-
-            for (org.cpi2.entities.Candidat candidat : candidatsList) {
-                candidatComboBox.getItems().add(candidat.getId() + " - " + candidat.getNom() + " " + candidat.getPrenom());
-            }
-        }
+        candidatPicker = CandidatPicker.attach(candidatComboBox, candidatService);
     }
 
     @FXML
     private void candidatSelectionneAction() {
-        String selectedCandidat = candidatComboBox.getValue();
-        
-        if (selectedCandidat == null || selectedCandidat.isEmpty()) {
-            AlertUtil.showWarning("Aucune sélection", "Veuillez sélectionner un candidat");
+        Candidat candidat = candidatComboBox.getValue();
+
+        // The picker clears its value while the user types; only a picked candidat fills the form
+        if (candidat == null) {
             return;
         }
-        
-        try {
-
-            Long id = Long.parseLong(selectedCandidat.split(" - ")[0]);
-            Optional<Candidat> candidatOpt = candidatService.getCandidatById(id);
-            
-            if (candidatOpt.isPresent()) {
-                Candidat candidat = candidatOpt.get();
-                nomField.setText(candidat.getNom());
-                prenomField.setText(candidat.getPrenom());
-                cinField.setText(candidat.getCin());
-
-                eligibiliteLabel.setText("Eligibilité non vérifiée");
-                eligibiliteLabel.getStyleClass().clear();
-                eligibiliteLabel.getStyleClass().add("label");
-            } else {
-                AlertUtil.showError("Erreur", "Aucun candidat trouvé avec cet ID");
-            }
-        } catch (Exception e) {
-            AlertUtil.showError("Erreur", "Une erreur s'est produite lors de la récupération du candidat");
-        }
+
+        nomField.setText(candidat.getNom());
+        prenomField.setText(candidat.getPrenom());
+        cinField.setText(candidat.getCin());
+
+        eligibiliteLabel.setText("Eligibilité non vérifiée");
+        eligibiliteLabel.getStyleClass().clear();
+        eligibiliteLabel.getStyleClass().add("label");
     }
     
     @FXML
@@ -177,7 +153,7 @@ public class ExamRegistration {
     }
     
     private void clearForm() {
-        candidatComboBox.getSelectionModel().clearSelection();
+        candidatPicker.clear();
         nomField.clear();
         prenomField.clear();
         cinField.clear();
@@ -12,6 +12,7 @@ import org.cpi2.service.CandidatService;
 import org.cpi2.service.InscriptionService;
 import org.cpi2.service.PaiementService;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.CandidatPicker;
 import org.cpi2.utils.InvoiceGenerator;
 
 import java.net.URL;
@@ -56,7 +57,7 @@ public class Invoice implements Initializable {
 
         loadCandidates();
 
-        candidatComboBox.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+        candidatComboBox.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
                 updateMontantTotal();
             }
@@ -73,26 +74,7 @@ public class Invoice implements Initializable {
     }
     
     private void loadCandidates() {
-        ObservableList<Candidat> candidats = FXCollections.observableArrayList();
-        candidats.addAll(candidatService.getAllCandidats());
-
-
-        candidatComboBox.setItems(candidats);
-        candidatComboBox.setCellFactory(lv -> new ListCell<Candidat>() {
-            @Override
-            protected void updateItem(Candidat item, boolean empty) {
-                super.updateItem(item, empty);
-                setText(empty ? "" : item.getNom() + " " + item.getPrenom() + " (" + item.getCin() + ")");
-            }
-        });
-        
-        candidatComboBox.setButtonCell(new ListCell<Candidat>() {
-            @Override
-            protected void updateItem(Candidat item, boolean empty) {
-                super.updateItem(item, empty);
-                setText(empty ? "" : item.getNom() + " " + item.getPrenom() + " (" + item.getCin() + ")");
-            }
-        });
+        CandidatPicker.attach(candidatComboBox, candidatService);
     }
     
     private void updateMontantTotal() {
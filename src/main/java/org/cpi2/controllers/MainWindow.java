@@ -23,6 +23,7 @@ import javafx.util.Duration;
 import org.cpi2.entities.AutoEcole;
 import org.cpi2.service.AutoEcoleService;
 import org.cpi2.utils.EventBus;
+import org.cpi2.utils.Events;
 
 import java.io.File;
 import java.io.IOException;
@@ -54,11 +55,8 @@ public class MainWindow implements Initializable {
 
         createLogoAnimation();
 
-        EventBus.subscribe("AUTO_ECOLE_UPDATED", data -> {
-            if (data instanceof AutoEcole) {
-                updateFooterInfo((AutoEcole) data);
-            }
-        });
+        EventBus.subscribe(this, Events.AutoEcoleUpdated.class, EventBus.Delivery.FX,
+                (window, event) -> window.updateFooterInfo(event.autoEcole()));
 
         Platform.runLater(this::setupMainWindow);
     }
@@ -16,6 +16,7 @@ import org.cpi2.entities.AutoEcole;
 import org.cpi2.service.AutoEcoleService;
 import org.cpi2.utils.AlertUtil;
 import org.cpi2.utils.EventBus;
+import org.cpi2.utils.Events;
 
 import java.io.*;
 import java.net.URL;
@@ -318,7 +319,7 @@ public class ManageEcole implements Initializable {
                 showEditMode(false);
                 updateInfoLabels();
 
-                EventBus.publish("AUTO_ECOLE_UPDATED", currentAutoEcole);
+                EventBus.publish(new Events.AutoEcoleUpdated(currentAutoEcole));
             } else {
                 AlertUtil.showError("Erreur", "Échec de l'enregistrement \nImpossible d'enregistrer les informations de l'auto-école.");
             }
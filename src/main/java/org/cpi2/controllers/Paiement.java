@@ -135,8 +135,8 @@ public class Paiement implements Initializable {
         ));
 
         candidatComboBox.setItems(FXCollections.observableArrayList(
-                candidatService.getAllCandidats().stream()
-                        .map(c -> "("+c.getCin()+") : "+c.getNom()+" "+c.getPrenom())
+                candidatService.getCandidatSummaries().stream()
+                        .map(c -> "("+c.cin()+") : "+c.nom()+" "+c.prenom())
                         .toList()
         ));
 
@@ -7,14 +7,12 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import org.cpi2.entities.Examen;
+import org.cpi2.repository.Page;
 import org.cpi2.service.CandidatService;
 import org.cpi2.service.ExamenService;
 import org.cpi2.utils.AlertUtil;
 
 import java.time.LocalDate;
-import java.util.Comparator;
-import java.util.List;
-import java.util.stream.Collectors;
 
 public class PassExam {
 
@@ -50,7 +48,12 @@ public class PassExam {
 
     private final ExamenService examenService = new ExamenService();
     private final CandidatService candidatService = new CandidatService();
+    @FXML
+    private Button loadMoreButton;
+
     private ObservableList<Exam> examensList;
+    private LocalDate dateCriteria;
+    private Page.Cursor nextCursor;
 
     @FXML
     public void initialize() {
@@ -66,9 +69,17 @@ public class PassExam {
         addListeners();
 
     }
+    /** Reloads the first page of pending examens, latest first, for {@link #dateCriteria}. */
     public void loadExamens() {
         examensList = FXCollections.observableArrayList();
-        for (Examen examen : examenService.getAllPendingExamens()) {
+        nextCursor = null;
+        examensTable.setItems(examensList);
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        Page<Examen> page = examenService.getPendingExamensPage(dateCriteria, nextCursor, Page.DEFAULT_SIZE);
+        for (Examen examen : page.items()) {
             examensList.add(new Exam(
                     examen.getCandidat().getCin(),
                     examen.getId().toString(),
@@ -78,13 +89,17 @@ public class PassExam {
                     examen.getResultat() != null ? examen.getResultat().toString() : "En Cours"
             ));
         }
-        if (!examensList.isEmpty()) {
-            examensTable.setItems(examensList);
-            examensTable.getSortOrder().add(dateColumn);
-            dateColumn.setSortType(TableColumn.SortType.DESCENDING);
-            examensTable.sort();
+        nextCursor = page.next();
+        loadMoreButton.setDisable(!page.hasNext());
+    }
+
+    @FXML
+    public void handleLoadMore(ActionEvent event) {
+        if (nextCursor != null) {
+            loadNextPage();
         }
     }
+
     private void setupTableView() {
         idColumn.setCellValueFactory(new PropertyValueFactory<>("idExamen"));
         typeColumn.setCellValueFactory(new PropertyValueFactory<>("typeExamen"));
@@ -142,7 +157,6 @@ public class PassExam {
         if(examenService.updateExamen(examen)) {
             AlertUtil.showSuccess( "Success", "Examen mis à jour avec succès");
             loadExamens();
-            examensTable.setItems(examensList);
         } else {
             AlertUtil.showError("Erreur", "Échec de la mise à jour de l'examen");
             return;
@@ -165,23 +179,14 @@ public class PassExam {
 
     @FXML
     public void rechercherExamens() {
-        LocalDate selectedDate = dateFilter.getValue();
-        if (selectedDate != null) {
-            ObservableList<Exam> filteredList = FXCollections.observableArrayList();
-            filteredList = examensList.stream().filter(
-                    examen -> examen.getDateExamen().equals(selectedDate.toString())
-            ).collect(Collectors.toCollection(FXCollections::observableArrayList));
-            filteredList.sort(Comparator.comparing(Exam::getDateExamen));
-            examensTable.setItems(filteredList);
-        } else {
-            examensList.sort(Comparator.comparing(Exam::getDateExamen));
-            examensTable.setItems(examensList);
-        }
+        dateCriteria = dateFilter.getValue();
+        loadExamens();
     }
 
     public void resetFilters() {
         dateFilter.setValue(null);
-        examensTable.setItems(null);
+        dateCriteria = null;
+        loadExamens();
     }
 
     public static class Exam {
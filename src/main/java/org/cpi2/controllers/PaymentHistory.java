@@ -1,5 +1,6 @@
 package org.cpi2.controllers;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -13,28 +14,36 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.util.Callback;
 import org.cpi2.entities.Candidat;
-import org.cpi2.entities.Paiement;
+import org.cpi2.entities.PaiementRow;
 import org.cpi2.entities.PaiementInscription;
+import org.cpi2.repository.ExportRepository;
+import org.cpi2.repository.Page;
+import org.cpi2.repository.PaiementRepository;
 import org.cpi2.service.CandidatService;
+import org.cpi2.service.ExportService;
 import org.cpi2.service.InscriptionService;
 import org.cpi2.service.PaiementService;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.CandidatPicker;
 import org.cpi2.controllers.PaymentDetailsController;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class PaymentHistory implements Initializable {
+    private static final Logger LOGGER = Logger.getLogger(PaymentHistory.class.getName());
 
     @FXML
     private ComboBox<Candidat> candidatComboBox;
@@ -48,6 +57,9 @@ public class PaymentHistory implements Initializable {
     @FXML
     private DatePicker dateFinPicker;
 
+    @FXML
+    private MenuButton exportMenuButton;
+
     @FXML
     private TableView<PaymentEntry> paymentsTable;
 
@@ -93,8 +105,18 @@ public class PaymentHistory implements Initializable {
     private final CandidatService candidatService = new CandidatService();
     private final PaiementService paiementService = new PaiementService();
     private final InscriptionService inscriptionService = new InscriptionService();
+    private final ExportService exportService = new ExportService();
+
+    @FXML
+    private Button loadMoreButton;
+
+    @FXML
+    private Label shownCountLabel;
 
     private ObservableList<PaymentEntry> paymentsList = FXCollections.observableArrayList();
+    private PaiementRepository.RowFilter currentFilter = PaiementRepository.RowFilter.all();
+    private PaiementRepository.RowTotals totals;
+    private Page.Cursor nextCursor;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     @Override
@@ -112,8 +134,6 @@ public class PaymentHistory implements Initializable {
         setupActionColumn();
 
         loadPaymentData();
-
-        updateChartData();
     }
 
     private void setupTypeComboBox() {
@@ -127,40 +147,8 @@ public class PaymentHistory implements Initializable {
     }
 
     private void loadCandidates() {
-
-        ObservableList<Candidat> candidats = FXCollections.observableArrayList();
-
-        candidats.addAll(candidatService.getAllCandidats());
-        candidatComboBox.setItems(candidats);
-        candidatComboBox.setCellFactory(lv -> new ListCell<Candidat>() {
-            @Override
-            protected void updateItem(Candidat item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText("");
-                } else if (item.getId() == 0L) {
-                    setText("Tous les candidats");
-                } else {
-                    setText(item.getNom() + " " + item.getPrenom() + " (" + item.getCin() + ")");
-                }
-            }
-        });
-        
-        candidatComboBox.setButtonCell(new ListCell<Candidat>() {
-            @Override
-            protected void updateItem(Candidat item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText("");
-                } else if (item.getId() == 0L) {
-                    setText("Tous les candidats");
-                } else {
-                    setText(item.getNom() + " " + item.getPrenom() + " (" + item.getCin() + ")");
-                }
-            }
-        });
-        
-        candidatComboBox.getSelectionModel().select(0);
+        // No selection means every candidat; the picker only ever holds the matches it searched
+        CandidatPicker.attach(candidatComboBox, candidatService);
     }
 
     private void setupTableColumns() {
@@ -251,53 +239,59 @@ public class PaymentHistory implements Initializable {
         });
     }
 
+    /** Reloads the first page and the totals for {@link #currentFilter}. */
     private void loadPaymentData() {
-
         paymentsList.clear();
-        List<PaymentEntry> payments = new ArrayList<>();
-        for(Paiement p : paiementService.getAll()) {
-            String type = p.getTypePaiement();
-            if (type.equals("Totale")) {
-                type = "Inscription Totale";
-            } else if (type.equals("Examen")) {
+        nextCursor = null;
+        paymentsTable.setItems(paymentsList);
+        totals = paiementService.getPaiementTotals(currentFilter);
+        loadNextPage();
+
+        updateSummary();
+        updateChartData();
+    }
+
+    private void loadNextPage() {
+        Page<PaiementRow> page = paiementService.getPaiementRows(currentFilter, nextCursor, Page.DEFAULT_SIZE);
+        for (PaiementRow p : page.items()) {
+            String type;
+            if (p.examen()) {
                 type = "Examen";
+            } else if ("Totale".equals(p.typePaiement())) {
+                type = "Inscription Totale";
             } else {
                 type = "Tranches d'Inscription";
             }
-            payments.add(new PaymentEntry(
-                    p.getId(),
-                    p.getDatePaiement(),
-                    p.getCandidat().getNom() + " " + p.getCandidat().getPrenom(),
-                    p.getCandidat().getCin(),
-                    p.getMontant(),
+            paymentsList.add(new PaymentEntry(
+                    p.id(),
+                    p.datePaiement(),
+                    p.nom() + " " + p.prenom(),
+                    p.cin(),
+                    p.montant(),
                     type,
-                    p.getModePaiement().name(),
-                    p.getStatut().name().toLowerCase()));
+                    p.modePaiement().name(),
+                    p.statut().name().toLowerCase()));
         }
+        nextCursor = page.next();
+        loadMoreButton.setDisable(!page.hasNext());
+        shownCountLabel.setText(paymentsList.size() + " sur " + totals.count() + " paiements affichés");
+    }
 
-        paymentsList.addAll(payments);
-        
-        paymentsTable.setItems(paymentsList);
-
-        updateSummary();
+    @FXML
+    void handleLoadMore(ActionEvent event) {
+        if (nextCursor != null) {
+            loadNextPage();
+        }
     }
 
     private void updateSummary() {
-        int total = paymentsList.size();
-        double totalAmount = paymentsList.stream()
-                .filter(p -> !p.getStatut().equalsIgnoreCase("annulee"))
-                .mapToDouble(PaymentEntry::getMontant)
-                .sum();
-        long completed = paymentsList.stream()
-                .filter(p -> p.getStatut().equalsIgnoreCase("complete"))
-                .count();
         long pending = inscriptionService.getAllInscriptions().stream()
                 .filter(i -> i.getnextPaymentDate()!=null && i.getnextPaymentDate().after(Date.valueOf(LocalDate.now())))
                 .count();
         
-        totalPaymentsLabel.setText(String.valueOf(total));
-        totalAmountLabel.setText(String.format("%.2f DT", totalAmount));
-        completedPaymentsLabel.setText(String.valueOf(completed));
+        totalPaymentsLabel.setText(String.valueOf(totals.count()));
+        totalAmountLabel.setText(String.format("%.2f DT", totals.amount()));
+        completedPaymentsLabel.setText(String.valueOf(totals.completed()));
         pendingPaymentsLabel.setText(String.valueOf(pending));
     }
 
@@ -307,15 +301,8 @@ public class PaymentHistory implements Initializable {
 
         XYChart.Series<String, Number> series = new XYChart.Series<>();
 
-        long inscriptions = paymentsList.stream()
-                .filter(p -> (p.getType().equals("Inscription Totale") || p.getType().equals("Tranches d'Inscription") )&& !p.getStatut().equals("annulee"))
-                .count();
-        long examens = paymentsList.stream()
-                .filter(p -> p.getType().equals("Examen") && !p.getStatut().equals("annulee"))
-                .count();
-
-        series.getData().add(new XYChart.Data<>("Inscription", inscriptions));
-        series.getData().add(new XYChart.Data<>("Examen", examens));
+        series.getData().add(new XYChart.Data<>("Inscription", totals.inscriptions()));
+        series.getData().add(new XYChart.Data<>("Examen", totals.examens()));
 
         typeDistributionChart.getData().add(series);
     }
@@ -343,9 +330,49 @@ public class PaymentHistory implements Initializable {
         AlertUtil.showInfo("PDF Généré", "L'historique des paiements a été exporté avec succès en PDF.");
     }
 
+    @FXML
+    void handleExport(ActionEvent event) {
+        String[] choice = ((MenuItem) event.getSource()).getUserData().toString().split(":");
+        ExportRepository.Dataset dataset = ExportRepository.Dataset.valueOf(choice[0]);
+        ExportService.Format format = ExportService.Format.valueOf(choice[1]);
+        LocalDate from = dateDebutPicker.getValue();
+        LocalDate to = dateFinPicker.getValue();
+        if (from != null && to != null && from.isAfter(to)) {
+            AlertUtil.showError("Erreur de date", "La date de début ne peut pas être après la date de fin.");
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Exporter les " + dataset.getFileName());
+        fileChooser.setInitialFileName(ExportService.defaultFileName(dataset, format, from, to));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                format.name(), "*." + format.getExtension()));
+        File file = fileChooser.showSaveDialog(paymentsTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // Large exports take a while; keep the screen responsive
+        exportMenuButton.setDisable(true);
+        Thread thread = new Thread(() -> {
+            try {
+                long count = exportService.export(dataset, format, from, to, file.toPath());
+                Platform.runLater(() -> AlertUtil.showInfo("Export terminé",
+                        count + " ligne(s) exportée(s) dans " + file.getName()));
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error exporting " + dataset.getFileName(), e);
+                Platform.runLater(() -> AlertUtil.showError("Erreur", "L'export a échoué: " + e.getMessage()));
+            } finally {
+                Platform.runLater(() -> exportMenuButton.setDisable(false));
+            }
+        }, "export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     @FXML
     void handleFilter(ActionEvent event) {
-        Candidat selectedCandidat = candidatComboBox.getSelectionModel().getSelectedItem();
+        Candidat selectedCandidat = candidatComboBox.getValue();
         String selectedType = typeComboBox.getSelectionModel().getSelectedItem();
         LocalDate dateDebut = dateDebutPicker.getValue();
         LocalDate dateFin = dateFinPicker.getValue();
@@ -355,33 +382,16 @@ public class PaymentHistory implements Initializable {
             return;
         }
 
-        List<PaymentEntry> filteredPayments = new ArrayList<>();
-        for (PaymentEntry payment : paymentsList) {
-            boolean matches = selectedCandidat == null || selectedCandidat.getCin().equals(payment.getCin());
-
-            if (selectedType.equalsIgnoreCase("Inscription")) {
-                matches = matches && (payment.getType().equals("Inscription Totale") || payment.getType().equals("Tranches d'Inscription"));
-            } else if (selectedType.equalsIgnoreCase("Examen")) {
-                matches = matches && payment.getType().equals("Examen");
-            }
-
-            if (dateDebut != null && payment.getD().isBefore(dateDebut)) {
-                matches = false;
-            }
-
-            if (dateFin != null && payment.getD().isAfter(dateFin)) {
-                matches = false;
-            }
-
-            if (matches) {
-                filteredPayments.add(payment);
-            }
+        Boolean examen = null;
+        if ("Inscription".equalsIgnoreCase(selectedType)) {
+            examen = false;
+        } else if ("Examen".equalsIgnoreCase(selectedType)) {
+            examen = true;
         }
+        currentFilter = new PaiementRepository.RowFilter(
+                selectedCandidat != null ? selectedCandidat.getId() : null, examen, dateDebut, dateFin);
+        loadPaymentData();
         AlertUtil.showInfo("Filtres Appliqués", "Les filtres ont été appliqués avec succès.");
-        ObservableList<PaymentEntry> filteredPaymentsList = FXCollections.observableArrayList(filteredPayments);
-        paymentsTable.setItems(filteredPaymentsList);
-        updateSummary();
-        updateChartData();
     }
 
     public static class PaymentEntry {
@@ -2,23 +2,32 @@ package org.cpi2.controllers;
 
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.CheckBoxTableCell;
 import javafx.stage.Stage;
+import org.cpi2.Exceptions.CalendarUnavailable;
 import org.cpi2.entities.*;
+import org.cpi2.repository.Page;
+import org.cpi2.repository.ResourceCalendar;
 import org.cpi2.utils.AlertUtil;
+import org.cpi2.utils.CandidatPicker;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class RemplirSeance {
+    private static final Logger LOGGER = Logger.getLogger(RemplirSeance.class.getName());
 
     @FXML private DatePicker dateFilter;
     @FXML private Button searchBtn;
@@ -29,8 +38,10 @@ public class RemplirSeance {
     @FXML private TableColumn<SessionCode, String> heureColumn;
     @FXML private TableColumn<SessionCode, String> moniteurColumn;
     @FXML private TableColumn<SessionCode, String> placesColumn;
+    @FXML private Button moreSeancesBtn;
     @FXML private Label selectedSessionLabel;
 
+    @FXML private ComboBox<Candidat> candidatPickerComboBox;
     @FXML private TableView<CandidatWrapper> candidatsTable;
     @FXML private TableColumn<CandidatWrapper, Boolean> selectColumn;
     @FXML private TableColumn<CandidatWrapper, String> nomColumn;
@@ -44,9 +55,10 @@ public class RemplirSeance {
     @FXML private Button saveBtn;
 
     private ObservableList<SessionCode> seances;
-    private FilteredList<SessionCode> filteredSeances;
+    private Page.Cursor nextSeanceCursor;
     private ObservableList<CandidatWrapper> candidats;
     private SessionCode selectedSeance;
+    private CandidatPicker candidatPicker;
 
     public void handleCancel(ActionEvent actionEvent) {
     }
@@ -96,94 +108,77 @@ public class RemplirSeance {
     private final org.cpi2.service.CandidatService candidatService = new org.cpi2.service.CandidatService();
     private final org.cpi2.service.SalleService salleService = new org.cpi2.service.SalleService();
 
-    private List<SessionCode> getSeances() {
+    /** The planned code seances, one page at a time, on the date of {@link #dateFilter} when set. */
+    private Page<SessionCode> getSeances(Page.Cursor after) {
         List<SessionCode> result = new ArrayList<>();
         try {
-            System.out.println("Fetching all seances from service...");
-
-            List<Seance> seances = seanceService.findAllSeances();
-            System.out.println("Found " + seances.size() + " total sessions");
-            
-            int codeSessionCount = 0;
-            for (Seance seance : seances) {
-
-                if ("Code".equals(seance.getType()) && "Planifiée".equals(seance.getStatus())) {
-                    codeSessionCount++;
-                    try {
-                        SessionCode sessionCode = new SessionCode();
-                        sessionCode.setId(seance.getId());
-
-                        try {
-                            sessionCode.setDateSession(seance.getLocalDate());
-                        } catch (Exception e) {
-                            System.out.println("Error parsing date for session ID " + seance.getId() + ": " + e.getMessage());
-
-                            sessionCode.setDateSession(LocalDate.now());
-                        }
-
-                        String timeStr = seance.getHeure();
-                        if (timeStr != null && !timeStr.isEmpty()) {
-                            try {
-                                String[] parts = timeStr.split(":");
-                                int hour = Integer.parseInt(parts[0]);
-                                int minute = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
-                                sessionCode.setHeureSession(LocalTime.of(hour, minute));
-                            } catch (Exception e) {
-                                System.out.println("Error parsing time for session ID " + seance.getId() + ": " + e.getMessage());
-
-                                sessionCode.setHeureSession(LocalTime.of(9, 0));
-                            }
-                        } else {
-
-                            sessionCode.setHeureSession(LocalTime.of(9, 0));
-                        }
-
-                        Moniteur moniteur = new Moniteur();
-                        moniteur.setId(seance.getMoniteurId());
-                        String fullName = seance.getMoniteurName();
-                        if (fullName != null && !fullName.isEmpty()) {
-                            String[] moniteurNameParts = fullName.split(" ", 2);
-                            if (moniteurNameParts.length > 1) {
-                                moniteur.setNom(moniteurNameParts[0]);
-                                moniteur.setPrenom(moniteurNameParts[1]);
-                            } else {
-                                moniteur.setNom(fullName);
-                                moniteur.setPrenom("");
-                            }
-                        } else {
-                            moniteur.setNom("Non assigné");
-                            moniteur.setPrenom("");
-                        }
-                        sessionCode.setMoniteur(moniteur);
-
-                        sessionCode.setCapaciteMax(10);
-                        sessionCode.setSalle(seance.getSalle() != null ? seance.getSalle() : "Salle non assignée");
-                        
-                        result.add(sessionCode);
-                    } catch (Exception e) {
-                        System.out.println("Error processing session ID " + seance.getId() + ": " + e.getMessage());
-                        e.printStackTrace();
-                    }
+            Page<Seance> page = seanceService.findSeancesPage("Code", "Planifiée", dateFilter.getValue(), after, Page.DEFAULT_SIZE);
+            for (Seance seance : page.items()) {
+                try {
+                    result.add(toSessionCode(seance));
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error processing session ID " + seance.getId(), e);
                 }
             }
-            System.out.println("Found " + codeSessionCount + " code sessions with status 'Planifiée'");
-            System.out.println("Successfully processed " + result.size() + " sessions");
+            return new Page<>(result, page.next());
         } catch (Exception e) {
-            System.out.println("Error in getSeances: " + e.getMessage());
-            e.printStackTrace();
+            LOGGER.log(Level.SEVERE, "Error loading the code seances", e);
             AlertUtil.showError("Erreur", "Erreur lors du chargement des séances: " + e.getMessage());
         }
-        return result;
+        return new Page<>(result, null);
     }
 
-    private List<Candidat> getCandidats() {
+    private SessionCode toSessionCode(Seance seance) {
+        SessionCode sessionCode = new SessionCode();
+        sessionCode.setId(seance.getId());
+
         try {
-            return candidatService.getAllCandidats();
+            sessionCode.setDateSession(seance.getLocalDate());
         } catch (Exception e) {
-            e.printStackTrace();
-            AlertUtil.showError("Erreur", "Erreur lors du chargement des candidats: " + e.getMessage());
-            return new ArrayList<>();
+            LOGGER.warning("Error parsing date for session ID " + seance.getId() + ": " + e.getMessage());
+
+            sessionCode.setDateSession(LocalDate.now());
         }
+
+        String timeStr = seance.getHeure();
+        if (timeStr != null && !timeStr.isEmpty()) {
+            try {
+                String[] parts = timeStr.split(":");
+                int hour = Integer.parseInt(parts[0]);
+                int minute = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+                sessionCode.setHeureSession(LocalTime.of(hour, minute));
+            } catch (Exception e) {
+                LOGGER.warning("Error parsing time for session ID " + seance.getId() + ": " + e.getMessage());
+
+                sessionCode.setHeureSession(LocalTime.of(9, 0));
+            }
+        } else {
+
+            sessionCode.setHeureSession(LocalTime.of(9, 0));
+        }
+
+        Moniteur moniteur = new Moniteur();
+        moniteur.setId(seance.getMoniteurId());
+        String fullName = seance.getMoniteurName();
+        if (fullName != null && !fullName.isEmpty()) {
+            String[] moniteurNameParts = fullName.split(" ", 2);
+            if (moniteurNameParts.length > 1) {
+                moniteur.setNom(moniteurNameParts[0]);
+                moniteur.setPrenom(moniteurNameParts[1]);
+            } else {
+                moniteur.setNom(fullName);
+                moniteur.setPrenom("");
+            }
+        } else {
+            moniteur.setNom("Non assigné");
+            moniteur.setPrenom("");
+        }
+        sessionCode.setMoniteur(moniteur);
+
+        sessionCode.setCapaciteMax(10);
+        sessionCode.setSalle(seance.getSalle() != null ? seance.getSalle() : "Salle non assignée");
+        
+        return sessionCode;
     }
 
     private int getInscriptionsCount(int seanceId) {
@@ -214,6 +209,9 @@ public class RemplirSeance {
                 
                 LocalTime time = selectedSeance.getHeureSession();
                 mockSeance.setTemps(time.getHour() + ":" + time.getMinute());
+                if (selectedSeance.getDuree() > 0) {
+                    mockSeance.setDuree((int) selectedSeance.getDuree());
+                }
                 
                 if (selectedSeance.getMoniteur() != null) {
                     mockSeance.setMoniteurId(selectedSeance.getMoniteur().getId());
@@ -238,6 +236,17 @@ public class RemplirSeance {
                     return;
                 }
 
+                try {
+                    salles = freeSalles(seance, salles);
+                } catch (CalendarUnavailable e) {
+                    AlertUtil.showError("Erreur", "Impossible de vérifier la disponibilité des salles, réessayez plus tard");
+                    return;
+                }
+                if (salles.isEmpty()) {
+                    AlertUtil.showError("Erreur", "Aucune salle libre sur ce créneau");
+                    return;
+                }
+
                 Salle selectedSalle = null;
                 for (Salle salle : salles) {
                     if (salle.getCapacite() >= candidatIds.size()) {
@@ -320,6 +329,36 @@ public class RemplirSeance {
         }
     }
 
+    /**
+     * Salles not booked by another session during the slot of {@code seance}, for its whole duration.
+     * Rows of the session being filled (same moniteur, same start) do not count as conflicts.
+     *
+     * @throws CalendarUnavailable if the bookings could not be loaded
+     */
+    private List<Salle> freeSalles(Seance seance, List<Salle> salles) {
+        LocalDateTime start;
+        if (selectedSeance != null && selectedSeance.getDateSession() != null && selectedSeance.getHeureSession() != null) {
+            start = LocalDateTime.of(selectedSeance.getDateSession(), selectedSeance.getHeureSession());
+        } else {
+            try {
+                String[] parts = seance.getHeure().split(":");
+                start = LocalDateTime.of(LocalDate.parse(seance.getDate()),
+                        LocalTime.of(Integer.parseInt(parts[0]), parts.length > 1 ? Integer.parseInt(parts[1]) : 0));
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Unable to determine the slot of seance " + seance.getId() + ", skipping room conflict check", e);
+                return salles;
+            }
+        }
+        LocalDateTime end = start.plusMinutes(seance.getDuree() > 0 ? seance.getDuree() : 60);
+        Long moniteurId = seance.getMoniteurId();
+
+        Set<String> busy = ResourceCalendar.busySalles(start, end, entry ->
+                moniteurId != null && entry.getMoniteurId() == moniteurId && entry.getStart().equals(start));
+        return salles.stream()
+                .filter(salle -> !busy.contains((salle.getNom() + " - " + salle.getNumero()).toLowerCase()))
+                .collect(Collectors.toList());
+    }
+
     private List<Salle> createMockSalles() {
         List<Salle> mockSalles = new ArrayList<>();
 
@@ -347,8 +386,6 @@ public class RemplirSeance {
 
         setupTableColumns();
 
-        loadData();
-
         rechercherSeances();
     }
     
@@ -421,6 +458,15 @@ public class RemplirSeance {
 
         candidatsTable.setEditable(true);
 
+        candidatPicker = CandidatPicker.attach(candidatPickerComboBox, candidatService);
+        candidatPickerComboBox.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) {
+                addCandidat(newVal);
+                // Clear once the pick has been handled, not while the combo is still committing it
+                Platform.runLater(candidatPicker::clear);
+            }
+        });
+
         seancesTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
                 selectedSeance = newSelection;
@@ -435,20 +481,24 @@ public class RemplirSeance {
         });
     }
     
+    /** Reloads the first page of seances for the current date filter. */
     private void loadData() {
         try {
-            System.out.println("Loading seances data...");
+            seances = FXCollections.observableArrayList();
+            nextSeanceCursor = null;
+            seancesTable.setItems(seances);
+            loadNextSeancePage();
 
-            List<SessionCode> sessionsList = getSeances();
-
-            if (sessionsList.isEmpty()) {
+            // Mock data only stands in for an empty table, not for a date without seances
+            if (seances.isEmpty() && seanceService.findSeancesPage("Code", "Planifiée", null, null, 1).items().isEmpty()) {
                 System.out.println("No real sessions found, adding mock data");
-                sessionsList.addAll(createMockSessions());
+                LocalDate selectedDate = dateFilter.getValue();
+                for (SessionCode session : createMockSessions()) {
+                    if (selectedDate == null || selectedDate.equals(session.getDateSession())) {
+                        seances.add(session);
+                    }
+                }
             }
-
-            seances = FXCollections.observableArrayList(sessionsList);
-            filteredSeances = new FilteredList<>(seances, p -> true);
-            seancesTable.setItems(filteredSeances);
             
             System.out.println("Loaded " + seances.size() + " sessions");
 
@@ -459,6 +509,20 @@ public class RemplirSeance {
             AlertUtil.showError("Erreur", "Erreur lors du chargement des données: " + e.getMessage());
         }
     }
+
+    private void loadNextSeancePage() {
+        Page<SessionCode> page = getSeances(nextSeanceCursor);
+        seances.addAll(page.items());
+        nextSeanceCursor = page.next();
+        moreSeancesBtn.setDisable(!page.hasNext());
+    }
+
+    @FXML
+    private void loadMoreSeances() {
+        if (nextSeanceCursor != null) {
+            loadNextSeancePage();
+        }
+    }
     
     private List<SessionCode> createMockSessions() {
         List<SessionCode> mockSessions = new ArrayList<>();
@@ -500,54 +564,38 @@ public class RemplirSeance {
         return mockSessions;
     }
     
+    /**
+     * Starts an empty candidat list for the selected session; candidats are added one at a time
+     * through the picker instead of listing the whole candidat table.
+     */
     private void loadCandidats() {
-        try {
-            System.out.println("Loading candidates for selected session...");
-            List<Candidat> allCandidats = getCandidats();
+        candidats = FXCollections.observableArrayList();
+        candidatsTable.setItems(candidats);
+        candidatPicker.clear();
+        updateSelectedCount();
+    }
 
-            if (allCandidats.isEmpty()) {
-                System.out.println("No real candidates found, adding mock data");
-                allCandidats = createMockCandidats();
+    private void addCandidat(Candidat candidat) {
+        if (candidats == null) {
+            AlertUtil.showWarning("Attention", "Veuillez d'abord sélectionner une séance");
+            return;
+        }
+        for (CandidatWrapper wrapper : candidats) {
+            if (wrapper.getCandidat().getId().equals(candidat.getId())) {
+                wrapper.setSelected(true);
+                candidatsTable.getSelectionModel().select(wrapper);
+                return;
             }
-            
-            candidats = FXCollections.observableArrayList();
-    
-            for (Candidat candidat : allCandidats) {
-                CandidatWrapper wrapper = new CandidatWrapper(candidat);
+        }
 
-                wrapper.selectedProperty().addListener((obs, oldVal, newVal) -> {
-                    updateSelectedCount();
-                });
-    
-                candidats.add(wrapper);
-            }
-    
-            candidatsTable.setItems(candidats);
+        CandidatWrapper wrapper = new CandidatWrapper(candidat);
+        wrapper.selectedProperty().addListener((obs, oldVal, newVal) -> {
             updateSelectedCount();
-            
-            System.out.println("Loaded " + candidats.size() + " candidates");
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.out.println("Error loading candidates: " + e.getMessage());
-            AlertUtil.showError("Erreur", "Erreur lors du chargement des candidats: " + e.getMessage());
-        }
-    }
-    
-    private List<Candidat> createMockCandidats() {
-        List<Candidat> mockCandidats = new ArrayList<>();
-
-        for (int i = 1; i <= 10; i++) {
-            Candidat candidat = new Candidat();
-            candidat.setId((long) i);
-            candidat.setNom("Candidat");
-            candidat.setPrenom(String.valueOf(i));
-            candidat.setEmail("candidat" + i + "@example.com");
-            candidat.setTelephone("06123456" + (i < 10 ? "0" : "") + i);
-            
-            mockCandidats.add(candidat);
-        }
-        
-        return mockCandidats;
+        });
+        wrapper.setSelected(true);
+        candidats.add(wrapper);
+        candidatsTable.scrollTo(wrapper);
+        updateSelectedCount();
     }
 
     private void updateSelectedSeanceInfo() {
@@ -585,21 +633,10 @@ public class RemplirSeance {
         LocalDate selectedDate = dateFilter.getValue();
         
         try {
-            if (selectedDate == null) {
-
-                filteredSeances.setPredicate(seance -> true);
-            } else {
-
-                filteredSeances.setPredicate(seance -> {
-                    if (seance == null || seance.getDateSession() == null) {
-                        return false;
-                    }
-                    
-                    LocalDate seanceDate = seance.getDateSession();
-                    return seanceDate.equals(selectedDate);
-                });
+            loadData();
 
-                if (filteredSeances.isEmpty()) {
+            if (selectedDate != null) {
+                if (seances.isEmpty()) {
                     selectedSessionLabel.setText("Aucune séance trouvée pour cette date");
                 } else {
                     selectedSessionLabel.setText("Sélectionnez une séance dans la liste");
@@ -607,7 +644,7 @@ public class RemplirSeance {
             }
             
             System.out.println("Filter applied: " + (selectedDate != null ? selectedDate.toString() : "All dates") + 
-                              ", Results: " + filteredSeances.size());
+                              ", Results: " + seances.size());
         } catch (Exception e) {
             e.printStackTrace();
             AlertUtil.showError("Erreur", "Erreur lors de la recherche : " + e.getMessage());
@@ -705,26 +742,7 @@ public class RemplirSeance {
     }
 
     private void loadUpcomingSessions() {
-        try {
-
-            List<SessionCode> sessionsList = getSeances();
-
-            if (sessionsList.isEmpty()) {
-                System.out.println("No real sessions found, adding mock data");
-                sessionsList.addAll(createMockSessions());
-            }
-            
-            seances = FXCollections.observableArrayList(sessionsList);
-            filteredSeances = new FilteredList<>(seances, p -> true);
-            seancesTable.setItems(filteredSeances);
-
-            if (dateFilter.getValue() != null) {
-                rechercherSeances();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            AlertUtil.showError("Erreur", "Erreur lors du chargement des séances: " + e.getMessage());
-        }
+        loadData();
     }
 }
 
@@ -9,14 +9,13 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
-import org.cpi2.entities.Candidat;
+import org.cpi2.entities.CandidatSummary;
 import org.cpi2.entities.Moniteur;
 import org.cpi2.entities.SessionCode;
 import org.cpi2.entities.TypePermis;
 import org.cpi2.entities.TypeSession;
 import org.cpi2.service.CandidatService;
 import org.cpi2.service.MoniteurService;
-import org.cpi2.service.PresenceService;
 import org.cpi2.service.SessionService;
 import org.cpi2.utils.AlertUtil;
 import org.cpi2.utils.ValidationUtils;
@@ -204,8 +203,9 @@ public class SeanceCode {
                             String candidatValue = candidatCombo.getValue();
                             long candidatId = Long.parseLong(candidatValue.split(" - ")[0]);
 
-                            PresenceService presenceService = new PresenceService();
-                            presenceService.recordCodePresence(createdSession.getId(), candidatId, false);
+                            if (!sessionService.affecterCandidatASessionCode(createdSession.getId(), candidatId)) {
+                                AlertUtil.showWarning("Session complète", "Le candidat n'a pas pu être inscrit à cette séance");
+                            }
                         } catch (Exception e) {
                             System.err.println("Erreur lors de la création de la présence: " + e.getMessage());
                         }
@@ -427,13 +427,13 @@ public class SeanceCode {
         try {
 
             CandidatService candidatService = new CandidatService();
-            List<Candidat> candidats = candidatService.getAllCandidats();
+            List<CandidatSummary> candidats = candidatService.getCandidatSummaries();
 
             ObservableList<String> candidatItems = FXCollections.observableArrayList();
 
             if (candidats != null && !candidats.isEmpty()) {
-                for (Candidat candidat : candidats) {
-                    candidatItems.add(candidat.getId() + " - " + candidat.getNom() + " " + candidat.getPrenom());
+                for (CandidatSummary candidat : candidats) {
+                    candidatItems.add(candidat.id() + " - " + candidat.fullName());
                 }
                 candidatCombo.setItems(candidatItems);
             } else {
@@ -8,8 +8,10 @@ import javafx.scene.control.*;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import netscape.javascript.JSObject;
-import org.cpi2.entities.Candidat;
+import org.cpi2.entities.CandidatSummary;
+import org.cpi2.entities.MoniteurSummary;
 import org.cpi2.entities.Seance;
+import org.cpi2.entities.VehiculeSummary;
 import org.cpi2.service.SeanceService;
 import org.cpi2.utils.AlertUtil;
 
@@ -68,15 +70,15 @@ public class SeanceConduite {
 
     private void loadCandidats() {
         org.cpi2.service.CandidatService candidatService = new org.cpi2.service.CandidatService();
-        List<Candidat> candidatsList = candidatService.getAllCandidats();
+        List<CandidatSummary> candidatsList = candidatService.getCandidatSummaries();
 
         ObservableList<String> candidats = FXCollections.observableArrayList();
 
         if (candidatsList.isEmpty()) {
             AlertUtil.showError("Erreur", "Aucun candidat trouvé dans la base de données.");
         } else {
-            for (org.cpi2.entities.Candidat candidat : candidatsList) {
-                candidats.add(candidat.getId() + " - " + candidat.getNom() + " " + candidat.getPrenom());
+            for (CandidatSummary candidat : candidatsList) {
+                candidats.add(candidat.id() + " - " + candidat.fullName());
             }
         }
 
@@ -85,15 +87,15 @@ public class SeanceConduite {
 
     private void loadMoniteurs() {
         org.cpi2.service.MoniteurService moniteurService = new org.cpi2.service.MoniteurService();
-        List<org.cpi2.entities.Moniteur> moniteursList = moniteurService.getAllMoniteurs();
+        List<MoniteurSummary> moniteursList = moniteurService.getMoniteurSummaries();
 
         ObservableList<String> moniteurs = FXCollections.observableArrayList();
 
         if (moniteursList.isEmpty()) {
             AlertUtil.showWarning("Erreur", "Aucun moniteur trouvé dans la base de données.");
         } else {
-            for (org.cpi2.entities.Moniteur moniteur : moniteursList) {
-                moniteurs.add(moniteur.getId() + " - " + moniteur.getNom() + " " + moniteur.getPrenom());
+            for (MoniteurSummary moniteur : moniteursList) {
+                moniteurs.add(moniteur.id() + " - " + moniteur.fullName());
             }
         }
 
@@ -102,15 +104,15 @@ public class SeanceConduite {
 
     private void loadVehicules() {
         org.cpi2.service.VehiculeService vehiculeService = new org.cpi2.service.VehiculeService();
-        List<org.cpi2.entities.Vehicule> vehiculesList = vehiculeService.getAllVehicules();
+        List<VehiculeSummary> vehiculesList = vehiculeService.getVehiculeSummaries();
 
         ObservableList<String> vehicules = FXCollections.observableArrayList();
 
         if (vehiculesList.isEmpty()) {
             AlertUtil.showWarning("Aucun véhicule", "Aucun véhicule trouvé dans la base de données.");
         } else {
-            for (org.cpi2.entities.Vehicule vehicule : vehiculesList) {
-                vehicules.add(vehicule.getId() + " - " + vehicule.getMarque() + " " + vehicule.getModele() + " (" + vehicule.getImmatriculation() + ")");
+            for (VehiculeSummary vehicule : vehiculesList) {
+                vehicules.add(vehicule.id() + " - " + vehicule.marque() + " " + vehicule.modele() + " (" + vehicule.immatriculation() + ")");
             }
         }
 
@@ -0,0 +1,91 @@
+package org.cpi2.entities;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * One booked time slot and the resources it holds: a moniteur, and optionally a vehicle or a salle.
+ */
+public class CalendarEntry {
+
+    public enum Source {
+        SEANCE,
+        SESSION_CODE,
+        SESSION_CONDUITE
+    }
+
+    private final Source source;
+    private final long id;
+    private final long moniteurId;
+    private final Long vehiculeId;
+    private final String salle;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    public CalendarEntry(Source source, long id, long moniteurId, Long vehiculeId, String salle,
+                         LocalDateTime start, LocalDateTime end) {
+        this.source = source;
+        this.id = id;
+        this.moniteurId = moniteurId;
+        this.vehiculeId = vehiculeId;
+        this.salle = salle;
+        this.start = start;
+        this.end = end;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getMoniteurId() {
+        return moniteurId;
+    }
+
+    public Long getVehiculeId() {
+        return vehiculeId;
+    }
+
+    public String getSalle() {
+        return salle;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /** True if both entries hold at least one common resource. */
+    public boolean sharesResourceWith(CalendarEntry other) {
+        return moniteurId == other.moniteurId
+                || (vehiculeId != null && vehiculeId.equals(other.vehiculeId))
+                || (salle != null && salle.equalsIgnoreCase(other.salle));
+    }
+
+    public boolean isSameBooking(CalendarEntry other) {
+        return source == other.source && id == other.id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CalendarEntry that)) return false;
+        return isSameBooking(that);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, id);
+    }
+
+    @Override
+    public String toString() {
+        return source + "#" + id + " [" + start + " - " + end + "]";
+    }
+}
@@ -0,0 +1,12 @@
+package org.cpi2.entities;
+
+/**
+ * The columns of a candidat that list and combo screens show or search; the full
+ * {@link Candidat} is read when an item is opened.
+ */
+public record CandidatSummary(long id, String nom, String prenom, String cin, String telephone, String email) {
+
+    public String fullName() {
+        return nom + " " + prenom;
+    }
+}
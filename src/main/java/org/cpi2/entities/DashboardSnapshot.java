@@ -0,0 +1,71 @@
+package org.cpi2.entities;
+
+/**
+ * KPI counters shown on the home dashboard, fetched together in a single query.
+ */
+public class DashboardSnapshot {
+    private final int candidatesCount;
+    private final int sessionsCount;
+    private final int moniteursCount;
+    private final int totalVehicles;
+    private final int availableVehicles;
+    private final double monthlyIncome;
+    private final double previousMonthIncome;
+    private final double examSuccessRate; // NaN when no exam result in the last 6 months
+    private final int successfulExamsCount;
+
+    public DashboardSnapshot(int candidatesCount, int sessionsCount, int moniteursCount,
+                             int totalVehicles, int availableVehicles,
+                             double monthlyIncome, double previousMonthIncome,
+                             double examSuccessRate, int successfulExamsCount) {
+        this.candidatesCount = candidatesCount;
+        this.sessionsCount = sessionsCount;
+        this.moniteursCount = moniteursCount;
+        this.totalVehicles = totalVehicles;
+        this.availableVehicles = availableVehicles;
+        this.monthlyIncome = monthlyIncome;
+        this.previousMonthIncome = previousMonthIncome;
+        this.examSuccessRate = examSuccessRate;
+        this.successfulExamsCount = successfulExamsCount;
+    }
+
+    public static DashboardSnapshot empty() {
+        return new DashboardSnapshot(0, 0, 0, 0, 0, 0, 0, Double.NaN, 0);
+    }
+
+    public int getCandidatesCount() {
+        return candidatesCount;
+    }
+
+    public int getSessionsCount() {
+        return sessionsCount;
+    }
+
+    public int getMoniteursCount() {
+        return moniteursCount;
+    }
+
+    public int getTotalVehicles() {
+        return totalVehicles;
+    }
+
+    public int getAvailableVehicles() {
+        return availableVehicles;
+    }
+
+    public double getMonthlyIncome() {
+        return monthlyIncome;
+    }
+
+    public double getPreviousMonthIncome() {
+        return previousMonthIncome;
+    }
+
+    public double getExamSuccessRate() {
+        return examSuccessRate;
+    }
+
+    public int getSuccessfulExamsCount() {
+        return successfulExamsCount;
+    }
+}
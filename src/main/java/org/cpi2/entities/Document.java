@@ -1,12 +1,14 @@
 package org.cpi2.entities;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 
 public class Document implements Comparable<Document> {
     private Long id;
     private TypeDocument typeDocument;
     private String nomFichier;
     private String cheminFichier;
+    private String sha256;
     private LocalDateTime dateUpload;
 
     public Document() {
@@ -28,6 +30,15 @@ public class Document implements Comparable<Document> {
         this.cheminFichier = cheminFichier;
     }
 
+    /** SHA-256 of the stored content, or {@code null} for a file not yet moved to the blob store. */
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
     public LocalDateTime getDateUpload() {
         return dateUpload;
     }
@@ -59,8 +70,13 @@ public class Document implements Comparable<Document> {
     public void setTypeDocument(TypeDocument typeDocument) {
         this.typeDocument = typeDocument;
     }
+    // Documents uploaded in the same second are kept apart by id, else a TreeSet would drop one
+    private static final Comparator<Document> ORDER = Comparator
+            .comparing(Document::getDateUpload, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Document::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
     @Override
     public int compareTo(Document o) {
-        return this.dateUpload.compareTo(o.dateUpload);
+        return ORDER.compare(this, o);
     }
 }
@@ -12,6 +12,8 @@ public class Inscription {
     private String status;
     private Date nextPaymentDate;
     private String paymentCycle;
+    private int codeSessionsDone;
+    private int conduiteSessionsDone;
 
     public Inscription() {
     }
@@ -83,6 +85,22 @@ public class Inscription {
         this.nextPaymentDate = nextPaymentDate;
     }
 
+    public int getCodeSessionsDone() {
+        return codeSessionsDone;
+    }
+
+    public void setCodeSessionsDone(int codeSessionsDone) {
+        this.codeSessionsDone = codeSessionsDone;
+    }
+
+    public int getConduiteSessionsDone() {
+        return conduiteSessionsDone;
+    }
+
+    public void setConduiteSessionsDone(int conduiteSessionsDone) {
+        this.conduiteSessionsDone = conduiteSessionsDone;
+    }
+
     public Date getInscriptioDate() {
         return inscriptioDate;
     }
@@ -0,0 +1,85 @@
+package org.cpi2.entities;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Pay of one moniteur over a period: sessions given, and the rates of the highest licence
+ * category they teach.
+ */
+public class MoniteurPayroll {
+    private final long moniteurId;
+    private final String nom;
+    private final String prenom;
+    private final Set<TypePermis> specialites;
+    private final int codeSessions;
+    private final int conduiteSessions;
+
+    public MoniteurPayroll(long moniteurId, String nom, String prenom, Set<TypePermis> specialites,
+                           int codeSessions, int conduiteSessions) {
+        this.moniteurId = moniteurId;
+        this.nom = nom;
+        this.prenom = prenom;
+        this.specialites = specialites.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(specialites));
+        this.codeSessions = codeSessions;
+        this.conduiteSessions = conduiteSessions;
+    }
+
+    public long getMoniteurId() {
+        return moniteurId;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public String getPrenom() {
+        return prenom;
+    }
+
+    public Set<TypePermis> getSpecialites() {
+        return specialites;
+    }
+
+    public int getCodeSessions() {
+        return codeSessions;
+    }
+
+    public int getConduiteSessions() {
+        return conduiteSessions;
+    }
+
+    /** The category whose rates apply, or {@code null} when the moniteur has no speciality. */
+    public TypePermis getTarifPermis() {
+        TypePermis highest = null;
+        for (TypePermis typePermis : specialites) {
+            highest = typePermis;
+        }
+        return highest;
+    }
+
+    public double getTarifCode() {
+        TypePermis typePermis = getTarifPermis();
+        return typePermis != null ? typePermis.getTarifCode() : 0;
+    }
+
+    public double getTarifConduite() {
+        TypePermis typePermis = getTarifPermis();
+        return typePermis != null ? typePermis.getTarifConduite() : 0;
+    }
+
+    public double getMontantCode() {
+        return codeSessions * getTarifCode();
+    }
+
+    public double getMontantConduite() {
+        return conduiteSessions * getTarifConduite();
+    }
+
+    public double getTotal() {
+        return getMontantCode() + getMontantConduite();
+    }
+}
@@ -0,0 +1,12 @@
+package org.cpi2.entities;
+
+/**
+ * Id and name of a moniteur, for combo boxes; unlike {@link Moniteur} it does not load the
+ * specialites.
+ */
+public record MoniteurSummary(long id, String nom, String prenom) {
+
+    public String fullName() {
+        return nom + " " + prenom;
+    }
+}
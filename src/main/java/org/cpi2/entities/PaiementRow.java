@@ -0,0 +1,12 @@
+package org.cpi2.entities;
+
+import java.time.LocalDate;
+
+/**
+ * One line of the payment history: the paiement columns joined with the candidat's name, without
+ * resolving the inscription or examen the payment belongs to.
+ */
+public record PaiementRow(long id, LocalDate datePaiement, long candidatId, String nom, String prenom, String cin,
+                          double montant, String typePaiement, boolean examen,
+                          ModePaiement modePaiement, StatutPaiement statut) {
+}
@@ -18,6 +18,7 @@ public class Seance {
     private String vehiculeName;
     private String date;
     private String temps;
+    private int duree = 60;
     private Double kilometrage;
     private String status;
     private String commentaire;
@@ -183,6 +184,15 @@ public class Seance {
         this.temps = temps;
     }
 
+    /** Length in minutes. */
+    public int getDuree() {
+        return duree;
+    }
+
+    public void setDuree(int duree) {
+        this.duree = duree;
+    }
+
     public Double getKilometrage() {
         return kilometrage;
     }
@@ -270,6 +280,7 @@ public class Seance {
                 ", vehiculeName='" + vehiculeName + '\'' +
                 ", date='" + date + '\'' +
                 ", temps='" + temps + '\'' +
+                ", duree=" + duree +
                 ", kilometrage=" + kilometrage +
                 ", status='" + status + '\'' +
                 ", commentaire='" + commentaire + '\'' +
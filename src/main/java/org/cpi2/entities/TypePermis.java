@@ -4,21 +4,35 @@ package org.cpi2.entities;
  * Enum representing different types of driving licenses
  */
 public enum TypePermis {
-    A("Permis_Moto"),
-    B("Permis_Voiture"),
-    C("Permis_Camion");
+    A("Permis_Moto", 3.5, 4),
+    B("Permis_Voiture", 6, 8),
+    C("Permis_Camion", 15, 20);
 
     
     private final String description;
+    private final double tarifCode;
+    private final double tarifConduite;
     
-    TypePermis(String description) {
+    TypePermis(String description, double tarifCode, double tarifConduite) {
         this.description = description;
+        this.tarifCode = tarifCode;
+        this.tarifConduite = tarifConduite;
     }
     
     public String getDescription() {
         return description;
     }
 
+    /** Amount paid to a moniteur for one code session. */
+    public double getTarifCode() {
+        return tarifCode;
+    }
+
+    /** Amount paid to a moniteur for one driving session. */
+    public double getTarifConduite() {
+        return tarifConduite;
+    }
+
     public String getLibelle() {
         return this.name();
     }
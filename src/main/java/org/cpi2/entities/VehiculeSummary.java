@@ -0,0 +1,7 @@
+package org.cpi2.entities;
+
+/**
+ * Id, model and plate of a vehicule, for combo boxes.
+ */
+public record VehiculeSummary(long id, String marque, String modele, String immatriculation) {
+}
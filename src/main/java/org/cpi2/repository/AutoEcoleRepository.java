@@ -130,6 +130,7 @@ public class AutoEcoleRepository extends BaseRepository<AutoEcole> {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         autoEcole.setId(generatedKeys.getInt(1));
+                        ReferenceData.invalidateAutoEcole();
                         return true;
                     }
                 }
@@ -155,7 +156,11 @@ public class AutoEcoleRepository extends BaseRepository<AutoEcole> {
             stmt.setString(7, autoEcole.getLogo());
             stmt.setInt(8, autoEcole.getId());
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                ReferenceData.invalidateAutoEcole();
+            }
+            return updated;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating auto école", e);
             return false;
@@ -173,7 +178,11 @@ public class AutoEcoleRepository extends BaseRepository<AutoEcole> {
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                ReferenceData.invalidateAutoEcole();
+            }
+            return deleted;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting auto école with ID " + id, e);
             return false;
@@ -185,7 +194,11 @@ public class AutoEcoleRepository extends BaseRepository<AutoEcole> {
 
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                ReferenceData.invalidateAutoEcole();
+            }
+            return deleted;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting auto école", e);
             return false;
@@ -1,11 +1,20 @@
 package org.cpi2.repository;
 
 import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 abstract class BaseRepository<T> {
+    protected static final int IN_CLAUSE_CHUNK_SIZE = 500;
     protected final Logger LOGGER = Logger.getLogger(this.getClass().getName());
 
     protected Connection getConnection() throws SQLException {
@@ -21,4 +30,77 @@ abstract class BaseRepository<T> {
             }
         }
     }
+
+    /**
+     * Builds the "?, ?, ?" list for an IN clause of the given size.
+     */
+    protected static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Splits keys into chunks of at most {@link #IN_CLAUSE_CHUNK_SIZE} to keep IN lists bounded.
+     */
+    protected static <K> List<List<K>> partition(Collection<K> keys) {
+        List<List<K>> chunks = new ArrayList<>();
+        List<K> current = new ArrayList<>(Math.min(keys.size(), IN_CLAUSE_CHUNK_SIZE));
+        for (K key : keys) {
+            current.add(key);
+            if (current.size() == IN_CLAUSE_CHUNK_SIZE) {
+                chunks.add(current);
+                current = new ArrayList<>(IN_CLAUSE_CHUNK_SIZE);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * The keyset predicate selecting the rows after a {@link Page.Cursor} in an
+     * "ORDER BY dateColumn, idColumn" list (both DESC when {@code descending}). It is written
+     * as an OR rather than a row comparison so MySQL can use a (date, id) index range; bind it
+     * with {@link #bindCursor}.
+     */
+    protected static String seekPredicate(String dateColumn, String idColumn, boolean descending) {
+        String op = descending ? "<" : ">";
+        return "(" + dateColumn + " " + op + " ? OR (" + dateColumn + " = ? AND " + idColumn + " " + op + " ?))";
+    }
+
+    /** Same as {@link #seekPredicate(String, String, boolean)} for a "dateColumn, timeColumn, idColumn" ordering. */
+    protected static String seekPredicate(String dateColumn, String timeColumn, String idColumn, boolean descending) {
+        String op = descending ? "<" : ">";
+        return "(" + dateColumn + " " + op + " ? OR (" + dateColumn + " = ? AND (" + timeColumn + " " + op + " ? OR ("
+                + timeColumn + " = ? AND " + idColumn + " " + op + " ?))))";
+    }
+
+    /**
+     * Binds the parameters of {@link #seekPredicate} from {@code index}, with the time ones when
+     * the cursor has a time; returns the next free index.
+     */
+    protected static int bindCursor(PreparedStatement stmt, int index, Page.Cursor cursor) throws SQLException {
+        Date date = Date.valueOf(cursor.date());
+        stmt.setDate(index++, date);
+        stmt.setDate(index++, date);
+        if (cursor.time() != null) {
+            Time time = Time.valueOf(cursor.time());
+            stmt.setTime(index++, time);
+            stmt.setTime(index++, time);
+        }
+        stmt.setLong(index++, cursor.id());
+        return index;
+    }
+
+    /**
+     * Builds a page from rows fetched with {@code LIMIT limit + 1}: the extra row only tells
+     * whether a next page exists and is dropped.
+     */
+    protected static <R> Page<R> toPage(List<R> rows, int limit, Function<R, Page.Cursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<R> items = new ArrayList<>(rows.subList(0, limit));
+        return new Page<>(items, cursorOf.apply(items.get(items.size() - 1)));
+    }
 }
@@ -0,0 +1,186 @@
+package org.cpi2.repository;
+
+import org.cpi2.entities.Candidat;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded map of the candidats looked up or written by {@link CandidatRepository}, by id and by CIN.
+ * <p>
+ * Lookups by id or CIN and every successful save/update register the row here, so repeated
+ * lookups during one user action are served from memory. The least recently used entries are
+ * dropped beyond {@code autoecole.candidatCache.maxEntries}.
+ * <p>
+ * Other desks write to the same table, so before serving a hit the map compares the
+ * {@link CandidatRepository.TableVersion} with the one its entries were read under, at most once
+ * every {@code autoecole.candidatCache.checkMs}, and starts over when it moved. Entries are
+ * copied in and out: callers may edit what they get without touching the cached state.
+ */
+final class CandidatIdentityMap {
+    private static final Logger LOGGER = Logger.getLogger(CandidatIdentityMap.class.getName());
+
+    private static final int MAX_ENTRIES = Integer.getInteger("autoecole.candidatCache.maxEntries", 2000);
+    private static final long CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("autoecole.candidatCache.checkMs", 1000L));
+
+    private static final ReentrantLock LOCK = new ReentrantLock();
+    private static final Map<String, Long> ID_BY_CIN = new HashMap<>();
+    private static final LinkedHashMap<Long, Candidat> BY_ID = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Candidat> eldest) {
+            if (size() <= MAX_ENTRIES) {
+                return false;
+            }
+            unindexCin(eldest.getValue());
+            return true;
+        }
+    };
+
+    private static CandidatRepository.TableVersion version;
+    private static long checkedAt;
+    // Bumped on every clear: a row read before it must not be registered after it
+    private static long generation;
+
+    private CandidatIdentityMap() {
+    }
+
+    /**
+     * Drops every entry if the candidat table changed since they were read. The version is
+     * queried at most once per check interval, outside the lock; a failed query empties the map
+     * as well. A check that started before the last recorded one may still clear the map, but
+     * does not put its older version back.
+     */
+    static void revalidate(QueryCache.Loader<CandidatRepository.TableVersion> currentVersion) {
+        long startedAt = System.nanoTime();
+        LOCK.lock();
+        try {
+            if (version != null && startedAt - checkedAt < CHECK_NANOS) {
+                return;
+            }
+        } finally {
+            LOCK.unlock();
+        }
+
+        CandidatRepository.TableVersion current;
+        try {
+            current = currentVersion.load();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error reading the candidat table version, dropping cached candidats", e);
+            LOCK.lock();
+            try {
+                clearLocked();
+                version = null;
+            } finally {
+                LOCK.unlock();
+            }
+            return;
+        }
+
+        LOCK.lock();
+        try {
+            if (!Objects.equals(current, version)) {
+                clearLocked();
+            }
+            if (version == null || startedAt - checkedAt >= 0) {
+                version = current;
+                checkedAt = startedAt;
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /** Current generation, to be read before the query whose rows are then {@link #register registered}. */
+    static long generation() {
+        LOCK.lock();
+        try {
+            return generation;
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    static Optional<Candidat> byId(long id) {
+        LOCK.lock();
+        try {
+            return Optional.ofNullable(BY_ID.get(id)).map(CandidatIdentityMap::copyOf);
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    static Optional<Candidat> byCin(String cin) {
+        if (cin == null) {
+            return Optional.empty();
+        }
+        LOCK.lock();
+        try {
+            Long id = ID_BY_CIN.get(cin);
+            return id == null ? Optional.empty() : Optional.ofNullable(BY_ID.get(id)).map(CandidatIdentityMap::copyOf);
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Registers a copy of the candidat's current state, replacing any previous entry for its id,
+     * unless the map was cleared since {@code readGeneration}.
+     */
+    static void register(Candidat candidat, long readGeneration) {
+        if (candidat.getId() == null) {
+            return;
+        }
+        Candidat copy = copyOf(candidat);
+        LOCK.lock();
+        try {
+            if (readGeneration != generation) {
+                return;
+            }
+            Candidat previous = BY_ID.put(copy.getId(), copy);
+            if (previous != null) {
+                unindexCin(previous);
+            }
+            if (copy.getCin() != null) {
+                ID_BY_CIN.put(copy.getCin(), copy.getId());
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    private static void clearLocked() {
+        BY_ID.clear();
+        ID_BY_CIN.clear();
+        generation++;
+    }
+
+    private static void unindexCin(Candidat candidat) {
+        if (candidat.getCin() != null) {
+            ID_BY_CIN.remove(candidat.getCin(), candidat.getId());
+        }
+    }
+
+    /** The columns of the candidat row; the dossier is loaded separately and is not kept. */
+    static Candidat copyOf(Candidat candidat) {
+        Candidat copy = new Candidat();
+        copy.setId(candidat.getId());
+        copy.setNom(candidat.getNom());
+        copy.setPrenom(candidat.getPrenom());
+        copy.setCin(candidat.getCin());
+        copy.setAdresse(candidat.getAdresse());
+        copy.setTelephone(candidat.getTelephone());
+        copy.setEmail(candidat.getEmail());
+        copy.setDateCreation(candidat.getDateCreation());
+        copy.setDateNaissance(candidat.getDateNaissance());
+        copy.setTypePermis(candidat.getTypePermis());
+        return copy;
+    }
+}
@@ -1,41 +1,118 @@
 package org.cpi2.repository;
 
 import org.cpi2.entities.Candidat;
+import org.cpi2.entities.CandidatSummary;
 import org.cpi2.entities.TypePermis;
 
 import java.sql.*;
 import java.sql.Date;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class CandidatRepository {
+public class CandidatRepository extends BaseRepository<Candidat> {
     private static final Logger LOGGER = Logger.getLogger(CandidatRepository.class.getName());
 
-    private Connection getConnection() throws SQLException {
-        return DatabaseConfig.getConnection();
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
+
+    /**
+     * Cheap fingerprint of the candidat table: an insert moves {@code maxId}, an update
+     * {@code lastUpdate} and a delete {@code count}, whichever desk made the change.
+     */
+    public record TableVersion(long count, long maxId, Timestamp lastUpdate) {
     }
 
-    public List<Candidat> findAll() {
-        List<Candidat> candidats = new ArrayList<>();
-        String sql = "SELECT * FROM candidat";
+    public TableVersion currentVersion() throws SQLException {
+        String sql = "SELECT COUNT(*), COALESCE(MAX(id), 0), MAX(updated_at) FROM candidat";
 
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return new TableVersion(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3));
+        }
+    }
 
-            while (rs.next()) {
-                Candidat candidat = mapResultSetToCandidat(rs);
-                candidats.add(candidat);
-            }
+    public List<Candidat> findAll() {
+        String sql = "SELECT * FROM candidat";
+
+        try {
+            return QueryCache.list(sql, List.of(), Set.of("candidat"), () -> {
+                List<Candidat> candidats = new ArrayList<>();
+                try (Connection conn = getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        candidats.add(mapResultSetToCandidat(rs));
+                    }
+                }
+                return candidats;
+            }, CandidatIdentityMap::copyOf);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding all candidats", e);
         }
 
-        return candidats;
+        return new ArrayList<>();
+    }
+
+    /** The columns list and combo screens need, ordered by name. */
+    public List<CandidatSummary> findAllSummaries() {
+        String sql = "SELECT id, nom, prenom, cin, telephone, email FROM candidat ORDER BY nom, prenom, id";
+
+        try {
+            return QueryCache.list(sql, List.of(), Set.of("candidat"), () -> {
+                List<CandidatSummary> summaries = new ArrayList<>();
+                try (Connection conn = getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        summaries.add(mapResultSetToSummary(rs));
+                    }
+                }
+                return summaries;
+            });
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding candidat summaries", e);
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Summaries of the candidats changed since {@code since}, or of all of them when it is null.
+     * Always read from the table, never from {@link QueryCache}: callers use it to catch up with
+     * other desks' writes.
+     */
+    public List<CandidatSummary> findSummariesUpdatedSince(Timestamp since) throws SQLException {
+        String sql = "SELECT id, nom, prenom, cin, telephone, email FROM candidat"
+                + (since != null ? " WHERE updated_at >= ?" : "");
+        List<CandidatSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (since != null) {
+                stmt.setTimestamp(1, since);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(mapResultSetToSummary(rs));
+                }
+            }
+        }
+        return summaries;
     }
 
     public Optional<Candidat> findById(Long id) {
+        CandidatIdentityMap.revalidate(this::currentVersion);
+        long generation = CandidatIdentityMap.generation();
+        Optional<Candidat> known = CandidatIdentityMap.byId(id);
+        if (known.isPresent()) {
+            return known;
+        }
         String sql = "SELECT * FROM candidat WHERE id = ?";
 
         try (Connection conn = getConnection();
@@ -45,7 +122,9 @@ public class CandidatRepository {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return Optional.of(mapResultSetToCandidat(rs));
+                Candidat candidat = mapResultSetToCandidat(rs);
+                CandidatIdentityMap.register(candidat, generation);
+                return Optional.of(candidat);
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding candidat by id", e);
@@ -54,7 +133,81 @@ public class CandidatRepository {
         return Optional.empty();
     }
 
+    public Map<Long, Candidat> findByIds(Collection<Long> ids) {
+        Map<Long, Candidat> candidats = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        CandidatIdentityMap.revalidate(this::currentVersion);
+        long generation = CandidatIdentityMap.generation();
+        for (Long id : ids) {
+            Optional<Candidat> known = CandidatIdentityMap.byId(id);
+            if (known.isPresent()) {
+                candidats.put(id, known.get());
+            } else {
+                missing.add(id);
+            }
+        }
+        for (List<Long> chunk : partition(missing)) {
+            String sql = "SELECT * FROM candidat WHERE id IN (" + placeholders(chunk.size()) + ")";
+
+            try (Connection conn = getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Candidat candidat = mapResultSetToCandidat(rs);
+                        CandidatIdentityMap.register(candidat, generation);
+                        candidats.put(candidat.getId(), candidat);
+                    }
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error finding candidats by ids", e);
+            }
+        }
+        return candidats;
+    }
+
+    public List<Candidat> findWithActiveInscription() {
+        return findByInscriptionCriteria("i.statut = 'En Cours'");
+    }
+
+    public List<Candidat> findWithActiveUnpaidInscription() {
+        return findByInscriptionCriteria("i.statut = 'En Cours' AND i.statut_paiement <> 'paid'");
+    }
+
+    private List<Candidat> findByInscriptionCriteria(String inscriptionCriteria) {
+        String sql = "SELECT c.* FROM candidat c " +
+                "WHERE EXISTS (SELECT 1 FROM inscription i WHERE i.cin = c.cin AND " + inscriptionCriteria + ") " +
+                "ORDER BY c.id";
+
+        try {
+            return QueryCache.list(sql, List.of(), Set.of("candidat", "inscription"), () -> {
+                List<Candidat> candidats = new ArrayList<>();
+                try (Connection conn = getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        candidats.add(mapResultSetToCandidat(rs));
+                    }
+                }
+                return candidats;
+            }, CandidatIdentityMap::copyOf);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding candidats by inscription", e);
+        }
+        return new ArrayList<>();
+    }
+
     public Optional<Candidat> findByCin(String cin) {
+        CandidatIdentityMap.revalidate(this::currentVersion);
+        long generation = CandidatIdentityMap.generation();
+        Optional<Candidat> known = CandidatIdentityMap.byCin(cin);
+        if (known.isPresent()) {
+            return known;
+        }
         String sql = "SELECT * FROM candidat WHERE cin = ?";
 
         try (Connection conn = getConnection();
@@ -64,7 +217,9 @@ public class CandidatRepository {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return Optional.of(mapResultSetToCandidat(rs));
+                Candidat candidat = mapResultSetToCandidat(rs);
+                CandidatIdentityMap.register(candidat, generation);
+                return Optional.of(candidat);
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding candidat by CIN", e);
@@ -93,10 +248,14 @@ public class CandidatRepository {
             if (affectedRows == 0) {
                 return false;
             }
+            QueryCache.tablesChanged("candidat");
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     candidat.setId(generatedKeys.getLong(1));
+                    CandidatIdentityMap.register(candidat, CandidatIdentityMap.generation());
+                    rollups.refresh(conn, DailyRollupRepository.Source.CANDIDAT,
+                            Arrays.asList(rollups.dayOf(conn, DailyRollupRepository.Source.CANDIDAT, candidat.getId())));
                     return true;
                 }
             }
@@ -107,6 +266,129 @@ public class CandidatRepository {
         return false;
     }
 
+    /** The CINs among {@code cins} that already belong to a candidat. */
+    public Set<String> findExistingCins(Collection<String> cins) {
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : partition(new HashSet<>(cins))) {
+            String sql = "SELECT cin FROM candidat WHERE cin IN (" + placeholders(chunk.size()) + ")";
+
+            try (Connection conn = getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString(1));
+                    }
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error finding existing CINs", e);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Inserts the candidats with an empty dossier each, {@code batchSize} rows per transaction
+     * and JDBC batch. When a batch fails it is rolled back and its rows are inserted one by one,
+     * so one bad row only loses itself. Saved candidats get their id; the result maps the index
+     * of every candidat that could not be saved to the reason.
+     */
+    public Map<Integer, String> saveAllWithDossiers(List<Candidat> candidats, int batchSize) {
+        Map<Integer, String> failures = new TreeMap<>();
+        int size = Math.max(1, batchSize);
+        for (int from = 0; from < candidats.size(); from += size) {
+            List<Candidat> chunk = candidats.subList(from, Math.min(from + size, candidats.size()));
+            try {
+                insertWithDossiers(chunk);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Batch of " + chunk.size() + " candidats rejected, retrying row by row", e);
+                for (int i = 0; i < chunk.size(); i++) {
+                    try {
+                        insertWithDossiers(List.of(chunk.get(i)));
+                    } catch (SQLException rowError) {
+                        failures.put(from + i, rowError.getMessage());
+                    }
+                }
+            }
+        }
+        if (failures.size() < candidats.size()) {
+            QueryCache.tablesChanged("candidat", "dossier");
+        }
+        return failures;
+    }
+
+    private void insertWithDossiers(List<Candidat> candidats) throws SQLException {
+        String candidatSql = "INSERT INTO candidat (nom, prenom, cin, adresse, telephone, email, date_naissance) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String dossierSql = "INSERT INTO dossier (candidat_id, date_creation) VALUES (?, ?)";
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+
+            List<Long> ids = new ArrayList<>(candidats.size());
+            try (PreparedStatement stmt = conn.prepareStatement(candidatSql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Candidat candidat : candidats) {
+                    stmt.setString(1, candidat.getNom());
+                    stmt.setString(2, candidat.getPrenom());
+                    stmt.setString(3, candidat.getCin());
+                    stmt.setString(4, candidat.getAdresse());
+                    stmt.setString(5, candidat.getTelephone());
+                    stmt.setString(6, candidat.getEmail());
+                    stmt.setDate(7, Date.valueOf(candidat.getDateNaissance()));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+            }
+            if (ids.size() != candidats.size()) {
+                throw new SQLException("Expected " + candidats.size() + " generated ids, got " + ids.size());
+            }
+
+            Date today = Date.valueOf(LocalDate.now());
+            try (PreparedStatement stmt = conn.prepareStatement(dossierSql)) {
+                for (Long id : ids) {
+                    stmt.setLong(1, id);
+                    stmt.setDate(2, today);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            // created_at is set by the database; the first and last rows bound the batch's days
+            List<LocalDate> days = Arrays.asList(
+                    rollups.dayOf(conn, DailyRollupRepository.Source.CANDIDAT, ids.get(0)),
+                    rollups.dayOf(conn, DailyRollupRepository.Source.CANDIDAT, ids.get(ids.size() - 1)));
+
+            conn.commit();
+            rollups.refresh(conn, DailyRollupRepository.Source.CANDIDAT, days);
+            for (int i = 0; i < candidats.size(); i++) {
+                Candidat candidat = candidats.get(i);
+                candidat.setId(ids.get(i));
+                CandidatIdentityMap.register(candidat, CandidatIdentityMap.generation());
+            }
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back candidat batch", ex);
+                }
+            }
+            throw e;
+        } finally {
+            closeQuietly(conn);
+        }
+    }
+
     public boolean update(Candidat candidat) {
         String sql = "UPDATE candidat SET nom = ?, prenom = ?, cin = ?, adresse = ?, " +
                     "telephone = ?, email = ?, date_naissance = ? WHERE id = ?";
@@ -133,7 +415,11 @@ public class CandidatRepository {
             stmt.setLong(9, candidat.getId());
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                QueryCache.tablesChanged("candidat");
+                CandidatIdentityMap.register(candidat, CandidatIdentityMap.generation());
+                return true;
+            }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating candidat", e);
         }
@@ -141,6 +427,16 @@ public class CandidatRepository {
         return false;
     }
 
+    private CandidatSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        return new CandidatSummary(
+                rs.getLong("id"),
+                rs.getString("nom"),
+                rs.getString("prenom"),
+                rs.getString("cin"),
+                rs.getString("telephone"),
+                rs.getString("email"));
+    }
+
     private Candidat mapResultSetToCandidat(ResultSet rs) throws SQLException {
         Candidat candidat = new Candidat();
         candidat.setId(rs.getLong("id"));
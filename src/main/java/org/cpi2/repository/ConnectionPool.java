@@ -0,0 +1,319 @@
+package org.cpi2.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded JDBC connection pool.
+ * <p>
+ * Borrowed connections are proxies: {@code close()} hands the physical connection back
+ * to the pool instead of closing it, so repositories keep using try-with-resources as before.
+ */
+final class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+
+    private final Semaphore permits;
+    private final Deque<PhysicalConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Lease> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    ConnectionPool(String url, String user, String password,
+                   int minSize, int maxSize,
+                   long borrowTimeoutMillis, long idleTimeoutMillis,
+                   long leakThresholdMillis, int validationTimeoutSeconds) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (active=" + leased.size()
+                        + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PhysicalConnection physical = takeValidIdle();
+            if (physical == null) {
+                physical = open();
+            }
+            Lease lease = new Lease(physical, callerSite());
+            leased.add(lease);
+            return lease.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    int getActiveCount() {
+        return leased.size();
+    }
+
+    int getIdleCount() {
+        return idle.size();
+    }
+
+    int getTotalCount() {
+        return total.get();
+    }
+
+    void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            discard(physical);
+        }
+        if (!leased.isEmpty()) {
+            LOGGER.warning("Connection pool shut down with " + leased.size() + " connection(s) still borrowed");
+        }
+    }
+
+    private PhysicalConnection takeValidIdle() {
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            if (isValid(physical)) {
+                return physical;
+            }
+            discard(physical);
+        }
+        return null;
+    }
+
+    private boolean isValid(PhysicalConnection physical) {
+        if (System.currentTimeMillis() - physical.lastUsed < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return physical.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PhysicalConnection open() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(url, user, password);
+            total.incrementAndGet();
+            return new PhysicalConnection(connection);
+        } catch (SQLException e) {
+            LOGGER.severe("Failed to connect to database: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private void discard(PhysicalConnection physical) {
+        total.decrementAndGet();
+        try {
+            physical.connection.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing discarded connection", e);
+        }
+    }
+
+    private void giveBack(Lease lease) {
+        if (!leased.remove(lease)) {
+            return;
+        }
+        PhysicalConnection physical = lease.physical;
+        try {
+            if (closed || !reset(physical.connection) || total.get() > maxSize) {
+                discard(physical);
+            } else {
+                physical.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(physical);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean reset(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (connection.isReadOnly()) {
+                connection.setReadOnly(false);
+            }
+            connection.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Discarding connection that failed to reset", e);
+            return false;
+        }
+    }
+
+    private void houseKeep() {
+        try {
+            evictIdle();
+            fillToMinimum();
+            reportLeaks();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PhysicalConnection> it = idle.descendingIterator();
+        while (it.hasNext() && total.get() > minSize) {
+            PhysicalConnection physical = it.next();
+            if (now - physical.lastUsed > idleTimeoutMillis && idle.remove(physical)) {
+                discard(physical);
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && total.get() < minSize) {
+            try {
+                PhysicalConnection physical = open();
+                idle.offerLast(physical);
+            } catch (SQLException e) {
+                return;
+            }
+        }
+    }
+
+    private void reportLeaks() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leased) {
+            long held = now - lease.borrowedAt;
+            if (!lease.reported && held > leakThresholdMillis) {
+                lease.reported = true;
+                LOGGER.warning("Possible connection leak: connection borrowed by " + lease.borrower
+                        + " on thread '" + lease.thread + "' has not been returned after " + held + " ms");
+            }
+        }
+    }
+
+    private static String callerSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> !f.getClassName().equals(ConnectionPool.class.getName())
+                        && !f.getClassName().equals(DatabaseConfig.class.getName())
+                        && !f.getMethodName().equals("getConnection"))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1)
+                        + "." + f.getMethodName() + "(" + f.getFileName() + ":" + f.getLineNumber() + ")")
+                .orElse("unknown"));
+    }
+
+    private static final class PhysicalConnection {
+        private final Connection connection;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PhysicalConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private final class Lease implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private final String borrower;
+        private final String thread = Thread.currentThread().getName();
+        private final long borrowedAt = System.currentTimeMillis();
+        private final Connection proxy;
+        private volatile boolean returned;
+        private volatile boolean reported;
+
+        private Lease(PhysicalConnection physical, String borrower) {
+            this.physical = physical;
+            this.borrower = borrower;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + borrower + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+            }
+            try {
+                return method.invoke(physical.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package org.cpi2.repository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+
+/**
+ * Per-day totals of the dashboard metrics, kept in the {@code daily_rollup} table.
+ * <p>
+ * Each {@link Metric} is an aggregate of one {@link Source} table grouped by day and by an
+ * optional dimension (plan, maintenance type...). Repositories that write a source table call
+ * {@link #refresh} with the days the write touched (for an update or delete, the day the row had
+ * before as well) once that write is committed; only those days are recomputed from the source,
+ * with a range on its date column. Dashboards then read a period as a handful of rollup rows
+ * instead of scanning the history. {@link #rebuild} recomputes everything, for backfill or to
+ * repair drift.
+ */
+public class DailyRollupRepository extends BaseRepository<Void> {
+    private static final String TABLE = "daily_rollup";
+    private static final String NO_DIMENSION = "''";
+    // A refresh chosen as deadlock victim by another desk's refresh of the same day is run again
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String SQLSTATE_DEADLOCK = "40001";
+
+    /** A table the rollups are computed from, with the column that dates its rows. */
+    public enum Source {
+        PAIEMENT("paiement p", "p.id", "p.date_paiement", false),
+        INSCRIPTION("inscription i", "i.id", "i.date_inscription", false),
+        CANDIDAT("candidat c", "c.id", "c.created_at", true),
+        SEANCE("seance s", "s.id", "s.date", false),
+        ENTRETIEN("entretien e", "e.id", "e.date_entretien", false);
+
+        private final String table;
+        private final String idColumn;
+        private final String dateColumn;
+        private final boolean timestamp;
+
+        Source(String table, String idColumn, String dateColumn, boolean timestamp) {
+            this.table = table;
+            this.idColumn = idColumn;
+            this.dateColumn = dateColumn;
+            this.timestamp = timestamp;
+        }
+
+        private String dayExpression() {
+            return timestamp ? "DATE(" + dateColumn + ")" : dateColumn;
+        }
+
+        private List<Metric> metrics() {
+            return Arrays.stream(Metric.values()).filter(m -> m.source == this).toList();
+        }
+    }
+
+    public enum Metric {
+        REVENUE(Source.PAIEMENT, "SUM(p.montant)", "''", "", null),
+        REVENUE_INSCRIPTION(Source.PAIEMENT, "SUM(p.montant)", "''", "", "p.inscription_id IS NOT NULL"),
+        REVENUE_EXAMEN(Source.PAIEMENT, "SUM(p.montant)", "''", "", "p.id_examen IS NOT NULL"),
+        REVENUE_BY_PLAN(Source.PAIEMENT, "SUM(p.montant)", "pl.libelle",
+                "JOIN inscription i ON i.id = p.inscription_id JOIN plan pl ON pl.id = i.plan_id", null),
+        REVENUE_BY_TYPE(Source.PAIEMENT, "SUM(p.montant)", "COALESCE(p.type_paiement, '')", "", null),
+        PAYMENTS(Source.PAIEMENT, "COUNT(*)", "''", "", null),
+        INSCRIPTIONS(Source.INSCRIPTION, "COUNT(*)", "''", "", null),
+        REGISTRATIONS(Source.CANDIDAT, "COUNT(*)", "''", "", null),
+        SEANCES(Source.SEANCE, "COUNT(*)", "''", "", null),
+        MAINTENANCES(Source.ENTRETIEN, "COUNT(*)", "''", "", null),
+        MAINTENANCE_COST(Source.ENTRETIEN, "SUM(e.cout)", "e.type_entretien", "", null);
+
+        private final Source source;
+        private final String value;
+        private final String dimension;
+        private final String joins;
+        private final String condition;
+
+        Metric(Source source, String value, String dimension, String joins, String condition) {
+            this.source = source;
+            this.value = value;
+            this.dimension = dimension;
+            this.joins = joins;
+            this.condition = condition;
+        }
+
+        /** INSERT ... SELECT of this metric, over one day range when {@code ranged}. */
+        private String insertSql(boolean ranged) {
+            List<String> where = new ArrayList<>();
+            if (ranged) {
+                // Half-open on the raw column so its index is usable, DATE or TIMESTAMP alike
+                where.add(source.dateColumn + " >= ? AND " + source.dateColumn + " < ?");
+            }
+            if (condition != null) {
+                where.add(condition);
+            }
+            return "INSERT INTO " + TABLE + " (metric, dimension, jour, valeur) " +
+                    "SELECT '" + name() + "', " + dimension + ", " + source.dayExpression() + ", " + value + " " +
+                    "FROM " + source.table + " " + joins +
+                    (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where)) +
+                    " GROUP BY " + (NO_DIMENSION.equals(dimension) ? "" : dimension + ", ") + source.dayExpression() +
+                    " " +
+                    "ON DUPLICATE KEY UPDATE valeur = VALUES(valeur)";
+        }
+    }
+
+    /** Recomputes the rollups of {@code source} for {@code days} on its own connection. */
+    public void refresh(Source source, LocalDate... days) {
+        try (Connection conn = getConnection()) {
+            refresh(conn, source, Arrays.asList(days));
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error refreshing " + source + " rollups for " + Arrays.toString(days), e);
+        }
+    }
+
+    /**
+     * Recomputes the rollups of {@code source} for {@code days} on {@code conn}, in a transaction
+     * of its own. Call it once the write to the source table is committed: the refresh locks the
+     * day's rollup rows, and two desks refreshing the same day can deadlock, so it must not share
+     * the business write's transaction. The deadlock victim is retried; a refresh that still fails
+     * is logged, and the dashboards lag until the next refresh of that day or a {@link #rebuild}.
+     * Null days are ignored.
+     */
+    public void refresh(Connection conn, Source source, Collection<LocalDate> days) {
+        Set<LocalDate> distinct = new TreeSet<>();
+        for (LocalDate day : days) {
+            if (day != null) {
+                distinct.add(day);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return;
+        }
+        try {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        recompute(conn, source, distinct);
+                        conn.commit();
+                        break;
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        if (!SQLSTATE_DEADLOCK.equals(e.getSQLState()) || attempt == MAX_ATTEMPTS) {
+                            throw e;
+                        }
+                        LOGGER.log(Level.FINE, "Rollup refresh of " + source + " chosen as deadlock victim, retrying", e);
+                    }
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error refreshing " + source + " rollups for " + distinct
+                    + "; run with --rebuild-rollups to repair", e);
+        } finally {
+            QueryCache.tablesChanged(TABLE);
+        }
+    }
+
+    private static void recompute(Connection conn, Source source, Set<LocalDate> days) throws SQLException {
+        List<Metric> metrics = source.metrics();
+        String deleteSql = "DELETE FROM " + TABLE + " WHERE jour = ? AND metric IN (" + placeholders(metrics.size()) + ")";
+        try (PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+            for (LocalDate day : days) {
+                delete.setDate(1, Date.valueOf(day));
+                for (int i = 0; i < metrics.size(); i++) {
+                    delete.setString(i + 2, metrics.get(i).name());
+                }
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+        for (Metric metric : metrics) {
+            try (PreparedStatement insert = conn.prepareStatement(metric.insertSql(true))) {
+                for (LocalDate day : days) {
+                    insert.setDate(1, Date.valueOf(day));
+                    insert.setDate(2, Date.valueOf(day.plusDays(1)));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    /** The day a row of {@code source} is currently dated, or {@code null} if there is no such row. */
+    public LocalDate dayOf(Connection conn, Source source, long id) throws SQLException {
+        String sql = "SELECT " + source.dayExpression() + " FROM " + source.table + " WHERE " + source.idColumn + " = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Date day = rs.getDate(1);
+                    return day == null ? null : day.toLocalDate();
+                }
+            }
+        }
+        return null;
+    }
+
+    /** The days of the rows of {@code source} whose {@code column} (of the source alias) is {@code value}. */
+    public List<LocalDate> daysWhere(Connection conn, Source source, String column, long value) throws SQLException {
+        String alias = source.idColumn.substring(0, source.idColumn.indexOf('.') + 1);
+        String sql = "SELECT DISTINCT " + source.dayExpression() + " FROM " + source.table +
+                " WHERE " + alias + column + " = ?";
+        List<LocalDate> days = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, value);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    days.add(rs.getDate(1).toLocalDate());
+                }
+            }
+        }
+        return days;
+    }
+
+    /** Same as {@link #dayOf(Connection, Source, long)} on its own connection; errors give {@code null}. */
+    public LocalDate dayOf(Source source, long id) {
+        try (Connection conn = getConnection()) {
+            return dayOf(conn, source, id);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading the day of " + source + " " + id, e);
+            return null;
+        }
+    }
+
+    /** Recomputes every rollup from the source tables in one transaction. */
+    public void rebuild() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM " + TABLE);
+                for (Metric metric : Metric.values()) {
+                    stmt.executeUpdate(metric.insertSql(false));
+                }
+            }
+            conn.commit();
+            QueryCache.tablesChanged(TABLE);
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back rollup rebuild", ex);
+                }
+            }
+            throw e;
+        } finally {
+            closeQuietly(conn);
+        }
+    }
+
+    /** Value of {@code metric} per day from {@code from} to {@code to} inclusive, all dimensions summed; days without data are absent. */
+    public Map<LocalDate, Double> daily(Metric metric, LocalDate from, LocalDate to) {
+        String sql = "SELECT jour, SUM(valeur) FROM " + TABLE +
+                " WHERE metric = ? AND jour BETWEEN ? AND ? GROUP BY jour ORDER BY jour";
+        try {
+            return new TreeMap<>(QueryCache.get(sql, List.of(metric.name(), from, to), Set.of(TABLE), () -> {
+                Map<LocalDate, Double> values = new TreeMap<>();
+                try (Connection conn = getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, metric.name());
+                    stmt.setDate(2, Date.valueOf(from));
+                    stmt.setDate(3, Date.valueOf(to));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            values.put(rs.getDate(1).toLocalDate(), rs.getDouble(2));
+                        }
+                    }
+                }
+                return values;
+            }));
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading daily " + metric, e);
+            return new TreeMap<>();
+        }
+    }
+
+    /** Total of {@code metric} from {@code from} to {@code to} inclusive. */
+    public double total(Metric metric, LocalDate from, LocalDate to) {
+        double total = 0;
+        for (double value : daily(metric, from, to).values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    /** Total of {@code metric} per dimension from {@code from} to {@code to} inclusive, largest first. */
+    public Map<String, Double> totalsByDimension(Metric metric, LocalDate from, LocalDate to) {
+        String sql = "SELECT dimension, SUM(valeur) AS total FROM " + TABLE +
+                " WHERE metric = ? AND jour BETWEEN ? AND ? GROUP BY dimension ORDER BY total DESC";
+        try {
+            return new LinkedHashMap<>(QueryCache.get(sql, List.of(metric.name(), from, to), Set.of(TABLE), () -> {
+                Map<String, Double> values = new LinkedHashMap<>();
+                try (Connection conn = getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, metric.name());
+                    stmt.setDate(2, Date.valueOf(from));
+                    stmt.setDate(3, Date.valueOf(to));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            values.put(rs.getString(1), rs.getDouble(2));
+                        }
+                    }
+                }
+                return values;
+            }));
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading " + metric + " by dimension", e);
+            return new LinkedHashMap<>();
+        }
+    }
+}
@@ -1,58 +1,106 @@
 package org.cpi2.repository;
 
 import org.cpi2.entities.AutoEcole;
+import org.cpi2.entities.DashboardSnapshot;
 import org.cpi2.entities.Seance;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 
-public class DashboardRepository {
+public class DashboardRepository extends BaseRepository<Object> {
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
 
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/autoecole";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "";
+    private static final String CURRENT_MONTH_START = "DATE_FORMAT(CURRENT_DATE(), '%Y-%m-01')";
+    private static final String NEXT_MONTH_START = "DATE_FORMAT(CURRENT_DATE() + INTERVAL 1 MONTH, '%Y-%m-01')";
+    private static final String PREVIOUS_MONTH_START = "DATE_FORMAT(CURRENT_DATE() - INTERVAL 1 MONTH, '%Y-%m-01')";
+
+    private static final String SNAPSHOT_QUERY = "SELECT " +
+            "(SELECT COUNT(*) FROM candidat) AS candidats, " +
+            "(SELECT COUNT(*) FROM seance) AS seances, " +
+            "(SELECT COUNT(*) FROM moniteur) AS moniteurs, " +
+            "(SELECT COUNT(*) FROM vehicule) AS vehicules, " +
+            "(SELECT COUNT(*) FROM vehicule WHERE statut = 'Disponible') AS vehicules_disponibles, " +
+            "(SELECT COALESCE(SUM(valeur), 0) FROM daily_rollup WHERE metric = 'REVENUE' " +
+            "   AND jour >= " + CURRENT_MONTH_START + " AND jour < " + NEXT_MONTH_START + ") AS revenu_mois, " +
+            "(SELECT COALESCE(SUM(valeur), 0) FROM daily_rollup WHERE metric = 'REVENUE' " +
+            "   AND jour >= " + PREVIOUS_MONTH_START + " AND jour < " + CURRENT_MONTH_START + ") AS revenu_mois_precedent, " +
+            "(SELECT COUNT(CASE WHEN resultat = 1 THEN 1 END) * 100.0 / NULLIF(COUNT(*), 0) FROM examen " +
+            "   WHERE date_examen BETWEEN DATE_SUB(CURRENT_DATE(), INTERVAL 6 MONTH) AND CURRENT_DATE() " +
+            "   AND resultat IS NOT NULL) AS taux_reussite, " +
+            "(SELECT COUNT(*) FROM examen WHERE resultat = 1) AS examens_reussis";
+
+    /**
+     * Fetches every KPI of the home dashboard in one round trip.
+     */
+    public DashboardSnapshot getSnapshot() {
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SNAPSHOT_QUERY)) {
+            if (rs.next()) {
+                double successRate = rs.getDouble("taux_reussite");
+                if (rs.wasNull()) {
+                    successRate = Double.NaN;
+                }
+                return new DashboardSnapshot(
+                        rs.getInt("candidats"),
+                        rs.getInt("seances"),
+                        rs.getInt("moniteurs"),
+                        rs.getInt("vehicules"),
+                        rs.getInt("vehicules_disponibles"),
+                        rs.getDouble("revenu_mois"),
+                        rs.getDouble("revenu_mois_precedent"),
+                        successRate,
+                        rs.getInt("examens_reussis"));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Erreur lors du chargement des indicateurs du tableau de bord", e);
+        }
+        return DashboardSnapshot.empty();
+    }
 
     public int getCandidatesCount() {
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM candidat")) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors du comptage des candidats: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors du comptage des candidats", e);
         }
         return 0;
     }
 
     public int getSessionsCount() {
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM seance")) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors du comptage des séances: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors du comptage des séances", e);
         }
         return 0;
     }
 
     public int getMoniteursCount() {
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM moniteur")) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors du comptage des moniteurs: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors du comptage des moniteurs", e);
         }
         return 0;
     }
@@ -71,7 +119,7 @@ public class DashboardRepository {
                 "ORDER BY s.date, s.heure " +
                 "LIMIT " + limit;
 
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             while (rs.next()) {
@@ -99,33 +147,19 @@ public class DashboardRepository {
                 sessions.add(seance);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération des séances à venir: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors de la récupération des séances à venir", e);
         }
         return sessions;
     }
 
     public AutoEcole getAutoEcoleInfo() {
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM auto_ecole LIMIT 1")) {
-            if (rs.next()) {
-                AutoEcole autoEcole = new AutoEcole();
-                autoEcole.setNom(rs.getString("nom"));
-                autoEcole.setAdresse(rs.getString("adresse"));
-                autoEcole.setTelephone(rs.getString("telephone"));
-                autoEcole.setEmail(rs.getString("email"));
-                return autoEcole;
-            }
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération des informations de l'auto-école: " + e.getMessage());
-        }
-        return null;
+        return ReferenceData.autoEcole();
     }
 
     public List<Seance> getTodaySessions() {
         List<Seance> sessions = new ArrayList<>();
         String query = "SELECT * FROM seance WHERE DATE(date) = CURRENT_DATE()";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             while (rs.next()) {
@@ -135,7 +169,7 @@ public class DashboardRepository {
                 sessions.add(seance);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération des séances du jour: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors de la récupération des séances du jour", e);
         }
         return sessions;
     }
@@ -143,7 +177,7 @@ public class DashboardRepository {
     public List<Seance> getSessionsWithoutMoniteur() {
         List<Seance> sessions = new ArrayList<>();
         String query = "SELECT * FROM seance WHERE moniteur_id IS NULL";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             while (rs.next()) {
@@ -152,7 +186,7 @@ public class DashboardRepository {
                 sessions.add(seance);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération des séances sans moniteur: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors de la récupération des séances sans moniteur", e);
         }
         return sessions;
     }
@@ -161,46 +195,14 @@ public class DashboardRepository {
         return false;
     }
 
-    public int getIncompleteCandidatesCount() {
-        String query = "SELECT COUNT(*) FROM candidat WHERE email IS NULL OR email = '' OR type_permis IS NULL";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la vérification des candidats incomplets: " + e.getMessage());
-        }
-        return 0;
-    }
-
     public double getMonthlyIncome() {
-        String query = "SELECT SUM(montant) FROM paiement WHERE MONTH(date_paiement) = MONTH(CURRENT_DATE()) AND YEAR(date_paiement) = YEAR(CURRENT_DATE())";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                return rs.getDouble(1);
-            }
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération des revenus mensuels: " + e.getMessage());
-        }
-        return 0;
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        return rollups.total(DailyRollupRepository.Metric.REVENUE, monthStart, monthStart.plusMonths(1).minusDays(1));
     }
 
     public double getPreviousMonthIncome() {
-        String query = "SELECT SUM(montant) FROM paiement WHERE MONTH(date_paiement) = MONTH(DATE_SUB(CURRENT_DATE(), INTERVAL 1 MONTH)) AND YEAR(date_paiement) = YEAR(DATE_SUB(CURRENT_DATE(), INTERVAL 1 MONTH))";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                return rs.getDouble(1);
-            }
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération des revenus du mois précédent: " + e.getMessage());
-        }
-        return 0;
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1).minusMonths(1);
+        return rollups.total(DailyRollupRepository.Metric.REVENUE, monthStart, monthStart.plusMonths(1).minusDays(1));
     }
 
     public double getExamSuccessRate() {
@@ -208,95 +210,75 @@ public class DashboardRepository {
                 "FROM examen " +
                 "WHERE date_examen BETWEEN DATE_SUB(CURRENT_DATE(), INTERVAL 6 MONTH) AND CURRENT_DATE() " +
                 "AND resultat IS NOT NULL";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             if (rs.next()) {
                 return rs.getDouble(1);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération du taux de réussite: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors de la récupération du taux de réussite", e);
         }
         return Double.NaN;
     }
 
     public int getSuccessfulExamsCount() {
         String query = "SELECT COUNT(*) FROM examen WHERE resultat = 1";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors du comptage des examens réussis: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors du comptage des examens réussis", e);
         }
         return 0;
     }
 
     public int getTotalVehicles() {
         String query = "SELECT COUNT(*) FROM vehicule";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors du comptage des véhicules: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors du comptage des véhicules", e);
         }
         return 0;
     }
 
     public int getAvailableVehicles() {
         String query = "SELECT COUNT(*) FROM vehicule WHERE statut = 'Disponible'";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors du comptage des véhicules disponibles: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Erreur lors du comptage des véhicules disponibles", e);
         }
         return 0;
     }
 
     public Map<Integer, Integer> getSessionsPerMonth() {
-        Map<Integer, Integer> sessionsByMonth = new HashMap<>();
-        String query = "SELECT MONTH(date) AS month, COUNT(*) AS count " +
-                "FROM seance " +
-                "WHERE date BETWEEN DATE_SUB(CURRENT_DATE(), INTERVAL 6 MONTH) AND CURRENT_DATE() " +
-                "GROUP BY MONTH(date) " +
-                "ORDER BY MONTH(date)";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-                sessionsByMonth.put(rs.getInt("month"), rs.getInt("count"));
-            }
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération des séances par mois: " + e.getMessage());
-        }
-        return sessionsByMonth;
+        return perMonth(DailyRollupRepository.Metric.SEANCES);
     }
 
     public Map<Integer, Integer> getRegistrationsPerMonth() {
-        Map<Integer, Integer> registrationsByMonth = new HashMap<>();
-        String query = "SELECT MONTH(DATE(created_at)) AS month, COUNT(*) AS count " +
-                "FROM candidat " +
-                "WHERE DATE(created_at) BETWEEN DATE_SUB(CURRENT_DATE(), INTERVAL 6 MONTH) AND CURRENT_DATE() " +
-                "GROUP BY MONTH(DATE(created_at)) " +
-                "ORDER BY MONTH(DATE(created_at))";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-                registrationsByMonth.put(rs.getInt("month"), rs.getInt("count"));
-            }
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la récupération des inscriptions par mois: " + e.getMessage());
+        return perMonth(DailyRollupRepository.Metric.REGISTRATIONS);
+    }
+
+    /** Count of {@code metric} per month number over the last six months, from the daily rollups. */
+    private Map<Integer, Integer> perMonth(DailyRollupRepository.Metric metric) {
+        Map<Integer, Integer> byMonth = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        for (Map.Entry<LocalDate, Double> day : rollups.daily(metric, today.minusMonths(6), today).entrySet()) {
+            byMonth.merge(day.getKey().getMonthValue(), day.getValue().intValue(), Integer::sum);
         }
-        return registrationsByMonth;
+        return byMonth;
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,25 @@
 package org.cpi2.repository;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.logging.Logger;
 
+/**
+ * Entry point for database access. Connections come from a bounded pool; the server can be
+ * changed with {@code -Dautoecole.db.url}, {@code user} and {@code password}, and pool settings
+ * with {@code -Dautoecole.db.pool.*} system properties.
+ */
 public class DatabaseConfig {
-    private static final String URL = "jdbc:mysql://localhost:3306/autoecole?useSSL=false&serverTimezone=UTC";
-    private static final String USER = "root";
-    private static final String PASSWORD = "";
-    private static final Logger LOGGER = Logger.getLogger(DatabaseConfig.class.getName());
-    private static Connection connection = null;
+    private static final String URL = System.getProperty("autoecole.db.url",
+            "jdbc:mysql://localhost:3306/autoecole?useSSL=false&serverTimezone=UTC&rewriteBatchedStatements=true");
+    private static final String USER = System.getProperty("autoecole.db.user", "root");
+    private static final String PASSWORD = System.getProperty("autoecole.db.password", "");
+
+    private static final int POOL_MIN_SIZE = Integer.getInteger("autoecole.db.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("autoecole.db.pool.maxSize", 10);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("autoecole.db.pool.borrowTimeoutMs", 30_000L);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("autoecole.db.pool.idleTimeoutMs", 300_000L);
+    private static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("autoecole.db.pool.leakThresholdMs", 60_000L);
+    private static final int POOL_VALIDATION_TIMEOUT_S = Integer.getInteger("autoecole.db.pool.validationTimeoutS", 2);
 
     static {
         try {
@@ -20,15 +29,27 @@ public class DatabaseConfig {
         }
     }
 
-    public static synchronized Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            } catch (SQLException e) {
-                LOGGER.severe("Failed to connect to database: " + e.getMessage());
-                throw e;
-            }
-        }
-        return connection;
+    private static class PoolHolder {
+        private static final ConnectionPool POOL = new ConnectionPool(URL, USER, PASSWORD,
+                POOL_MIN_SIZE, POOL_MAX_SIZE,
+                POOL_BORROW_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS,
+                POOL_LEAK_THRESHOLD_MS, POOL_VALIDATION_TIMEOUT_S);
+    }
+
+    /**
+     * Borrows a connection from the pool. Closing it returns it to the pool.
+     */
+    public static Connection getConnection() throws SQLException {
+        return PoolHolder.POOL.borrow();
+    }
+
+    public static String getPoolStats() {
+        ConnectionPool pool = PoolHolder.POOL;
+        return "active=" + pool.getActiveCount() + ", idle=" + pool.getIdleCount()
+                + ", total=" + pool.getTotalCount() + ", max=" + POOL_MAX_SIZE;
+    }
+
+    public static void shutdown() {
+        PoolHolder.POOL.shutdown();
     }
-}
\ No newline at end of file
+}
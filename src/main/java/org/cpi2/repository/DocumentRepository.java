@@ -7,8 +7,10 @@ import org.cpi2.entities.TypeDocument;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,31 +57,29 @@ public class DocumentRepository extends BaseRepository<Document> {
     }
 
 
-    private Document mapResultSetToDocument(ResultSet rs) throws SQLException {
+    Document mapResultSetToDocument(ResultSet rs) throws SQLException {
         long id = rs.getLong("id");
-        TypeDocument typeDocument;
         String nomFichier = rs.getString("nom_fichier");
         String cheminFichier = rs.getString("chemin_fichier");
         Timestamp timestamp = rs.getTimestamp("date_upload");
-        int typeDocumentId = rs.getInt("type_document_id");
-        String typeDoc = typeDocumentRepository
-                .findById(typeDocumentId).get();
-
-        typeDocument = TypeDocument.valueOf(typeDoc);
+        long typeDocumentId = rs.getLong("type_document_id");
+        TypeDocument typeDocument = TypeDocument.valueOf(ReferenceData.typeDocumentLibelle(typeDocumentId)
+                .orElseThrow(() -> new DataNotFound("Type document not found: " + typeDocumentId)));
 
         Document document = new Document();
         document.setId(id);
         document.setTypeDocument(typeDocument);
         document.setNomFichier(nomFichier);
         document.setCheminFichier(cheminFichier);
+        document.setSha256(rs.getString("sha256"));
         document.setDateUpload(timestamp != null ? timestamp.toLocalDateTime() : null);
         return document;
     }
 
     public boolean save(Document document, Long dossierId) throws DataNotFound {
         String sql = """
-            INSERT INTO document (dossier_id, type_document_id, nom_fichier, chemin_fichier)
-            VALUES (?, ?, ?, ?)
+            INSERT INTO document (dossier_id, type_document_id, nom_fichier, chemin_fichier, sha256)
+            VALUES (?, ?, ?, ?, ?)
         """;
         long typeDocumentId = typeDocumentRepository.findByLibelle(document.getTypeDocument().name()).orElse(0L);
         if (typeDocumentId == 0) {
@@ -93,6 +93,7 @@ public class DocumentRepository extends BaseRepository<Document> {
             stmt.setLong(2, typeDocumentId);
             stmt.setString(3, document.getNomFichier());
             stmt.setString(4, document.getCheminFichier());
+            stmt.setString(5, document.getSha256());
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows > 0) {
@@ -112,7 +113,7 @@ public class DocumentRepository extends BaseRepository<Document> {
     public boolean update(Document document, Long dossierId) throws DataNotFound {
         String sql = """
             UPDATE document 
-            SET dossier_id = ?, type_document_id = ?, nom_fichier = ?, chemin_fichier = ?
+            SET dossier_id = ?, type_document_id = ?, nom_fichier = ?, chemin_fichier = ?, sha256 = ?
             WHERE id = ?
         """;
         long typeDocumentId = (long)typeDocumentRepository.findByLibelle(document.getTypeDocument().name()).get();
@@ -128,7 +129,8 @@ public class DocumentRepository extends BaseRepository<Document> {
             stmt.setLong(2, typeDocumentId);
             stmt.setString(3, document.getNomFichier());
             stmt.setString(4, document.getCheminFichier());
-            stmt.setLong(5, document.getId());
+            stmt.setString(5, document.getSha256());
+            stmt.setLong(6, document.getId());
 
             return stmt.executeUpdate() > 0;
 
@@ -153,6 +155,74 @@ public class DocumentRepository extends BaseRepository<Document> {
         }
     }
 
+    /** Points a document at its blob, once its file has been moved to the blob store. */
+    public boolean updateBlob(Long id, String sha256, String cheminFichier) {
+        String sql = "UPDATE document SET sha256 = ?, chemin_fichier = ? WHERE id = ?";
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, sha256);
+            stmt.setString(2, cheminFichier);
+            stmt.setLong(3, id);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating document blob", e);
+            return false;
+        }
+    }
+
+    /** Number of documents stored as the blob {@code sha256}; -1 if it cannot be read, so the blob is kept. */
+    public long countBySha256(String sha256) {
+        String sql = "SELECT COUNT(*) FROM document WHERE sha256 = ?";
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, sha256);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error counting references to blob " + sha256, e);
+            return -1;
+        }
+    }
+
+    public Set<String> findAllSha256() throws SQLException {
+        String sql = "SELECT DISTINCT sha256 FROM document WHERE sha256 IS NOT NULL";
+        Set<String> hashes = new HashSet<>();
+
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                hashes.add(rs.getString(1));
+            }
+        }
+        return hashes;
+    }
+
+    public Optional<Long> findDossierId(Long documentId) {
+        String sql = "SELECT dossier_id FROM document WHERE id = ?";
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, documentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(rs.getLong(1));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding dossier of document", e);
+        }
+        return Optional.empty();
+    }
+
     public List<Document> findByDossierId(Long dossierId) {
         List<Document> documents = new ArrayList<>();
         String sql = "SELECT * FROM document WHERE dossier_id = ?";
@@ -11,7 +11,6 @@ import java.util.logging.Logger;
 public class DossierRepository extends BaseRepository<Dossier> {
     private static final Logger LOGGER = Logger.getLogger(DossierRepository.class.getName());
     private final DocumentRepository documentRepository = new DocumentRepository();
-    private final TypeDocumentRepository typeDocumentRepository = new TypeDocumentRepository();
 
     public Optional<Dossier> findById(Long id) {
         String sql = """
@@ -23,12 +22,12 @@ public class DossierRepository extends BaseRepository<Dossier> {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Dossier dossier = mapResultSetToDossier(rs);
-                loadDocumentsForDossier(dossier);
-                return Optional.of(dossier);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Dossier dossier = mapResultSetToDossier(rs);
+                    loadDocuments(conn, List.of(dossier));
+                    return Optional.of(dossier);
+                }
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding dossier by ID", e);
@@ -45,11 +44,11 @@ public class DossierRepository extends BaseRepository<Dossier> {
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                Dossier dossier = mapResultSetToDossier(rs);
-                loadDocumentsForDossier(dossier);
-                dossiers.add(dossier);
+                dossiers.add(mapResultSetToDossier(rs));
             }
+            loadDocuments(conn, dossiers);
         } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding all dossiers", e);
         }
         return dossiers;
     }
@@ -61,14 +60,33 @@ public class DossierRepository extends BaseRepository<Dossier> {
         return dossier;
     }
 
-    private void loadDocumentsForDossier(Dossier dossier) {
-        List<Document> documents = documentRepository.findByDossierId(dossier.getId());
-        Map<TypeDocument, TreeSet<Document>> documentMap = new HashMap<>();
-        for (Document document : documents) {
-            documentMap.putIfAbsent(document.getTypeDocument(), new TreeSet<>());
-            documentMap.get(document.getTypeDocument()).add(document);
+    /**
+     * Fills the documents of all {@code dossiers} with one query per {@link #IN_CLAUSE_CHUNK_SIZE}
+     * dossiers, on the caller's connection; document types are resolved from {@link ReferenceData}.
+     */
+    private void loadDocuments(Connection conn, List<Dossier> dossiers) throws SQLException {
+        Map<Long, Map<TypeDocument, TreeSet<Document>>> documentsByDossier = new HashMap<>();
+        for (Dossier dossier : dossiers) {
+            // A dossier listed twice shares one map
+            dossier.setDocuments(documentsByDossier.computeIfAbsent(dossier.getId(), id -> new HashMap<>()));
+        }
+
+        for (List<Long> chunk : partition(documentsByDossier.keySet())) {
+            String sql = "SELECT * FROM document WHERE dossier_id IN (" + placeholders(chunk.size()) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Document document = documentRepository.mapResultSetToDocument(rs);
+                        documentsByDossier.get(rs.getLong("dossier_id"))
+                                .computeIfAbsent(document.getTypeDocument(), type -> new TreeSet<>())
+                                .add(document);
+                    }
+                }
+            }
         }
-        dossier.setDocuments(documentMap);
     }
 
     public boolean save(Dossier dossier, Long candidatId) {
@@ -138,12 +156,12 @@ public class DossierRepository extends BaseRepository<Dossier> {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, candidatId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Dossier dossier = mapResultSetToDossier(rs);
-                loadDocumentsForDossier(dossier);
-                return Optional.of(dossier);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Dossier dossier = mapResultSetToDossier(rs);
+                    loadDocuments(conn, List.of(dossier));
+                    return Optional.of(dossier);
+                }
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding dossier by candidat ID", e);
@@ -163,6 +181,53 @@ public class DossierRepository extends BaseRepository<Dossier> {
         return documentRepository.delete(documentId);
     }
 
+    /** The candidat of a dossier and the types of the documents it holds. */
+    public record DocumentTypes(long dossierId, long candidatId, Set<TypeDocument> types) {
+    }
+
+    /** Document types of every dossier, empty dossiers included, in one query. */
+    public List<DocumentTypes> findAllDocumentTypes() throws SQLException {
+        return queryDocumentTypes(null);
+    }
+
+    public Optional<DocumentTypes> findDocumentTypes(long dossierId) throws SQLException {
+        return queryDocumentTypes(dossierId).stream().findFirst();
+    }
+
+    private List<DocumentTypes> queryDocumentTypes(Long dossierId) throws SQLException {
+        String sql = """
+            SELECT DISTINCT d.id, d.candidat_id, doc.type_document_id
+            FROM dossier d
+            LEFT JOIN document doc ON doc.dossier_id = d.id
+        """ + (dossierId != null ? "WHERE d.id = ?" : "") + " ORDER BY d.id";
+        Map<Long, DocumentTypes> byDossier = new LinkedHashMap<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (dossierId != null) {
+                stmt.setLong(1, dossierId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    DocumentTypes dossier = byDossier.get(id);
+                    if (dossier == null) {
+                        dossier = new DocumentTypes(id, rs.getLong("candidat_id"), EnumSet.noneOf(TypeDocument.class));
+                        byDossier.put(id, dossier);
+                    }
+                    long typeDocumentId = rs.getLong("type_document_id");
+                    if (!rs.wasNull()) {
+                        ReferenceData.typeDocumentLibelle(typeDocumentId)
+                                .map(TypeDocument::valueOf)
+                                .ifPresent(dossier.types()::add);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(byDossier.values());
+    }
+
     public List<Dossier> findDossiersWithMissingDocuments(List<TypeDocument> requiredDocumentTypes) {
         List<Dossier> dossiers = new ArrayList<>();
         StringBuilder sql = new StringBuilder("""
@@ -180,14 +245,13 @@ public class DossierRepository extends BaseRepository<Dossier> {
 
             for (TypeDocument docType : requiredDocumentTypes) {
                 stmt.setString(1, docType.name());
-                ResultSet rs = stmt.executeQuery();
-
-                while (rs.next()) {
-                    Dossier dossier = mapResultSetToDossier(rs);
-                    loadDocumentsForDossier(dossier);
-                    dossiers.add(dossier);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        dossiers.add(mapResultSetToDossier(rs));
+                    }
                 }
             }
+            loadDocuments(conn, dossiers);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding dossiers with missing documents", e);
         }
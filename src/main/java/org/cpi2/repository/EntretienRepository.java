@@ -5,12 +5,14 @@ import org.cpi2.entities.Entretien;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class EntretienRepository extends BaseRepository<Entretien> {
     private static final Logger LOGGER = Logger.getLogger(EntretienRepository.class.getName());
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
 
     public EntretienRepository() {
     }
@@ -202,6 +204,7 @@ public class EntretienRepository extends BaseRepository<Entretien> {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     entretien.setId(generatedKeys.getInt(1));
+                    rollups.refresh(conn, DailyRollupRepository.Source.ENTRETIEN, List.of(entretien.getDateEntretien()));
                 } else {
                     throw new SQLException("Creating entretien failed, no ID obtained.");
                 }
@@ -239,7 +242,12 @@ public class EntretienRepository extends BaseRepository<Entretien> {
             stmt.setInt(10, entretien.isDone() ? 1 : 0);
             stmt.setInt(11, entretien.getId());
 
-            return stmt.executeUpdate() > 0;
+            LocalDate previousDay = rollups.dayOf(conn, DailyRollupRepository.Source.ENTRETIEN, entretien.getId());
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            rollups.refresh(conn, DailyRollupRepository.Source.ENTRETIEN, Arrays.asList(previousDay, entretien.getDateEntretien()));
+            return true;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating entretien", e);
             return false;
@@ -251,8 +259,13 @@ public class EntretienRepository extends BaseRepository<Entretien> {
 
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            LocalDate previousDay = rollups.dayOf(conn, DailyRollupRepository.Source.ENTRETIEN, id);
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            rollups.refresh(conn, DailyRollupRepository.Source.ENTRETIEN, Arrays.asList(previousDay));
+            return true;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting entretien", e);
             return false;
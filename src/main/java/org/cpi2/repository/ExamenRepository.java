@@ -8,22 +8,13 @@ import java.sql.*;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ExamenRepository extends BaseRepository<Examen> {
     private static final Logger LOGGER = Logger.getLogger(ExamenRepository.class.getName());
     private final CandidatRepository candidatRepository = new CandidatRepository();
-    private final Map<Integer, TypeExamen> typeExamenMap;
-
-    public ExamenRepository() {
-        this.typeExamenMap = new HashMap<>();
-        try {
-            typeExamenMap.putAll(getTypeExamen());
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error initializing ExamenRepository", e);
-        }
-    }
 
     public Optional<Examen> findById(Long id) {
         String sql = "SELECT * FROM examen WHERE id = ?";
@@ -91,6 +82,93 @@ public class ExamenRepository extends BaseRepository<Examen> {
         return examens;
     }
 
+    public Map<Long, Examen> findByIds(Collection<Long> ids) {
+        List<Map<String, Object>> examenDataList = new ArrayList<>();
+        for (List<Long> chunk : partition(new HashSet<>(ids))) {
+            String sql = "SELECT * FROM examen WHERE id IN (" + placeholders(chunk.size()) + ")";
+
+            try (Connection conn = getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        examenDataList.add(extractExamenData(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error finding examens by ids", e);
+            }
+        }
+
+        Map<Long, Examen> examens = new HashMap<>();
+        for (Examen examen : resolveExamens(examenDataList)) {
+            examens.put(examen.getId(), examen);
+        }
+        return examens;
+    }
+
+    /**
+     * A page of the examens without a result, latest first, starting after {@code after}
+     * ({@code null} for the first page); {@code onDate} restricts it to one day when not null.
+     */
+    public Page<Examen> findPendingPage(LocalDate onDate, Page.Cursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM examen WHERE resultat IS NULL");
+        if (onDate != null) {
+            sql.append(" AND date_examen = ?");
+        }
+        if (after != null) {
+            sql.append(" AND ").append(seekPredicate("date_examen", "id", true));
+        }
+        sql.append(" ORDER BY date_examen DESC, id DESC LIMIT ?");
+        List<Map<String, Object>> examenDataList = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            if (onDate != null) {
+                stmt.setDate(index++, Date.valueOf(onDate));
+            }
+            if (after != null) {
+                index = bindCursor(stmt, index, after);
+            }
+            stmt.setInt(index, limit + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    examenDataList.add(extractExamenData(rs));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding pending examens page", e);
+        }
+
+        // The cursor comes from the rows read, so a row dropped while resolving cannot stall paging
+        Page<Map<String, Object>> rows = toPage(examenDataList, limit, data -> new Page.Cursor(
+                ((Date) data.get("date_examen")).toLocalDate(), (Long) data.get("id")));
+        return new Page<>(resolveExamens(rows.items()), rows.next());
+    }
+
+    /** Builds examens from rows in order, resolving their candidats with one batched lookup. */
+    private List<Examen> resolveExamens(List<Map<String, Object>> examenDataList) {
+        Set<Long> candidatIds = new HashSet<>();
+        for (Map<String, Object> examenData : examenDataList) {
+            candidatIds.add((Long) examenData.get("candidat_id"));
+        }
+        Map<Long, Candidat> candidats = candidatRepository.findByIds(candidatIds);
+
+        List<Examen> examens = new ArrayList<>(examenDataList.size());
+        for (Map<String, Object> examenData : examenDataList) {
+            Examen examen = createExamenFromData(examenData, id -> Optional.ofNullable(candidats.get(id)));
+            if (examen != null) {
+                examens.add(examen);
+            }
+        }
+        return examens;
+    }
+
     private Map<String, Object> extractExamenData(ResultSet rs) throws SQLException {
         Map<String, Object> examenData = new HashMap<>();
         examenData.put("id", rs.getLong("id"));
@@ -110,8 +188,12 @@ public class ExamenRepository extends BaseRepository<Examen> {
     }
 
     private Examen createExamenFromData(Map<String, Object> data) {
+        return createExamenFromData(data, candidatRepository::findById);
+    }
+
+    private Examen createExamenFromData(Map<String, Object> data, Function<Long, Optional<Candidat>> candidatLookup) {
         try {
-            TypeExamen typeExamen = typeExamenMap.get((Integer) data.get("type_examen_id"));
+            TypeExamen typeExamen = ReferenceData.typeExamenById().get((Integer) data.get("type_examen_id"));
             long id = (Long) data.get("id");
             LocalDate dateExamen = ((Date) data.get("date_examen")).toLocalDate();
             double frais = (Double) data.get("frais");
@@ -119,7 +201,7 @@ public class ExamenRepository extends BaseRepository<Examen> {
             long candidatId = (Long) data.get("candidat_id");
             String commentaire = (String) data.get("commentaire");
 
-            Candidat candidat = candidatRepository.findById(candidatId).orElse(null);
+            Candidat candidat = candidatLookup.apply(candidatId).orElse(null);
 
             if (candidat == null) {
                 LOGGER.warning("Candidat not found for examen ID: " + id);
@@ -151,29 +233,8 @@ public class ExamenRepository extends BaseRepository<Examen> {
         }
     }
 
-    public Map<Integer, TypeExamen> getTypeExamen() throws SQLException {
-        Map<Integer, TypeExamen> typeExamenMap = new HashMap<>();
-        String sql = "SELECT * FROM type_examen";
-
-        try (Connection connection = getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                String libelle = rs.getString("libelle");
-                int id = rs.getInt("id");
-                if (libelle.equalsIgnoreCase("code")) {
-                    typeExamenMap.put(id, TypeExamen.CODE);
-                }
-                else if (libelle.equalsIgnoreCase("conduite")) {
-                    typeExamenMap.put(id, TypeExamen.CONDUITE);
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding type", e);
-            return null;
-        }
-        return typeExamenMap;
+    public Map<Integer, TypeExamen> getTypeExamen() {
+        return ReferenceData.typeExamenById();
     }
 
     public boolean save(Examen examen) {
@@ -203,13 +264,8 @@ public class ExamenRepository extends BaseRepository<Examen> {
     }
 
     public int getTypeExamenId(TypeExamen typeExamen) throws SQLException {
-        for (Map.Entry<Integer, TypeExamen> entry : typeExamenMap.entrySet()) {
-            if (entry.getValue() == typeExamen) {
-                System.out.println("TypeExamen ID: " + entry.getKey());
-                return entry.getKey();
-            }
-        }
-        throw new SQLException("TypeExamen not found: " + typeExamen);
+        return ReferenceData.typeExamenId(typeExamen)
+                .orElseThrow(() -> new SQLException("TypeExamen not found: " + typeExamen));
     }
 
     public boolean update(Examen examen) {
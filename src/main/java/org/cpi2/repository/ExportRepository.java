@@ -0,0 +1,118 @@
+package org.cpi2.repository;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Streams the rows of an export straight from the database to a {@link RowSink}.
+ * <p>
+ * The statement is forward-only and read-only with the MySQL streaming fetch size, so the driver
+ * hands rows over one at a time instead of buffering the whole result: memory stays constant
+ * whatever the number of rows. The connection is busy until the sink has taken the last row.
+ */
+public class ExportRepository extends BaseRepository<Void> {
+    // Connector/J streams row by row only with this fetch size; any other value buffers the result
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /** The tables that can be exported, with the date column the range filter applies to. */
+    public enum Dataset {
+        PAIEMENTS("paiements",
+                "SELECT p.id, p.date_paiement, c.cin, c.nom, c.prenom, p.type_paiement, " +
+                        "p.inscription_id, p.id_examen, p.montant, p.mode_paiement, p.statut, p.notes " +
+                        "FROM paiement p JOIN candidat c ON c.id = p.id_candidat",
+                "p.date_paiement", "p.date_paiement, p.id"),
+        SEANCES("seances",
+                "SELECT s.id, s.date, s.heure, s.duree, s.type, s.statut, s.lieu, " +
+                        "c.cin AS candidat_cin, c.nom AS candidat_nom, c.prenom AS candidat_prenom, " +
+                        "m.cin AS moniteur_cin, m.nom AS moniteur_nom, m.prenom AS moniteur_prenom, " +
+                        "v.immatriculation, s.kilometrage_debut, s.kilometrage_fin, s.commentaire " +
+                        "FROM seance s " +
+                        "LEFT JOIN candidat c ON c.id = s.candidat_id " +
+                        "LEFT JOIN moniteur m ON m.id = s.moniteur_id " +
+                        "LEFT JOIN vehicule v ON v.id = s.vehicule_id",
+                "s.date", "s.date, s.id"),
+        CANDIDATS("candidats",
+                "SELECT id, nom, prenom, cin, adresse, telephone, email, date_naissance, created_at FROM candidat",
+                "created_at", "created_at, id");
+
+        private final String fileName;
+        private final String select;
+        private final String dateColumn;
+        private final String orderBy;
+
+        Dataset(String fileName, String select, String dateColumn, String orderBy) {
+            this.fileName = fileName;
+            this.select = select;
+            this.dateColumn = dateColumn;
+            this.orderBy = orderBy;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    /** Receives the column names once, then every row in order. */
+    public interface RowSink {
+        void begin(String[] columns) throws IOException;
+
+        void row(Object[] values) throws IOException;
+    }
+
+    /**
+     * Streams the rows of {@code dataset} dated from {@code from} to {@code to} inclusive (either
+     * may be {@code null} for no bound) into {@code sink}; returns the number of rows.
+     */
+    public long stream(Dataset dataset, LocalDate from, LocalDate to, RowSink sink) throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder(dataset.select).append(" WHERE 1 = 1");
+        if (from != null) {
+            sql.append(" AND ").append(dataset.dateColumn).append(" >= ?");
+        }
+        if (to != null) {
+            // Half-open so DATE and TIMESTAMP columns both include the whole last day
+            sql.append(" AND ").append(dataset.dateColumn).append(" < ?");
+        }
+        sql.append(" ORDER BY ").append(dataset.orderBy);
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(STREAMING_FETCH_SIZE);
+            int index = 1;
+            if (from != null) {
+                stmt.setDate(index++, Date.valueOf(from));
+            }
+            if (to != null) {
+                stmt.setDate(index, Date.valueOf(to.plusDays(1)));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                String[] columns = new String[meta.getColumnCount()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = meta.getColumnLabel(i + 1);
+                }
+                sink.begin(columns);
+
+                // One array reused for every row: the sink must not keep it
+                Object[] values = new Object[columns.length];
+                long count = 0;
+                while (rs.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    sink.row(values);
+                    count++;
+                }
+                return count;
+            }
+        }
+    }
+}
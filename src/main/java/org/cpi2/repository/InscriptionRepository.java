@@ -5,23 +5,18 @@ import org.cpi2.entities.Inscription;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class InscriptionRepository extends BaseRepository<Inscription> {
     private static final Logger LOGGER = Logger.getLogger(InscriptionRepository.class.getName());
-    private final HashMap<Integer, CoursePlan> plans;
-
-    public InscriptionRepository() {
-        this.plans = new HashMap<>();
-        PlanRepository planRepository = new PlanRepository();
-        for(CoursePlan plan : planRepository.findAll()) {
-            plans.put(plan.getId(), plan);
-        }
-    }
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
 
     public Optional<Inscription> findById(Integer id) {
         String sql = """
@@ -44,6 +39,30 @@ public class InscriptionRepository extends BaseRepository<Inscription> {
         return Optional.empty();
     }
 
+    public Map<Integer, Inscription> findByIds(Collection<Integer> ids) {
+        Map<Integer, Inscription> inscriptions = new HashMap<>();
+        for (List<Integer> chunk : partition(new HashSet<>(ids))) {
+            String sql = "SELECT * FROM inscription WHERE id IN (" + placeholders(chunk.size()) + ")";
+
+            try (Connection conn = getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Inscription inscription = mapResultSetToInscription(rs);
+                        inscriptions.put(inscription.getId(), inscription);
+                    }
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error finding inscriptions by ids", e);
+            }
+        }
+        return inscriptions;
+    }
+
     public List<Inscription> findAll() {
         List<Inscription> inscriptions = new ArrayList<>();
         String sql = "SELECT * FROM inscription";
@@ -71,9 +90,12 @@ public class InscriptionRepository extends BaseRepository<Inscription> {
         String cyclePaiement = rs.getString("cycle_paiement");
         Date dateInscription = rs.getDate("date_inscription");
 
-        CoursePlan plan = plans.get(planId);
+        CoursePlan plan = ReferenceData.plansById().get(planId);
 
-        return new Inscription(id, cin, plan, paymentStatus, statut, nextPaymentDate, cyclePaiement, dateInscription);
+        Inscription inscription = new Inscription(id, cin, plan, paymentStatus, statut, nextPaymentDate, cyclePaiement, dateInscription);
+        inscription.setCodeSessionsDone(rs.getInt("seances_code_effectuees"));
+        inscription.setConduiteSessionsDone(rs.getInt("seances_conduite_effectuees"));
+        return inscription;
     }
 
 
@@ -97,6 +119,9 @@ public class InscriptionRepository extends BaseRepository<Inscription> {
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows > 0) {
+                QueryCache.tablesChanged("inscription");
+                rollups.refresh(conn, DailyRollupRepository.Source.INSCRIPTION,
+                        List.of(new Date(inscription.getInscriptioDate().getTime()).toLocalDate()));
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         inscription.setId(generatedKeys.getInt(1));
@@ -131,7 +156,14 @@ public class InscriptionRepository extends BaseRepository<Inscription> {
                     : null);
             stmt.setInt(7, inscription.getId());
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                QueryCache.tablesChanged("inscription");
+                // The plan may have changed: its payments move to another plan in the revenue rollup
+                rollups.refresh(conn, DailyRollupRepository.Source.PAIEMENT,
+                        rollups.daysWhere(conn, DailyRollupRepository.Source.PAIEMENT, "inscription_id", inscription.getId()));
+            }
+            return updated;
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating inscription", e);
@@ -1,10 +1,13 @@
 package org.cpi2.repository;
 
 import org.cpi2.entities.Moniteur;
+import org.cpi2.entities.MoniteurPayroll;
+import org.cpi2.entities.MoniteurSummary;
 import org.cpi2.entities.TypePermis;
 
 import java.sql.*;
 import java.sql.Date;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -17,23 +20,52 @@ public class MoniteurRepository{
     }
 
     public List<Moniteur> findAll() {
-        List<Moniteur> moniteurs = new ArrayList<>();
         String sql = "SELECT * FROM moniteur";
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Moniteur moniteur = mapResultSetToMoniteur(rs);
-                loadSpecialites(conn, moniteur);
-                moniteurs.add(moniteur);
-            }
+        try {
+            return QueryCache.list(sql, List.of(), Set.of("moniteur", "moniteur_specialite"), () -> {
+                List<Moniteur> moniteurs = new ArrayList<>();
+                try (Connection conn = getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        Moniteur moniteur = mapResultSetToMoniteur(rs);
+                        loadSpecialites(conn, moniteur);
+                        moniteurs.add(moniteur);
+                    }
+                }
+                return moniteurs;
+            }, MoniteurRepository::copyOf);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding all moniteurs", e);
         }
 
-        return moniteurs;
+        return new ArrayList<>();
+    }
+
+    /** Id and name of every moniteur, without their specialites. */
+    public List<MoniteurSummary> findAllSummaries() {
+        String sql = "SELECT id, nom, prenom FROM moniteur ORDER BY nom, prenom, id";
+
+        try {
+            return QueryCache.list(sql, List.of(), Set.of("moniteur"), () -> {
+                List<MoniteurSummary> summaries = new ArrayList<>();
+                try (Connection conn = getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        summaries.add(new MoniteurSummary(rs.getLong("id"), rs.getString("nom"), rs.getString("prenom")));
+                    }
+                }
+                return summaries;
+            });
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding moniteur summaries", e);
+        }
+
+        return new ArrayList<>();
     }
 
     public Optional<Moniteur> findById(Long id) {
@@ -98,11 +130,14 @@ public class MoniteurRepository{
             if (affectedRows == 0) {
                 return false;
             }
+            QueryCache.tablesChanged("moniteur", "moniteur_specialite");
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     moniteur.setId(generatedKeys.getLong(1));
-                    return saveSpecialites(conn, moniteur);
+                    boolean saved = saveSpecialites(conn, moniteur);
+                    QueryCache.tablesChanged("moniteur_specialite");
+                    return saved;
                 }
             }
         } catch (SQLException e) {
@@ -133,6 +168,7 @@ public class MoniteurRepository{
             if (affectedRows == 0) {
                 return false;
             }
+            QueryCache.tablesChanged("moniteur", "moniteur_specialite");
 
             String deleteSql = "DELETE FROM moniteur_specialite WHERE moniteur_id = ?";
             try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
@@ -140,7 +176,9 @@ public class MoniteurRepository{
                 deleteStmt.executeUpdate();
             }
 
-            return saveSpecialites(conn, moniteur);
+            boolean saved = saveSpecialites(conn, moniteur);
+            QueryCache.tablesChanged("moniteur_specialite");
+            return saved;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating moniteur", e);
         }
@@ -148,6 +186,24 @@ public class MoniteurRepository{
         return false;
     }
 
+    /** The columns of the moniteur row and its specialites; the schedule is not kept. */
+    private static Moniteur copyOf(Moniteur moniteur) {
+        Moniteur copy = new Moniteur();
+        copy.setId(moniteur.getId());
+        copy.setNom(moniteur.getNom());
+        copy.setPrenom(moniteur.getPrenom());
+        copy.setCin(moniteur.getCin());
+        copy.setAdresse(moniteur.getAdresse());
+        copy.setTelephone(moniteur.getTelephone());
+        copy.setEmail(moniteur.getEmail());
+        copy.setDateNaissance(moniteur.getDateNaissance());
+        copy.setDateEmbauche(moniteur.getDateEmbauche());
+        copy.setSalaire(moniteur.getSalaire());
+        copy.setStatut(moniteur.getStatut());
+        copy.setSpecialites(new HashSet<>(moniteur.getSpecialites()));
+        return copy;
+    }
+
     private Moniteur mapResultSetToMoniteur(ResultSet rs) throws SQLException {
         Moniteur moniteur = new Moniteur();
         moniteur.setId(rs.getLong("id"));
@@ -202,4 +258,85 @@ public class MoniteurRepository{
             return true;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sessions given by every moniteur between the two dates (inclusive), counted in one grouped
+     * query over session_code and the driving seances.
+     */
+    public List<MoniteurPayroll> findPayroll(LocalDate startDate, LocalDate endDate) {
+        return queryPayroll(null, startDate, endDate);
+    }
+
+    /** The same breakdown for one moniteur; the counts only scan that moniteur's sessions. */
+    public Optional<MoniteurPayroll> findPayroll(long moniteurId, LocalDate startDate, LocalDate endDate) {
+        return queryPayroll(moniteurId, startDate, endDate).stream().findFirst();
+    }
+
+    private List<MoniteurPayroll> queryPayroll(Long moniteurId, LocalDate startDate, LocalDate endDate) {
+        List<MoniteurPayroll> payroll = new ArrayList<>();
+        String byMoniteur = moniteurId != null ? " AND moniteur_id = ?" : "";
+        String sql = """
+            SELECT m.id, m.nom, m.prenom,
+                   (SELECT GROUP_CONCAT(tp.code)
+                      FROM moniteur_specialite ms
+                      JOIN type_permis tp ON tp.id = ms.type_permis_id
+                     WHERE ms.moniteur_id = m.id) AS specialites,
+                   COALESCE(code.sessions, 0) AS code_sessions,
+                   COALESCE(conduite.sessions, 0) AS conduite_sessions
+            FROM moniteur m
+            LEFT JOIN (SELECT moniteur_id, COUNT(*) AS sessions
+                         FROM session_code
+                        WHERE date_session BETWEEN ? AND ?%s
+                        GROUP BY moniteur_id) code ON code.moniteur_id = m.id
+            LEFT JOIN (SELECT moniteur_id, COUNT(*) AS sessions
+                         FROM seance
+                        WHERE type = 'Conduite' AND date BETWEEN ? AND ?%s
+                        GROUP BY moniteur_id) conduite ON conduite.moniteur_id = m.id
+            %s
+            ORDER BY m.nom, m.prenom
+        """.formatted(byMoniteur, byMoniteur, moniteurId != null ? "WHERE m.id = ?" : "");
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            stmt.setDate(i++, Date.valueOf(startDate));
+            stmt.setDate(i++, Date.valueOf(endDate));
+            if (moniteurId != null) {
+                stmt.setLong(i++, moniteurId);
+            }
+            stmt.setDate(i++, Date.valueOf(startDate));
+            stmt.setDate(i++, Date.valueOf(endDate));
+            if (moniteurId != null) {
+                stmt.setLong(i++, moniteurId);
+                stmt.setLong(i, moniteurId);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Set<TypePermis> specialites = EnumSet.noneOf(TypePermis.class);
+                    String codes = rs.getString("specialites");
+                    if (codes != null) {
+                        for (String code : codes.split(",")) {
+                            try {
+                                specialites.add(TypePermis.valueOf(code.trim()));
+                            } catch (IllegalArgumentException e) {
+                                LOGGER.warning("Unknown speciality code: " + code);
+                            }
+                        }
+                    }
+                    payroll.add(new MoniteurPayroll(
+                            rs.getLong("id"),
+                            rs.getString("nom"),
+                            rs.getString("prenom"),
+                            specialites,
+                            rs.getInt("code_sessions"),
+                            rs.getInt("conduite_sessions")));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error computing moniteur payroll", e);
+        }
+        return payroll;
+    }
+}
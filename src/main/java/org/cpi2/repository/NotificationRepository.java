@@ -1,7 +1,6 @@
 package org.cpi2.repository;
 
 import org.cpi2.entities.Notification;
-import org.cpi2.repository.DatabaseConfig;
 
 import java.sql.*;
 import java.time.LocalDate;
@@ -10,14 +9,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class NotificationRepository {
-    private Connection connection;
 
-    public NotificationRepository() {
-        try {
-            this.connection = DatabaseConfig.getConnection();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    private Connection getConnection() throws SQLException {
+        return DatabaseConfig.getConnection();
     }
 
     public List<Notification> getAllNotifications() {
@@ -27,7 +21,8 @@ public class NotificationRepository {
                        "v.kilometrage_total, v.kilometrage_prochain_entretien, v.statut " +
                        "FROM vehicule v";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (Connection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -178,7 +173,8 @@ public class NotificationRepository {
         }
         
         if (!query.isEmpty()) {
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            try (Connection connection = getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(query)) {
                 LocalDate nouvelleDate = LocalDate.now().plusMonths(12);
 
                 if (type.equals("ENTRETIEN")) {
@@ -199,6 +195,7 @@ public class NotificationRepository {
                 }
                 
                 pstmt.executeUpdate();
+                QueryCache.tablesChanged("vehicule");
             } catch (SQLException e) {
                 e.printStackTrace();
             }
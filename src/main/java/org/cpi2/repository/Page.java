@@ -0,0 +1,31 @@
+package org.cpi2.repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * One page of a list read with keyset pagination.
+ * <p>
+ * Lists are ordered by a date column (then a time column when they have one) then by id, and the
+ * next page starts right after the {@link Cursor} of the last row instead of skipping rows with
+ * OFFSET, so every page costs the same however deep the user scrolls and rows inserted meanwhile
+ * neither shift nor repeat it.
+ *
+ * @param items the rows of this page
+ * @param next  where the following page starts, or {@code null} on the last page
+ */
+public record Page<T>(List<T> items, Cursor next) {
+    public static final int DEFAULT_SIZE = 50;
+
+    /** Position of a row in a (date, id) ordering, or (date, time, id) when {@code time} is set. */
+    public record Cursor(LocalDate date, LocalTime time, long id) {
+        public Cursor(LocalDate date, long id) {
+            this(date, null, id);
+        }
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
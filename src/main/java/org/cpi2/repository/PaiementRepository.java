@@ -5,142 +5,306 @@ import org.cpi2.entities.*;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 
 public class PaiementRepository extends BaseRepository<Paiement> {
     private final CandidatRepository candidatRepository = new CandidatRepository();
-    private final  ExamenRepository examenRepository = new ExamenRepository();
+    private final ExamenRepository examenRepository = new ExamenRepository();
     private final InscriptionRepository inscriptionRepository = new InscriptionRepository();
-    private  List<Candidat> candidats = candidatRepository.findAll();
-    private List<Inscription> inscriptions = inscriptionRepository.findAll();
-    private List<Examen> examens = examenRepository.findAll();
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
 
     public List<Paiement> findAll() {
-        List<Paiement> paiements = new ArrayList<>();
         String sql = "SELECT * FROM paiement ORDER BY date_paiement DESC";
+        List<PaiementData> rows = new ArrayList<>();
 
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) {
-                Paiement paiement = mapResultSetToPaiement(rs);
-                paiements.add(paiement);
+            rows = extractPaiementRows(rs);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding all paiements", e);
+        }
+        return resolvePaiements(rows);
+    }
+    /** Criteria of the payment history; {@code null} fields do not filter. */
+    public record RowFilter(Long candidatId, Boolean examen, LocalDate from, LocalDate to) {
+        public static RowFilter all() {
+            return new RowFilter(null, null, null, null);
+        }
+    }
+
+    /** Aggregates of the rows matching a {@link RowFilter}; cancelled payments only count in {@code count}. */
+    public record RowTotals(int count, double amount, int completed, int inscriptions, int examens) {
+    }
+
+    private static final String ROW_COLUMNS = "p.id, p.date_paiement, p.montant, p.type_paiement, p.mode_paiement, p.statut, " +
+            "p.id_examen, c.id AS candidat_id, c.nom, c.prenom, c.cin ";
+
+    // Payments whose inscription or examen is gone are skipped, as in findAll()
+    private static final String ROW_FROM = "FROM paiement p JOIN candidat c ON c.id = p.id_candidat " +
+            "WHERE ((p.id_examen IS NOT NULL AND EXISTS (SELECT 1 FROM examen e WHERE e.id = p.id_examen)) " +
+            "OR (p.id_examen IS NULL AND EXISTS (SELECT 1 FROM inscription i WHERE i.id = p.inscription_id)))";
+
+    /**
+     * A page of the payment history as flat rows, latest first, starting after {@code after}
+     * ({@code null} for the first page). One query joins the candidat's name; inscriptions and
+     * examens are not resolved.
+     */
+    public Page<PaiementRow> findRowsPage(RowFilter filter, Page.Cursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(ROW_COLUMNS).append(ROW_FROM);
+        appendFilter(sql, params, filter);
+        if (after != null) {
+            sql.append(" AND ").append(seekPredicate("p.date_paiement", "p.id", true));
+        }
+        sql.append(" ORDER BY p.date_paiement DESC, p.id DESC LIMIT ?");
+        List<PaiementRow> rows = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int index = bindParams(stmt, params);
+            if (after != null) {
+                index = bindCursor(stmt, index, after);
+            }
+            stmt.setInt(index, limit + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapRow(rs));
+                }
             }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding paiement rows page", e);
+        }
+        return toPage(rows, limit, row -> new Page.Cursor(row.datePaiement(), row.id()));
+    }
+
+    public RowTotals findRowTotals(RowFilter filter) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) AS total, " +
+                "COALESCE(SUM(CASE WHEN p.statut <> 'ANNULEE' THEN p.montant END), 0) AS amount, " +
+                "COALESCE(SUM(p.statut = 'COMPLETE'), 0) AS completed, " +
+                "COALESCE(SUM(p.statut <> 'ANNULEE' AND p.id_examen IS NULL), 0) AS inscriptions, " +
+                "COALESCE(SUM(p.statut <> 'ANNULEE' AND p.id_examen IS NOT NULL), 0) AS examens ")
+                .append(ROW_FROM);
+        appendFilter(sql, params, filter);
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new RowTotals(rs.getInt("total"), rs.getDouble("amount"), rs.getInt("completed"),
+                            rs.getInt("inscriptions"), rs.getInt("examens"));
+                }
+            }
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding all paiements", e);
+            LOGGER.log(Level.SEVERE, "Error computing paiement totals", e);
         }
-        return paiements;
+        return new RowTotals(0, 0, 0, 0, 0);
+    }
+
+    private static void appendFilter(StringBuilder sql, List<Object> params, RowFilter filter) {
+        if (filter.candidatId() != null) {
+            sql.append(" AND p.id_candidat = ?");
+            params.add(filter.candidatId());
+        }
+        if (filter.examen() != null) {
+            sql.append(filter.examen() ? " AND p.id_examen IS NOT NULL" : " AND p.id_examen IS NULL");
+        }
+        if (filter.from() != null) {
+            sql.append(" AND p.date_paiement >= ?");
+            params.add(Date.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND p.date_paiement <= ?");
+            params.add(Date.valueOf(filter.to()));
+        }
+    }
+
+    private static int bindParams(PreparedStatement stmt, List<Object> params) throws SQLException {
+        int index = 1;
+        for (Object param : params) {
+            stmt.setObject(index++, param);
+        }
+        return index;
     }
+
+    private static PaiementRow mapRow(ResultSet rs) throws SQLException {
+        return new PaiementRow(
+                rs.getLong("id"),
+                rs.getDate("date_paiement").toLocalDate(),
+                rs.getLong("candidat_id"),
+                rs.getString("nom"),
+                rs.getString("prenom"),
+                rs.getString("cin"),
+                rs.getDouble("montant"),
+                rs.getString("type_paiement"),
+                rs.getObject("id_examen") != null,
+                ModePaiement.valueOf(rs.getString("mode_paiement")),
+                StatutPaiement.valueOf(rs.getString("statut")));
+    }
+
     public Optional<Paiement> findById(Long id) {
         String sql = "SELECT * FROM paiement WHERE id = ?";
+        List<PaiementData> rows = new ArrayList<>();
 
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Paiement paiement = mapResultSetToPaiement(rs);
-                return Optional.of(paiement);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rows = extractPaiementRows(rs);
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding paiement by ID", e);
         }
-        return Optional.empty();
+        return resolvePaiements(rows).stream().findFirst();
     }
 
     public List<Paiement> findAllByCandidat(Long candidatId) {
-        List<Paiement> paiements = new ArrayList<>();
         String sql = "SELECT * FROM paiement WHERE id_candidat = ? ORDER BY date_paiement DESC";
+        List<PaiementData> rows = new ArrayList<>();
 
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, candidatId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Paiement paiement = mapResultSetToPaiement(rs);
-                paiements.add(paiement);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rows = extractPaiementRows(rs);
             }
         } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding paiements by candidat", e);
         }
-        return paiements;
+        return resolvePaiements(rows);
     }
 
-    private Paiement mapResultSetToPaiement(ResultSet rs) throws SQLException {
+    private List<PaiementData> extractPaiementRows(ResultSet rs) throws SQLException {
+        List<PaiementData> rows = new ArrayList<>();
+        while (rs.next()) {
+            PaiementData row = new PaiementData();
+            row.id = rs.getLong("id");
+            row.datePaiement = rs.getDate("date_paiement").toLocalDate();
+            row.montant = rs.getDouble("montant");
+            row.typePaiement = rs.getString("type_paiement");
+            row.notes = rs.getString("notes");
+            row.candidatId = rs.getLong("id_candidat");
+            row.modePaiement = ModePaiement.valueOf(rs.getString("mode_paiement"));
+            row.statut = StatutPaiement.valueOf(rs.getString("statut"));
+            row.examenId = rs.getObject("id_examen", Long.class);
+            row.inscriptionId = rs.getObject("inscription_id", Integer.class);
+            rows.add(row);
+        }
+        return rows;
+    }
 
-        long id = rs.getLong("id");
-        LocalDate datePaiement = rs.getDate("date_paiement").toLocalDate();
-        double montant = rs.getDouble("montant");
-        String typePaiement = rs.getString("type_paiement");
-        String notes = rs.getString("notes");
-        long candidatId = rs.getLong("id_candidat");
-        ModePaiement modePaiement = ModePaiement.valueOf(rs.getString("mode_paiement"));
-        StatutPaiement statut = StatutPaiement.valueOf(rs.getString("statut"));
+    /**
+     * Resolves candidats, inscriptions and examens for the given rows with one batched
+     * IN lookup per table, so the cost is bounded by the rows returned rather than table size.
+     */
+    private List<Paiement> resolvePaiements(List<PaiementData> rows) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> candidatIds = new HashSet<>();
+        Set<Integer> inscriptionIds = new HashSet<>();
+        Set<Long> examenIds = new HashSet<>();
+        for (PaiementData row : rows) {
+            candidatIds.add(row.candidatId);
+            if (row.examenId != null) {
+                examenIds.add(row.examenId);
+            } else if (row.inscriptionId != null) {
+                inscriptionIds.add(row.inscriptionId);
+            }
+        }
 
-        Long idExamen = rs.getObject("id_examen", Long.class);
-        Integer idInscription = rs.getObject("inscription_id", Integer.class);
+        Map<Long, Candidat> candidats = candidatRepository.findByIds(candidatIds);
+        Map<Integer, Inscription> inscriptions = inscriptionIds.isEmpty()
+                ? Map.of() : inscriptionRepository.findByIds(inscriptionIds);
+        Map<Long, Examen> examens = examenIds.isEmpty()
+                ? Map.of() : examenRepository.findByIds(examenIds);
 
-        Candidat candidat = candidats.stream()
-                .filter(c -> c.getId() == candidatId)
-                .findFirst()
-                .orElseThrow();
+        List<Paiement> paiements = new ArrayList<>(rows.size());
+        for (PaiementData row : rows) {
+            Paiement paiement = mapRowToPaiement(row, candidats, inscriptions, examens);
+            if (paiement != null) {
+                paiements.add(paiement);
+            }
+        }
+        return paiements;
+    }
+
+    private Paiement mapRowToPaiement(PaiementData row, Map<Long, Candidat> candidats,
+                                      Map<Integer, Inscription> inscriptions, Map<Long, Examen> examens) {
+        Candidat candidat = candidats.get(row.candidatId);
+        if (candidat == null) {
+            LOGGER.warning("Candidat " + row.candidatId + " not found for paiement ID: " + row.id);
+            return null;
+        }
 
-        if (idExamen == null) {
+        if (row.examenId == null) {
+            Inscription inscription = row.inscriptionId != null ? inscriptions.get(row.inscriptionId) : null;
+            if (inscription == null) {
+                LOGGER.warning("Inscription " + row.inscriptionId + " not found for paiement ID: " + row.id);
+                return null;
+            }
             return new PaiementInscription(
-                    statut,
-                    id,
+                    row.statut,
+                    row.id,
                     candidat,
-                    montant,
-                    datePaiement,
-                    modePaiement,
-                    inscriptions.stream()
-                            .filter(inscription -> inscription.getId() == idInscription)
-                            .findFirst()
-                            .orElseThrow(),
-                    typePaiement,
-                    notes
+                    row.montant,
+                    row.datePaiement,
+                    row.modePaiement,
+                    inscription,
+                    row.typePaiement,
+                    row.notes
             );
         } else {
+            Examen examen = examens.get(row.examenId);
+            if (examen == null) {
+                LOGGER.warning("Examen " + row.examenId + " not found for paiement ID: " + row.id);
+                return null;
+            }
             return new PaiementExamen(
-                    statut,
-                    id,
+                    row.statut,
+                    row.id,
                     candidat,
-                    montant,
-                    datePaiement,
-                    modePaiement,
-                    examens.stream()
-                            .filter(examen -> Objects.equals(examen.getId(), idExamen))
-                            .findFirst()
-                            .orElseThrow(),
-                    notes
+                    row.montant,
+                    row.datePaiement,
+                    row.modePaiement,
+                    examen,
+                    row.notes
             );
         }
     }
+
     public List<PaiementInscription> getTranches(int inscriptionId) throws SQLException {
         String sql = "SELECT * FROM paiement WHERE inscription_id = ? ORDER BY date_paiement ASC";
-        List<PaiementInscription> tranchePaiements = new ArrayList<>();
+        List<PaiementData> rows;
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, inscriptionId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Paiement paiement = mapResultSetToPaiement(rs);
-                tranchePaiements.add((PaiementInscription) paiement);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rows = extractPaiementRows(rs);
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding all paiements", e);
             return null;
         }
+
+        List<PaiementInscription> tranchePaiements = new ArrayList<>();
+        for (Paiement paiement : resolvePaiements(rows)) {
+            tranchePaiements.add((PaiementInscription) paiement);
+        }
         return tranchePaiements;
     }
 
@@ -197,6 +361,7 @@ public class PaiementRepository extends BaseRepository<Paiement> {
                             Long paiementId = generatedKeys.getLong(1);
                             paiement.setId(paiementId);
                             conn.commit();
+                            rollups.refresh(conn, DailyRollupRepository.Source.PAIEMENT, List.of(paiement.getDatePaiement()));
                             LOGGER.info("Payment saved successfully with ID: " + paiementId);
                             return true;
                         } else {
@@ -232,6 +397,7 @@ public class PaiementRepository extends BaseRepository<Paiement> {
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            LocalDate previousDay = rollups.dayOf(conn, DailyRollupRepository.Source.PAIEMENT, paiement.getId());
             stmt.setDouble(1, paiement.getMontant());
             stmt.setDate(2, Date.valueOf(paiement.getDatePaiement()));
             stmt.setString(3, paiement.getModePaiement().name());
@@ -239,7 +405,11 @@ public class PaiementRepository extends BaseRepository<Paiement> {
             stmt.setString(5,paiement.getStatut().name());
             stmt.setLong(6, paiement.getId());
 
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            rollups.refresh(conn, DailyRollupRepository.Source.PAIEMENT, Arrays.asList(previousDay, paiement.getDatePaiement()));
+            return true;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating paiement", e);
             return false;
@@ -250,12 +420,29 @@ public class PaiementRepository extends BaseRepository<Paiement> {
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            LocalDate previousDay = rollups.dayOf(conn, DailyRollupRepository.Source.PAIEMENT, id);
             stmt.setLong(1, id);
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            rollups.refresh(conn, DailyRollupRepository.Source.PAIEMENT, Arrays.asList(previousDay));
+            return true;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting paiement", e);
             return false;
         }
     }
 
-}
\ No newline at end of file
+    private static final class PaiementData {
+        private long id;
+        private LocalDate datePaiement;
+        private double montant;
+        private String typePaiement;
+        private String notes;
+        private long candidatId;
+        private ModePaiement modePaiement;
+        private StatutPaiement statut;
+        private Long examenId;
+        private Integer inscriptionId;
+    }
+}
@@ -1,9 +1,11 @@
 package org.cpi2.repository;
 
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -12,6 +14,22 @@ import java.util.logging.Logger;
 public class PresenceRepository {
     private static final Logger LOGGER = Logger.getLogger(PresenceRepository.class.getName());
 
+    // Bumps the presence counter of the candidate's active inscription; parameters: session id, candidat id
+    static final String CODE_COUNTER_SQL = """
+        UPDATE inscription i
+        JOIN candidat c ON c.cin = i.cin
+        JOIN session_code s ON s.id = ?
+        SET i.seances_code_effectuees = i.seances_code_effectuees + 1
+        WHERE c.id = ? AND i.statut = 'En Cours' AND s.date_session > i.date_inscription
+    """;
+    static final String CONDUITE_COUNTER_SQL = """
+        UPDATE inscription i
+        JOIN candidat c ON c.cin = i.cin
+        JOIN session_conduite s ON s.id = ?
+        SET i.seances_conduite_effectuees = i.seances_conduite_effectuees + 1
+        WHERE c.id = ? AND i.statut = 'En Cours' AND s.date_session > i.date_inscription
+    """;
+
     private Connection getConnection() throws SQLException {
         return DatabaseConfig.getConnection();
     }
@@ -57,43 +75,145 @@ public class PresenceRepository {
 
 
     public boolean recordCodePresence(long sessionCodeId, long candidatId, boolean present) {
-        String sql = "INSERT INTO presence_code (session_code_id, candidat_id, present) VALUES (?, ?, ?)"
-                + " ON DUPLICATE KEY UPDATE present = ?";
+        return recordPresence("presence_code", "session_code_id", CODE_COUNTER_SQL, sessionCodeId, candidatId, present, "code");
+    }
 
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public boolean recordConduitePresence(long sessionConduiteId, long candidatId, boolean present) {
+        return recordPresence("presence_conduite", "session_conduite_id", CONDUITE_COUNTER_SQL, sessionConduiteId, candidatId, present, "driving");
+    }
 
-            stmt.setLong(1, sessionCodeId);
-            stmt.setLong(2, candidatId);
-            stmt.setBoolean(3, present);
-            stmt.setBoolean(4, present);
+    /**
+     * Inserts the driving presence row on the caller's connection, bumping the counter of the
+     * candidate's active inscription if the row is new. Returns whether the row was inserted; the
+     * caller invalidates "inscription" in {@link QueryCache} once it commits.
+     */
+    boolean insertConduitePresence(Connection conn, long sessionConduiteId, long candidatId, boolean present) throws SQLException {
+        return insertPresence(conn, "presence_conduite", "session_conduite_id", CONDUITE_COUNTER_SQL,
+                sessionConduiteId, candidatId, present);
+    }
+
+    /**
+     * Inserts or updates the presence row and, when a new row was inserted, bumps the presence
+     * counter of the candidate's active inscription in the same transaction.
+     */
+    private boolean recordPresence(String table, String sessionColumn, String counterSql, long sessionId,
+                                   long candidatId, boolean present, String label) {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+
+            boolean inserted = insertPresence(conn, table, sessionColumn, counterSql, sessionId, candidatId, present);
+            boolean recorded = inserted;
+            if (!inserted) {
+                // The row exists; lock it so the presence flag is changed once
+                String selectSql = "SELECT present FROM " + table + " WHERE " + sessionColumn + " = ? AND candidat_id = ? FOR UPDATE";
+                Boolean current = null;
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    stmt.setLong(1, sessionId);
+                    stmt.setLong(2, candidatId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            current = rs.getBoolean(1);
+                        }
+                    }
+                }
+                if (current != null && current != present) {
+                    String updateSql = "UPDATE " + table + " SET present = ? WHERE " + sessionColumn + " = ? AND candidat_id = ?";
+                    try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                        stmt.setBoolean(1, present);
+                        stmt.setLong(2, sessionId);
+                        stmt.setLong(3, candidatId);
+                        stmt.executeUpdate();
+                    }
+                }
+                // No row at all: the insert was ignored for another reason, e.g. an unknown session
+                recorded = current != null;
+            }
 
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            conn.commit();
+            if (inserted) {
+                QueryCache.tablesChanged("inscription");
+            }
+            return recorded;
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error recording code presence", e);
+            LOGGER.log(Level.SEVERE, "Error recording " + label + " presence", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back presence transaction", ex);
+                }
+            }
             return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Error closing connection", e);
+                }
+            }
         }
     }
 
-    public boolean recordConduitePresence(long sessionConduiteId, long candidatId, boolean present) {
-        String sql = "INSERT INTO presence_conduite (session_conduite_id, candidat_id, present) VALUES (?, ?, ?)"
-                + " ON DUPLICATE KEY UPDATE present = ?";
+    /**
+     * INSERT IGNORE reports 1 only for a new row, whatever the driver's found-rows setting, unlike
+     * ON DUPLICATE KEY UPDATE; the counter is bumped exactly once per presence row.
+     */
+    private static boolean insertPresence(Connection conn, String table, String sessionColumn, String counterSql,
+                                          long sessionId, long candidatId, boolean present) throws SQLException {
+        String insertSql = "INSERT IGNORE INTO " + table + " (" + sessionColumn + ", candidat_id, present) VALUES (?, ?, ?)";
+        boolean inserted;
+        try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+            stmt.setLong(1, sessionId);
+            stmt.setLong(2, candidatId);
+            stmt.setBoolean(3, present);
+            inserted = stmt.executeUpdate() == 1;
+        }
+        if (inserted) {
+            try (PreparedStatement stmt = conn.prepareStatement(counterSql)) {
+                stmt.setLong(1, sessionId);
+                stmt.setLong(2, candidatId);
+                stmt.executeUpdate();
+            }
+        }
+        return inserted;
+    }
+
+    public int countCodePresencesAfter(long candidatId, LocalDate date) {
+        String sql = """
+            SELECT COUNT(*) FROM presence_code p
+            JOIN session_code s ON s.id = p.session_code_id
+            WHERE p.candidat_id = ? AND s.date_session > ?
+        """;
+        return countPresences(sql, candidatId, date);
+    }
 
+    public int countConduitePresencesAfter(long candidatId, LocalDate date) {
+        String sql = """
+            SELECT COUNT(*) FROM presence_conduite p
+            JOIN session_conduite s ON s.id = p.session_conduite_id
+            WHERE p.candidat_id = ? AND s.date_session > ?
+        """;
+        return countPresences(sql, candidatId, date);
+    }
+
+    private int countPresences(String sql, long candidatId, LocalDate date) {
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setLong(1, sessionConduiteId);
-            stmt.setLong(2, candidatId);
-            stmt.setBoolean(3, present);
-            stmt.setBoolean(4, present);
-
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            stmt.setLong(1, candidatId);
+            stmt.setDate(2, Date.valueOf(date));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error recording driving presence", e);
-            return false;
+            LOGGER.log(Level.SEVERE, "Error counting presences", e);
         }
+        return 0;
     }
 
     public boolean recordPresenceForSeance(long seanceId, long candidatId, String seanceType, boolean present) {
@@ -0,0 +1,191 @@
+package org.cpi2.repository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.logging.Logger;
+
+/**
+ * Second-level cache of query results shared by the repositories.
+ * <p>
+ * An entry is keyed by its SQL and bound parameters and tagged with the tables it reads. Each
+ * table has a version number that repositories bump through {@link #tablesChanged} after every
+ * write; an entry is only served while the versions it was loaded under are still current, and
+ * the bump also evicts the dependent entries right away. Entries are further bounded by count
+ * (LRU, {@code autoecole.queryCache.maxEntries}) and age ({@code autoecole.queryCache.ttlSeconds}).
+ * <p>
+ * The cached objects themselves never leave the cache: lists of entities are returned as copies
+ * made by the repository ({@link #list(String, List, Set, Loader, UnaryOperator)}), so a screen
+ * editing the candidat it was given cannot change what the next caller reads. Immutable values
+ * (records, numbers, strings) are handed out as they are.
+ */
+public final class QueryCache {
+    private static final Logger LOGGER = Logger.getLogger(QueryCache.class.getName());
+
+    private static final int MAX_ENTRIES = Integer.getInteger("autoecole.queryCache.maxEntries", 256);
+    private static final long TTL_MILLIS = Long.getLong("autoecole.queryCache.ttlSeconds", 300L) * 1000;
+
+    private static final Map<String, AtomicLong> TABLE_VERSIONS = new ConcurrentHashMap<>();
+    private static final LinkedHashMap<Key, Entry> ENTRIES = new LinkedHashMap<>(64, 0.75f, true);
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+    private static final AtomicLong INVALIDATIONS = new AtomicLong();
+
+    private QueryCache() {
+    }
+
+    @FunctionalInterface
+    public interface Loader<R> {
+        R load() throws SQLException;
+    }
+
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    /**
+     * Returns the cached result of {@code sql} with {@code params}, running {@code loader} on a
+     * miss. A loader that throws caches nothing. The result is shared: it must be immutable, or
+     * be copied by the caller before it is handed out.
+     */
+    public static <R> R get(String sql, List<?> params, Set<String> tables, Loader<R> loader) throws SQLException {
+        Key key = new Key(sql, Collections.unmodifiableList(new ArrayList<>(params)));
+        long now = System.currentTimeMillis();
+
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(key);
+            if (entry != null) {
+                if (entry.isValid(now)) {
+                    HITS.incrementAndGet();
+                    @SuppressWarnings("unchecked")
+                    R value = (R) entry.value;
+                    return value;
+                }
+                ENTRIES.remove(key);
+                EVICTIONS.incrementAndGet();
+            }
+        }
+
+        MISSES.incrementAndGet();
+        // Versions are read before the query runs: a write that lands meanwhile leaves the
+        // entry outdated instead of serving stale rows under the new version.
+        Map<String, Long> versions = new LinkedHashMap<>();
+        for (String table : tables) {
+            versions.put(table, version(table).get());
+        }
+        R value = loader.load();
+
+        synchronized (ENTRIES) {
+            ENTRIES.put(key, new Entry(value, versions, now));
+            Iterator<Entry> it = ENTRIES.values().iterator();
+            while (ENTRIES.size() > MAX_ENTRIES && it.hasNext()) {
+                it.next();
+                it.remove();
+                EVICTIONS.incrementAndGet();
+            }
+        }
+        return value;
+    }
+
+    /** List of immutable elements: callers get their own list, so they may sort or filter it. */
+    public static <E> List<E> list(String sql, List<?> params, Set<String> tables, Loader<List<E>> loader) throws SQLException {
+        return new ArrayList<>(get(sql, params, tables, loader));
+    }
+
+    /** List of mutable entities: every caller gets its own list of {@code copy}'s copies, hit or miss. */
+    public static <E> List<E> list(String sql, List<?> params, Set<String> tables, Loader<List<E>> loader,
+                                   UnaryOperator<E> copy) throws SQLException {
+        List<E> cached = get(sql, params, tables, loader);
+        List<E> copies = new ArrayList<>(cached.size());
+        for (E element : cached) {
+            copies.add(copy.apply(element));
+        }
+        return copies;
+    }
+
+    /** Called after a write to any of {@code tables}; drops every entry that read one of them. */
+    public static void tablesChanged(String... tables) {
+        for (String table : tables) {
+            version(table).incrementAndGet();
+        }
+        synchronized (ENTRIES) {
+            Iterator<Entry> it = ENTRIES.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                for (String table : tables) {
+                    if (entry.versions.containsKey(table)) {
+                        it.remove();
+                        INVALIDATIONS.incrementAndGet();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    public static void clear() {
+        synchronized (ENTRIES) {
+            INVALIDATIONS.addAndGet(ENTRIES.size());
+            ENTRIES.clear();
+        }
+    }
+
+    public static Stats stats() {
+        int size;
+        synchronized (ENTRIES) {
+            size = ENTRIES.size();
+        }
+        return new Stats(HITS.get(), MISSES.get(), EVICTIONS.get(), INVALIDATIONS.get(), size);
+    }
+
+    public static void logStats() {
+        Stats stats = stats();
+        LOGGER.info(String.format("Query cache: %d entries, %d hits, %d misses (%.0f%% hit rate), %d evicted, %d invalidated",
+                stats.size(), stats.hits(), stats.misses(), stats.hitRate() * 100, stats.evictions(), stats.invalidations()));
+    }
+
+    private static AtomicLong version(String table) {
+        return TABLE_VERSIONS.computeIfAbsent(table, t -> new AtomicLong());
+    }
+
+    private record Key(String sql, List<?> params) {
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final Map<String, Long> versions;
+        private final long loadedAt;
+
+        private Entry(Object value, Map<String, Long> versions, long loadedAt) {
+            this.value = value;
+            this.versions = versions;
+            this.loadedAt = loadedAt;
+        }
+
+        private boolean isValid(long now) {
+            if (now - loadedAt > TTL_MILLIS) {
+                return false;
+            }
+            for (Map.Entry<String, Long> version : versions.entrySet()) {
+                if (!Objects.equals(version(version.getKey()).get(), version.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package org.cpi2.repository;
+
+import org.cpi2.entities.AutoEcole;
+import org.cpi2.entities.CoursePlan;
+import org.cpi2.entities.TypeExamen;
+import org.cpi2.entities.TypePermis;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide cache of the small lookup tables (type_permis, type_examen, type_document, plan)
+ * and of the auto-école row.
+ * <p>
+ * Each part is loaded once, on first use, into an immutable snapshot that every thread reads
+ * without locking. The lookup tables are not edited by the application and are kept until it
+ * restarts; {@link #invalidateAutoEcole()} drops the auto-école snapshot after an edit so the next
+ * read reloads it. A failed load is not cached.
+ */
+public final class ReferenceData {
+    private static final Logger LOGGER = Logger.getLogger(ReferenceData.class.getName());
+    private static final Object LOCK = new Object();
+
+    private static volatile Tables tables;
+    private static volatile Optional<AutoEcole> autoEcole;
+
+    private ReferenceData() {
+    }
+
+    public static Optional<Integer> typePermisId(String code) {
+        return Optional.ofNullable(tables().permisIdByCode.get(code));
+    }
+
+    public static Optional<Integer> typePermisIdByLibelle(String libelle) {
+        return Optional.ofNullable(tables().permisIdByLibelle.get(libelle));
+    }
+
+    public static Optional<String> typePermisCode(int id) {
+        return Optional.ofNullable(tables().permisCodeById.get(id));
+    }
+
+    public static List<String> typePermisCodes() {
+        return List.copyOf(tables().permisCodeById.values());
+    }
+
+    /** Rows of type_permis whose code matches a {@link TypePermis} constant, by id. */
+    public static Map<Integer, TypePermis> typePermisById() {
+        return tables().permisById;
+    }
+
+    /** Rows of type_examen whose libelle matches a {@link TypeExamen} constant, by id. */
+    public static Map<Integer, TypeExamen> typeExamenById() {
+        return tables().examenById;
+    }
+
+    public static Optional<Integer> typeExamenId(TypeExamen typeExamen) {
+        for (Map.Entry<Integer, TypeExamen> entry : tables().examenById.entrySet()) {
+            if (entry.getValue() == typeExamen) {
+                return Optional.of(entry.getKey());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static Optional<Integer> typeExamenId(String libelle) {
+        return Optional.ofNullable(tables().examenIdByLibelle.get(libelle));
+    }
+
+    public static Optional<String> typeExamenLibelle(int id) {
+        return Optional.ofNullable(tables().examenLibelleById.get(id));
+    }
+
+    public static List<String> typeExamenLibelles() {
+        return List.copyOf(tables().examenLibelleById.values());
+    }
+
+    public static Optional<Double> typeExamenCout(int id) {
+        return Optional.ofNullable(tables().examenCoutById.get(id));
+    }
+
+    public static Optional<Long> typeDocumentId(String libelle) {
+        return Optional.ofNullable(tables().documentIdByLibelle.get(libelle));
+    }
+
+    public static Optional<String> typeDocumentLibelle(long id) {
+        return Optional.ofNullable(tables().documentLibelleById.get(id));
+    }
+
+    public static List<String> typeDocumentLibelles() {
+        return List.copyOf(tables().documentLibelleById.values());
+    }
+
+    /** Rows of plan that map to a {@link CoursePlan}, by id. */
+    public static Map<Integer, CoursePlan> plansById() {
+        return tables().plansById;
+    }
+
+    /**
+     * The configured auto-école, or {@code null} if none exists. Callers get their own copy and
+     * may modify it freely.
+     */
+    public static AutoEcole autoEcole() {
+        Optional<AutoEcole> snapshot = autoEcole;
+        if (snapshot == null) {
+            synchronized (LOCK) {
+                snapshot = autoEcole;
+                if (snapshot == null) {
+                    try {
+                        snapshot = Optional.ofNullable(new AutoEcoleRepository().findFirst());
+                        autoEcole = snapshot;
+                    } catch (SQLException e) {
+                        LOGGER.log(Level.SEVERE, "Error loading auto-école", e);
+                        return null;
+                    }
+                }
+            }
+        }
+        return snapshot.map(ReferenceData::copyOf).orElse(null);
+    }
+
+    /** Drops the auto-école snapshot; under the lock, so a load in progress cannot store it again. */
+    public static void invalidateAutoEcole() {
+        synchronized (LOCK) {
+            autoEcole = null;
+        }
+    }
+
+    private static Tables tables() {
+        Tables snapshot = tables;
+        if (snapshot == null) {
+            synchronized (LOCK) {
+                snapshot = tables;
+                if (snapshot == null) {
+                    try {
+                        snapshot = load();
+                        tables = snapshot;
+                    } catch (SQLException e) {
+                        LOGGER.log(Level.SEVERE, "Error loading reference data", e);
+                        return Tables.EMPTY;
+                    }
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static Tables load() throws SQLException {
+        Tables t = new Tables();
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id, code, libelle FROM type_permis ORDER BY id")) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String code = rs.getString("code");
+                    t.permisIdByCode.put(code, id);
+                    t.permisIdByLibelle.put(rs.getString("libelle"), id);
+                    t.permisCodeById.put(id, code);
+                    try {
+                        t.permisById.put(id, TypePermis.valueOf(code));
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.warning("Unknown type_permis code: " + code);
+                    }
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id, libelle, cout FROM type_examen ORDER BY id")) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String libelle = rs.getString("libelle");
+                    t.examenIdByLibelle.put(libelle, id);
+                    t.examenLibelleById.put(id, libelle);
+                    double cout = rs.getDouble("cout");
+                    if (!rs.wasNull()) {
+                        t.examenCoutById.put(id, cout);
+                    }
+                    if (libelle.equalsIgnoreCase("code")) {
+                        t.examenById.put(id, TypeExamen.CODE);
+                    } else if (libelle.equalsIgnoreCase("conduite")) {
+                        t.examenById.put(id, TypeExamen.CONDUITE);
+                    }
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id, libelle FROM type_document ORDER BY id")) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    String libelle = rs.getString("libelle");
+                    t.documentIdByLibelle.put(libelle, id);
+                    t.documentLibelleById.put(id, libelle);
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT id FROM plan ORDER BY id")) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    try {
+                        t.plansById.put(id, CoursePlan.getById(id));
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.warning("No matching CoursePlan for plan id " + id);
+                    }
+                }
+            }
+        }
+        return t.freeze();
+    }
+
+    private static AutoEcole copyOf(AutoEcole source) {
+        return new AutoEcole(source.getId(), source.getNom(), source.getAdresse(), source.getTelephone(),
+                source.getEmail(), source.getUsername(), source.getPassword(), source.getLogo());
+    }
+
+    private static final class Tables {
+        private static final Tables EMPTY = new Tables().freeze();
+
+        private Map<String, Integer> permisIdByCode = new LinkedHashMap<>();
+        private Map<String, Integer> permisIdByLibelle = new LinkedHashMap<>();
+        private Map<Integer, String> permisCodeById = new LinkedHashMap<>();
+        private Map<Integer, TypePermis> permisById = new LinkedHashMap<>();
+        private Map<String, Integer> examenIdByLibelle = new LinkedHashMap<>();
+        private Map<Integer, String> examenLibelleById = new LinkedHashMap<>();
+        private Map<Integer, Double> examenCoutById = new LinkedHashMap<>();
+        private Map<Integer, TypeExamen> examenById = new LinkedHashMap<>();
+        private Map<String, Long> documentIdByLibelle = new LinkedHashMap<>();
+        private Map<Long, String> documentLibelleById = new LinkedHashMap<>();
+        private Map<Integer, CoursePlan> plansById = new LinkedHashMap<>();
+
+        private Tables freeze() {
+            permisIdByCode = Collections.unmodifiableMap(permisIdByCode);
+            permisIdByLibelle = Collections.unmodifiableMap(permisIdByLibelle);
+            permisCodeById = Collections.unmodifiableMap(permisCodeById);
+            permisById = Collections.unmodifiableMap(permisById);
+            examenIdByLibelle = Collections.unmodifiableMap(examenIdByLibelle);
+            examenLibelleById = Collections.unmodifiableMap(examenLibelleById);
+            examenCoutById = Collections.unmodifiableMap(examenCoutById);
+            examenById = Collections.unmodifiableMap(examenById);
+            documentIdByLibelle = Collections.unmodifiableMap(documentIdByLibelle);
+            documentLibelleById = Collections.unmodifiableMap(documentLibelleById);
+            plansById = Collections.unmodifiableMap(plansById);
+            return this;
+        }
+    }
+}
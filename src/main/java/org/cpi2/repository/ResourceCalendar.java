@@ -0,0 +1,325 @@
+package org.cpi2.repository;
+
+import org.cpi2.Exceptions.CalendarUnavailable;
+import org.cpi2.entities.CalendarEntry;
+import org.cpi2.entities.CalendarEntry.Source;
+import org.cpi2.utils.IntervalTree;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory calendar of every booking in seance, session_code and session_conduite, indexed by
+ * time in an {@link IntervalTree} so "what overlaps [t1, t2)" costs O(log n + k).
+ * <p>
+ * A rolling window of dates is loaded on first use (a few days back, {@code autoecole.calendar.windowDays}
+ * ahead) and widened whenever a query falls outside it. Repositories call {@link #refresh} and
+ * {@link #remove} after their writes so the index stays current without reloading. Cancelled
+ * bookings are left out.
+ * <p>
+ * If the window cannot be loaded, queries throw {@link CalendarUnavailable} rather than answer
+ * from an empty index, which would report every resource as free.
+ */
+public final class ResourceCalendar {
+    private static final Logger LOGGER = Logger.getLogger(ResourceCalendar.class.getName());
+
+    private static final int DAYS_BEFORE = 7;
+    private static final int WINDOW_DAYS = Integer.getInteger("autoecole.calendar.windowDays", 90);
+    private static final int DEFAULT_DURATION_MINUTES = 60;
+
+    private static final String NOT_CANCELLED = " AND (statut IS NULL OR statut NOT LIKE 'annul%')";
+
+    private static final String SEANCE_SELECT =
+            "SELECT id, type, date AS jour, heure AS debut, NULL AS fin, duree, moniteur_id, vehicule_id, lieu AS salle FROM seance";
+    private static final String SESSION_CODE_SELECT =
+            "SELECT id, 'Code' AS type, date_session AS jour, heure_debut AS debut, heure_fin AS fin, NULL AS duree, moniteur_id, NULL AS vehicule_id, salle FROM session_code";
+    private static final String SESSION_CONDUITE_SELECT =
+            "SELECT id, 'Conduite' AS type, date_session AS jour, heure_debut AS debut, heure_fin AS fin, NULL AS duree, moniteur_id, vehicule_id, NULL AS salle FROM session_conduite";
+
+    private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+    private static final IntervalTree<CalendarEntry> TREE = new IntervalTree<>();
+    private static final Map<Long, CalendarEntry> ENTRIES = new HashMap<>();
+    private static LocalDate windowStart;
+    private static LocalDate windowEnd;
+
+    private ResourceCalendar() {
+    }
+
+    /** Bookings overlapping {@code [start, end)}. */
+    public static List<CalendarEntry> overlapping(LocalDateTime start, LocalDateTime end) {
+        ensureCovers(start, end);
+        LOCK.readLock().lock();
+        try {
+            return TREE.overlapping(minutes(start), minutes(end));
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /** Other bookings in the same time slot that hold one of the resources of {@code booking}. */
+    public static List<CalendarEntry> conflicts(CalendarEntry booking) {
+        List<CalendarEntry> conflicts = new ArrayList<>();
+        for (CalendarEntry entry : overlapping(booking.getStart(), booking.getEnd())) {
+            if (!entry.isSameBooking(booking) && entry.sharesResourceWith(booking)) {
+                conflicts.add(entry);
+            }
+        }
+        return conflicts;
+    }
+
+    public static Set<Long> busyMoniteurs(LocalDateTime start, LocalDateTime end) {
+        Set<Long> busy = new HashSet<>();
+        for (CalendarEntry entry : overlapping(start, end)) {
+            busy.add(entry.getMoniteurId());
+        }
+        return busy;
+    }
+
+    public static Set<Long> busyVehicules(LocalDateTime start, LocalDateTime end) {
+        Set<Long> busy = new HashSet<>();
+        for (CalendarEntry entry : overlapping(start, end)) {
+            if (entry.getVehiculeId() != null) {
+                busy.add(entry.getVehiculeId());
+            }
+        }
+        return busy;
+    }
+
+    /**
+     * Salles taken in the slot, lower-cased. Entries matching {@code ignore} are skipped, e.g. the
+     * per-candidate rows of the session being filled.
+     */
+    public static Set<String> busySalles(LocalDateTime start, LocalDateTime end, Predicate<CalendarEntry> ignore) {
+        Set<String> busy = new HashSet<>();
+        for (CalendarEntry entry : overlapping(start, end)) {
+            if (entry.getSalle() != null && !ignore.test(entry)) {
+                busy.add(entry.getSalle().toLowerCase());
+            }
+        }
+        return busy;
+    }
+
+    public static boolean isMoniteurFree(long moniteurId, LocalDateTime start, LocalDateTime end) {
+        return !busyMoniteurs(start, end).contains(moniteurId);
+    }
+
+    public static boolean isVehiculeFree(long vehiculeId, LocalDateTime start, LocalDateTime end) {
+        return !busyVehicules(start, end).contains(vehiculeId);
+    }
+
+    /**
+     * Re-reads one booking after it was inserted or updated. Does nothing until the calendar has
+     * been loaded.
+     */
+    public static void refresh(Source source, long id) {
+        if (!isLoaded()) {
+            return;
+        }
+        CalendarEntry entry = null;
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(selectFor(source) + " WHERE id = ?" + NOT_CANCELLED)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    entry = map(source, rs);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error refreshing calendar entry " + source + "#" + id + ", reloading on next use", e);
+            invalidate();
+            return;
+        }
+
+        LOCK.writeLock().lock();
+        try {
+            removeEntry(key(source, id));
+            if (entry != null && windowStart != null
+                    && !entry.getStart().toLocalDate().isBefore(windowStart)
+                    && entry.getStart().toLocalDate().isBefore(windowEnd)) {
+                addEntry(entry);
+            }
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    public static void remove(Source source, long id) {
+        LOCK.writeLock().lock();
+        try {
+            removeEntry(key(source, id));
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    public static void invalidate() {
+        LOCK.writeLock().lock();
+        try {
+            TREE.clear();
+            ENTRIES.clear();
+            windowStart = null;
+            windowEnd = null;
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    private static boolean isLoaded() {
+        LOCK.readLock().lock();
+        try {
+            return windowStart != null;
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    private static void ensureCovers(LocalDateTime start, LocalDateTime end) {
+        LocalDate from = start.toLocalDate();
+        LocalDate to = end.toLocalDate().plusDays(1);
+        LOCK.readLock().lock();
+        try {
+            if (windowStart != null && !from.isBefore(windowStart) && !to.isAfter(windowEnd)) {
+                return;
+            }
+        } finally {
+            LOCK.readLock().unlock();
+        }
+
+        LOCK.writeLock().lock();
+        try {
+            if (windowStart != null && !from.isBefore(windowStart) && !to.isAfter(windowEnd)) {
+                return;
+            }
+            LocalDate today = LocalDate.now();
+            LocalDate newStart = windowStart != null ? windowStart : today.minusDays(DAYS_BEFORE);
+            LocalDate newEnd = windowEnd != null ? windowEnd : today.plusDays(WINDOW_DAYS);
+            if (from.isBefore(newStart)) {
+                newStart = from;
+            }
+            if (to.isAfter(newEnd)) {
+                newEnd = to;
+            }
+            load(newStart, newEnd);
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    private static void load(LocalDate from, LocalDate to) {
+        List<CalendarEntry> loaded = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            loadSource(conn, Source.SEANCE, "date", from, to, loaded);
+            loadSource(conn, Source.SESSION_CODE, "date_session", from, to, loaded);
+            loadSource(conn, Source.SESSION_CONDUITE, "date_session", from, to, loaded);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading resource calendar", e);
+            throw new CalendarUnavailable("Calendrier des ressources indisponible", e);
+        }
+
+        TREE.clear();
+        ENTRIES.clear();
+        for (CalendarEntry entry : loaded) {
+            addEntry(entry);
+        }
+        windowStart = from;
+        windowEnd = to;
+        LOGGER.fine("Resource calendar loaded " + loaded.size() + " bookings from " + from + " to " + to);
+    }
+
+    private static void loadSource(Connection conn, Source source, String dateColumn,
+                                   LocalDate from, LocalDate to, List<CalendarEntry> out) throws SQLException {
+        String sql = selectFor(source) + " WHERE " + dateColumn + " >= ? AND " + dateColumn + " < ?" + NOT_CANCELLED;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    CalendarEntry entry = map(source, rs);
+                    if (entry != null) {
+                        out.add(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String selectFor(Source source) {
+        return switch (source) {
+            case SEANCE -> SEANCE_SELECT;
+            case SESSION_CODE -> SESSION_CODE_SELECT;
+            case SESSION_CONDUITE -> SESSION_CONDUITE_SELECT;
+        };
+    }
+
+    private static CalendarEntry map(Source source, ResultSet rs) throws SQLException {
+        Date jour = rs.getDate("jour");
+        Time debut = rs.getTime("debut");
+        if (jour == null || debut == null) {
+            return null;
+        }
+        LocalDateTime start = LocalDateTime.of(jour.toLocalDate(), debut.toLocalTime());
+
+        LocalDateTime end = null;
+        Time fin = rs.getTime("fin");
+        if (fin != null) {
+            end = LocalDateTime.of(jour.toLocalDate(), fin.toLocalTime());
+        } else {
+            int duree = rs.getInt("duree");
+            if (!rs.wasNull() && duree > 0) {
+                end = start.plusMinutes(duree);
+            }
+        }
+        if (end == null || !end.isAfter(start)) {
+            end = start.plusMinutes(DEFAULT_DURATION_MINUTES);
+        }
+
+        long vehiculeId = rs.getLong("vehicule_id");
+        Long vehicule = rs.wasNull() || vehiculeId == 0 ? null : vehiculeId;
+
+        String salle = "Code".equals(rs.getString("type")) ? rs.getString("salle") : null;
+        if (salle != null && salle.isBlank()) {
+            salle = null;
+        }
+
+        return new CalendarEntry(source, rs.getLong("id"), rs.getLong("moniteur_id"), vehicule, salle, start, end);
+    }
+
+    private static void addEntry(CalendarEntry entry) {
+        long key = key(entry.getSource(), entry.getId());
+        removeEntry(key);
+        ENTRIES.put(key, entry);
+        TREE.insert(minutes(entry.getStart()), minutes(entry.getEnd()), key, entry);
+    }
+
+    private static void removeEntry(long key) {
+        CalendarEntry previous = ENTRIES.remove(key);
+        if (previous != null) {
+            TREE.remove(minutes(previous.getStart()), minutes(previous.getEnd()), key);
+        }
+    }
+
+    private static long key(Source source, long id) {
+        return ((long) source.ordinal() << 48) | id;
+    }
+
+    private static long minutes(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
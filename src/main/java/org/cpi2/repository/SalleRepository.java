@@ -6,6 +6,7 @@ import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,22 +18,26 @@ public class SalleRepository {
     }
 
     public List<Salle> findAll() {
-        List<Salle> salles = new ArrayList<>();
         String sql = "SELECT * FROM salle";
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try {
+            return QueryCache.list(sql, List.of(), Set.of("salle"), () -> {
+                List<Salle> salles = new ArrayList<>();
+                try (Connection conn = getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) {
-                Salle salle = mapResultSetToSalle(rs);
-                salles.add(salle);
-            }
+                    while (rs.next()) {
+                        salles.add(mapResultSetToSalle(rs));
+                    }
+                }
+                return salles;
+            }, SalleRepository::copyOf);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Erreur lors de la récupération de toutes les salles", e);
         }
 
-        return salles;
+        return new ArrayList<>();
     }
 
     public Optional<Salle> findById(Long id) {
@@ -89,6 +94,7 @@ public class SalleRepository {
             if (affectedRows == 0) {
                 return false;
             }
+            QueryCache.tablesChanged("salle");
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
@@ -117,7 +123,10 @@ public class SalleRepository {
             stmt.setLong(5, salle.getId());
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                QueryCache.tablesChanged("salle");
+                return true;
+            }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Erreur lors de la mise à jour de la salle", e);
         }
@@ -134,7 +143,10 @@ public class SalleRepository {
             stmt.setLong(1, id);
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                QueryCache.tablesChanged("salle");
+                return true;
+            }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Erreur lors de la suppression de la salle", e);
         }
@@ -142,6 +154,16 @@ public class SalleRepository {
         return false;
     }
 
+    private static Salle copyOf(Salle salle) {
+        Salle copy = new Salle();
+        copy.setId(salle.getId());
+        copy.setNom(salle.getNom());
+        copy.setNumero(salle.getNumero());
+        copy.setCapacite(salle.getCapacite());
+        copy.setNotes(salle.getNotes());
+        return copy;
+    }
+
     private Salle mapResultSetToSalle(ResultSet rs) throws SQLException {
         Salle salle = new Salle();
         salle.setId(rs.getLong("id"));
@@ -1,25 +1,32 @@
 package org.cpi2.repository;
 
+import org.cpi2.entities.CalendarEntry;
 import org.cpi2.entities.Seance;
 
 import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Level;
 
 public class SeanceRepository extends BaseRepository<Seance> {
+    private static final String SELECT_WITH_NAMES = "SELECT s.*, " +
+            "c.nom AS candidat_nom, c.prenom AS candidat_prenom, " +
+            "m.nom AS moniteur_nom, m.prenom AS moniteur_prenom, " +
+            "v.marque AS vehicule_marque, v.modele AS vehicule_modele " +
+            "FROM seance s " +
+            "LEFT JOIN candidat c ON s.candidat_id = c.id " +
+            "LEFT JOIN moniteur m ON s.moniteur_id = m.id " +
+            "LEFT JOIN vehicule v ON s.vehicule_id = v.id";
+
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
 
     public Optional<Seance> findById(Long id) {
-        String sql = "SELECT s.*, " +
-                "c.nom AS candidat_nom, c.prenom AS candidat_prenom, " +
-                "m.nom AS moniteur_nom, m.prenom AS moniteur_prenom, " +
-                "v.marque AS vehicule_marque, v.modele AS vehicule_modele " +
-                "FROM seance s " +
-                "LEFT JOIN candidat c ON s.candidat_id = c.id " +
-                "LEFT JOIN moniteur m ON s.moniteur_id = m.id " +
-                "LEFT JOIN vehicule v ON s.vehicule_id = v.id " +
-                "WHERE s.id = ?";
+        String sql = SELECT_WITH_NAMES + " WHERE s.id = ?";
 
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -28,38 +35,7 @@ public class SeanceRepository extends BaseRepository<Seance> {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                Seance seance = new Seance();
-                seance.setId(rs.getLong("id"));
-                seance.setType(rs.getString("type"));
-                seance.setCandidatId(rs.getLong("candidat_id"));
-                seance.setCandidatName(rs.getString("candidat_nom") + " " + rs.getString("candidat_prenom"));
-                seance.setMoniteurId(rs.getLong("moniteur_id"));
-                seance.setMoniteurName(rs.getString("moniteur_nom") + " " + rs.getString("moniteur_prenom"));
-                seance.setVehiculeId(rs.getLong("vehicule_id"));
-                seance.setVehiculeName(rs.getString("vehicule_marque") + " " + rs.getString("vehicule_modele"));
-                seance.setDate(rs.getString("date"));
-                seance.setTemps(rs.getString("heure"));
-                seance.setKilometrage(getDoubleFromInt(rs, "kilometrage_debut"));
-                seance.setStatus(rs.getString("statut"));
-                seance.setCommentaire(rs.getString("commentaire"));
-
-                if (rs.getObject("latitude") != null) {
-                    seance.setLatitude(rs.getDouble("latitude"));
-                }
-                if (rs.getObject("longitude") != null) {
-                    seance.setLongitude(rs.getDouble("longitude"));
-                }
-
-                String lieu = rs.getString("lieu");
-                if (lieu != null) {
-                    if ("Code".equals(seance.getType())) {
-                        seance.setSalle(lieu);
-                    } else if ("Conduite".equals(seance.getType())) {
-                        seance.setQuartier(lieu);
-                    }
-                }
-
-                return Optional.of(seance);
+                return Optional.of(mapResultSetToSeance(rs));
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding seance by ID", e);
@@ -68,14 +44,7 @@ public class SeanceRepository extends BaseRepository<Seance> {
     }
 
     public List<Seance> findAll() {
-        String sql = "SELECT s.*, " +
-                "c.nom AS candidat_nom, c.prenom AS candidat_prenom, " +
-                "m.nom AS moniteur_nom, m.prenom AS moniteur_prenom, " +
-                "v.marque AS vehicule_marque, v.modele AS vehicule_modele " +
-                "FROM seance s " +
-                "LEFT JOIN candidat c ON s.candidat_id = c.id " +
-                "LEFT JOIN moniteur m ON s.moniteur_id = m.id " +
-                "LEFT JOIN vehicule v ON s.vehicule_id = v.id";
+        String sql = SELECT_WITH_NAMES;
 
         List<Seance> seances = new ArrayList<>();
 
@@ -84,38 +53,7 @@ public class SeanceRepository extends BaseRepository<Seance> {
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Seance seance = new Seance();
-                seance.setId(rs.getLong("id"));
-                seance.setType(rs.getString("type"));
-                seance.setCandidatId(rs.getLong("candidat_id"));
-                seance.setCandidatName(rs.getString("candidat_nom") + " " + rs.getString("candidat_prenom"));
-                seance.setMoniteurId(rs.getLong("moniteur_id"));
-                seance.setMoniteurName(rs.getString("moniteur_nom") + " " + rs.getString("moniteur_prenom"));
-                seance.setVehiculeId(rs.getLong("vehicule_id"));
-                seance.setVehiculeName(rs.getString("vehicule_marque") + " " + rs.getString("vehicule_modele"));
-                seance.setDate(rs.getString("date"));
-                seance.setTemps(rs.getString("heure"));
-                seance.setKilometrage(getDoubleFromInt(rs, "kilometrage_debut"));
-                seance.setStatus(rs.getString("statut"));
-                seance.setCommentaire(rs.getString("commentaire"));
-
-                if (rs.getObject("latitude") != null) {
-                    seance.setLatitude(rs.getDouble("latitude"));
-                }
-                if (rs.getObject("longitude") != null) {
-                    seance.setLongitude(rs.getDouble("longitude"));
-                }
-
-                String lieu = rs.getString("lieu");
-                if (lieu != null) {
-                    if ("Code".equals(seance.getType())) {
-                        seance.setSalle(lieu);
-                    } else if ("Conduite".equals(seance.getType())) {
-                        seance.setQuartier(lieu);
-                    }
-                }
-
-                seances.add(seance);
+                seances.add(mapResultSetToSeance(rs));
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding all seances", e);
@@ -123,6 +61,82 @@ public class SeanceRepository extends BaseRepository<Seance> {
         return seances;
     }
 
+    /**
+     * A page of the seances of {@code type} with {@code statut}, earliest first by date then time,
+     * starting after {@code after} ({@code null} for the first page); {@code onDate} restricts it
+     * to one day when not null.
+     */
+    public Page<Seance> findPage(String type, String statut, LocalDate onDate, Page.Cursor after, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_WITH_NAMES).append(" WHERE s.type = ? AND s.statut = ?");
+        if (onDate != null) {
+            sql.append(" AND s.date = ?");
+        }
+        if (after != null) {
+            sql.append(" AND ").append(seekPredicate("s.date", "s.heure", "s.id", false));
+        }
+        sql.append(" ORDER BY s.date, s.heure, s.id LIMIT ?");
+        List<Seance> seances = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            stmt.setString(index++, type);
+            stmt.setString(index++, statut);
+            if (onDate != null) {
+                stmt.setDate(index++, Date.valueOf(onDate));
+            }
+            if (after != null) {
+                index = bindCursor(stmt, index, after);
+            }
+            stmt.setInt(index, limit + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    seances.add(mapResultSetToSeance(rs));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding seances page", e);
+        }
+        return toPage(seances, limit, seance ->
+                new Page.Cursor(LocalDate.parse(seance.getDate()), LocalTime.parse(seance.getHeure()), seance.getId()));
+    }
+
+    private Seance mapResultSetToSeance(ResultSet rs) throws SQLException {
+        Seance seance = new Seance();
+        seance.setId(rs.getLong("id"));
+        seance.setType(rs.getString("type"));
+        seance.setCandidatId(rs.getLong("candidat_id"));
+        seance.setCandidatName(rs.getString("candidat_nom") + " " + rs.getString("candidat_prenom"));
+        seance.setMoniteurId(rs.getLong("moniteur_id"));
+        seance.setMoniteurName(rs.getString("moniteur_nom") + " " + rs.getString("moniteur_prenom"));
+        seance.setVehiculeId(rs.getLong("vehicule_id"));
+        seance.setVehiculeName(rs.getString("vehicule_marque") + " " + rs.getString("vehicule_modele"));
+        seance.setDate(rs.getString("date"));
+        seance.setTemps(rs.getString("heure"));
+        seance.setDuree(rs.getInt("duree"));
+        seance.setKilometrage(getDoubleFromInt(rs, "kilometrage_debut"));
+        seance.setStatus(rs.getString("statut"));
+        seance.setCommentaire(rs.getString("commentaire"));
+
+        if (rs.getObject("latitude") != null) {
+            seance.setLatitude(rs.getDouble("latitude"));
+        }
+        if (rs.getObject("longitude") != null) {
+            seance.setLongitude(rs.getDouble("longitude"));
+        }
+
+        String lieu = rs.getString("lieu");
+        if (lieu != null) {
+            if ("Code".equals(seance.getType())) {
+                seance.setSalle(lieu);
+            } else if ("Conduite".equals(seance.getType())) {
+                seance.setQuartier(lieu);
+            }
+        }
+        return seance;
+    }
+
     public boolean save(Seance seance) {
         String sql = "INSERT INTO seance (type, candidat_id, moniteur_id, vehicule_id, date, heure, duree, " +
                 "kilometrage_debut, statut, commentaire, latitude, longitude, lieu) " +
@@ -143,7 +157,7 @@ public class SeanceRepository extends BaseRepository<Seance> {
 
             stmt.setString(5, seance.getDate());
             stmt.setString(6, seance.getHeure());
-            stmt.setInt(7, 60);
+            stmt.setInt(7, seance.getDuree() > 0 ? seance.getDuree() : 60);
 
             if (seance.getKilometrage() != null) {
                 stmt.setInt(8, seance.getKilometrage().intValue());
@@ -188,6 +202,8 @@ public class SeanceRepository extends BaseRepository<Seance> {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         seance.setId(generatedKeys.getLong(1));
+                        ResourceCalendar.refresh(CalendarEntry.Source.SEANCE, seance.getId());
+                        rollups.refresh(conn, DailyRollupRepository.Source.SEANCE, Arrays.asList(rollups.dayOf(conn, DailyRollupRepository.Source.SEANCE, seance.getId())));
                         return true;
                     }
                 }
@@ -258,7 +274,13 @@ public class SeanceRepository extends BaseRepository<Seance> {
 
             stmt.setLong(13, seance.getId());
 
-            return stmt.executeUpdate() > 0;
+            LocalDate previousDay = rollups.dayOf(conn, DailyRollupRepository.Source.SEANCE, seance.getId());
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                ResourceCalendar.refresh(CalendarEntry.Source.SEANCE, seance.getId());
+                rollups.refresh(conn, DailyRollupRepository.Source.SEANCE, Arrays.asList(previousDay, rollups.dayOf(conn, DailyRollupRepository.Source.SEANCE, seance.getId())));
+            }
+            return updated;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating seance: " + e.getMessage(), e);
             return false;
@@ -275,7 +297,11 @@ public class SeanceRepository extends BaseRepository<Seance> {
             stmt.setString(2, commentaire);
             stmt.setLong(3, id);
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                ResourceCalendar.refresh(CalendarEntry.Source.SEANCE, id);
+            }
+            return updated;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating seance status: " + e.getMessage(), e);
             return false;
@@ -287,8 +313,14 @@ public class SeanceRepository extends BaseRepository<Seance> {
 
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            LocalDate previousDay = rollups.dayOf(conn, DailyRollupRepository.Source.SEANCE, id);
             stmt.setLong(1, id);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                ResourceCalendar.remove(CalendarEntry.Source.SEANCE, id);
+                rollups.refresh(conn, DailyRollupRepository.Source.SEANCE, Arrays.asList(previousDay));
+            }
+            return deleted;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting seance with ID " + id, e);
             return false;
@@ -7,11 +7,17 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 
 public class SessionRepository extends BaseRepository<Session> {
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
+    private final PresenceRepository presenceRepository = new PresenceRepository();
 
     public List<SessionCode> findAllCodeSessions() {
         List<SessionCode> sessions = new ArrayList<>();
@@ -425,57 +431,115 @@ public class SessionRepository extends BaseRepository<Session> {
         }
     }
     
+    /**
+     * Reserves a seat in a code session. The seat is taken with a conditional increment
+     * ({@code nombre_inscrits < capacite_max}) in the same transaction as the presence insert,
+     * so concurrent desks can never oversubscribe a session.
+     */
     public boolean affecterCandidatASessionCode(long sessionId, long candidatId) {
-        String checkSql = "SELECT capacite_max, nombre_inscrits FROM session_code WHERE id = ?";
-        
-        try (Connection conn = getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-            
-            checkStmt.setLong(1, sessionId);
-            ResultSet rs = checkStmt.executeQuery();
-            
-            if (rs.next()) {
-                int capaciteMax = rs.getInt("capacite_max");
-                int nombreInscrits = rs.getInt("nombre_inscrits");
-                
-                if (nombreInscrits >= capaciteMax) {
-                    LOGGER.warning("La session code est complète, capacité maximale atteinte");
-                    return false;
+        return affecterCandidatsASessionCode(sessionId, List.of(candidatId)) == 1;
+    }
+
+    /**
+     * Enrolls a group of candidates into a code session in one transaction. Candidates already
+     * enrolled are skipped; the remaining ones are enrolled only if the session has a free seat
+     * for each of them.
+     *
+     * @return the number of candidates enrolled, 0 if the session is full or not found
+     */
+    public int affecterCandidatsASessionCode(long sessionId, Collection<Long> candidatIds) {
+        Set<Long> pending = new LinkedHashSet<>(candidatIds);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+
+            String enrolledSql = "SELECT candidat_id FROM presence_code WHERE session_code_id = ? AND candidat_id IN ("
+                    + placeholders(pending.size()) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(enrolledSql)) {
+                stmt.setLong(1, sessionId);
+                int index = 2;
+                for (Long candidatId : pending) {
+                    stmt.setLong(index++, candidatId);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        pending.remove(rs.getLong(1));
+                    }
                 }
+            }
+            if (pending.isEmpty()) {
+                LOGGER.info("Candidat(s) déjà inscrit(s) à la session code " + sessionId);
+                conn.rollback();
+                return 0;
+            }
 
-                String insertSql = "INSERT INTO presence_code (session_code_id, candidat_id, present) VALUES (?, ?, false)";
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+            String reserveSql = "UPDATE session_code SET nombre_inscrits = nombre_inscrits + ? " +
+                    "WHERE id = ? AND nombre_inscrits + ? <= capacite_max";
+            try (PreparedStatement stmt = conn.prepareStatement(reserveSql)) {
+                stmt.setInt(1, pending.size());
+                stmt.setLong(2, sessionId);
+                stmt.setInt(3, pending.size());
+                if (stmt.executeUpdate() == 0) {
+                    LOGGER.warning("La session code " + sessionId + " est complète ou introuvable, "
+                            + pending.size() + " place(s) demandée(s)");
+                    conn.rollback();
+                    return 0;
+                }
+            }
+
+            String insertSql = "INSERT INTO presence_code (session_code_id, candidat_id, present) VALUES (?, ?, false)";
+            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql);
+                 PreparedStatement counterStmt = conn.prepareStatement(PresenceRepository.CODE_COUNTER_SQL)) {
+                for (Long candidatId : pending) {
                     insertStmt.setLong(1, sessionId);
                     insertStmt.setLong(2, candidatId);
-                    insertStmt.executeUpdate();
-
-                    String updateSql = "UPDATE session_code SET nombre_inscrits = nombre_inscrits + 1 WHERE id = ?";
-                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                        updateStmt.setLong(1, sessionId);
-                        updateStmt.executeUpdate();
-                        return true;
-                    }
+                    insertStmt.addBatch();
+                    counterStmt.setLong(1, sessionId);
+                    counterStmt.setLong(2, candidatId);
+                    counterStmt.addBatch();
                 }
-            } else {
-                LOGGER.warning("Session code avec ID " + sessionId + " non trouvée");
+                insertStmt.executeBatch();
+                counterStmt.executeBatch();
             }
+
+            conn.commit();
+            QueryCache.tablesChanged("inscription");
+            return pending.size();
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Erreur lors de l'affectation du candidat à la session code", e);
+            LOGGER.log(Level.SEVERE, "Erreur lors de l'affectation des candidats à la session code", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Erreur lors de l'annulation de la transaction", ex);
+                }
+            }
+            return 0;
+        } finally {
+            closeQuietly(conn);
         }
-        
-        return false;
     }
     
     public boolean affecterCandidatASeanceConduite(long seanceId, long candidatId) {
-        try (Connection conn = getConnection()) {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+
             String checkSql = "SELECT id FROM seance WHERE id = ? AND type = 'Conduite'";
             try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
                 checkStmt.setLong(1, seanceId);
-                ResultSet rs = checkStmt.executeQuery();
-                
-                if (!rs.next()) {
-                    LOGGER.warning("Séance de conduite avec ID " + seanceId + " non trouvée");
-                    return false;
+                try (ResultSet rs = checkStmt.executeQuery()) {
+                    if (!rs.next()) {
+                        LOGGER.warning("Séance de conduite avec ID " + seanceId + " non trouvée");
+                        conn.rollback();
+                        return false;
+                    }
                 }
             }
 
@@ -483,23 +547,32 @@ public class SessionRepository extends BaseRepository<Session> {
             try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
                 updateStmt.setLong(1, candidatId);
                 updateStmt.setLong(2, seanceId);
-                int rowsAffected = updateStmt.executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    String insertSql = "INSERT INTO presence_conduite (session_conduite_id, candidat_id, present) VALUES (?, ?, false)";
-                    try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-                        insertStmt.setLong(1, seanceId);
-                        insertStmt.setLong(2, candidatId);
-                        insertStmt.executeUpdate();
-                        return true;
-                    }
+                if (updateStmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
                 }
             }
+
+            // Same path as a recorded presence, so the inscription's driving counter follows
+            boolean inserted = presenceRepository.insertConduitePresence(conn, seanceId, candidatId, false);
+            conn.commit();
+            if (inserted) {
+                QueryCache.tablesChanged("inscription");
+            }
+            return true;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Erreur lors de l'affectation du candidat à la séance de conduite", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error rolling back seance assignment", ex);
+                }
+            }
+            return false;
+        } finally {
+            closeQuietly(conn);
         }
-        
-        return false;
     }
 
     public boolean saveCodeSession(SessionCode session) {
@@ -561,6 +634,7 @@ public class SessionRepository extends BaseRepository<Session> {
                         if (generatedKeys.next()) {
                             long id = generatedKeys.getLong(1);
                             session.setId(id);
+                            ResourceCalendar.refresh(CalendarEntry.Source.SESSION_CODE, id);
                             return true;
                         }
                     }
@@ -691,6 +765,8 @@ public class SessionRepository extends BaseRepository<Session> {
                     if (generatedKeys.next()) {
                         long id = generatedKeys.getLong(1);
                         session.setId(id);
+                        ResourceCalendar.refresh(CalendarEntry.Source.SEANCE, id);
+                        rollups.refresh(conn, DailyRollupRepository.Source.SEANCE, List.of(session.getDateSession()));
                         LOGGER.info("Session conduite enregistrée avec succès, ID: " + id);
                         return true;
                     } else {
@@ -729,7 +805,11 @@ public class SessionRepository extends BaseRepository<Session> {
             stmt.setInt(7, session.getCapaciteMax());
             stmt.setLong(8, session.getId());
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                ResourceCalendar.refresh(CalendarEntry.Source.SESSION_CODE, session.getId());
+            }
+            return updated;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating code session", e);
             return false;
@@ -788,7 +868,14 @@ public class SessionRepository extends BaseRepository<Session> {
             stmt.setInt(9, session.getKilometresParcourus());
             stmt.setLong(12, session.getId());
 
-            return stmt.executeUpdate() > 0;
+            LocalDate previousDay = rollups.dayOf(conn, DailyRollupRepository.Source.SEANCE, session.getId());
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                ResourceCalendar.refresh(CalendarEntry.Source.SEANCE, session.getId());
+                rollups.refresh(conn, DailyRollupRepository.Source.SEANCE,
+                        Arrays.asList(previousDay, session.getDateSession()));
+            }
+            return updated;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating conduite session: " + e.getMessage(), e);
             return false;
@@ -800,7 +887,11 @@ public class SessionRepository extends BaseRepository<Session> {
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setLong(1, id);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                ResourceCalendar.remove(CalendarEntry.Source.SESSION_CODE, id);
+            }
+            return deleted;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting code session", e);
             return false;
@@ -812,7 +903,13 @@ public class SessionRepository extends BaseRepository<Session> {
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setLong(1, id);
-            return stmt.executeUpdate() > 0;
+            LocalDate previousDay = rollups.dayOf(conn, DailyRollupRepository.Source.SEANCE, id);
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                ResourceCalendar.remove(CalendarEntry.Source.SEANCE, id);
+                rollups.refresh(conn, DailyRollupRepository.Source.SEANCE, Arrays.asList(previousDay));
+            }
+            return deleted;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting conduite session with ID " + id, e);
             return false;
@@ -3,6 +3,7 @@ package org.cpi2.repository;
 import org.cpi2.entities.Entretien;
 import org.cpi2.entities.TypePermis;
 import org.cpi2.entities.Vehicule;
+import org.cpi2.entities.VehiculeSummary;
 
 import java.sql.*;
 import java.sql.Date;
@@ -13,34 +14,60 @@ import java.util.logging.Logger;
 
 public class VehiculeRepository extends BaseRepository<Vehicule> {
     private final TypePermisRepository typePermisRepository;
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
     private static final Logger LOGGER = Logger.getLogger(VehiculeRepository.class.getName());
-    private HashMap<Integer, TypePermis> permis_mapper = new HashMap<>();
 
     public VehiculeRepository() {
         this.typePermisRepository = new TypePermisRepository();
-        List<String> permisList = typePermisRepository.findAll();
-        for (String permis : permisList) {
-            permis_mapper.put(typePermisRepository.findByCode(permis).get(),TypePermis.valueOf(permis));
-        }
-
     }
 
 
     public List<Vehicule> findAll() {
-        List<Vehicule> vehicules = new ArrayList<>();
         String sql = "SELECT * FROM vehicule";
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                vehicules.add(mapResultSetToVehicule(rs));
-            }
+        try {
+            return QueryCache.list(sql, List.of(), Set.of("vehicule"), () -> {
+                List<Vehicule> vehicules = new ArrayList<>();
+                try (Connection conn = getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        vehicules.add(mapResultSetToVehicule(rs));
+                    }
+                }
+                return vehicules;
+            }, VehiculeRepository::copyOf);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding all vehicules", e);
         }
-        return vehicules;
+        return new ArrayList<>();
+    }
+
+    public List<VehiculeSummary> findAllSummaries() {
+        String sql = "SELECT id, marque, modele, immatriculation FROM vehicule ORDER BY marque, modele, id";
+
+        try {
+            return QueryCache.list(sql, List.of(), Set.of("vehicule"), () -> {
+                List<VehiculeSummary> summaries = new ArrayList<>();
+                try (Connection conn = getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+
+                    while (rs.next()) {
+                        summaries.add(new VehiculeSummary(
+                                rs.getLong("id"),
+                                rs.getString("marque"),
+                                rs.getString("modele"),
+                                rs.getString("immatriculation")));
+                    }
+                }
+                return summaries;
+            });
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding vehicule summaries", e);
+        }
+        return new ArrayList<>();
     }
 
     public Optional<Vehicule> findById(Long id) {
@@ -115,7 +142,7 @@ public class VehiculeRepository extends BaseRepository<Vehicule> {
         LocalDate dateProchaineVisiteTechnique = rs.getDate("date_prochaine_visite_technique") != null ? rs.getDate("date_prochaine_visite_technique").toLocalDate() : null;
         LocalDate dateExpirationAssurance = rs.getDate("date_expiration_assurance") != null ? rs.getDate("date_expiration_assurance").toLocalDate() : null;
         long id =  rs.getLong("id");
-        TypePermis typePermis = permis_mapper.get(permis_id);
+        TypePermis typePermis = ReferenceData.typePermisById().get(permis_id);
 
 
         Vehicule vehicule = new Vehicule(
@@ -137,6 +164,27 @@ public class VehiculeRepository extends BaseRepository<Vehicule> {
         return vehicule;
     }
 
+    /** The columns of the vehicule row; entretiens are loaded separately and are not kept. */
+    private static Vehicule copyOf(Vehicule vehicule) {
+        Vehicule copy = new Vehicule(
+                vehicule.getImmatriculation(),
+                vehicule.getMarque(),
+                vehicule.getModele(),
+                vehicule.getAnnee(),
+                vehicule.getTypePermis(),
+                vehicule.getDateMiseEnService(),
+                vehicule.getKilometrageTotal(),
+                vehicule.getKilometrageProchainEntretien(),
+                vehicule.getDateProchainEntretien(),
+                vehicule.getDateDerniereVisiteTechnique(),
+                vehicule.getDateProchaineVisiteTechnique(),
+                vehicule.getDateExpirationAssurance(),
+                vehicule.getStatut());
+        copy.setId((int) vehicule.getId());
+        copy.setCreatedAt(vehicule.getCreatedAt());
+        return copy;
+    }
+
     public List<Entretien> findEntretiens(Vehicule vehicule) {
         List<Entretien> entretiens = new ArrayList<>();
         String sql = "SELECT * FROM entretien WHERE id_vehicule = ? ORDER BY date_entretien DESC";
@@ -183,6 +231,7 @@ public class VehiculeRepository extends BaseRepository<Vehicule> {
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     entretien.setId((int) generatedKeys.getLong(1));
+                    rollups.refresh(conn, DailyRollupRepository.Source.ENTRETIEN, List.of(entretien.getDateEntretien()));
                     return true;
                 }
                 return false;
@@ -225,6 +274,7 @@ public class VehiculeRepository extends BaseRepository<Vehicule> {
             if (affectedRows == 0) {
                 return false;
             }
+            QueryCache.tablesChanged("vehicule");
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
@@ -288,7 +338,11 @@ public class VehiculeRepository extends BaseRepository<Vehicule> {
             }
             stmt.setLong(13, id);
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                QueryCache.tablesChanged("vehicule");
+            }
+            return updated;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating vehicule", e);
             return false;
@@ -302,7 +356,11 @@ public class VehiculeRepository extends BaseRepository<Vehicule> {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
              
             stmt.setLong(1, id);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                QueryCache.tablesChanged("vehicule");
+            }
+            return deleted;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting vehicule", e);
             return false;
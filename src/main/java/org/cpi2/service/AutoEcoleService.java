@@ -2,12 +2,18 @@ package org.cpi2.service;
 
 import org.cpi2.entities.AutoEcole;
 import org.cpi2.repository.AutoEcoleRepository;
+import org.cpi2.repository.ReferenceData;
+import org.cpi2.utils.EventBus;
+import org.cpi2.utils.Events;
 
-import java.sql.SQLException;
 import java.util.List;
 
 public class AutoEcoleService {
 
+    static {
+        EventBus.subscribe(Events.AutoEcoleUpdated.class, EventBus.Delivery.SYNC, event -> ReferenceData.invalidateAutoEcole());
+    }
+
     private final AutoEcoleRepository autoEcoleRepository;
 
     public AutoEcoleService() {
@@ -15,21 +21,11 @@ public class AutoEcoleService {
     }
 
     public AutoEcole getAutoEcole() {
-        try {
-            return autoEcoleRepository.findFirst();
-        } catch (SQLException e) {
-            System.err.println("Error retrieving auto-école: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+        return ReferenceData.autoEcole();
     }
 
     public AutoEcole getAutoEcoleData() {
-        try {
-            return autoEcoleRepository.findFirst();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        return ReferenceData.autoEcole();
     }
 
     public List<AutoEcole> findAllAutoEcoles() {
@@ -0,0 +1,280 @@
+package org.cpi2.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for uploaded files, under {@code autoecole.documents.blobDir}.
+ * <p>
+ * A file is stored once per distinct content, as {@code <2 first hex>/<sha256><extension>}; the
+ * extension is the one of the first upload and only helps the desktop pick a viewer. The source
+ * is copied into a temporary file of the store through a direct buffer (not the Java heap) and
+ * hashed as it is read; the copy is forced to disk, read back and hashed again, and its size and
+ * SHA-256 must both match the source's. Only then is it renamed into place (or dropped when the
+ * content is already there), so a blob is never half written nor silently corrupted: a copy
+ * interrupted by a crash stays in {@code tmp/} until {@link #sweep} removes it.
+ * <p>
+ * The store does not count references itself: the caller links and unlinks rows holding the hash
+ * through {@link #put} and {@link #release}, which run under a per-hash lock so a blob cannot be
+ * removed while a new reference to it is being saved.
+ */
+final class BlobStore {
+    private static final Logger LOGGER = Logger.getLogger(BlobStore.class.getName());
+
+    static final Path DEFAULT_ROOT = Paths.get(System.getProperty("autoecole.documents.blobDir", "uploads/blobs"));
+
+    private static final int HASH_LENGTH = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Bytes between two progress reports
+    private static final long PROGRESS_STEP = 8L * 1024 * 1024;
+    private static final HexFormat HEX = HexFormat.of();
+    private static final Object[] LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private final Path root;
+
+    BlobStore(Path root) {
+        this.root = root;
+    }
+
+    /** Size and SHA-256 of a source, as read while copying it. */
+    private record Copy(long size, String sha256) {
+    }
+
+    /** A stored file: its hash, its path in the store and whether this call created it. */
+    record Blob(String sha256, Path path, boolean created) {
+    }
+
+    /** Saves the row that references a blob; runs while the blob's hash is locked. */
+    @FunctionalInterface
+    interface Reference<T> {
+        T link(Blob blob) throws Exception;
+    }
+
+    <T> T put(Path source, String extension, Reference<T> reference) throws Exception {
+        return put(source, extension, (done, total) -> { }, reference);
+    }
+
+    /**
+     * Copies {@code source} into the store unless its content is already there, then calls
+     * {@code reference} with the blob while no {@link #release} of the same hash can run.
+     * {@code progress} gets the bytes copied then verified, out of twice the file size.
+     */
+    <T> T put(Path source, String extension, DocumentIngestionService.ProgressListener progress,
+              Reference<T> reference) throws Exception {
+        Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            Copy copy = copy(source, tmp, progress);
+            String hash = hash(tmp, copy.size(), progress);
+            if (!hash.equals(copy.sha256())) {
+                throw new IOException("Checksum mismatch copying " + source + ": source " + copy.sha256() + ", copy " + hash);
+            }
+
+            synchronized (lockFor(hash)) {
+                Optional<Path> existing = find(hash);
+                Blob blob;
+                if (existing.isPresent()) {
+                    blob = new Blob(hash, existing.get(), false);
+                } else {
+                    Path target = shard(hash).resolve(hash + normalizeExtension(extension));
+                    Files.createDirectories(target.getParent());
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                    blob = new Blob(hash, target, true);
+                }
+                return reference.link(blob);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Deletes the blob of {@code sha256} when {@code references} (read under the hash lock)
+     * reports exactly zero rows using it; any other answer, including a failed count, keeps it.
+     * Returns whether the file was deleted.
+     */
+    boolean release(String sha256, LongSupplier references) {
+        if (sha256 == null) {
+            return false;
+        }
+        synchronized (lockFor(sha256)) {
+            if (references.getAsLong() != 0) {
+                return false;
+            }
+            try {
+                Optional<Path> blob = find(sha256);
+                if (blob.isPresent()) {
+                    Files.delete(blob.get());
+                    return true;
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not delete blob " + sha256 + ", it will be removed by the next sweep", e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the blobs no row references any more, e.g. left behind by a dossier deleted in
+     * cascade or a delete that failed, and temporary files older than an hour. {@code referenced}
+     * is a snapshot used to skip most blobs; {@code references} confirms each candidate under its
+     * hash lock. Returns the number of files deleted.
+     */
+    int sweep(Set<String> referenced, ToLongFunction<String> references) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        Path tmpDir = root.resolve("tmp");
+        Instant staleBefore = Instant.now().minus(Duration.ofHours(1));
+        int deleted = 0;
+        try (Stream<Path> walk = Files.walk(root)) {
+            List<Path> files = walk.filter(Files::isRegularFile).toList();
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (file.getParent().equals(tmpDir)) {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(staleBefore) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                    continue;
+                }
+                if (name.length() < HASH_LENGTH || !isHash(name.substring(0, HASH_LENGTH))) {
+                    continue;
+                }
+                String hash = name.substring(0, HASH_LENGTH);
+                if (!referenced.contains(hash) && release(hash, () -> references.applyAsLong(hash))) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Copies {@code source} to {@code tmp}, hashing the bytes as they are read, and forces the
+     * copy to disk; the size is checked against the source.
+     */
+    private static Copy copy(Path source, Path tmp, DocumentIngestionService.ProgressListener progress) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            long reported = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                buffer.flip();
+                // The digest consumes a view, so the buffer itself is left for the write
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+                position += n;
+                if (position - reported >= PROGRESS_STEP || position == size) {
+                    reported = position;
+                    progress.onProgress(position, 2 * size);
+                }
+            }
+            out.force(true);
+            if (position != size || out.size() != size || in.size() != size) {
+                throw new IOException("Size mismatch copying " + source + ": expected " + size
+                        + " bytes, read " + position + ", copied " + out.size() + ", source now " + in.size());
+            }
+            return new Copy(size, HEX.formatHex(digest.digest()));
+        }
+    }
+
+    private static String hash(Path file, long size, DocumentIngestionService.ProgressListener progress) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long read = 0;
+            long reported = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+                read += n;
+                if (read - reported >= PROGRESS_STEP || read == size) {
+                    reported = read;
+                    progress.onProgress(size + read, 2 * size);
+                }
+            }
+            if (read != size) {
+                throw new IOException("Size mismatch verifying " + file + ": expected " + size + " bytes, read " + read);
+            }
+        }
+        return HEX.formatHex(digest.digest());
+    }
+
+    private Optional<Path> find(String sha256) throws IOException {
+        Path dir = shard(sha256);
+        if (!Files.isDirectory(dir)) {
+            return Optional.empty();
+        }
+        try (DirectoryStream<Path> matches = Files.newDirectoryStream(dir, sha256 + "*")) {
+            for (Path match : matches) {
+                return Optional.of(match);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Path shard(String sha256) {
+        return root.resolve(sha256.substring(0, 2));
+    }
+
+    private static boolean isHash(String text) {
+        return text.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+
+    private static Object lockFor(String sha256) {
+        return LOCKS[Integer.parseInt(sha256.substring(0, 2), 16) % LOCKS.length];
+    }
+
+    private static String normalizeExtension(String extension) {
+        if (extension == null || extension.isEmpty()) {
+            return "";
+        }
+        String ext = extension.toLowerCase(Locale.ROOT);
+        // Only a short alphanumeric suffix: the name ends up in the store's file names
+        return ext.matches("\\.[a-z0-9]{1,8}") ? ext : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.cpi2.service;
+
+import org.cpi2.entities.Candidat;
+import org.cpi2.utils.ValidationUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Imports candidats from a CSV file, e.g. a group sent by a partner school.
+ * <p>
+ * The first line names the columns (nom, prenom, cin, adresse, telephone, email,
+ * date_naissance, in any order; email is optional); fields are separated by commas or
+ * semicolons and may be quoted. Each row is checked with the candidat form rules of
+ * {@link ValidationUtils}, then against the CINs of the file and of the database (one lookup for
+ * the whole file), and the valid rows are saved with their dossier in batches of
+ * {@code autoecole.import.batchSize}. A bad row is reported with its line number and skipped;
+ * it never stops the rest of the file.
+ */
+public class CandidatImportService {
+    private static final Logger LOGGER = Logger.getLogger(CandidatImportService.class.getName());
+
+    public static final int DEFAULT_BATCH_SIZE = Integer.getInteger("autoecole.import.batchSize", 200);
+
+    private static final String[] REQUIRED_COLUMNS = {"nom", "prenom", "cin", "adresse", "telephone", "date_naissance"};
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy")
+    };
+
+    private final CandidatService candidatService;
+
+    public CandidatImportService() {
+        this.candidatService = new CandidatService();
+    }
+
+    public CandidatImportService(CandidatService candidatService) {
+        this.candidatService = candidatService;
+    }
+
+    /** A row that was not imported; {@code line} is the file line the row starts on. */
+    public record RowError(int line, String cin, String message) {
+    }
+
+    public record ImportReport(int rows, int imported, List<RowError> errors) {
+    }
+
+    public ImportReport importCsv(Path file) throws IOException {
+        return importCsv(file, DEFAULT_BATCH_SIZE);
+    }
+
+    public ImportReport importCsv(Path file, int batchSize) throws IOException {
+        List<RowError> errors = new ArrayList<>();
+        List<Candidat> valid = new ArrayList<>();
+        List<Integer> validLines = new ArrayList<>();
+        Map<String, Integer> lineByCin = new HashMap<>();
+        int rows = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvReader csv = new CsvReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                return new ImportReport(0, 0, errors);
+            }
+            Map<String, Integer> columns = columnIndexes(header);
+
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                int line = csv.recordLine();
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                rows++;
+                Candidat candidat = toCandidat(fields, columns);
+                String cin = candidat.getCin();
+
+                List<String> problems = new ArrayList<>();
+                String rawDate = field(fields, columns, "date_naissance");
+                if (candidat.getDateNaissance() == null && !rawDate.isEmpty()) {
+                    problems.add("Date de naissance invalide: " + rawDate);
+                } else {
+                    problems.addAll(ValidationUtils.candidatErrors(candidat));
+                }
+                if (problems.isEmpty()) {
+                    Integer firstLine = lineByCin.putIfAbsent(cin, line);
+                    if (firstLine != null) {
+                        problems.add("CIN déjà présent à la ligne " + firstLine);
+                    }
+                }
+                if (!problems.isEmpty()) {
+                    errors.add(new RowError(line, cin, String.join("; ", problems)));
+                    continue;
+                }
+                valid.add(candidat);
+                validLines.add(line);
+            }
+        }
+
+        Set<String> existing = candidatService.findExistingCins(lineByCin.keySet());
+        List<Candidat> toSave = new ArrayList<>(valid.size());
+        List<Integer> toSaveLines = new ArrayList<>(valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            Candidat candidat = valid.get(i);
+            if (existing.contains(candidat.getCin())) {
+                errors.add(new RowError(validLines.get(i), candidat.getCin(), "Un candidat avec ce CIN existe déjà"));
+            } else {
+                toSave.add(candidat);
+                toSaveLines.add(validLines.get(i));
+            }
+        }
+
+        Map<Integer, String> failures = candidatService.addCandidats(toSave, batchSize);
+        for (Map.Entry<Integer, String> failure : failures.entrySet()) {
+            Candidat candidat = toSave.get(failure.getKey());
+            errors.add(new RowError(toSaveLines.get(failure.getKey()), candidat.getCin(),
+                    "Erreur d'enregistrement: " + failure.getValue()));
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.line(), b.line()));
+        int imported = toSave.size() - failures.size();
+        LOGGER.info("Imported " + imported + " of " + rows + " candidats from " + file.getFileName()
+                + ", " + errors.size() + " row(s) rejected");
+        return new ImportReport(rows, imported, errors);
+    }
+
+    private static Map<String, Integer> columnIndexes(List<String> header) throws IOException {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // A UTF-8 BOM left by spreadsheet exports sticks to the first name
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(name, i);
+        }
+        List<String> missing = new ArrayList<>();
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                missing.add(column);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IOException("Colonne(s) manquante(s) dans l'en-tête: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private static Candidat toCandidat(List<String> fields, Map<String, Integer> columns) {
+        Candidat candidat = new Candidat();
+        candidat.setNom(field(fields, columns, "nom"));
+        candidat.setPrenom(field(fields, columns, "prenom"));
+        candidat.setCin(field(fields, columns, "cin"));
+        candidat.setAdresse(optionalField(fields, columns, "adresse"));
+        candidat.setTelephone(field(fields, columns, "telephone"));
+        candidat.setEmail(optionalField(fields, columns, "email"));
+        candidat.setDateNaissance(parseDate(field(fields, columns, "date_naissance")));
+        return candidat;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? "" : fields.get(index).trim();
+    }
+
+    /** A field of a nullable column: blank is stored as NULL, so it does not collide on a unique key such as email. */
+    private static String optionalField(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = field(fields, columns, column);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate parseDate(String text) {
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(text, format);
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Minimal RFC 4180 reader: quoted fields may hold separators, doubled quotes and line
+     * breaks. The separator is taken from the header line (';' if it has more of them than ',').
+     */
+    static final class CsvReader {
+        private final BufferedReader reader;
+        private char separator;
+        private int line;
+        private int recordLine;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        int recordLine() {
+            return recordLine;
+        }
+
+        List<String> next() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            recordLine = line;
+            if (separator == 0) {
+                separator = text.chars().filter(c -> c == ';').count() > text.chars().filter(c -> c == ',').count()
+                        ? ';' : ',';
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // Line break inside a quoted field
+                    String more = reader.readLine();
+                    if (more == null) {
+                        break;
+                    }
+                    line++;
+                    field.append('\n');
+                    text = more;
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == separator) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
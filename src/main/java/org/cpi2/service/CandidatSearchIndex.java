@@ -0,0 +1,387 @@
+package org.cpi2.service;
+
+import org.cpi2.entities.Candidat;
+import org.cpi2.entities.CandidatSummary;
+import org.cpi2.repository.CandidatRepository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index over the candidats' nom, prenom, CIN, telephone and email.
+ * <p>
+ * Every field is lower-cased and stripped of accents, then indexed twice: by whole token in a
+ * sorted map (prefix lookups, used for terms shorter than three characters) and by trigram
+ * (substring lookups). A query is split into terms; a candidat matches when every term occurs in
+ * one of its fields. Results are ranked by how well the terms match (exact token, then token
+ * prefix, then substring; names weigh more than contact fields) and then by name.
+ * <p>
+ * The index only holds ids and normalized text; {@link CandidatService} resolves the page of
+ * ids it needs. It is filled from the candidat summaries and remembers the table version it
+ * reflects; {@link CandidatService} applies its own adds and updates directly and loads the
+ * changes of other desks when that version moves.
+ */
+final class CandidatSearchIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}@.]+");
+
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing((Entry e) -> e.sortKey).thenComparingLong(e -> e.id);
+
+    private static final Comparator<Scored> RANKING = Comparator.comparingInt((Scored s) -> -s.score)
+            .thenComparing(Scored::entry, BY_NAME);
+
+    private static final int EXACT = 100;
+    private static final int PREFIX = 40;
+    private static final int SUBSTRING = 10;
+    // nom, prenom, cin, telephone, email
+    private static final int[] FIELD_WEIGHTS = {3, 3, 3, 1, 1};
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final NavigableMap<String, Set<Entry>> tokens = new TreeMap<>();
+    private final Map<String, Set<Entry>> trigrams = new HashMap<>();
+    private volatile CandidatRepository.TableVersion version;
+    // Every entry by name, for empty queries; rebuilt after a change
+    private volatile List<Entry> byName;
+
+    /** A page of matching candidat ids, best match first. */
+    record Hits(List<Long> ids, int total) {
+    }
+
+    boolean isBuilt() {
+        return version != null;
+    }
+
+    /** Version of the candidat table the index was last brought up to; null before the first build. */
+    CandidatRepository.TableVersion version() {
+        return version;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void build(Collection<CandidatSummary> candidats, CandidatRepository.TableVersion tableVersion) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            tokens.clear();
+            trigrams.clear();
+            for (CandidatSummary candidat : candidats) {
+                add(entryOf(candidat));
+            }
+            byName = null;
+            version = tableVersion;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds or replaces the given candidats, read from the table at {@code tableVersion}. */
+    void putAll(Collection<CandidatSummary> candidats, CandidatRepository.TableVersion tableVersion) {
+        lock.writeLock().lock();
+        try {
+            for (CandidatSummary candidat : candidats) {
+                removeEntry(candidat.id());
+                add(entryOf(candidat));
+            }
+            byName = null;
+            version = tableVersion;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void put(Candidat candidat) {
+        if (candidat.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeEntry(candidat.getId());
+            add(new Entry(candidat.getId(), candidat.getNom(), candidat.getPrenom(), candidat.getCin(),
+                    candidat.getTelephone(), candidat.getEmail()));
+            byName = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            byName = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Hits search(String query, int offset, int limit) {
+        List<String> terms = split(normalize(query));
+        lock.readLock().lock();
+        try {
+            if (terms.isEmpty()) {
+                List<Entry> sorted = byName;
+                if (sorted == null) {
+                    sorted = new ArrayList<>(entries.values());
+                    sorted.sort(BY_NAME);
+                    byName = sorted;
+                }
+                return page(sorted, offset, limit);
+            }
+
+            // Keep only the best offset + limit matches in a heap whose head is the worst kept
+            int wanted = Math.max(0, offset) + limit;
+            PriorityQueue<Scored> best = new PriorityQueue<>(Math.max(1, Math.min(wanted, 1024)), RANKING.reversed());
+            int total = 0;
+            for (Entry entry : candidates(terms)) {
+                int score = score(entry, terms);
+                if (score == 0) {
+                    continue;
+                }
+                total++;
+                Scored scored = new Scored(entry, score);
+                if (best.size() < wanted) {
+                    best.add(scored);
+                } else if (wanted > 0 && RANKING.compare(scored, best.peek()) < 0) {
+                    best.poll();
+                    best.add(scored);
+                }
+            }
+
+            List<Scored> ranked = new ArrayList<>(best);
+            ranked.sort(RANKING);
+            List<Long> ids = new ArrayList<>(limit);
+            for (int i = Math.max(0, offset); i < ranked.size(); i++) {
+                ids.add(ranked.get(i).entry.id);
+            }
+            return new Hits(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Hits page(List<Entry> ranked, int offset, int limit) {
+        List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, ranked.size() - offset)));
+        for (int i = Math.max(0, offset); i < ranked.size() && ids.size() < limit; i++) {
+            ids.add(ranked.get(i).id);
+        }
+        return new Hits(ids, ranked.size());
+    }
+
+    /**
+     * Ids that may contain every term: the smallest posting list among the terms' trigrams, or
+     * the token-prefix matches when every term is shorter than a trigram. {@link #score} does
+     * the exact check, so the other lists need not be intersected.
+     */
+    private Collection<Entry> candidates(List<String> terms) {
+        Set<Entry> smallest = null;
+        for (String term : terms) {
+            if (term.length() < 3) {
+                continue;
+            }
+            for (String trigram : trigramsOf(term)) {
+                Set<Entry> posting = trigrams.get(trigram);
+                if (posting == null) {
+                    return Set.of();
+                }
+                if (smallest == null || posting.size() < smallest.size()) {
+                    smallest = posting;
+                }
+            }
+        }
+        if (smallest != null) {
+            return smallest;
+        }
+        Set<Entry> result = null;
+        for (String term : terms) {
+            Set<Entry> forTerm = byPrefix(term);
+            if (result == null) {
+                result = forTerm;
+            } else {
+                result.retainAll(forTerm);
+            }
+        }
+        return result == null ? Set.of() : result;
+    }
+
+    private Set<Entry> byPrefix(String prefix) {
+        Set<Entry> matches = new HashSet<>();
+        for (Set<Entry> tokenEntries : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            matches.addAll(tokenEntries);
+        }
+        return matches;
+    }
+
+    private static int score(Entry entry, List<String> terms) {
+        int total = 0;
+        for (String term : terms) {
+            // One scan of the packed text finds the fields holding the term; tokens are only
+            // looked at for those
+            int best = 0;
+            int from = 0;
+            int at;
+            while ((at = entry.text.indexOf(term, from)) >= 0) {
+                int f = entry.fieldAt(at);
+                best = Math.max(best, fieldScore(entry.fieldTokens.get(f), term) * FIELD_WEIGHTS[f]);
+                from = entry.fieldEnd(f);
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /** Score of a field already known to contain {@code term}. */
+    private static int fieldScore(List<String> fieldTokens, String term) {
+        int score = SUBSTRING;
+        for (String token : fieldTokens) {
+            if (token.equals(term)) {
+                return EXACT;
+            }
+            if (token.startsWith(term)) {
+                score = PREFIX;
+            }
+        }
+        return score;
+    }
+
+    private static Entry entryOf(CandidatSummary candidat) {
+        return new Entry(candidat.id(), candidat.nom(), candidat.prenom(), candidat.cin(),
+                candidat.telephone(), candidat.email());
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.id, entry);
+        for (int f = 0; f < entry.fields.length; f++) {
+            for (String token : entry.fieldTokens.get(f)) {
+                tokens.computeIfAbsent(token, k -> new HashSet<>()).add(entry);
+            }
+            for (String trigram : trigramsOf(entry.fields[f])) {
+                trigrams.computeIfAbsent(trigram, k -> new HashSet<>()).add(entry);
+            }
+        }
+    }
+
+    private void removeEntry(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (int f = 0; f < entry.fields.length; f++) {
+            for (String token : entry.fieldTokens.get(f)) {
+                unlink(tokens, token, entry);
+            }
+            for (String trigram : trigramsOf(entry.fields[f])) {
+                unlink(trigrams, trigram, entry);
+            }
+        }
+    }
+
+    private static void unlink(Map<String, Set<Entry>> index, String key, Entry entry) {
+        Set<Entry> posting = index.get(key);
+        if (posting != null) {
+            posting.remove(entry);
+            if (posting.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(text.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private static List<String> split(String text) {
+        List<String> parts = new ArrayList<>();
+        for (String part : SEPARATORS.split(text)) {
+            if (!part.isEmpty()) {
+                parts.add(part);
+            }
+        }
+        return parts;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim().toLowerCase(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    private static final class Entry {
+        private static final char FIELD_SEPARATOR = '\n';
+
+        private final long id;
+        private final String[] fields;
+        private final List<List<String>> fieldTokens;
+        // Fields joined by FIELD_SEPARATOR, scanned in one pass when scoring
+        private final String text;
+        private final int[] fieldEnds;
+        private final String sortKey;
+
+        private Entry(long id, String nom, String prenom, String cin, String telephone, String email) {
+            this.id = id;
+            this.fields = new String[]{
+                    normalize(nom),
+                    normalize(prenom),
+                    normalize(cin),
+                    normalize(telephone),
+                    normalize(email)
+            };
+            List<List<String>> split = new ArrayList<>(fields.length);
+            for (String field : fields) {
+                split.add(split(field));
+            }
+            this.fieldTokens = split;
+            this.text = String.join(String.valueOf(FIELD_SEPARATOR), fields);
+            this.fieldEnds = new int[fields.length];
+            int end = -1;
+            for (int f = 0; f < fields.length; f++) {
+                end += fields[f].length() + 1;
+                fieldEnds[f] = end;
+            }
+            this.sortKey = fields[0] + " " + fields[1];
+        }
+
+        private int fieldAt(int index) {
+            int f = 0;
+            while (index > fieldEnds[f]) {
+                f++;
+            }
+            return f;
+        }
+
+        private int fieldEnd(int field) {
+            return fieldEnds[field];
+        }
+    }
+
+    private record Scored(Entry entry, int score) {
+    }
+}
@@ -6,16 +6,32 @@ import org.cpi2.repository.CandidatRepository;
 import org.cpi2.repository.InscriptionRepository;
 import org.cpi2.utils.InvoiceGenerator;
 
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class CandidatService {
     private static final Logger LOGGER = Logger.getLogger(CandidatService.class.getName());
+    private static final CandidatSearchIndex SEARCH_INDEX = new CandidatSearchIndex();
+    private static final long SEARCH_INDEX_CHECK_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("autoecole.searchIndex.checkMs", 1000L));
+    // updated_at is stamped when the statement runs, not when it commits: catching up starts this
+    // much before the last change seen, so a row committed late is not skipped
+    private static final long LATE_COMMIT_MARGIN_MILLIS = 5000;
+    private static long searchIndexCheckedAt;
+
     private final CandidatRepository candidatRepository;
     private final InscriptionRepository inscriptionRepository;
     private final InscriptionService inscriptionService;
@@ -46,6 +62,67 @@ public class CandidatService {
         return candidatRepository.findAll();
     }
 
+    public List<CandidatSummary> getCandidatSummaries() {
+        return candidatRepository.findAllSummaries();
+    }
+
+    /** One page of a result list, with the total number of matches. */
+    public record SearchPage(List<Candidat> candidats, int total, int page, int pageSize) {
+        public int pageCount() {
+            return Math.max(1, (total + pageSize - 1) / pageSize);
+        }
+    }
+
+    /**
+     * Searches nom, prenom, CIN, telephone and email; every word of {@code query} must match.
+     * Best matches come first; an empty query lists every candidat by name.
+     */
+    public SearchPage searchCandidats(String query, int page, int pageSize) {
+        refreshSearchIndexIfStale();
+        CandidatSearchIndex.Hits hits = SEARCH_INDEX.search(query, page * pageSize, pageSize);
+        Map<Long, Candidat> byId = candidatRepository.findByIds(hits.ids());
+        List<Candidat> candidats = new ArrayList<>(hits.ids().size());
+        for (Long id : hits.ids()) {
+            Candidat candidat = byId.get(id);
+            if (candidat != null) {
+                candidats.add(candidat);
+            }
+        }
+        return new SearchPage(candidats, hits.total(), page, pageSize);
+    }
+
+    /**
+     * Brings the search index in line with the candidat table, which other desks write to too.
+     * The table version is read at most once per {@code autoecole.searchIndex.checkMs}; when it
+     * moved, the rows changed since are loaded, and a row count that still differs (a candidat
+     * was deleted) rebuilds the index. A failed check keeps the index as it is.
+     */
+    private void refreshSearchIndexIfStale() {
+        synchronized (SEARCH_INDEX) {
+            long now = System.nanoTime();
+            if (SEARCH_INDEX.isBuilt() && now - searchIndexCheckedAt < SEARCH_INDEX_CHECK_NANOS) {
+                return;
+            }
+            try {
+                // Read first: a change landing meanwhile is at worst loaded twice
+                CandidatRepository.TableVersion current = candidatRepository.currentVersion();
+                CandidatRepository.TableVersion indexed = SEARCH_INDEX.version();
+                if (indexed == null || indexed.lastUpdate() == null) {
+                    SEARCH_INDEX.build(candidatRepository.findSummariesUpdatedSince(null), current);
+                } else if (!current.equals(indexed)) {
+                    Timestamp since = new Timestamp(indexed.lastUpdate().getTime() - LATE_COMMIT_MARGIN_MILLIS);
+                    SEARCH_INDEX.putAll(candidatRepository.findSummariesUpdatedSince(since), current);
+                    if (SEARCH_INDEX.size() != current.count()) {
+                        SEARCH_INDEX.build(candidatRepository.findSummariesUpdatedSince(null), current);
+                    }
+                }
+                searchIndexCheckedAt = now;
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error checking the candidat search index against the table", e);
+            }
+        }
+    }
+
     public Optional<Candidat> getCandidatById(Long id) {
         return candidatRepository.findById(id);
     }
@@ -54,17 +131,11 @@ public class CandidatService {
     }
 
     public long CinToId(String cin) {
-        if(candidatRepository.findByCin(cin).isPresent()){
-            return candidatRepository.findByCin(cin).get().getId();
-        }
-        return -1;
+        return candidatRepository.findByCin(cin).map(Candidat::getId).orElse(-1L);
     }
 
     public String IdToCin(Long id) {
-        if(candidatRepository.findById(id).isPresent()){
-            return candidatRepository.findById(id).get().getCin();
-        }
-        return "";
+        return candidatRepository.findById(id).map(Candidat::getCin).orElse("");
     }
 
     public boolean addCandidat(Candidat candidat) {
@@ -72,18 +143,44 @@ public class CandidatService {
             LOGGER.info("Candidat already exists");
             return false;
         }
-        return candidatRepository.save(candidat) && dossierService.creerDossier(new Dossier(), candidat.getId());
+        if (!candidatRepository.save(candidat)) {
+            return false;
+        }
+        SEARCH_INDEX.put(candidat);
+        return dossierService.creerDossier(new Dossier(), candidat.getId());
+    }
+
+    /** The CINs among {@code cins} already taken by a candidat. */
+    public Set<String> findExistingCins(Collection<String> cins) {
+        return candidatRepository.findExistingCins(cins);
+    }
+
+    /**
+     * Saves new candidats, each with its dossier, in batches of {@code batchSize}. Returns the
+     * index of every candidat that could not be saved with the reason; the others get their id.
+     */
+    public Map<Integer, String> addCandidats(List<Candidat> candidats, int batchSize) {
+        Map<Integer, String> failures = candidatRepository.saveAllWithDossiers(candidats, batchSize);
+        for (int i = 0; i < candidats.size(); i++) {
+            if (!failures.containsKey(i)) {
+                SEARCH_INDEX.put(candidats.get(i));
+            }
+        }
+        return failures;
     }
 
     public boolean updateCandidat(Candidat candidat) {
-        return candidatRepository.update(candidat);
+        if (candidatRepository.update(candidat)) {
+            SEARCH_INDEX.put(candidat);
+            return true;
+        }
+        return false;
     }
 
 
     public List<String> findCandidatsByTypePermis(String typePermis) {
-        return dossierService.getAllDossiers().stream()
-                .filter(dossier -> dossier.getDocuments().containsKey(TypeDocument.valueOf("PERMIS_"+typePermis)))
-                .map(dossier ->IdToCin(dossier.getCandidatId())).toList();
+        return Arrays.stream(dossierService.getCandidatsWith(TypeDocument.valueOf("PERMIS_" + typePermis)))
+                .mapToObj(this::IdToCin).toList();
     }
 
 
@@ -91,22 +188,10 @@ public class CandidatService {
         return candidatRepository.findByCin(cin);
     }
     public List<Candidat> findByActifInscription(){
-        List<Candidat> candidats = new ArrayList<>();
-        for(Candidat candidat : candidatRepository.findAll()){
-            if(inscriptionService.haveActifInscription(candidat.getCin())){
-                candidats.add(candidat);
-            }
-        }
-        return candidats;
+        return candidatRepository.findWithActiveInscription();
     }
     public List<Candidat> findByActifAndUnpayedInscription(){
-        List<Candidat> candidats = new ArrayList<>();
-        for(Candidat candidat : candidatRepository.findAll()){
-            if(inscriptionService.haveActifandUnpayedInscription(candidat.getCin())){
-                candidats.add(candidat);
-            }
-        }
-        return candidats;
+        return candidatRepository.findWithActiveUnpaidInscription();
     }
 
     public void generateInvoice(String cin, String typeFacture, LocalDate dateDebut,
@@ -142,13 +227,7 @@ public class CandidatService {
         }
     }
     public List<Candidat> getAllWithActifInscription() {
-        List<Candidat> candidats = new ArrayList<>();
-        for (Candidat candidat : candidatRepository.findAll()) {
-            if (inscriptionService.haveActifInscription(candidat.getCin())) {
-                candidats.add(candidat);
-            }
-        }
-        return candidats;
+        return candidatRepository.findWithActiveInscription();
     }
 
 }
\ No newline at end of file
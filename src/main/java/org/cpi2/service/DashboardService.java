@@ -2,6 +2,7 @@ package org.cpi2.service;
 
 import org.cpi2.entities.AutoEcole;
 import org.cpi2.entities.Candidat;
+import org.cpi2.entities.DashboardSnapshot;
 import org.cpi2.entities.Seance;
 import org.cpi2.repository.DashboardRepository;
 
@@ -14,6 +15,7 @@ import java.util.Map;
 public class DashboardService {
 
     private final DashboardRepository repository;
+    private final DossierService dossierService = new DossierService();
 
     public DashboardService(DashboardRepository repository) {
         this.repository = repository;
@@ -22,6 +24,10 @@ public class DashboardService {
         this.repository = new DashboardRepository();
     }
 
+    public DashboardSnapshot getSnapshot() {
+        return repository.getSnapshot();
+    }
+
     public int getCandidatesCount() {
         return repository.getCandidatesCount();
     }
@@ -56,6 +62,10 @@ public class DashboardService {
     }
 
     public List<String> getSystemNotifications() {
+        return getSystemNotifications(repository.getSnapshot());
+    }
+
+    public List<String> getSystemNotifications(DashboardSnapshot snapshot) {
         List<String> notifications = new ArrayList<>();
 
         List<Seance> todaySessions = repository.getTodaySessions();
@@ -72,12 +82,13 @@ public class DashboardService {
             notifications.add("🔧 Des véhicules nécessitent un entretien");
         }
 
-        int incompleteCandidates = repository.getIncompleteCandidatesCount();
+        // Candidats without a dossier count as incomplete
+        int incompleteCandidates = Math.max(0, snapshot.getCandidatesCount() - dossierService.countCompleteDossiers());
         if (incompleteCandidates > 0) {
             notifications.add("📄 " + incompleteCandidates + " candidat(s) avec documents incomplets");
         }
 
-        int candidatesCount = getCandidatesCount();
+        int candidatesCount = snapshot.getCandidatesCount();
         if (candidatesCount > 0) {
             int upcomingExams = Math.min(3, candidatesCount / 3);
             if (upcomingExams > 0) {
@@ -93,8 +104,12 @@ public class DashboardService {
     }
 
     public double getIncomeChangePercent() {
-        double currentIncome = repository.getMonthlyIncome();
-        double lastMonthIncome = repository.getPreviousMonthIncome();
+        return getIncomeChangePercent(repository.getSnapshot());
+    }
+
+    public double getIncomeChangePercent(DashboardSnapshot snapshot) {
+        double currentIncome = snapshot.getMonthlyIncome();
+        double lastMonthIncome = snapshot.getPreviousMonthIncome();
         if (lastMonthIncome > 0) {
             return ((currentIncome - lastMonthIncome) / lastMonthIncome) * 100;
         }
@@ -102,9 +117,13 @@ public class DashboardService {
     }
 
     public double getExamSuccessRate() {
-        double successRate = repository.getExamSuccessRate();
+        return getExamSuccessRate(repository.getSnapshot());
+    }
+
+    public double getExamSuccessRate(DashboardSnapshot snapshot) {
+        double successRate = snapshot.getExamSuccessRate();
         if (Double.isNaN(successRate)) {
-            int successCount = repository.getSuccessfulExamsCount();
+            int successCount = snapshot.getSuccessfulExamsCount();
             if (successCount > 0) {
                 return 70;
             }
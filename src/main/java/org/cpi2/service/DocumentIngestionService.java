@@ -0,0 +1,60 @@
+package org.cpi2.service;
+
+import org.cpi2.entities.Document;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Uploads documents off the FX thread.
+ * <p>
+ * Each upload goes through {@link DocumentService#uploadDocument(Document, Long, File, ProgressListener)}:
+ * the file is copied into the blob store's temporary area, checked, renamed into place, and only
+ * then is the {@code document} row saved. Uploads run on a pool of
+ * {@code autoecole.documents.ingestThreads} threads, so several files of one dossier are copied at
+ * the same time; the returned futures complete off the FX thread.
+ */
+public class DocumentIngestionService {
+    private static final Logger LOGGER = Logger.getLogger(DocumentIngestionService.class.getName());
+
+    private static final int THREADS = Integer.getInteger("autoecole.documents.ingestThreads", 3);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "document-ingest-" + THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Bytes of one upload processed so far; {@code total} counts the copy and the verification. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long done, long total);
+    }
+
+    private final DocumentService documentService;
+
+    public DocumentIngestionService() {
+        this.documentService = new DocumentService();
+    }
+
+    public DocumentIngestionService(DocumentService documentService) {
+        this.documentService = documentService;
+    }
+
+    /** Starts uploading {@code file} as {@code document} of the dossier; completes with whether the document was saved. */
+    public CompletableFuture<Boolean> submit(Long dossierId, Document document, File file, ProgressListener progress) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return documentService.uploadDocument(document, dossierId, file, progress);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error ingesting " + file + " into dossier " + dossierId, e);
+                return false;
+            }
+        }, EXECUTOR);
+    }
+}
@@ -3,33 +3,39 @@ package org.cpi2.service;
 import org.cpi2.Exceptions.DataNotFound;
 import org.cpi2.entities.Document;
 import org.cpi2.repository.DocumentRepository;
+import org.cpi2.repository.DossierRepository;
 import org.cpi2.repository.TypeDocumentRepository;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 public class DocumentService {
+    // Shared by every instance: kept current by the writes below, read by DossierService and the dashboard
+    static final DossierCompletenessIndex COMPLETENESS = new DossierCompletenessIndex(new DossierRepository());
+
     private final DocumentRepository documentRepository;
     private final TypeDocumentRepository typeDocumentRepository;
-    private final String uploadDirectory = "uploads/documents/";  
+    private final BlobStore blobStore = new BlobStore(BlobStore.DEFAULT_ROOT);
+    // Root of the former per-dossier layout, emptied by migrateToBlobStore
+    private final String uploadDirectory = "uploads/documents/";
     private static final Logger LOGGER = Logger.getLogger(DocumentService.class.getName());
 
     public DocumentService() {
         this.documentRepository = new DocumentRepository();
         this.typeDocumentRepository = new TypeDocumentRepository();
-
-        
-        createDirectoryIfNotExists(uploadDirectory);
     }
 
     public Optional<Document> getDocumentById(Long id) {
@@ -52,72 +58,59 @@ public class DocumentService {
         return documentRepository.findDocumentInDossier(dossierId, typeDocument);
     }
 
+    /**
+     * Stores the file in the blob store and saves the document pointing at it. Content already
+     * stored, for this or another dossier, is not copied again.
+     */
     public boolean uploadDocument(Document document, Long dossierId, File fichierSource) throws DataNotFound {
-        try {
-            
-            String uniqueFileName = generateUniqueFileName(document.getNomFichier());
-            String subDirectory = String.valueOf(dossierId);
-
-            
-            String dossierDirectory = uploadDirectory + subDirectory + "/";
-            createDirectoryIfNotExists(dossierDirectory);
-
-            
-            String filePath = dossierDirectory + uniqueFileName;
-
-            
-            Path destination = Paths.get(filePath);
-            Files.copy(fichierSource.toPath(), destination, StandardCopyOption.REPLACE_EXISTING);
-
-            
-            document.setCheminFichier(filePath);
-            document.setDateUpload(LocalDateTime.now());
+        return uploadDocument(document, dossierId, fichierSource, (done, total) -> { });
+    }
 
-            
-            return documentRepository.save(document, dossierId);
+    /** Same as {@link #uploadDocument(Document, Long, File)}, reporting the bytes copied and verified. */
+    public boolean uploadDocument(Document document, Long dossierId, File fichierSource,
+                                  DocumentIngestionService.ProgressListener progress) throws DataNotFound {
+        try {
+            boolean saved = blobStore.put(fichierSource.toPath(), extensionOf(fichierSource.getName(), document.getNomFichier()), progress, blob -> {
+                document.setSha256(blob.sha256());
+                document.setCheminFichier(blob.path().toString());
+                document.setDateUpload(LocalDateTime.now());
+                return linkOrDrop(blob, () -> documentRepository.save(document, dossierId));
+            });
+            if (saved) {
+                COMPLETENESS.added(dossierId, document.getTypeDocument());
+            }
+            return saved;
+        } catch (DataNotFound e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error uploading document", e);
             return false;
         }
     }
 
-    
-
     public boolean updateDocument(Document document, Long dossierId, File nouveauFichier) throws DataNotFound {
         try {
-            
             Optional<Document> existingDocumentOpt = documentRepository.findById(document.getId());
-            if (existingDocumentOpt.isPresent()) {
-                Document existingDocument = existingDocumentOpt.get();
-
-                
-                File oldFile = new File(existingDocument.getCheminFichier());
-                if (oldFile.exists()) {
-                    try {
-                        oldFile.delete();
-                    } catch (Exception e) {
-                        LOGGER.log(Level.SEVERE, "Failed to delete file: " + oldFile.getPath(), e);
-                    }
-                }
-
-                
-                String uniqueFileName = generateUniqueFileName(document.getNomFichier());
-                String subDirectory = String.valueOf(dossierId);
-                String dossierDirectory = uploadDirectory + subDirectory + "/";
-
-                
-                String filePath = dossierDirectory + uniqueFileName;
-                Path destination = Paths.get(filePath);
-                Files.copy(nouveauFichier.toPath(), destination, StandardCopyOption.REPLACE_EXISTING);
+            if (existingDocumentOpt.isEmpty()) {
+                return false;
+            }
+            Document existingDocument = existingDocumentOpt.get();
 
-                
-                document.setCheminFichier(filePath);
+            boolean updated = blobStore.put(nouveauFichier.toPath(), extensionOf(nouveauFichier.getName(), document.getNomFichier()), blob -> {
+                document.setSha256(blob.sha256());
+                document.setCheminFichier(blob.path().toString());
                 document.setDateUpload(LocalDateTime.now());
-
-                
-                return documentRepository.update(document, dossierId);
+                return linkOrDrop(blob, () -> documentRepository.update(document, dossierId));
+            });
+            if (updated && !Objects.equals(existingDocument.getCheminFichier(), document.getCheminFichier())) {
+                releaseFile(existingDocument);
             }
-            return false;
+            if (updated && existingDocument.getTypeDocument() != document.getTypeDocument()) {
+                COMPLETENESS.reload(dossierId);
+            }
+            return updated;
+        } catch (DataNotFound e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error updating document", e);
             return false;
@@ -126,23 +119,12 @@ public class DocumentService {
 
     public boolean deleteDocument(Long documentId) {
         try {
-            
             Optional<Document> documentOpt = documentRepository.findById(documentId);
-            if (documentOpt.isPresent()) {
-                Document document = documentOpt.get();
-
-                
-                File file = new File(document.getCheminFichier());
-                if (file.exists()) {
-                    try {
-                        file.delete();
-                    } catch (Exception e) {
-                        LOGGER.log(Level.SEVERE, "Failed to delete file: " + file.getPath(), e);
-                    }
-                }
-
-                
-                return documentRepository.delete(documentId);
+            Optional<Long> dossierId = documentRepository.findDossierId(documentId);
+            if (documentOpt.isPresent() && documentRepository.delete(documentId)) {
+                releaseFile(documentOpt.get());
+                dossierId.ifPresent(COMPLETENESS::reload);
+                return true;
             }
             return false;
         } catch (Exception e) {
@@ -151,32 +133,112 @@ public class DocumentService {
         }
     }
 
-    public List<String> getAvailableDocumentTypes() {
-        return typeDocumentRepository.findAll();
+    /** Releases the files of documents whose rows are already deleted, e.g. with their dossier. */
+    public void releaseFiles(Collection<Document> documents) {
+        for (Document document : documents) {
+            releaseFile(document);
+        }
+    }
+
+    /**
+     * Moves the files of the former {@code uploads/documents/<dossier>/<uuid>} layout into the
+     * blob store, then deletes the blobs no document references. Documents whose file is
+     * missing are logged and left as they are. Safe to run again; returns the number of
+     * documents moved.
+     */
+    public int migrateToBlobStore() throws SQLException, IOException {
+        int migrated = 0;
+        for (Document document : documentRepository.findAll()) {
+            if (document.getSha256() != null || document.getCheminFichier() == null) {
+                continue;
+            }
+            Path legacy = Paths.get(document.getCheminFichier());
+            if (!Files.isRegularFile(legacy)) {
+                LOGGER.warning("Document " + document.getId() + ": file not found, left as is: " + legacy);
+                continue;
+            }
+            try {
+                boolean moved = blobStore.put(legacy, extensionOf(legacy.getFileName().toString(), document.getNomFichier()),
+                        blob -> linkOrDrop(blob, () -> documentRepository.updateBlob(document.getId(), blob.sha256(), blob.path().toString())));
+                if (moved) {
+                    migrated++;
+                    deleteLegacyFile(legacy);
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error moving document " + document.getId() + " to the blob store", e);
+            }
+        }
+
+        int swept = blobStore.sweep(documentRepository.findAllSha256(), documentRepository::countBySha256);
+        removeEmptyDirectories(Paths.get(uploadDirectory));
+        LOGGER.info("Moved " + migrated + " document(s) to the blob store, deleted " + swept + " unreferenced blob file(s)");
+        return migrated;
     }
 
-    private String generateUniqueFileName(String originalFileName) {
-        
-        String extension = "";
-        int i = originalFileName.lastIndexOf('.');
-        if (i > 0) {
-            extension = originalFileName.substring(i);
+    /** Saves the referencing row; a blob this upload just created is deleted again if that fails. */
+    private static boolean linkOrDrop(BlobStore.Blob blob, RowWrite write) throws Exception {
+        boolean linked = false;
+        try {
+            linked = write.run();
+            return linked;
+        } finally {
+            if (!linked && blob.created()) {
+                Files.deleteIfExists(blob.path());
+            }
         }
+    }
 
-        
-        String uuid = UUID.randomUUID().toString();
+    @FunctionalInterface
+    private interface RowWrite {
+        boolean run() throws Exception;
+    }
 
-        return uuid + extension;
+    private void releaseFile(Document document) {
+        String sha256 = document.getSha256();
+        if (sha256 != null) {
+            blobStore.release(sha256, () -> documentRepository.countBySha256(sha256));
+        } else if (document.getCheminFichier() != null) {
+            deleteLegacyFile(Paths.get(document.getCheminFichier()));
+        }
     }
 
-    private void createDirectoryIfNotExists(String directoryPath) {
-        File directory = new File(directoryPath);
-        if (!directory.exists()) {
-            try {
-                directory.mkdirs();
-            } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "Failed to create directory: " + directoryPath, e);
+    private void deleteLegacyFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete file: " + file, e);
+        }
+    }
+
+    private void removeEmptyDirectories(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path dir : walk.filter(Files::isDirectory).sorted(Comparator.reverseOrder()).toList()) {
+                if (!dir.equals(root)) {
+                    try (Stream<Path> entries = Files.list(dir)) {
+                        if (entries.findAny().isEmpty()) {
+                            Files.delete(dir);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public List<String> getAvailableDocumentTypes() {
+        return typeDocumentRepository.findAll();
+    }
+
+    /** Extension of the picked file, or of the document name when the file has none. */
+    private static String extensionOf(String fileName, String nomFichier) {
+        for (String name : new String[]{fileName, nomFichier}) {
+            int i = name == null ? -1 : name.lastIndexOf('.');
+            if (i > 0) {
+                return name.substring(i);
             }
         }
+        return "";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,359 @@
+package org.cpi2.service;
+
+import org.cpi2.entities.TypeDocument;
+import org.cpi2.repository.DossierRepository;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index of the document types each dossier holds, one bit per {@link TypeDocument}.
+ * <p>
+ * Dossier ids, candidat ids and masks sit in parallel primitive arrays, so "how many complete
+ * dossiers" and "which candidats lack X" are a scan over an {@code int[]}, without loading a
+ * single document. A dossier is complete when its mask covers {@link #REQUIRED}, the types
+ * listed in {@code autoecole.documents.required}.
+ * <p>
+ * It is filled on first read with one query and kept current by {@link DocumentService} on
+ * upload, update and delete, and by {@link DossierService} when a dossier is deleted. Other
+ * desks change documents too, so a read more than {@code autoecole.documents.completenessTtlSeconds}
+ * after the last load loads everything again.
+ * <p>
+ * The full load runs outside the index lock, so reads and updates of a built index go on
+ * meanwhile; the new arrays are swapped in only if no change was recorded during the query.
+ * After a failed load, reads answer from what is there for
+ * {@code autoecole.documents.completenessRetrySeconds} before the next attempt.
+ */
+final class DossierCompletenessIndex {
+    private static final Logger LOGGER = Logger.getLogger(DossierCompletenessIndex.class.getName());
+
+    static final Set<TypeDocument> REQUIRED = parseTypes(
+            System.getProperty("autoecole.documents.required", "CIN,CERTIFICAT_MEDICAL,PHOTO"));
+    private static final int REQUIRED_MASK = maskOf(REQUIRED);
+    private static final long TTL_NANOS =
+            TimeUnit.SECONDS.toNanos(Long.getLong("autoecole.documents.completenessTtlSeconds", 60L));
+    private static final long RETRY_NANOS =
+            TimeUnit.SECONDS.toNanos(Long.getLong("autoecole.documents.completenessRetrySeconds", 10L));
+
+    static {
+        if (TypeDocument.values().length > Integer.SIZE) {
+            throw new IllegalStateException("Too many document types for an int mask");
+        }
+    }
+
+    private final DossierRepository dossierRepository;
+    private final long retryNanos;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // One full load at a time; only readers of an index not built yet wait for it
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private Map<Long, Integer> slotByDossier = new HashMap<>();
+    private long[] dossierIds = new long[64];
+    private long[] candidatIds = new long[64];
+    private int[] masks = new int[64];
+    private int size;
+    // Bumped by every change, so a full load can tell whether one landed during its query
+    private long changes;
+    private volatile boolean built;
+    private volatile long loadedAt;
+    private volatile boolean failed;
+    private volatile long failedAt;
+
+    DossierCompletenessIndex(DossierRepository dossierRepository) {
+        this(dossierRepository, RETRY_NANOS);
+    }
+
+    DossierCompletenessIndex(DossierRepository dossierRepository, long retryNanos) {
+        this.dossierRepository = dossierRepository;
+        this.retryNanos = retryNanos;
+    }
+
+    /** Required types the candidat's dossier lacks; all of them when the candidat has no dossier. */
+    EnumSet<TypeDocument> missing(long candidatId) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            int mask = 0;
+            for (int i = 0; i < size; i++) {
+                if (candidatIds[i] == candidatId) {
+                    mask = masks[i];
+                    break;
+                }
+            }
+            return typesOf(REQUIRED_MASK & ~mask);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Candidats whose dossier has at least one document of {@code type}. */
+    long[] candidatsWith(TypeDocument type) {
+        ensureFresh();
+        int bit = bit(type);
+        lock.readLock().lock();
+        try {
+            long[] result = new long[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if ((masks[i] & bit) != 0) {
+                    result[n++] = candidatIds[i];
+                }
+            }
+            return Arrays.copyOf(result, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int completeCount() {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if ((masks[i] & REQUIRED_MASK) == REQUIRED_MASK) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int dossierCount() {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Records a document of {@code type} added to the dossier. */
+    void added(long dossierId, TypeDocument type) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (!built) {
+                return;
+            }
+            Integer slot = slotByDossier.get(dossierId);
+            if (slot != null) {
+                masks[slot] |= bit(type);
+            } else {
+                reloadLocked(dossierId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the dossier's types again, after a document was deleted or changed type: a mask
+     * alone cannot tell whether another document of the same type remains.
+     */
+    void reload(long dossierId) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (!built) {
+                return;
+            }
+            reloadLocked(dossierId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeDossier(long dossierId) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (!built) {
+                return;
+            }
+            removeLocked(dossierId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isFresh() {
+        return built && System.nanoTime() - loadedAt < TTL_NANOS;
+    }
+
+    private boolean isBackingOff() {
+        return failed && System.nanoTime() - failedAt < retryNanos;
+    }
+
+    private void ensureFresh() {
+        if (isFresh() || isBackingOff()) {
+            return;
+        }
+        if (built) {
+            // A stale index is still worth answering from while another thread reloads it
+            if (!loadLock.tryLock()) {
+                return;
+            }
+        } else {
+            loadLock.lock();
+        }
+        try {
+            if (isFresh() || isBackingOff()) {
+                return;
+            }
+            long changesBefore;
+            lock.readLock().lock();
+            try {
+                changesBefore = changes;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            List<DossierRepository.DocumentTypes> dossiers;
+            try {
+                dossiers = dossierRepository.findAllDocumentTypes();
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error loading dossier completeness", e);
+                failedAt = System.nanoTime();
+                failed = true;
+                return;
+            }
+            int capacity = Math.max(64, dossiers.size());
+            Map<Long, Integer> loadedSlots = new HashMap<>(capacity * 2);
+            long[] loadedDossierIds = new long[capacity];
+            long[] loadedCandidatIds = new long[capacity];
+            int[] loadedMasks = new int[capacity];
+            int loadedSize = 0;
+            for (DossierRepository.DocumentTypes dossier : dossiers) {
+                if (loadedSlots.putIfAbsent(dossier.dossierId(), loadedSize) == null) {
+                    loadedDossierIds[loadedSize] = dossier.dossierId();
+                    loadedCandidatIds[loadedSize] = dossier.candidatId();
+                    loadedMasks[loadedSize] = maskOf(dossier.types());
+                    loadedSize++;
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (changes != changesBefore) {
+                    // The rows may predate that change: keep the current index and load again on the next read
+                    return;
+                }
+                slotByDossier = loadedSlots;
+                dossierIds = loadedDossierIds;
+                candidatIds = loadedCandidatIds;
+                masks = loadedMasks;
+                size = loadedSize;
+                loadedAt = System.nanoTime();
+                failed = false;
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void reloadLocked(long dossierId) {
+        try {
+            dossierRepository.findDocumentTypes(dossierId).ifPresentOrElse(
+                    dossier -> put(dossier.dossierId(), dossier.candidatId(), maskOf(dossier.types())),
+                    () -> removeLocked(dossierId));
+        } catch (SQLException e) {
+            // Better no index than a wrong one: the next read loads everything again
+            LOGGER.log(Level.SEVERE, "Error reloading completeness of dossier " + dossierId, e);
+            clear();
+            built = false;
+        }
+    }
+
+    private void put(long dossierId, long candidatId, int mask) {
+        Integer slot = slotByDossier.get(dossierId);
+        if (slot == null) {
+            if (size == masks.length) {
+                int capacity = size * 2;
+                dossierIds = Arrays.copyOf(dossierIds, capacity);
+                candidatIds = Arrays.copyOf(candidatIds, capacity);
+                masks = Arrays.copyOf(masks, capacity);
+            }
+            slot = size++;
+            slotByDossier.put(dossierId, slot);
+        }
+        dossierIds[slot] = dossierId;
+        candidatIds[slot] = candidatId;
+        masks[slot] = mask;
+    }
+
+    private void removeLocked(long dossierId) {
+        Integer slot = slotByDossier.remove(dossierId);
+        if (slot == null) {
+            return;
+        }
+        // Move the last dossier into the freed slot
+        int last = --size;
+        if (slot != last) {
+            dossierIds[slot] = dossierIds[last];
+            candidatIds[slot] = candidatIds[last];
+            masks[slot] = masks[last];
+            slotByDossier.put(dossierIds[slot], slot);
+        }
+    }
+
+    private void clear() {
+        slotByDossier.clear();
+        size = 0;
+    }
+
+    private static int bit(TypeDocument type) {
+        return 1 << type.ordinal();
+    }
+
+    private static int maskOf(Collection<TypeDocument> types) {
+        int mask = 0;
+        for (TypeDocument type : types) {
+            mask |= bit(type);
+        }
+        return mask;
+    }
+
+    private static EnumSet<TypeDocument> typesOf(int mask) {
+        EnumSet<TypeDocument> types = EnumSet.noneOf(TypeDocument.class);
+        for (TypeDocument type : TypeDocument.values()) {
+            if ((mask & bit(type)) != 0) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    private static Set<TypeDocument> parseTypes(String names) {
+        EnumSet<TypeDocument> types = EnumSet.noneOf(TypeDocument.class);
+        for (String name : names.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            try {
+                types.add(TypeDocument.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Unknown document type in autoecole.documents.required: " + name);
+            }
+        }
+        return Collections.unmodifiableSet(types);
+    }
+}
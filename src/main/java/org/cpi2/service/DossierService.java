@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeSet;
 
 public class DossierService {
@@ -48,7 +49,7 @@ public class DossierService {
 
     public Optional<Dossier> getDossierByCandidat(String candidatCin) {
         long candidatId = candidatService.CinToId(candidatCin);
-        if (candidatId!=-1 && candidatService.getCandidatById(candidatId).isPresent()) {
+        if (candidatId != -1) {
             Dossier dossier = dossierRepository.findByCandidatId(candidatId).orElse(null);
             if (dossier != null) {
                 return Optional.of(dossier);
@@ -72,8 +73,32 @@ public class DossierService {
         return dossier.getDocuments().containsKey(type);
     }
 
+    /** Required document types the candidat has not provided yet. */
+    public Set<TypeDocument> getMissingDocuments(long candidatId) {
+        return DocumentService.COMPLETENESS.missing(candidatId);
+    }
+
+    /** Ids of the candidats whose dossier holds at least one document of {@code type}. */
+    public long[] getCandidatsWith(TypeDocument type) {
+        return DocumentService.COMPLETENESS.candidatsWith(type);
+    }
+
+    public int countCompleteDossiers() {
+        return DocumentService.COMPLETENESS.completeCount();
+    }
+
+    public int countDossiers() {
+        return DocumentService.COMPLETENESS.dossierCount();
+    }
+
     public boolean supprimerDossier(Long dossierId) {
-        return dossierRepository.delete(dossierId);
+        List<Document> documents = documentService.getDocumentsByDossierId(dossierId);
+        boolean deleted = dossierRepository.delete(dossierId);
+        if (deleted) {
+            documentService.releaseFiles(documents);
+            DocumentService.COMPLETENESS.removeDossier(dossierId);
+        }
+        return deleted;
     }
 
     public boolean ajouterDocument(Long dossierId, Document document, File fichierSource) {
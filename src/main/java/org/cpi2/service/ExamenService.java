@@ -6,6 +6,7 @@ import org.cpi2.entities.Inscription;
 import org.cpi2.entities.TypeExamen;
 import org.cpi2.repository.CandidatRepository;
 import org.cpi2.repository.ExamenRepository;
+import org.cpi2.repository.Page;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -213,6 +214,10 @@ public class ExamenService {
                 .findFirst()
                 .orElse(null);
     }
+    public Page<Examen> getPendingExamensPage(LocalDate onDate, Page.Cursor after, int limit) {
+        return examenRepository.findPendingPage(onDate, after, limit);
+    }
+
     public List<Examen> getAllPendingExamens() {
         return examenRepository.findAll().stream()
                 .filter(examen -> examen.getResultat() == null)
@@ -0,0 +1,213 @@
+package org.cpi2.service;
+
+import org.cpi2.repository.ExportRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.logging.Logger;
+
+/**
+ * Writes exports of payments, seances and candidats as CSV or JSON files.
+ * <p>
+ * Rows go from the streaming {@link ExportRepository} through a buffered writer on a
+ * {@link FileChannel} without being collected, so a yearly export costs the same memory as a
+ * daily one. The file is written next to the target and moved into place once complete; a
+ * failed export leaves no partial file behind.
+ */
+public class ExportService {
+    private static final Logger LOGGER = Logger.getLogger(ExportService.class.getName());
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV("csv"),
+        JSON("json");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final ExportRepository exportRepository;
+
+    public ExportService() {
+        this.exportRepository = new ExportRepository();
+    }
+
+    /** A file name such as "paiements_2024-01-01_2024-12-31.csv" for the given export. */
+    public static String defaultFileName(ExportRepository.Dataset dataset, Format format, LocalDate from, LocalDate to) {
+        return dataset.getFileName()
+                + (from != null ? "_" + from : "")
+                + (to != null ? "_" + to : "")
+                + "." + format.getExtension();
+    }
+
+    /** Exports the rows dated from {@code from} to {@code to} inclusive to {@code target}; returns the row count. */
+    public long export(ExportRepository.Dataset dataset, Format format, LocalDate from, LocalDate to, Path target)
+            throws IOException, SQLException {
+        Path dir = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, "." + target.getFileName(), ".part");
+        long count;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+
+                RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new JsonRowWriter(writer);
+                count = exportRepository.stream(dataset, from, to, rowWriter);
+                rowWriter.end();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        LOGGER.info("Exported " + count + " " + dataset.getFileName() + " to " + target);
+        return count;
+    }
+
+    private abstract static class RowWriter implements ExportRepository.RowSink {
+        protected final Writer writer;
+        protected String[] columns;
+
+        RowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin(String[] columns) throws IOException {
+            this.columns = columns.clone();
+        }
+
+        void end() throws IOException {
+        }
+
+        /** JDBC values as plain text: ISO dates and times, plain decimals. */
+        static String text(Object value) {
+            if (value instanceof java.sql.Date date) {
+                return date.toLocalDate().toString();
+            }
+            if (value instanceof Timestamp timestamp) {
+                return timestamp.toLocalDateTime().toString();
+            }
+            if (value instanceof Time time) {
+                return time.toLocalTime().toString();
+            }
+            if (value instanceof BigDecimal decimal) {
+                return decimal.toPlainString();
+            }
+            return String.valueOf(value);
+        }
+    }
+
+    /** RFC 4180 CSV: a header line, fields quoted only when they need it. */
+    private static final class CsvRowWriter extends RowWriter {
+
+        CsvRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void begin(String[] columns) throws IOException {
+            super.begin(columns);
+            writeLine(columns);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            writeLine(values);
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(text(values[i]));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String field) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < field.length() && !quote; i++) {
+                char c = field.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(field);
+                return;
+            }
+            writer.write('"');
+            writer.write(field.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    /** A JSON array of one object per row, keys in column order. */
+    private static final class JsonRowWriter extends RowWriter {
+        private String[] keys;
+        private boolean first = true;
+
+        JsonRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void begin(String[] columns) throws IOException {
+            super.begin(columns);
+            keys = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                keys[i] = org.json.JSONObject.quote(columns[i]) + ":";
+            }
+            writer.write('[');
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            writer.write(first ? "\n{" : ",\n{");
+            first = false;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(keys[i]);
+                writer.write(json(values[i]));
+            }
+            writer.write('}');
+        }
+
+        @Override
+        void end() throws IOException {
+            writer.write(first ? "]" : "\n]");
+        }
+
+        private static String json(Object value) {
+            if (value == null) {
+                return "null";
+            }
+            if (value instanceof Number || value instanceof Boolean) {
+                return org.json.JSONObject.valueToString(value);
+            }
+            return org.json.JSONObject.quote(text(value));
+        }
+    }
+}
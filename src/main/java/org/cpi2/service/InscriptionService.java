@@ -12,7 +12,6 @@ import java.util.stream.Collectors;
 public class InscriptionService {
     private final InscriptionRepository inscriptionRepository;
     private final PlanRepository planRepository;
-    private final PresenceService presenceService = new PresenceService();
     private final CandidatService candidatService;
 
 
@@ -165,8 +164,9 @@ public class InscriptionService {
                 .toList();
     }
     public List<Inscription> getActifInscirptionBycin(String cin) {
-        return getActifInscription().stream()
-                .filter(inscription -> inscription.getCin().equals(cin))
+        return inscriptionRepository.findByCin(cin).stream()
+                .filter(inscription -> inscription.getStatus().equals("En Cours"))
+                .sorted(Comparator.comparing(Inscription::getInscriptioDate))
                 .toList();
     }
 
@@ -181,7 +181,7 @@ public class InscriptionService {
     }
 
     public boolean haveActifandUnpayedInscription(String cin) {
-        return getUnpaidInscription().stream().anyMatch(inscription -> inscription.getCin().equals(cin) && inscription.getStatus().equals("En Cours"));
+        return getActifInscirptionBycin(cin).stream().anyMatch(inscription -> !inscription.isPaymentStatus());
     }
 
 
@@ -197,11 +197,11 @@ public class InscriptionService {
     public boolean isInscriptionCodeDone(int id){
         Inscription inscription = getInscriptionById(id).orElse(null);
         if(inscription == null) return false;
-        return inscription.getPlan().getGetNbreSeanceCode() == presenceService.getCountInscriptioinPerSession(candidatService.CinToId(inscription.getCin()), "code", inscription.getInscriptioDate());
+        return inscription.getPlan().getGetNbreSeanceCode() == inscription.getCodeSessionsDone();
     }
     public boolean isInscriptionConduiteDone(int id){
         Inscription inscription = getInscriptionById(id).orElse(null);
         if(inscription == null) return false;
-        return inscription.getPlan().getNbreSeanceConduite() == presenceService.getCountInscriptioinPerSession(candidatService.CinToId(inscription.getCin()), "conduite", inscription.getInscriptioDate());
+        return inscription.getPlan().getNbreSeanceConduite() == inscription.getConduiteSessionsDone();
     }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package org.cpi2.service;
 
 import org.cpi2.entities.Moniteur;
+import org.cpi2.entities.MoniteurPayroll;
+import org.cpi2.entities.MoniteurSummary;
 import org.cpi2.entities.RendezVous;
 import org.cpi2.entities.TypePermis;
 import org.cpi2.repository.MoniteurRepository;
+import org.cpi2.repository.ResourceCalendar;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -16,18 +19,21 @@ import java.util.logging.Logger;
 
 public class MoniteurService {
     private static final Logger LOGGER = Logger.getLogger(MoniteurService.class.getName());
+    private static final int DEFAULT_SESSION_MINUTES = 60;
     private final MoniteurRepository moniteurRepository;
-    private final SessionService sessionService;
 
     public MoniteurService() {
         this.moniteurRepository = new MoniteurRepository();
-        this.sessionService = new SessionService();
     }
 
     public List<Moniteur> getAllMoniteurs() {
         return moniteurRepository.findAll();
     }
 
+    public List<MoniteurSummary> getMoniteurSummaries() {
+        return moniteurRepository.findAllSummaries();
+    }
+
     public Optional<Moniteur> getMoniteurById(Long id) {
         return moniteurRepository.findById(id);
     }
@@ -92,14 +98,25 @@ public class MoniteurService {
     }
 
     public List<Moniteur> findAvailableMoniteurs(LocalDateTime dateTime) {
+        return findAvailableMoniteurs(dateTime, dateTime.plusMinutes(DEFAULT_SESSION_MINUTES));
+    }
+
+    /** Moniteurs with no booking overlapping {@code [start, end)}. */
+    public List<Moniteur> findAvailableMoniteurs(LocalDateTime start, LocalDateTime end) {
+        Set<Long> busy = ResourceCalendar.busyMoniteurs(start, end);
         return moniteurRepository.findAll().stream()
-                .filter(moniteur -> !moniteur.getEmploiDuTemps().containsKey(dateTime))
+                .filter(moniteur -> !busy.contains(moniteur.getId()))
                 .collect(Collectors.toList());
     }
 
     public List<Moniteur> findAvailableMoniteursBySpeciality(LocalDateTime dateTime, TypePermis typePermis) {
+        return findAvailableMoniteursBySpeciality(dateTime, dateTime.plusMinutes(DEFAULT_SESSION_MINUTES), typePermis);
+    }
+
+    public List<Moniteur> findAvailableMoniteursBySpeciality(LocalDateTime start, LocalDateTime end, TypePermis typePermis) {
+        Set<Long> busy = ResourceCalendar.busyMoniteurs(start, end);
         return moniteurRepository.findAll().stream()
-                .filter(moniteur -> !moniteur.getEmploiDuTemps().containsKey(dateTime))
+                .filter(moniteur -> !busy.contains(moniteur.getId()))
                 .filter(moniteur -> moniteur.getSpecialites().contains(typePermis))
                 .collect(Collectors.toList());
     }
@@ -130,7 +147,8 @@ public class MoniteurService {
 
     public boolean scheduleRendezVous(Moniteur moniteur, LocalDateTime dateTime, RendezVous rendezVous) {
         try {
-            if (moniteur.getEmploiDuTemps().containsKey(dateTime)) {
+            if (moniteur.getEmploiDuTemps().containsKey(dateTime)
+                    || !ResourceCalendar.isMoniteurFree(moniteur.getId(), dateTime, dateTime.plusMinutes(DEFAULT_SESSION_MINUTES))) {
                 LOGGER.warning("Time slot already occupied for moniteur: " + moniteur.getId());
                 return false;
             }
@@ -160,39 +178,26 @@ public class MoniteurService {
         return moniteurRepository.findByCin(cin).orElse(null);
     }
 
-    public double getSalary(long moniteurId, LocalDate startDate, LocalDate endDate) {
-        Moniteur moniteur = moniteurRepository.findById(moniteurId).orElse(null);
-        if (moniteur == null) {
-            LOGGER.warning("Moniteur not found with ID: " + moniteurId);
-            return 0;
-        }
-        double tarifCode = 0;
-        double tarifConduite = 0;
-        for(TypePermis typePermis : moniteur.getSpecialites()) {
-            if (typePermis == TypePermis.A) {
-                tarifCode = 3.5;
-                tarifConduite = 4;
-            } else if (typePermis == TypePermis.B) {
-                tarifCode = 6;
-                tarifConduite = 8;
-            }
-            else if (typePermis == TypePermis.C) {
-                tarifCode = 15;
-                tarifConduite = 20;
-            }
-        }
-
-        return sessionService.viewAllSessionCode().stream().filter(session -> session.getMoniteur().getId() == moniteurId)
-                .filter(session -> !session.getDateSession().isBefore(startDate) && !session.getDateSession().isAfter(endDate))
-                .count()*tarifCode + sessionService.viewAllSessionConduite().stream().filter(session -> session.getMoniteur().getId() == moniteurId)
-                .filter(session -> !session.getDateSession().isBefore(startDate) && !session.getDateSession().isAfter(endDate))
-                .count()*tarifConduite;
+    /**
+     * Per-moniteur pay breakdown for the period, with the rates of each moniteur's highest
+     * licence category applied.
+     */
+    public List<MoniteurPayroll> getPayroll(LocalDate startDate, LocalDate endDate) {
+        return moniteurRepository.findPayroll(startDate, endDate);
+    }
 
+    public double getSalary(long moniteurId, LocalDate startDate, LocalDate endDate) {
+        return moniteurRepository.findPayroll(moniteurId, startDate, endDate)
+                .map(MoniteurPayroll::getTotal)
+                .orElseGet(() -> {
+                    LOGGER.warning("Moniteur not found with ID: " + moniteurId);
+                    return 0.0;
+                });
     }
 
     public double getTotalSalary(LocalDate startDate, LocalDate endDate) {
-        return moniteurRepository.findAll().stream()
-                .mapToDouble(moniteur -> getSalary(moniteur.getId(), startDate, endDate))
+        return getPayroll(startDate, endDate).stream()
+                .mapToDouble(MoniteurPayroll::getTotal)
                 .sum();
     }
-}
\ No newline at end of file
+}
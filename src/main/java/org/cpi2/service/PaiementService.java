@@ -3,6 +3,7 @@ package org.cpi2.service;
 
 import org.cpi2.Exceptions.DataNotFound;
 import org.cpi2.entities.*;
+import org.cpi2.repository.Page;
 import org.cpi2.repository.PaiementRepository;
 import org.cpi2.repository.CandidatRepository;
 
@@ -66,6 +67,14 @@ public class PaiementService {
     public List<Paiement> getAll() {
         return paiementRepository.findAll();
     }
+    public Page<PaiementRow> getPaiementRows(PaiementRepository.RowFilter filter, Page.Cursor after, int limit) {
+        return paiementRepository.findRowsPage(filter, after, limit);
+    }
+
+    public PaiementRepository.RowTotals getPaiementTotals(PaiementRepository.RowFilter filter) {
+        return paiementRepository.findRowTotals(filter);
+    }
+
     public List<Paiement> getAllPaiements() {
         return paiementRepository.findAll().stream().filter(p -> p.getStatut() != StatutPaiement.ANNULEE).toList();
     }
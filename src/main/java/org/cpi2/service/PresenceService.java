@@ -2,22 +2,17 @@ package org.cpi2.service;
 
 import org.cpi2.entities.Inscription;
 import org.cpi2.repository.PresenceRepository;
-import org.cpi2.repository.SeanceRepository;
 
 import java.sql.Date;
-import java.time.LocalDate;
-import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class PresenceService {
     private static final Logger LOGGER = Logger.getLogger(PresenceService.class.getName());
     private final PresenceRepository presenceRepository;
-    private final SessionService sessionService;
 
     public PresenceService() {
         this.presenceRepository = new PresenceRepository();
-        this.sessionService = new SessionService();
     }
 
     public boolean recordCodePresence(long sessionCodeId, long candidatId, boolean present) {
@@ -47,11 +42,9 @@ public class PresenceService {
             return 0;
         }
         if(seanceType.equalsIgnoreCase("code")) {
-            return presenceRepository.getAllPresencesCode().stream().filter(presence ->sessionService.viewSessionCode(presence.getSessionId())
-                    .getDateSession().isAfter(date.toLocalDate()) && presence.getCandidatId() == candidatId).toList().size();
+            return presenceRepository.countCodePresencesAfter(candidatId, date.toLocalDate());
         } else if(seanceType.equalsIgnoreCase("conduite")) {
-            return presenceRepository.getAllPresencesConduite().stream().filter(presence ->sessionService.viewSessionConduite(presence.getSessionId())
-                    .getDateSession().isAfter(date.toLocalDate()) && presence.getCandidatId() == candidatId).toList().size();
+            return presenceRepository.countConduitePresencesAfter(candidatId, date.toLocalDate());
         } else {
             LOGGER.log(Level.WARNING, "Invalid seance type: " + seanceType);
             return 0;
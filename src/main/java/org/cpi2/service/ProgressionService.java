@@ -1,6 +1,7 @@
 package org.cpi2.service;
 
 import org.cpi2.entities.Candidat;
+import org.cpi2.entities.CandidatSummary;
 import org.cpi2.entities.TypePermis;
 import org.cpi2.repository.ProgressionRepository;
 
@@ -21,10 +22,8 @@ public class ProgressionService {
     public Map<Long, String> getAllCandidatsForComboBox() {
         Map<Long, String> candidats = new HashMap<>();
         
-        List<Candidat> allCandidats = candidatService.getAllCandidats();
-        for (Candidat candidat : allCandidats) {
-            String displayName = candidat.getNom() + " " + candidat.getPrenom();
-            candidats.put(candidat.getId(), displayName);
+        for (CandidatSummary candidat : candidatService.getCandidatSummaries()) {
+            candidats.put(candidat.id(), candidat.fullName());
         }
         
         return candidats;
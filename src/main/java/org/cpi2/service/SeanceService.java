@@ -3,6 +3,7 @@ package org.cpi2.service;
 import org.cpi2.entities.Seance;
 import org.cpi2.entities.Inscription;
 import org.cpi2.entities.CoursePlan;
+import org.cpi2.repository.Page;
 import org.cpi2.repository.SeanceRepository;
 import org.cpi2.service.MoniteurService;
 import org.cpi2.service.CandidatService;
@@ -121,12 +122,8 @@ public class SeanceService {
                                         int requiredCodeSessions = plan != null ? plan.getGetNbreSeanceCode() : 0;
                                         int requiredDrivingSessions = plan != null ? plan.getNbreSeanceConduite() : 0;
                                         
-                                        java.sql.Date inscriptionDate = inscription.getInscriptioDate();
-                                        
-                                        int codeSessions = presenceService.getCountInscriptioinPerSession(
-                                            seance.getCandidatId(), "code", inscriptionDate);
-                                        int drivingSessions = presenceService.getCountInscriptioinPerSession(
-                                            seance.getCandidatId(), "conduite", inscriptionDate);
+                                        int codeSessions = inscription.getCodeSessionsDone();
+                                        int drivingSessions = inscription.getConduiteSessionsDone();
 
                                         if (codeSessions >= requiredCodeSessions && drivingSessions >= requiredDrivingSessions) {
                                             inscription.setStatus("Terminé");
@@ -182,6 +179,10 @@ public class SeanceService {
         return seanceRepository.findAll();
     }
     
+    public Page<Seance> findSeancesPage(String type, String statut, LocalDate onDate, Page.Cursor after, int limit) {
+        return seanceRepository.findPage(type, statut, onDate, after, limit);
+    }
+
     public List<Seance> getAllSeances() {
         return findAllSeances();
     }
@@ -6,6 +6,7 @@ import org.cpi2.entities.SessionConduite;
 import org.cpi2.repository.PresenceRepository;
 import org.cpi2.repository.SessionRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public class SessionService {
@@ -28,6 +29,10 @@ public class SessionService {
         return sessionRepo.affecterCandidatASessionCode(sessionId, candidatId);
     }
     
+    public int affecterCandidatsASessionCode(long sessionId, Collection<Long> candidatIds) {
+        return sessionRepo.affecterCandidatsASessionCode(sessionId, candidatIds);
+    }
+
     public boolean affecterCandidatASeanceConduite(long seanceId, long candidatId) {
         return sessionRepo.affecterCandidatASeanceConduite(seanceId, candidatId);
     }
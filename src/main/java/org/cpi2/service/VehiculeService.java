@@ -3,6 +3,7 @@ package org.cpi2.service;
 import org.cpi2.entities.Entretien;
 import org.cpi2.entities.TypePermis;
 import org.cpi2.entities.Vehicule;
+import org.cpi2.entities.VehiculeSummary;
 import org.cpi2.repository.VehiculeRepository;
 
 import java.time.LocalDate;
@@ -44,6 +45,10 @@ public class VehiculeService {
         return vehiculeRepository.findAll();
     }
 
+    public List<VehiculeSummary> getVehiculeSummaries() {
+        return vehiculeRepository.findAllSummaries();
+    }
+
     public Optional<Vehicule> getVehiculeById(long id) {
         return vehiculeRepository.findById(id);
     }
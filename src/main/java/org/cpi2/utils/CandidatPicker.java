@@ -0,0 +1,170 @@
+package org.cpi2.utils;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ListCell;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+import org.cpi2.entities.Candidat;
+import org.cpi2.service.CandidatService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Turns an editable {@code ComboBox<Candidat>} into a search-as-you-type picker.
+ * <p>
+ * Typing waits for a short pause, then searches the candidats in the background and shows the
+ * best {@link #MAX_RESULTS} matches as the combo's items; a newer keystroke supersedes any lookup
+ * still in flight. The combo's value is the picked candidat, or {@code null} while the text does
+ * not match one, so controllers keep reading {@code getValue()} and listening to the selection.
+ * <p>
+ * Every lookup, including the one run each time the user opens the list, goes through
+ * {@link CandidatService#searchCandidats}, which first catches the search index up with the
+ * candidats other desks added or changed.
+ */
+public class CandidatPicker {
+    private static final Logger LOGGER = Logger.getLogger(CandidatPicker.class.getName());
+
+    public static final int MAX_RESULTS = 20;
+    private static final Duration DEBOUNCE = Duration.millis(250);
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "candidat-picker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ComboBox<Candidat> comboBox;
+    private final CandidatService candidatService;
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+    private final AtomicLong generation = new AtomicLong();
+    private boolean updatingItems;
+    private boolean showingResults;
+
+    private CandidatPicker(ComboBox<Candidat> comboBox, CandidatService candidatService) {
+        this.comboBox = comboBox;
+        this.candidatService = candidatService;
+    }
+
+    public static CandidatPicker attach(ComboBox<Candidat> comboBox, CandidatService candidatService) {
+        CandidatPicker picker = new CandidatPicker(comboBox, candidatService);
+        picker.install();
+        return picker;
+    }
+
+    public static String label(Candidat candidat) {
+        return candidat == null ? "" : candidat.getNom() + " " + candidat.getPrenom() + " (" + candidat.getCin() + ")";
+    }
+
+    /** Clears the text, the value and the suggestions. */
+    public void clear() {
+        generation.incrementAndGet();
+        debounce.stop();
+        comboBox.setValue(null);
+        comboBox.getEditor().clear();
+        comboBox.getItems().clear();
+    }
+
+    /** Runs the lookup for the current text right away, e.g. to show suggestions on open. */
+    public void refresh() {
+        search(comboBox.getEditor().getText());
+    }
+
+    private void install() {
+        comboBox.setEditable(true);
+        comboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Candidat candidat) {
+                return label(candidat);
+            }
+
+            @Override
+            public Candidat fromString(String text) {
+                if (text == null || text.isBlank()) {
+                    return null;
+                }
+                for (Candidat candidat : comboBox.getItems()) {
+                    if (label(candidat).equals(text)) {
+                        return candidat;
+                    }
+                }
+                return comboBox.getValue() != null && label(comboBox.getValue()).equals(text) ? comboBox.getValue() : null;
+            }
+        });
+        comboBox.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(Candidat item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : label(item));
+            }
+        });
+
+        debounce.setOnFinished(e -> search(comboBox.getEditor().getText()));
+        comboBox.getEditor().textProperty().addListener((obs, oldText, newText) -> {
+            Candidat value = comboBox.getValue();
+            if (updatingItems || (value != null && label(value).equals(newText))) {
+                // Text set by picking an item, not typed
+                return;
+            }
+            debounce.playFromStart();
+        });
+        comboBox.setOnShowing(e -> {
+            // Opened by the user: suggestions listed earlier may be out of date
+            if (!showingResults) {
+                refresh();
+            }
+        });
+    }
+
+    private void search(String text) {
+        String query = text == null ? "" : text.trim();
+        long current = generation.incrementAndGet();
+
+        CompletableFuture
+                .supplyAsync(() -> current == generation.get()
+                        ? candidatService.searchCandidats(query, 0, MAX_RESULTS).candidats()
+                        : null, EXECUTOR)
+                .whenComplete((results, error) -> {
+                    if (error != null) {
+                        LOGGER.log(Level.SEVERE, "Error searching candidats for '" + query + "'", error);
+                        return;
+                    }
+                    if (results != null) {
+                        Platform.runLater(() -> show(current, results));
+                    }
+                });
+    }
+
+    private void show(long searchGeneration, List<Candidat> results) {
+        if (searchGeneration != generation.get()) {
+            return;
+        }
+        String typed = comboBox.getEditor().getText();
+        updatingItems = true;
+        try {
+            comboBox.getItems().setAll(results);
+            // setAll may reset the editor through the converter; keep what the user typed
+            if (!typed.equals(comboBox.getEditor().getText())) {
+                comboBox.getEditor().setText(typed);
+                comboBox.getEditor().positionCaret(typed.length());
+            }
+        } finally {
+            updatingItems = false;
+        }
+        if (comboBox.isFocused() && !results.isEmpty() && !comboBox.isShowing()) {
+            showingResults = true;
+            try {
+                comboBox.show();
+            } finally {
+                showingResults = false;
+            }
+        }
+    }
+}
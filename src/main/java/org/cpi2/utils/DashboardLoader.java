@@ -0,0 +1,182 @@
+package org.cpi2.utils;
+
+import javafx.application.Platform;
+import org.cpi2.repository.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads the panels of a dashboard off the JavaFX Application Thread.
+ * <p>
+ * Each panel is a query that runs on a shared background pool and returns the UI update to
+ * apply. Panels of a batch run in parallel; once all of them are done their updates are applied
+ * together in one {@code Platform.runLater}, followed by the batch's error handler if any panel
+ * failed, so a database outage is reported once rather than once per panel. Submitting a new
+ * batch (e.g. after the date filter changed) supersedes the previous one: its queued panels are
+ * skipped and its results dropped.
+ */
+public class DashboardLoader {
+    private static final Logger LOGGER = Logger.getLogger(DashboardLoader.class.getName());
+    private static final int THREADS = Integer.getInteger("autoecole.dashboard.threads", 4);
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "dashboard-loader-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final String name;
+    private final AtomicLong generation = new AtomicLong();
+
+    public DashboardLoader(String name) {
+        this.name = name;
+    }
+
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /** Adapts a panel query that needs a connection; each panel borrows its own from the pool. */
+    public static Callable<Runnable> withConnection(ConnectionQuery query) {
+        return () -> {
+            try (Connection conn = DatabaseConfig.getConnection()) {
+                return query.load(conn);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface ConnectionQuery {
+        Runnable load(Connection conn) throws SQLException;
+    }
+
+    /** Drops whatever is in flight; nothing from it will reach the UI. */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    private boolean isCurrent(long batchGeneration) {
+        return generation.get() == batchGeneration;
+    }
+
+    public class Batch {
+        private final List<Panel> panels = new ArrayList<>();
+        private Runnable onComplete;
+        private Runnable onError;
+
+        /**
+         * @param query    runs in the background and returns the UI update for the panel
+         * @param fallback UI update applied instead when the query fails
+         */
+        public Batch panel(String panelName, Callable<Runnable> query, Runnable fallback) {
+            panels.add(new Panel(panelName, query, fallback));
+            return this;
+        }
+
+        /** A panel left as it is when its query fails. */
+        public Batch panel(String panelName, Callable<Runnable> query) {
+            return panel(panelName, query, null);
+        }
+
+        /** Runs once on the FX thread, after the updates, when at least one panel failed. */
+        public Batch onError(Runnable onError) {
+            this.onError = onError;
+            return this;
+        }
+
+        /** Runs on the FX thread right after the batched update. */
+        public Batch onComplete(Runnable onComplete) {
+            this.onComplete = onComplete;
+            return this;
+        }
+
+        public void submit() {
+            long batchGeneration = generation.incrementAndGet();
+            AtomicBoolean failed = new AtomicBoolean();
+
+            List<CompletableFuture<Runnable>> futures = new ArrayList<>();
+            for (Panel panel : panels) {
+                futures.add(CompletableFuture
+                        .supplyAsync(() -> panel.run(batchGeneration), EXECUTOR)
+                        .exceptionally(e -> {
+                            LOGGER.log(Level.SEVERE, "Dashboard '" + name + "': panel '" + panel.name + "' failed", e);
+                            failed.set(true);
+                            return panel.fallback;
+                        }));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+                if (!isCurrent(batchGeneration)) {
+                    return;
+                }
+                List<Runnable> updates = new ArrayList<>();
+                for (CompletableFuture<Runnable> future : futures) {
+                    Runnable update = future.join();
+                    if (update != null) {
+                        updates.add(update);
+                    }
+                }
+                Platform.runLater(() -> {
+                    if (!isCurrent(batchGeneration)) {
+                        return;
+                    }
+                    for (Runnable update : updates) {
+                        try {
+                            update.run();
+                        } catch (RuntimeException e) {
+                            LOGGER.log(Level.SEVERE, "Dashboard '" + name + "': error applying panel update", e);
+                        }
+                    }
+                    if (onComplete != null) {
+                        onComplete.run();
+                    }
+                    if (failed.get() && onError != null) {
+                        onError.run();
+                    }
+                });
+            });
+        }
+    }
+
+    private class Panel {
+        private final String name;
+        private final Callable<Runnable> query;
+        private final Runnable fallback;
+
+        private Panel(String name, Callable<Runnable> query, Runnable fallback) {
+            this.name = name;
+            this.query = query;
+            this.fallback = fallback;
+        }
+
+        private Runnable run(long batchGeneration) {
+            if (!isCurrent(batchGeneration)) {
+                return null;
+            }
+            try {
+                return query.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }
+    }
+}
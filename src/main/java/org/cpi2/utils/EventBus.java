@@ -1,25 +1,176 @@
 package org.cpi2.utils;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import javafx.application.Platform;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Application-wide publish/subscribe of typed events (see {@link Events}).
+ * <p>
+ * Subscribers are kept in copy-on-write lists, so publishing from any thread is safe and takes no
+ * lock. Each subscriber picks how it is called: on the publishing thread, on the background event
+ * thread, or on the JavaFX Application Thread. A subscriber receives every event that is an
+ * instance of the class it subscribed to.
+ * <p>
+ * Controllers should subscribe with an owner: the owner is held weakly and the subscription goes
+ * away by itself once the owner is garbage collected, so rebuilt screens do not pile up handlers.
+ * The handler then receives the owner as its first argument and must not capture it.
+ */
+public final class EventBus {
+    private static final Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    public enum Delivery {
+        /** On the publishing thread, before {@code publish} returns. */
+        SYNC,
+        /** On the single background event thread, in publish order. */
+        BACKGROUND,
+        /** On the JavaFX Application Thread; inline if already there. */
+        FX
+    }
+
+    private static final Map<Class<?>, List<Subscriber<?>>> SUBSCRIBERS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> COLLECTED_OWNERS = new ReferenceQueue<>();
+
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "event-bus");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private EventBus() {
+    }
+
+    /** Subscribes for the lifetime of the application; use for services and other singletons. */
+    public static <E> Subscription subscribe(Class<E> eventType, Delivery delivery, Consumer<? super E> handler) {
+        return add(new Subscriber<>(eventType, delivery, null, (owner, event) -> handler.accept(event)));
+    }
+
+    /**
+     * Subscribes for as long as {@code owner} is reachable.
+     *
+     * @param handler called with the owner and the event; must not capture {@code owner} itself,
+     *                otherwise the owner can never be collected
+     */
+    public static <O, E> Subscription subscribe(O owner, Class<E> eventType, Delivery delivery,
+                                                BiConsumer<? super O, ? super E> handler) {
+        return add(new Subscriber<>(eventType, delivery, owner, handler));
+    }
+
+    public static void publish(Object event) {
+        expungeCollected();
+        for (Map.Entry<Class<?>, List<Subscriber<?>>> entry : SUBSCRIBERS.entrySet()) {
+            if (!entry.getKey().isInstance(event)) {
+                continue;
+            }
+            for (Subscriber<?> subscriber : entry.getValue()) {
+                subscriber.dispatch(event);
+            }
+        }
+    }
+
+    private static Subscription add(Subscriber<?> subscriber) {
+        expungeCollected();
+        SUBSCRIBERS.computeIfAbsent(subscriber.eventType, k -> new CopyOnWriteArrayList<>()).add(subscriber);
+        return new Subscription(subscriber);
+    }
 
+    private static void remove(Subscriber<?> subscriber) {
+        List<Subscriber<?>> list = SUBSCRIBERS.get(subscriber.eventType);
+        if (list != null) {
+            list.remove(subscriber);
+        }
+    }
+
+    private static void expungeCollected() {
+        Reference<?> ref;
+        while ((ref = COLLECTED_OWNERS.poll()) != null) {
+            remove(((OwnerReference) ref).subscriber);
+        }
+    }
 
-public class EventBus {
-    
-    private static final Map<String, Set<Consumer<Object>>> subscribers = new HashMap<>();
-    
+    /** Handle returned by {@code subscribe}; {@link #unsubscribe()} stops delivery immediately. */
+    public static final class Subscription {
+        private final Subscriber<?> subscriber;
 
-    public static void subscribe(String eventType, Consumer<Object> handler) {
-        subscribers.computeIfAbsent(eventType, k -> new HashSet<>()).add(handler);
+        private Subscription(Subscriber<?> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        public void unsubscribe() {
+            subscriber.active = false;
+            remove(subscriber);
+        }
     }
 
-    
-    public static void publish(String eventType, Object data) {
-        if (subscribers.containsKey(eventType)) {
-            subscribers.get(eventType).forEach(handler -> handler.accept(data));
+    private static final class OwnerReference extends WeakReference<Object> {
+        private final Subscriber<?> subscriber;
+
+        private OwnerReference(Object owner, Subscriber<?> subscriber) {
+            super(owner, COLLECTED_OWNERS);
+            this.subscriber = subscriber;
+        }
+    }
+
+    private static final class Subscriber<E> {
+        private final Class<E> eventType;
+        private final Delivery delivery;
+        private final OwnerReference owner;
+        private final BiConsumer<Object, ? super E> handler;
+        private volatile boolean active = true;
+
+        @SuppressWarnings("unchecked")
+        private <O> Subscriber(Class<E> eventType, Delivery delivery, O owner, BiConsumer<? super O, ? super E> handler) {
+            this.eventType = eventType;
+            this.delivery = delivery;
+            this.owner = owner != null ? new OwnerReference(owner, this) : null;
+            this.handler = (BiConsumer<Object, ? super E>) handler;
+        }
+
+        private void dispatch(Object event) {
+            E typed = eventType.cast(event);
+            switch (delivery) {
+                case SYNC -> deliver(typed);
+                case BACKGROUND -> BACKGROUND.execute(() -> deliver(typed));
+                case FX -> {
+                    if (Platform.isFxApplicationThread()) {
+                        deliver(typed);
+                    } else {
+                        Platform.runLater(() -> deliver(typed));
+                    }
+                }
+            }
+        }
+
+        private void deliver(E event) {
+            if (!active) {
+                return;
+            }
+            Object target = null;
+            if (owner != null) {
+                target = owner.get();
+                if (target == null) {
+                    active = false;
+                    remove(this);
+                    return;
+                }
+            }
+            try {
+                handler.accept(target, event);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Error handling " + eventType.getSimpleName(), e);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package org.cpi2.utils;
+
+import org.cpi2.entities.AutoEcole;
+
+/**
+ * Events published on the {@link EventBus}.
+ */
+public final class Events {
+
+    private Events() {
+    }
+
+    public record AutoEcoleUpdated(AutoEcole autoEcole) {
+    }
+
+    public record CandidatUpdated(long candidatId) {
+    }
+
+    public record SeanceUpdated(long seanceId) {
+    }
+
+    public record MoniteurUpdated(long moniteurId) {
+    }
+
+    public record NotificationAdded(String message) {
+    }
+
+    public record FinanceUpdated() {
+    }
+
+    public record VehicleUpdated(long vehiculeId) {
+    }
+}
@@ -0,0 +1,223 @@
+package org.cpi2.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Balanced (AVL) interval tree over half-open intervals {@code [start, end)}.
+ * <p>
+ * Every node carries the largest end of its subtree, so overlap queries skip whole subtrees and
+ * run in O(log n + k). Entries are identified by {@code (start, end, key)}; the caller picks a key
+ * that is unique among entries sharing the same bounds. Not thread-safe.
+ */
+public class IntervalTree<V> {
+
+    private Node<V> root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    public void insert(long start, long end, long key, V value) {
+        if (end < start) {
+            throw new IllegalArgumentException("Interval end " + end + " is before start " + start);
+        }
+        root = insert(root, new Node<>(start, end, key, value));
+    }
+
+    /**
+     * @return true if an entry with these bounds and key was present
+     */
+    public boolean remove(long start, long end, long key) {
+        int before = size;
+        root = remove(root, start, end, key);
+        return size < before;
+    }
+
+    public List<V> overlapping(long from, long to) {
+        List<V> result = new ArrayList<>();
+        overlapping(from, to, result::add);
+        return result;
+    }
+
+    public void overlapping(long from, long to, Consumer<? super V> action) {
+        collect(root, from, to, action);
+    }
+
+    public boolean anyOverlap(long from, long to) {
+        Node<V> node = root;
+        while (node != null) {
+            if (node.start < to && node.end > from) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd > from) {
+                node = node.left;
+            } else if (node.start < to) {
+                node = node.right;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void collect(Node<V> node, long from, long to, Consumer<? super V> action) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collect(node.left, from, to, action);
+        if (node.start >= to) {
+            return;
+        }
+        if (node.end > from) {
+            action.accept(node.value);
+        }
+        collect(node.right, from, to, action);
+    }
+
+    private Node<V> insert(Node<V> node, Node<V> added) {
+        if (node == null) {
+            size++;
+            return added;
+        }
+        int cmp = compare(added.start, added.end, added.key, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, added);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, added);
+        } else {
+            node.value = added.value;
+            return node;
+        }
+        return rebalance(node);
+    }
+
+    private Node<V> remove(Node<V> node, long start, long end, long key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, end, key, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, end, key);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, end, key);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<V> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private Node<V> removeMin(Node<V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int compare(long start, long end, long key, Node<?> node) {
+        int cmp = Long.compare(start, node.start);
+        if (cmp == 0) {
+            cmp = Long.compare(end, node.end);
+        }
+        if (cmp == 0) {
+            cmp = Long.compare(key, node.key);
+        }
+        return cmp;
+    }
+
+    private Node<V> rebalance(Node<V> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<V> rotateRight(Node<V> node) {
+        Node<V> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<V> rotateLeft(Node<V> node) {
+        Node<V> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node<?> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node<V> {
+        private final long start;
+        private final long end;
+        private final long key;
+        private V value;
+        private long maxEnd;
+        private int height = 1;
+        private Node<V> left;
+        private Node<V> right;
+
+        private Node(long start, long end, long key, V value) {
+            this.start = start;
+            this.end = end;
+            this.key = key;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.cpi2.utils;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.cpi2.entities.Document;
+import org.cpi2.entities.TypeDocument;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Downscaled previews of the stored photos and image documents.
+ * <p>
+ * A thumbnail is made once per content and size and kept as a PNG under
+ * {@code autoecole.documents.thumbnailDir}, next to the blob store; blobs are keyed by their
+ * SHA-256, older files by path, size and modification time. The original is decoded with source
+ * subsampling, so a 4000px phone photo is never held at full resolution. Decoded thumbnails are
+ * kept in a bounded LRU of {@code autoecole.thumbnails.maxEntries} images.
+ * <p>
+ * Loading runs on a small background pool; callers show {@link #placeholder} meanwhile and set
+ * the image on the FX thread when the future completes. An empty result means the file is
+ * missing or not an image.
+ */
+public final class ThumbnailCache {
+    private static final Logger LOGGER = Logger.getLogger(ThumbnailCache.class.getName());
+
+    /** Candidate avatar: shown at 75px, made at twice that for HiDPI screens. */
+    public static final int AVATAR_SIZE = 150;
+    public static final int PREVIEW_SIZE = 80;
+
+    private static final Path ROOT = Paths.get(System.getProperty("autoecole.documents.thumbnailDir", "uploads/thumbnails"));
+    private static final int MAX_ENTRIES = Integer.getInteger("autoecole.thumbnails.maxEntries", 200);
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "thumbnail-" + THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Map<String, Image> IMAGES = lru(MAX_ENTRIES);
+    private static final Map<String, CompletableFuture<Optional<Image>>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final Map<Integer, Image> PLACEHOLDERS = new ConcurrentHashMap<>();
+
+    private ThumbnailCache() {
+    }
+
+    /** Whether the document is worth a preview: a photo, or a file with an image extension. */
+    public static boolean isImage(Document document) {
+        if (document == null || document.getCheminFichier() == null) {
+            return false;
+        }
+        return document.getTypeDocument() == TypeDocument.PHOTO
+                || IMAGE_EXTENSIONS.contains(extension(document.getCheminFichier()))
+                || IMAGE_EXTENSIONS.contains(extension(document.getNomFichier()));
+    }
+
+    /** A plain grey square, shown while a thumbnail loads. */
+    public static Image placeholder(int size) {
+        return PLACEHOLDERS.computeIfAbsent(size, s -> {
+            WritableImage image = new WritableImage(s, s);
+            PixelWriter writer = image.getPixelWriter();
+            Color grey = Color.rgb(224, 228, 234);
+            for (int y = 0; y < s; y++) {
+                for (int x = 0; x < s; x++) {
+                    writer.setColor(x, y, grey);
+                }
+            }
+            return image;
+        });
+    }
+
+    /** The thumbnail of {@code document} fitting in {@code size} x {@code size}; completes off the FX thread. */
+    public static CompletableFuture<Optional<Image>> thumbnail(Document document, int size) {
+        if (document == null || document.getCheminFichier() == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        Path source = Paths.get(document.getCheminFichier());
+        String fileKey;
+        try {
+            // A file replaced in place gets a new key, so its old thumbnail is not served
+            fileKey = document.getSha256() != null ? document.getSha256() : legacyKey(source);
+        } catch (IOException e) {
+            // Missing or unreadable file
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        String cacheKey = size + ":" + fileKey;
+
+        synchronized (IMAGES) {
+            Image cached = IMAGES.get(cacheKey);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(Optional.of(cached));
+            }
+        }
+        CompletableFuture<Optional<Image>> future = IN_FLIGHT.computeIfAbsent(cacheKey, k ->
+                CompletableFuture.supplyAsync(() -> load(source, fileKey, size, k), EXECUTOR));
+        future.whenComplete((image, error) -> IN_FLIGHT.remove(cacheKey, future));
+        return future;
+    }
+
+    private static Optional<Image> load(Path source, String fileKey, int size, String cacheKey) {
+        try {
+            if (!Files.isRegularFile(source)) {
+                return Optional.empty();
+            }
+            Path thumbnail = ROOT.resolve(String.valueOf(size)).resolve(fileKey + ".png");
+            if (!Files.exists(thumbnail) && !generate(source, thumbnail, size)) {
+                return Optional.empty();
+            }
+            Image image = new Image(thumbnail.toUri().toString());
+            if (image.isError()) {
+                LOGGER.log(Level.WARNING, "Unreadable thumbnail " + thumbnail, image.getException());
+                return Optional.empty();
+            }
+            synchronized (IMAGES) {
+                IMAGES.put(cacheKey, image);
+            }
+            return Optional.of(image);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error making the thumbnail of " + source, e);
+            return Optional.empty();
+        }
+    }
+
+    /** Access-ordered map dropping its least recently used entry beyond {@code maxEntries}. */
+    static <V> Map<String, V> lru(int maxEntries) {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Writes a PNG of {@code source} fitting in {@code size}; false if it is not a readable image. */
+    static boolean generate(Path source, Path target, int size) throws IOException {
+        BufferedImage decoded;
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                return false;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return false;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // Decode every n-th pixel, keeping at least twice the target for a smooth downscale
+                int step = Math.max(1, longSide / (2 * size));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                decoded = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, (double) size / Math.max(decoded.getWidth(), decoded.getHeight()));
+        int width = Math.max(1, (int) Math.round(decoded.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(decoded.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(decoded, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "thumb-", ".tmp");
+        try {
+            ImageIO.write(scaled, "png", tmp.toFile());
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return true;
+    }
+
+    /** Key of a file outside the blob store: changes when the file is replaced. */
+    private static String legacyKey(Path source) throws IOException {
+        String identity = source.toAbsolutePath() + ":" + Files.size(source) + ":" + Files.getLastModifiedTime(source).toMillis();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(identity.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String extension(String name) {
+        if (name == null) {
+            return "";
+        }
+        int i = name.lastIndexOf('.');
+        return i < 0 ? "" : name.substring(i + 1).toLowerCase(Locale.ROOT);
+    }
+}
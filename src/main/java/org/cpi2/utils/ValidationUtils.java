@@ -8,13 +8,24 @@ import javafx.scene.layout.VBox;
 import javafx.scene.layout.Region;
 import javafx.beans.property.Property;
 
+import org.cpi2.entities.Candidat;
+
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 
 public class ValidationUtils {
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@([A-Za-z0-9-]+\\.)+[A-Za-z]{2,}$");
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^[0-9]{8}$");
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Za-zÀ-ÿ\\s]+$");
+    private static final Pattern CIN_PATTERN = Pattern.compile("^[0-9]{8,}$");
+    private static final int ADDRESS_MIN_LENGTH = 10;
     
     private static final Map<Region, Label> fieldErrorMap = new HashMap<>();
     
@@ -127,4 +138,74 @@ public class ValidationUtils {
     public static boolean hasAnyErrors() {
         return fieldErrorMap.values().stream().anyMatch(Label::isVisible);
     }
+
+    public static boolean isValidEmail(String email) {
+        return email != null && EMAIL_PATTERN.matcher(email).matches();
+    }
+
+    public static boolean isValidPhone(String phone) {
+        return phone != null && PHONE_PATTERN.matcher(phone).matches();
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && NAME_PATTERN.matcher(name).matches();
+    }
+
+    public static boolean isValidCIN(String cin) {
+        return cin != null && CIN_PATTERN.matcher(cin).matches();
+    }
+
+    public static boolean isValidAddress(String address) {
+        return address != null && address.length() >= ADDRESS_MIN_LENGTH;
+    }
+
+    public static boolean isValidBirthDate(LocalDate date) {
+        return date != null && !date.isAfter(LocalDate.now());
+    }
+
+    /**
+     * The messages of the candidat form rules the candidat breaks, in form order; empty when
+     * it can be saved. Used where there is no form to attach the rules to, e.g. imports.
+     */
+    public static List<String> candidatErrors(Candidat candidat) {
+        List<String> errors = new ArrayList<>();
+        if (isBlank(candidat.getNom())) {
+            errors.add("Le nom est obligatoire");
+        } else if (!isValidName(candidat.getNom())) {
+            errors.add("Le nom ne doit contenir que des lettres et des espaces");
+        }
+        if (!isValidBirthDate(candidat.getDateNaissance())) {
+            errors.add(candidat.getDateNaissance() == null
+                    ? "La date de naissance est obligatoire"
+                    : "La date de naissance ne peut pas être dans le futur");
+        }
+        if (isBlank(candidat.getPrenom())) {
+            errors.add("Le prénom est obligatoire");
+        } else if (!isValidName(candidat.getPrenom())) {
+            errors.add("Le prénom ne doit contenir que des lettres et des espaces");
+        }
+        if (isBlank(candidat.getCin())) {
+            errors.add("Le CIN est obligatoire");
+        } else if (!isValidCIN(candidat.getCin())) {
+            errors.add("Le CIN doit contenir au moins 8 chiffres et ne doit contenir que des chiffres");
+        }
+        if (isBlank(candidat.getAdresse())) {
+            errors.add("L'adresse est obligatoire");
+        } else if (!isValidAddress(candidat.getAdresse())) {
+            errors.add("L'adresse doit contenir au moins 10 caractères");
+        }
+        if (isBlank(candidat.getTelephone())) {
+            errors.add("Le numéro de téléphone est obligatoire");
+        } else if (!isValidPhone(candidat.getTelephone())) {
+            errors.add("Le numéro de téléphone doit contenir exactement 8 chiffres");
+        }
+        if (!isBlank(candidat.getEmail()) && !isValidEmail(candidat.getEmail())) {
+            errors.add("L'adresse email n'est pas valide");
+        }
+        return errors;
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.trim().isEmpty();
+    }
 }
@@ -0,0 +1,48 @@
+package org.cpi2.entities;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Retained heap of 50k {@link CandidatSummary} against 50k {@link Candidat} as the list screens
+ * used to load them, measured with JOL over the whole object graph, strings included. The
+ * summaries come to about half; the check leaves room for other JVMs and layouts.
+ */
+class CandidatFootprintTest {
+    private static final int ROWS = 50_000;
+
+    @Test
+    void summariesTakeWellUnderTheHeapOfFullCandidats() {
+        List<CandidatSummary> summaries = new ArrayList<>(ROWS);
+        List<Candidat> candidats = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            summaries.add(new CandidatSummary(i, "Nom" + i, "Prenom" + i, String.format("%08d", i),
+                    "2" + String.format("%07d", i), "candidat" + i + "@mail.tn"));
+
+            Candidat candidat = new Candidat();
+            candidat.setId((long) i);
+            candidat.setNom("Nom" + i);
+            candidat.setPrenom("Prenom" + i);
+            candidat.setCin(String.format("%08d", i));
+            candidat.setAdresse(i + " Avenue Habib Bourguiba, Tunis");
+            candidat.setTelephone("2" + String.format("%07d", i));
+            candidat.setEmail("candidat" + i + "@mail.tn");
+            candidat.setDateNaissance(LocalDate.of(2000, 1, 1).plusDays(i % 3650));
+            candidats.add(candidat);
+        }
+
+        long summaryBytes = GraphLayout.parseInstance(summaries).totalSize();
+        long candidatBytes = GraphLayout.parseInstance(candidats).totalSize();
+        System.out.printf("%d CandidatSummary: %,d bytes, %d Candidat: %,d bytes%n",
+                ROWS, summaryBytes, ROWS, candidatBytes);
+
+        assertTrue(summaryBytes * 10 < candidatBytes * 6,
+                "summaries " + summaryBytes + " bytes, candidats " + candidatBytes + " bytes");
+    }
+}
@@ -0,0 +1,42 @@
+package org.cpi2.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentTest {
+    private static final LocalDateTime UPLOADED = LocalDateTime.of(2025, 3, 23, 22, 49, 32);
+
+    @Test
+    void documentsUploadedTheSameSecondAreAllKept() {
+        TreeSet<Document> documents = new TreeSet<>();
+        documents.add(document(3L, UPLOADED));
+        documents.add(document(1L, UPLOADED));
+        documents.add(document(2L, UPLOADED.minusSeconds(1)));
+
+        assertEquals(List.of(2L, 1L, 3L), documents.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void unsavedAndUndatedDocumentsSortLast() {
+        Document saved = document(1L, UPLOADED);
+        Document unsaved = document(null, UPLOADED);
+        Document undated = document(1L, null);
+
+        assertTrue(saved.compareTo(unsaved) < 0);
+        assertTrue(unsaved.compareTo(undated) < 0);
+        assertEquals(0, document(1L, UPLOADED).compareTo(saved));
+    }
+
+    private static Document document(Long id, LocalDateTime dateUpload) {
+        Document document = new Document(TypeDocument.CIN, "cin.pdf", "uploads/cin.pdf");
+        document.setId(id);
+        document.setDateUpload(dateUpload);
+        return document;
+    }
+}
@@ -0,0 +1,45 @@
+package org.cpi2.repository;
+
+import org.cpi2.entities.Candidat;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CandidatRepositoryTest {
+
+    @BeforeAll
+    static void startDatabase() {
+        TestDatabase.start();
+    }
+
+    @Test
+    void activeUnpaidListsEachCandidatOnceWithARunningUnpaidInscription() throws Exception {
+        candidat("AU-1", "En Cours", "En attente");
+        candidat("AU-2", "En Cours", "paid");
+        candidat("AU-3", "Terminé", "En attente");
+        candidat("AU-4", "En Cours", "paid");
+        inscription("AU-4", "En Cours", "En attente");
+        inscription("AU-4", "En Cours", "Partiel");
+        QueryCache.clear();
+
+        List<String> cins = new CandidatRepository().findWithActiveUnpaidInscription().stream()
+                .map(Candidat::getCin)
+                .filter(cin -> cin.startsWith("AU-"))
+                .toList();
+
+        assertEquals(List.of("AU-1", "AU-4"), cins);
+    }
+
+    private static void candidat(String cin, String statut, String statutPaiement) throws Exception {
+        TestDatabase.update("INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) VALUES ('Nom', 'Prenom', ?, '20000000', '2000-01-01')", cin);
+        inscription(cin, statut, statutPaiement);
+    }
+
+    private static void inscription(String cin, String statut, String statutPaiement) throws Exception {
+        TestDatabase.update("INSERT INTO inscription (cin, plan_id, statut, statut_paiement) VALUES (?, 3, ?, ?)",
+                cin, statut, statutPaiement);
+    }
+}
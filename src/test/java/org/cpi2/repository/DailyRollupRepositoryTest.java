@@ -0,0 +1,74 @@
+package org.cpi2.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DailyRollupRepositoryTest {
+    private static long candidatId;
+    private static long inscriptionId;
+
+    private final DailyRollupRepository rollups = new DailyRollupRepository();
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        TestDatabase.start();
+        candidatId = TestDatabase.insert("INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) "
+                + "VALUES ('Rollup', 'Candidat', 'RU-1', '20000000', '2000-01-01')");
+        inscriptionId = TestDatabase.insert("INSERT INTO inscription (cin, plan_id, statut) VALUES ('RU-1', 3, 'En Cours')");
+    }
+
+    @Test
+    void refreshRecomputesTheGivenDaysOnly() throws Exception {
+        LocalDate day = LocalDate.of(2031, 3, 10);
+        LocalDate next = day.plusDays(1);
+        long first = paiement(day, 100, inscriptionId);
+        paiement(day, 50, null);
+        paiement(next, 70, null);
+
+        rollups.refresh(DailyRollupRepository.Source.PAIEMENT, day);
+
+        assertEquals(Map.of(day, 150.0), rollups.daily(DailyRollupRepository.Metric.REVENUE, day, next));
+        assertEquals(Map.of(day, 2.0), rollups.daily(DailyRollupRepository.Metric.PAYMENTS, day, next));
+        assertEquals(Map.of("Basic Car Driving Course", 100.0),
+                rollups.totalsByDimension(DailyRollupRepository.Metric.REVENUE_BY_PLAN, day, next));
+
+        // A payment moved to another day: both the old and the new day are refreshed
+        TestDatabase.update("UPDATE paiement SET date_paiement = ? WHERE id = ?", next, first);
+        rollups.refresh(DailyRollupRepository.Source.PAIEMENT, day, next);
+
+        assertEquals(Map.of(day, 50.0, next, 170.0), rollups.daily(DailyRollupRepository.Metric.REVENUE, day, next));
+        assertEquals(Map.of(next, 100.0), rollups.daily(DailyRollupRepository.Metric.REVENUE_INSCRIPTION, day, next));
+
+        // The last payment of a day deleted: the day disappears rather than staying at its old value
+        TestDatabase.update("DELETE FROM paiement WHERE date_paiement = ?", day);
+        rollups.refresh(DailyRollupRepository.Source.PAIEMENT, day);
+
+        assertEquals(Map.of(next, 170.0), rollups.daily(DailyRollupRepository.Metric.REVENUE, day, next));
+        assertEquals(170.0, rollups.total(DailyRollupRepository.Metric.REVENUE, day, next));
+    }
+
+    @Test
+    void rebuildRepairsDaysThatWereNotRefreshed() throws Exception {
+        LocalDate day = LocalDate.of(2032, 5, 20);
+        paiement(day, 40, null);
+        rollups.refresh(DailyRollupRepository.Source.PAIEMENT, day);
+        paiement(day, 60, null);
+
+        assertEquals(40.0, rollups.total(DailyRollupRepository.Metric.REVENUE, day, day));
+
+        rollups.rebuild();
+
+        assertEquals(100.0, rollups.total(DailyRollupRepository.Metric.REVENUE, day, day));
+        assertEquals(2.0, rollups.total(DailyRollupRepository.Metric.PAYMENTS, day, day));
+    }
+
+    private static long paiement(LocalDate day, double montant, Long inscription) throws Exception {
+        return TestDatabase.insert("INSERT INTO paiement (id_candidat, inscription_id, montant, date_paiement) VALUES (?, ?, ?, ?)",
+                candidatId, inscription, montant, day);
+    }
+}
@@ -0,0 +1,87 @@
+package org.cpi2.repository;
+
+import org.cpi2.entities.Document;
+import org.cpi2.entities.Dossier;
+import org.cpi2.entities.TypeDocument;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DossierRepositoryTest {
+    private final DossierRepository dossierRepository = new DossierRepository();
+
+    @BeforeAll
+    static void startDatabase() {
+        TestDatabase.start();
+    }
+
+    @Test
+    void findByIdGroupsDocumentsByTypeKeepingSameSecondUploads() throws Exception {
+        long dossierId = dossier("DR-1");
+        long first = document(dossierId, 1, "2025-03-23 10:00:00");
+        long second = document(dossierId, 1, "2025-03-23 10:00:00");
+        long photo = document(dossierId, 4, "2025-03-23 09:00:00");
+
+        Dossier dossier = dossierRepository.findById(dossierId).orElseThrow();
+
+        Map<TypeDocument, TreeSet<Document>> documents = dossier.getDocuments();
+        assertEquals(2, documents.size());
+        assertEquals(List.of(first, second), ids(documents.get(TypeDocument.CIN)));
+        assertEquals(List.of(photo), ids(documents.get(TypeDocument.PHOTO)));
+        assertEquals(TypeDocument.PHOTO, documents.get(TypeDocument.PHOTO).first().getTypeDocument());
+    }
+
+    @Test
+    void findByCandidatIdLoadsAnEmptyDossier() throws Exception {
+        long dossierId = dossier("DR-2");
+        long candidatId = TestDatabase.queryLong("SELECT candidat_id FROM dossier WHERE id = ?", dossierId);
+
+        Dossier dossier = dossierRepository.findByCandidatId(candidatId).orElseThrow();
+
+        assertEquals(dossierId, dossier.getId());
+        assertTrue(dossier.getDocuments().isEmpty());
+    }
+
+    @Test
+    void findAllLoadsDocumentsAcrossSeveralInChunks() throws Exception {
+        int dossiers = BaseRepository.IN_CLAUSE_CHUNK_SIZE + 100;
+        TestDatabase.update("INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) "
+                + "SELECT 'Nom', 'Prenom', CONCAT('DRA-', seq), '20000000', '2000-01-01' FROM seq_1_to_" + dossiers);
+        TestDatabase.update("INSERT INTO dossier (candidat_id) SELECT id FROM candidat WHERE cin LIKE 'DRA-%'");
+        TestDatabase.update("INSERT INTO document (dossier_id, type_document_id, nom_fichier, chemin_fichier) "
+                + "SELECT d.id, 6, CONCAT('autre-', d.id, '.pdf'), CONCAT('uploads/autre-', d.id, '.pdf') "
+                + "FROM dossier d JOIN candidat c ON c.id = d.candidat_id WHERE c.cin LIKE 'DRA-%'");
+        Set<Long> candidatIds = Set.copyOf(TestDatabase.queryLongs("SELECT id FROM candidat WHERE cin LIKE 'DRA-%'"));
+
+        List<Dossier> loaded = dossierRepository.findAll().stream()
+                .filter(d -> candidatIds.contains(d.getCandidatId()))
+                .toList();
+
+        assertEquals(dossiers, loaded.size());
+        for (Dossier dossier : loaded) {
+            assertEquals(1, dossier.getDocuments().get(TypeDocument.AUTRE).size(), "dossier " + dossier.getId());
+        }
+    }
+
+    private static long dossier(String cin) throws Exception {
+        long candidatId = TestDatabase.insert("INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) "
+                + "VALUES ('Nom', 'Prenom', ?, '20000000', '2000-01-01')", cin);
+        return TestDatabase.insert("INSERT INTO dossier (candidat_id) VALUES (?)", candidatId);
+    }
+
+    private static long document(long dossierId, int typeDocumentId, String dateUpload) throws Exception {
+        return TestDatabase.insert("INSERT INTO document (dossier_id, type_document_id, nom_fichier, chemin_fichier, date_upload) "
+                + "VALUES (?, ?, 'scan.pdf', 'uploads/scan.pdf', ?)", dossierId, typeDocumentId, dateUpload);
+    }
+
+    private static List<Long> ids(TreeSet<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package org.cpi2.repository;
+
+import org.cpi2.entities.Seance;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SeanceRepositoryTest {
+    private static long candidatId;
+    private static long moniteurId;
+
+    private final SeanceRepository seanceRepository = new SeanceRepository();
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        TestDatabase.start();
+        candidatId = TestDatabase.insert("INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) "
+                + "VALUES ('Seance', 'Candidat', 'SP-1', '20000000', '2000-01-01')");
+        moniteurId = TestDatabase.insert("INSERT INTO moniteur (nom, prenom, cin, telephone, date_embauche) "
+                + "VALUES ('Moniteur', 'Seance', 'SP-M1', '20000000', '2024-01-01')");
+    }
+
+    @Test
+    void pagesFollowTheTimeWithinADay() throws Exception {
+        LocalDate day = LocalDate.of(2033, 4, 12);
+        // Inserted late slot first, so id order and time order disagree
+        long late = seance(day, "16:00:00");
+        long noon = seance(day, "12:00:00");
+        long morning = seance(day, "08:30:00");
+        long sameTime = seance(day, "12:00:00");
+        long nextDay = seance(day.plusDays(1), "07:00:00");
+
+        List<Long> ids = new ArrayList<>();
+        Page<Seance> page = seanceRepository.findPage("Code", "Planifiée", null, null, 2);
+        while (true) {
+            page.items().stream()
+                    .filter(s -> !LocalDate.parse(s.getDate()).isBefore(day))
+                    .forEach(s -> ids.add(s.getId()));
+            if (!page.hasNext()) {
+                break;
+            }
+            page = seanceRepository.findPage("Code", "Planifiée", null, page.next(), 2);
+        }
+
+        // Two by two, so cursors fall between slots of one day and between the two 12:00 seances
+        assertEquals(List.of(morning, noon, sameTime, late, nextDay), ids);
+
+        Page<Seance> onDay = seanceRepository.findPage("Code", "Planifiée", day, null, 10);
+        assertEquals(List.of(morning, noon, sameTime, late), onDay.items().stream().map(Seance::getId).toList());
+        assertNull(onDay.next());
+    }
+
+    private static long seance(LocalDate day, String heure) throws Exception {
+        return TestDatabase.insert("INSERT INTO seance (date, heure, duree, type, moniteur_id, candidat_id, statut) "
+                + "VALUES (?, ?, 60, 'Code', ?, ?, 'Planifiée')", day, heure, moniteurId, candidatId);
+    }
+}
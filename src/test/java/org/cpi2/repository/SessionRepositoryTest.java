@@ -0,0 +1,116 @@
+package org.cpi2.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionRepositoryTest {
+    private static final int THREADS = 24;
+
+    private static long moniteurId;
+    private final SessionRepository sessionRepository = new SessionRepository();
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        TestDatabase.start();
+        moniteurId = TestDatabase.insert("INSERT INTO moniteur (nom, prenom, cin, telephone, date_embauche) "
+                + "VALUES ('Moniteur', 'Session', 'SR-M1', '20000000', '2024-01-01')");
+    }
+
+    @Test
+    void racingDesksTakeTheLastSeatOnce() throws Exception {
+        long sessionId = session(20, 19);
+        List<Long> candidats = candidats("LS-", THREADS);
+
+        int enrolled = race(candidats, candidatId -> sessionRepository.affecterCandidatASessionCode(sessionId, candidatId) ? 1 : 0);
+
+        assertEquals(1, enrolled);
+        assertSeats(sessionId, 20, 1);
+    }
+
+    @Test
+    void racingDesksNeverOversubscribe() throws Exception {
+        long sessionId = session(5, 0);
+        List<Long> candidats = candidats("OS-", THREADS);
+
+        int enrolled = race(candidats, candidatId -> sessionRepository.affecterCandidatASessionCode(sessionId, candidatId) ? 1 : 0);
+
+        assertEquals(5, enrolled);
+        assertSeats(sessionId, 5, 5);
+    }
+
+    @Test
+    void bulkEnrollmentIsAllOrNothing() throws Exception {
+        long sessionId = session(5, 3);
+        List<Long> candidats = candidats("BK-", 3);
+
+        assertEquals(0, sessionRepository.affecterCandidatsASessionCode(sessionId, candidats));
+        assertSeats(sessionId, 3, 0);
+
+        assertEquals(2, sessionRepository.affecterCandidatsASessionCode(sessionId, candidats.subList(0, 2)));
+        // Already enrolled candidats are skipped, not counted twice
+        assertEquals(0, sessionRepository.affecterCandidatsASessionCode(sessionId, candidats.subList(0, 2)));
+        assertSeats(sessionId, 5, 2);
+    }
+
+    private interface Enrollment {
+        int enroll(long candidatId) throws Exception;
+    }
+
+    /** Starts one enrollment per candidat at the same time and returns the number that succeeded. */
+    private static int race(List<Long> candidatIds, Enrollment enrollment) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (long candidatId : candidatIds) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return enrollment.enroll(candidatId);
+                }));
+            }
+            start.countDown();
+            int enrolled = 0;
+            for (Future<Integer> result : results) {
+                enrolled += result.get(30, TimeUnit.SECONDS);
+            }
+            return enrolled;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertSeats(long sessionId, int expectedInscrits, int expectedPresences) throws Exception {
+        long inscrits = TestDatabase.queryLong("SELECT nombre_inscrits FROM session_code WHERE id = ?", sessionId);
+        long capacite = TestDatabase.queryLong("SELECT capacite_max FROM session_code WHERE id = ?", sessionId);
+        long presences = TestDatabase.queryLong("SELECT COUNT(*) FROM presence_code WHERE session_code_id = ?", sessionId);
+        assertTrue(inscrits <= capacite, "nombre_inscrits " + inscrits + " > capacite_max " + capacite);
+        assertEquals(expectedInscrits, inscrits);
+        assertEquals(expectedPresences, presences);
+    }
+
+    private static long session(int capacite, int inscrits) throws Exception {
+        return TestDatabase.insert("INSERT INTO session_code (plan_id, date_session, heure_debut, heure_fin, moniteur_id, "
+                + "capacite_max, nombre_inscrits) VALUES (3, '2030-06-01', '09:00', '11:00', ?, ?, ?)",
+                moniteurId, capacite, inscrits);
+    }
+
+    private static List<Long> candidats(String prefix, int count) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(TestDatabase.insert("INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) "
+                    + "VALUES ('Nom', 'Prenom', ?, '20000000', '2000-01-01')", prefix + i));
+        }
+        return ids;
+    }
+}
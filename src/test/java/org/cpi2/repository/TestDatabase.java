@@ -0,0 +1,163 @@
+package org.cpi2.repository;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embedded MariaDB for the tests that need the real schema, started once per JVM.
+ * <p>
+ * The schema comes from {@code autoecole.sql}, without its data: the dump repeats some of its
+ * seed rows and cannot be imported as it stands. The reference rows are loaded from
+ * {@code test-seed.sql}; everything else is created by the tests themselves.
+ * <p>
+ * {@link #start()} points {@link DatabaseConfig} at the server, so it must run before the
+ * first repository is used.
+ */
+public final class TestDatabase {
+    private static final String DATABASE = "autoecole_test";
+
+    private static DB db;
+    private static String url;
+
+    private TestDatabase() {
+    }
+
+    public static synchronized void start() {
+        if (db != null) {
+            return;
+        }
+        try {
+            DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+            config.setPort(0);
+            config.addArg("--user=root");
+            DB server = DB.newEmbeddedDB(config.build());
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.stop();
+                } catch (ManagedProcessException ignored) {
+                }
+            }));
+
+            url = "jdbc:mysql://127.0.0.1:" + server.getConfiguration().getPort() + "/" + DATABASE
+                    + "?createDatabaseIfNotExist=true&useSSL=false&allowPublicKeyRetrieval=true"
+                    + "&serverTimezone=UTC&rewriteBatchedStatements=true";
+            try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+                for (String sql : statements(Files.readString(Paths.get("autoecole.sql"), StandardCharsets.UTF_8))) {
+                    if (!sql.startsWith("INSERT")) {
+                        stmt.execute(sql);
+                    }
+                }
+                for (String sql : statements(resource("/test-seed.sql"))) {
+                    stmt.execute(sql);
+                }
+            }
+            db = server;
+        } catch (ManagedProcessException | IOException | SQLException e) {
+            throw new IllegalStateException("Could not start the test database", e);
+        }
+        System.setProperty("autoecole.db.url", url);
+        System.setProperty("autoecole.db.user", "root");
+        System.setProperty("autoecole.db.password", "");
+    }
+
+    /** A connection of its own, outside the application's pool. */
+    public static Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, "root", "");
+    }
+
+    public static int update(String sql, Object... params) throws SQLException {
+        try (Connection conn = connect(); PreparedStatement stmt = prepare(conn, sql, params)) {
+            return stmt.executeUpdate();
+        }
+    }
+
+    /** Runs an INSERT and returns the generated id. */
+    public static long insert(String sql, Object... params) throws SQLException {
+        try (Connection conn = connect();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            bind(stmt, params);
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    public static long queryLong(String sql, Object... params) throws SQLException {
+        try (Connection conn = connect();
+             PreparedStatement stmt = prepare(conn, sql, params);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    public static List<Long> queryLongs(String sql, Object... params) throws SQLException {
+        List<Long> values = new ArrayList<>();
+        try (Connection conn = connect();
+             PreparedStatement stmt = prepare(conn, sql, params);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                values.add(rs.getLong(1));
+            }
+        }
+        return values;
+    }
+
+    private static PreparedStatement prepare(Connection conn, String sql, Object... params) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        bind(stmt, params);
+        return stmt;
+    }
+
+    private static void bind(PreparedStatement stmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = TestDatabase.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Splits a dump into statements: one ends on a line ending with {@code ;}, comments are skipped. */
+    private static List<String> statements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,90 @@
+package org.cpi2.service;
+
+import org.cpi2.entities.Candidat;
+import org.cpi2.repository.QueryCache;
+import org.cpi2.repository.TestDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of {@link CandidatService#findByActifAndUnpayedInscription()} against the number of
+ * candidats, each with one running inscription, half of them unpaid. The query is set based, so
+ * the time per call should grow linearly: about twice as long for twice the candidats.
+ * <p>
+ * Not part of {@code mvn test}; run it with
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ActiveUnpaidCandidatsBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ActiveUnpaidCandidatsBenchmark {
+
+    @Param({"1000", "2000", "4000", "8000"})
+    int candidats;
+
+    private CandidatService candidatService;
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        TestDatabase.start();
+        try (Connection conn = TestDatabase.connect()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM inscription");
+                stmt.executeUpdate("DELETE FROM candidat");
+            }
+            try (PreparedStatement candidat = conn.prepareStatement(
+                    "INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) VALUES (?, ?, ?, ?, '2000-01-01')");
+                 PreparedStatement inscription = conn.prepareStatement(
+                         "INSERT INTO inscription (cin, plan_id, statut, statut_paiement) VALUES (?, 3, 'En Cours', ?)")) {
+                for (int i = 0; i < candidats; i++) {
+                    String cin = String.format("%08d", i);
+                    candidat.setString(1, "Nom" + i);
+                    candidat.setString(2, "Prenom" + i);
+                    candidat.setString(3, cin);
+                    candidat.setString(4, "20000000");
+                    candidat.addBatch();
+                    inscription.setString(1, cin);
+                    inscription.setString(2, i % 2 == 0 ? "paid" : "En attente");
+                    inscription.addBatch();
+                }
+                candidat.executeBatch();
+                inscription.executeBatch();
+            }
+        }
+        candidatService = new CandidatService();
+    }
+
+    /** Every call must reach the database, not the query cache. */
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        QueryCache.clear();
+    }
+
+    @Benchmark
+    public List<Candidat> activeUnpaid() {
+        return candidatService.findByActifAndUnpayedInscription();
+    }
+}
@@ -0,0 +1,189 @@
+package org.cpi2.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlobStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameContentIsStoredOnce() throws Exception {
+        BlobStore store = new BlobStore(dir.resolve("blobs"));
+        Path first = file("cin-recto.PDF", "scan de la CIN");
+        Path second = file("copie.pdf", "scan de la CIN");
+
+        BlobStore.Blob stored = store.put(first, ".PDF", blob -> blob);
+        BlobStore.Blob again = store.put(second, ".pdf", blob -> blob);
+
+        assertTrue(stored.created());
+        assertFalse(again.created());
+        assertEquals(stored.sha256(), again.sha256());
+        assertEquals(stored.path(), again.path());
+        assertEquals(stored.sha256().substring(0, 2), stored.path().getParent().getFileName().toString());
+        assertEquals(stored.sha256() + ".pdf", stored.path().getFileName().toString());
+        assertEquals(1, blobCount(stored));
+        assertEquals(0, tmpFiles());
+    }
+
+    @Test
+    void unusualExtensionsAreDropped() throws Exception {
+        BlobStore store = new BlobStore(dir.resolve("blobs"));
+
+        BlobStore.Blob blob = store.put(file("photo", "pixels"), "./../x", b -> b);
+
+        assertEquals(blob.sha256(), blob.path().getFileName().toString());
+    }
+
+    @Test
+    void releaseDeletesOnlyWhenNothingReferencesTheBlob() throws Exception {
+        BlobStore store = new BlobStore(dir.resolve("blobs"));
+        BlobStore.Blob blob = store.put(file("photo.jpg", "pixels"), ".jpg", b -> b);
+
+        assertFalse(store.release(blob.sha256(), () -> 1));
+        // A failed count must keep the blob
+        assertFalse(store.release(blob.sha256(), () -> -1));
+        assertTrue(Files.exists(blob.path()));
+
+        assertTrue(store.release(blob.sha256(), () -> 0));
+        assertFalse(Files.exists(blob.path()));
+        assertFalse(store.release(blob.sha256(), () -> 0));
+        assertFalse(store.release(null, () -> 0));
+    }
+
+    @Test
+    void failedReferenceLeavesNoTemporaryFile() throws Exception {
+        BlobStore store = new BlobStore(dir.resolve("blobs"));
+
+        assertThrows(IllegalStateException.class, () -> store.put(file("photo.jpg", "pixels"), ".jpg", blob -> {
+            throw new IllegalStateException("row not saved");
+        }));
+
+        assertEquals(0, tmpFiles());
+    }
+
+    @Test
+    void sweepDeletesUnreferencedBlobsAndStaleTemporaryFiles() throws Exception {
+        Path root = dir.resolve("blobs");
+        BlobStore store = new BlobStore(root);
+        BlobStore.Blob kept = store.put(file("a.pdf", "gardé"), ".pdf", b -> b);
+        BlobStore.Blob orphan = store.put(file("b.pdf", "orphelin"), ".pdf", b -> b);
+        BlobStore.Blob recounted = store.put(file("c.pdf", "référencé entre-temps"), ".pdf", b -> b);
+        Path stale = Files.writeString(root.resolve("tmp").resolve("upload-1.part"), "interrompu");
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path fresh = Files.writeString(root.resolve("tmp").resolve("upload-2.part"), "en cours");
+
+        int deleted = store.sweep(Set.of(kept.sha256()), hash -> hash.equals(recounted.sha256()) ? 1 : 0);
+
+        assertEquals(2, deleted);
+        assertTrue(Files.exists(kept.path()));
+        assertFalse(Files.exists(orphan.path()));
+        assertTrue(Files.exists(recounted.path()));
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(fresh));
+    }
+
+    @Test
+    void storedCopyMatchesTheSourceByteForByte() throws Exception {
+        BlobStore store = new BlobStore(dir.resolve("blobs"));
+        byte[] content = new byte[9 * 1024 * 1024 + 123];
+        new Random(22).nextBytes(content);
+        Path source = dir.resolve("scan.pdf");
+        Files.write(source, content);
+        List<long[]> reports = new ArrayList<>();
+
+        BlobStore.Blob blob = store.put(source, ".pdf", (done, total) -> reports.add(new long[]{done, total}), b -> b);
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), blob.sha256());
+        assertEquals(-1, Files.mismatch(source, blob.path()));
+        // Copy then verification: progress counts the file twice and only moves forward
+        long total = 2L * content.length;
+        assertTrue(reports.size() > 2);
+        for (int i = 0; i < reports.size(); i++) {
+            assertEquals(total, reports.get(i)[1]);
+            assertTrue(i == 0 || reports.get(i)[0] >= reports.get(i - 1)[0]);
+        }
+        assertEquals(total, reports.get(reports.size() - 1)[0]);
+    }
+
+    @Test
+    void emptyFileIsStored() throws Exception {
+        BlobStore store = new BlobStore(dir.resolve("blobs"));
+
+        BlobStore.Blob blob = store.put(file("vide.txt", ""), ".txt", b -> b);
+
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", blob.sha256());
+        assertEquals(0, Files.size(blob.path()));
+    }
+
+    @Test
+    void concurrentUploadsOfOneContentCreateOneBlob() throws Exception {
+        BlobStore store = new BlobStore(dir.resolve("blobs"));
+        int uploads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<BlobStore.Blob>> results = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                Path source = file("photo-" + i + ".jpg", "même photo");
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return store.put(source, ".jpg", b -> b);
+                }));
+            }
+            start.countDown();
+            int created = 0;
+            for (Future<BlobStore.Blob> result : results) {
+                if (result.get(30, TimeUnit.SECONDS).created()) {
+                    created++;
+                }
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, tmpFiles());
+    }
+
+    private Path file(String name, String content) throws Exception {
+        Path source = dir.resolve("sources").resolve(name);
+        Files.createDirectories(source.getParent());
+        return Files.writeString(source, content);
+    }
+
+    private static long blobCount(BlobStore.Blob blob) throws Exception {
+        try (Stream<Path> files = Files.list(blob.path().getParent())) {
+            return files.filter(f -> f.getFileName().toString().startsWith(blob.sha256())).count();
+        }
+    }
+
+    private long tmpFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir.resolve("blobs").resolve("tmp"))) {
+            return files.count();
+        }
+    }
+}
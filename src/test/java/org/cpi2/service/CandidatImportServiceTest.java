@@ -0,0 +1,96 @@
+package org.cpi2.service;
+
+import org.cpi2.repository.TestDatabase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CandidatImportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void quotedFieldsKeepSeparatorsAndDoubledQuotes() throws Exception {
+        CandidatImportService.CsvReader csv = reader("nom,adresse,email\r\n"
+                + "Ben Ali,\"12, rue \"\"Jasmin\"\"\",\r\n");
+
+        assertEquals(List.of("nom", "adresse", "email"), csv.next());
+        assertEquals(List.of("Ben Ali", "12, rue \"Jasmin\"", ""), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void lineBreaksInsideQuotesStayInTheField() throws Exception {
+        CandidatImportService.CsvReader csv = reader("nom,adresse\n"
+                + "Trabelsi,\"Résidence Les Pins\nBloc B, app. 4\n\"\n"
+                + "Gharbi,Sfax\n");
+
+        csv.next();
+        assertEquals(List.of("Trabelsi", "Résidence Les Pins\nBloc B, app. 4\n"), csv.next());
+        assertEquals(2, csv.recordLine());
+        assertEquals(List.of("Gharbi", "Sfax"), csv.next());
+        assertEquals(5, csv.recordLine());
+    }
+
+    @Test
+    void separatorComesFromTheHeader() throws Exception {
+        CandidatImportService.CsvReader csv = reader("nom;adresse;telephone\n"
+                + "Ben Ali;12, rue Jasmin;20000000\n");
+
+        assertEquals(List.of("nom", "adresse", "telephone"), csv.next());
+        assertEquals(List.of("Ben Ali", "12, rue Jasmin", "20000000"), csv.next());
+    }
+
+    @Test
+    void importReportsRejectedRowsByTheirFirstLine() throws Exception {
+        TestDatabase.start();
+        TestDatabase.update("INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) "
+                + "VALUES ('Existant', 'Candidat', '19000004', '20000000', '2000-01-01')");
+        Path file = dir.resolve("candidats.csv");
+        Files.writeString(file, "\uFEFFnom,prenom,cin,adresse,telephone,date_naissance\n"
+                + "Trabelsi,Amira,19000001,\"Résidence Les Pins\nBloc B, Sousse\",22123456,15/03/2001\n"
+                + "Gharbi,Sami,19000001,Avenue de Carthage Tunis,22123457,2002-04-01\n"
+                + "Jaziri,Ines,19000003,Rue de Marseille Tunis,221,2002-04-01\n"
+                + "Existant,Candidat,19000004,Rue de Rome Tunis,22123458,2002-04-01\n", StandardCharsets.UTF_8);
+
+        CandidatImportService.ImportReport report = new CandidatImportService().importCsv(file);
+
+        assertEquals(4, report.rows());
+        assertEquals(1, report.imported());
+        assertEquals(List.of(4, 5, 6), report.errors().stream().map(CandidatImportService.RowError::line).toList());
+        assertEquals(1, TestDatabase.queryLong("SELECT COUNT(*) FROM candidat WHERE cin = '19000001' "
+                + "AND adresse = 'Résidence Les Pins\nBloc B, Sousse'"));
+        assertEquals(1, TestDatabase.queryLong("SELECT COUNT(*) FROM dossier d JOIN candidat c ON c.id = d.candidat_id "
+                + "WHERE c.cin = '19000001'"));
+    }
+
+    @Test
+    void blankEmailsAreStoredAsNull() throws Exception {
+        TestDatabase.start();
+        Path file = dir.resolve("sans-email.csv");
+        Files.writeString(file, "nom,prenom,cin,adresse,telephone,email,date_naissance\n"
+                + "Mansour,Leila,19000011,Rue de Rome Tunis,22123461,,2001-02-03\n"
+                + "Hamdi,Karim,19000012,Rue de Rome Tunis,22123462,  ,2001-02-04\n", StandardCharsets.UTF_8);
+
+        CandidatImportService.ImportReport report = new CandidatImportService().importCsv(file);
+
+        assertEquals(List.of(), report.errors());
+        assertEquals(2, report.imported());
+        assertEquals(2, TestDatabase.queryLong("SELECT COUNT(*) FROM candidat "
+                + "WHERE cin IN ('19000011', '19000012') AND email IS NULL"));
+    }
+
+    private static CandidatImportService.CsvReader reader(String text) {
+        return new CandidatImportService.CsvReader(new BufferedReader(new StringReader(text)));
+    }
+}
@@ -0,0 +1,204 @@
+package org.cpi2.service;
+
+import org.cpi2.entities.TypeDocument;
+import org.cpi2.repository.DossierRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.cpi2.entities.TypeDocument.CERTIFICAT_MEDICAL;
+import static org.cpi2.entities.TypeDocument.CIN;
+import static org.cpi2.entities.TypeDocument.PHOTO;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Runs with the default required types: CIN, CERTIFICAT_MEDICAL and PHOTO. */
+class DossierCompletenessIndexTest {
+
+    /** Dossiers kept in memory; counts the full loads, can fail the next query or run a change during it. */
+    private static final class StubDossierRepository extends DossierRepository {
+        final Map<Long, DossierRepository.DocumentTypes> dossiers = new TreeMap<>();
+        int fullLoads;
+        boolean failNext;
+        Runnable duringNextLoad;
+
+        void put(long dossierId, long candidatId, TypeDocument... types) {
+            EnumSet<TypeDocument> set = EnumSet.noneOf(TypeDocument.class);
+            set.addAll(Arrays.asList(types));
+            dossiers.put(dossierId, new DossierRepository.DocumentTypes(dossierId, candidatId, set));
+        }
+
+        @Override
+        public List<DossierRepository.DocumentTypes> findAllDocumentTypes() throws SQLException {
+            failIfAsked();
+            fullLoads++;
+            List<DossierRepository.DocumentTypes> rows = new ArrayList<>(dossiers.values());
+            if (duringNextLoad != null) {
+                Runnable change = duringNextLoad;
+                duringNextLoad = null;
+                change.run();
+            }
+            return rows;
+        }
+
+        @Override
+        public Optional<DossierRepository.DocumentTypes> findDocumentTypes(long dossierId) throws SQLException {
+            failIfAsked();
+            return Optional.ofNullable(dossiers.get(dossierId));
+        }
+
+        private void failIfAsked() throws SQLException {
+            if (failNext) {
+                failNext = false;
+                throw new SQLException("connection lost");
+            }
+        }
+    }
+
+    private final StubDossierRepository repository = new StubDossierRepository();
+    private final DossierCompletenessIndex index = new DossierCompletenessIndex(repository);
+
+    private void threeDossiers() {
+        repository.put(1, 10, CIN, CERTIFICAT_MEDICAL, PHOTO);
+        repository.put(2, 20, CIN);
+        repository.put(3, 30);
+    }
+
+    @Test
+    void loadsOnceAndAnswersFromTheMasks() {
+        threeDossiers();
+
+        assertEquals(3, index.dossierCount());
+        assertEquals(1, index.completeCount());
+        assertEquals(EnumSet.of(CERTIFICAT_MEDICAL, PHOTO), index.missing(20));
+        assertEquals(EnumSet.of(CIN, CERTIFICAT_MEDICAL, PHOTO), index.missing(99));
+        assertArrayEquals(new long[]{10}, sorted(index.candidatsWith(PHOTO)));
+        assertArrayEquals(new long[]{10, 20}, sorted(index.candidatsWith(CIN)));
+        assertEquals(1, repository.fullLoads);
+    }
+
+    @Test
+    void changesBeforeTheFirstReadAreIgnored() {
+        threeDossiers();
+
+        index.added(2, PHOTO);
+        index.reload(1);
+        index.removeDossier(3);
+
+        assertEquals(0, repository.fullLoads);
+        assertEquals(3, index.dossierCount());
+    }
+
+    @Test
+    void addedSetsTheBitOrLoadsAnUnknownDossier() {
+        threeDossiers();
+        index.dossierCount();
+
+        index.added(2, PHOTO);
+        assertEquals(EnumSet.of(CERTIFICAT_MEDICAL), index.missing(20));
+
+        repository.put(4, 40, CIN, CERTIFICAT_MEDICAL, PHOTO);
+        index.added(4, CIN);
+        assertEquals(4, index.dossierCount());
+        assertEquals(2, index.completeCount());
+        assertEquals(1, repository.fullLoads);
+    }
+
+    @Test
+    void reloadReadsTheTypesAgain() {
+        threeDossiers();
+        index.dossierCount();
+
+        // The last CIN of dossier 1 deleted
+        repository.put(1, 10, CERTIFICAT_MEDICAL, PHOTO);
+        index.reload(1);
+        assertEquals(0, index.completeCount());
+        assertEquals(EnumSet.of(CIN), index.missing(10));
+
+        // Dossier 2 deleted in cascade
+        repository.dossiers.remove(2L);
+        index.reload(2);
+        assertEquals(2, index.dossierCount());
+        assertEquals(1, repository.fullLoads);
+    }
+
+    @Test
+    void removeDossierKeepsTheOthersIntact() {
+        threeDossiers();
+        index.dossierCount();
+
+        // Dossier 3 moves into the freed first slot
+        index.removeDossier(1);
+        assertEquals(2, index.dossierCount());
+        assertArrayEquals(new long[]{20}, sorted(index.candidatsWith(CIN)));
+        assertEquals(EnumSet.of(CIN, CERTIFICAT_MEDICAL, PHOTO), index.missing(30));
+
+        index.removeDossier(3);
+        index.removeDossier(3);
+        assertEquals(1, index.dossierCount());
+        assertEquals(EnumSet.of(CERTIFICAT_MEDICAL, PHOTO), index.missing(20));
+
+        index.added(3, PHOTO);
+        assertEquals(2, index.dossierCount());
+    }
+
+    @Test
+    void failedReloadDropsTheIndexAndTheNextReadLoadsEverything() {
+        threeDossiers();
+        index.dossierCount();
+
+        repository.failNext = true;
+        index.reload(1);
+
+        assertEquals(3, index.dossierCount());
+        assertEquals(2, repository.fullLoads);
+    }
+
+    @Test
+    void failedLoadIsNotRetriedUntilTheBackOffElapses() {
+        threeDossiers();
+        repository.failNext = true;
+
+        assertEquals(0, index.dossierCount());
+        assertEquals(0, index.completeCount());
+        assertEquals(0, repository.fullLoads);
+    }
+
+    @Test
+    void failedLoadIsRetriedAfterTheBackOff() {
+        DossierCompletenessIndex retrying = new DossierCompletenessIndex(repository, 0);
+        threeDossiers();
+        repository.failNext = true;
+
+        assertEquals(0, retrying.dossierCount());
+        assertEquals(1, retrying.completeCount());
+        assertEquals(1, repository.fullLoads);
+    }
+
+    @Test
+    void loadRacingAChangeIsDiscardedAndRunAgain() {
+        repository.put(3, 30);
+        // Another desk completes dossier 3 while the full load reads the rows
+        repository.duringNextLoad = () -> {
+            repository.put(3, 30, CIN, CERTIFICAT_MEDICAL, PHOTO);
+            index.added(3, PHOTO);
+        };
+
+        assertEquals(0, index.dossierCount());
+        assertEquals(1, index.completeCount());
+        assertEquals(2, repository.fullLoads);
+    }
+
+    private static long[] sorted(long[] ids) {
+        long[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,92 @@
+package org.cpi2.service;
+
+import org.cpi2.repository.ExportRepository;
+import org.cpi2.repository.TestDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports a million payments generated in the database. Tagged {@code small-heap}: surefire runs
+ * it in its own JVM with {@code -Xmx32m}, far less than the rows would take if any layer
+ * collected them.
+ */
+@Tag("small-heap")
+class ExportServiceTest {
+    private static final int ROWS = 1_000_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 1);
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void generatePayments() throws Exception {
+        TestDatabase.start();
+        long candidatId = TestDatabase.insert("INSERT INTO candidat (nom, prenom, cin, telephone, date_naissance) "
+                + "VALUES ('Export', 'Candidat', 'EX-1', '20000000', '2000-01-01')");
+        // seq_1_to_N is MariaDB's sequence engine: a million rows without a million round trips
+        TestDatabase.update("INSERT INTO paiement (id_candidat, montant, date_paiement, notes) "
+                + "SELECT ?, 100 + seq % 900, ? + INTERVAL (seq % 365) DAY, "
+                + "IF(seq % 10 = 0, CONCAT('reçu \"', seq, '\", espèces'), NULL) FROM seq_1_to_" + ROWS,
+                candidatId, FIRST_DAY);
+    }
+
+    @Test
+    void exportsAMillionRowsAsCsv() throws Exception {
+        Path target = dir.resolve("paiements.csv");
+
+        long count = new ExportService().export(ExportRepository.Dataset.PAIEMENTS, ExportService.Format.CSV,
+                null, null, target);
+
+        assertEquals(ROWS, count);
+        // Quoted notes hold no line break, so one line per row after the header
+        try (Stream<String> lines = Files.lines(target, StandardCharsets.UTF_8)) {
+            assertEquals(ROWS + 1, lines.count());
+        }
+    }
+
+    @Test
+    void exportsAMillionRowsAsJson() throws Exception {
+        Path target = dir.resolve("paiements.json");
+
+        long count = new ExportService().export(ExportRepository.Dataset.PAIEMENTS, ExportService.Format.JSON,
+                null, null, target);
+
+        assertEquals(ROWS, count);
+        // The writer puts each object on a line of its own, between "[" and "]"
+        try (Stream<String> lines = Files.lines(target, StandardCharsets.UTF_8)) {
+            assertEquals(ROWS, lines.filter(line -> line.startsWith("{")).count());
+        }
+        try (BufferedReader reader = Files.newBufferedReader(target, StandardCharsets.UTF_8)) {
+            assertEquals("[", reader.readLine());
+        }
+    }
+
+    @Test
+    void exportsOnlyTheRequestedRange() throws Exception {
+        Path target = dir.resolve("janvier.csv");
+        LocalDate to = FIRST_DAY.plusDays(30);
+
+        long count = new ExportService().export(ExportRepository.Dataset.PAIEMENTS, ExportService.Format.CSV,
+                FIRST_DAY, to, target);
+
+        long expected = TestDatabase.queryLong("SELECT COUNT(*) FROM paiement WHERE date_paiement BETWEEN ? AND ?",
+                FIRST_DAY, to);
+        assertTrue(expected > 0);
+        assertEquals(expected, count);
+        try (Stream<String> lines = Files.lines(target, StandardCharsets.UTF_8)) {
+            assertTrue(lines.skip(1).allMatch(line -> line.contains(",2023-01-")));
+        }
+    }
+}
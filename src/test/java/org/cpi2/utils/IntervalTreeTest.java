@@ -0,0 +1,103 @@
+package org.cpi2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    @Test
+    void findsEveryOverlappingInterval() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(600, 660, 1, "09:00-10:00");
+        tree.insert(630, 750, 2, "09:30-11:30");
+        tree.insert(720, 780, 3, "12:00-13:00");
+
+        assertEquals(List.of("09:00-10:00", "09:30-11:30"), tree.overlapping(640, 700));
+        assertEquals(List.of("09:30-11:30", "12:00-13:00"), tree.overlapping(700, 725));
+        assertEquals(List.of(), tree.overlapping(800, 900));
+        assertTrue(tree.anyOverlap(655, 656));
+        assertFalse(tree.anyOverlap(500, 600));
+    }
+
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(600, 660, 1, "09:00-10:00");
+
+        // A booking ending at 10:00 leaves the 10:00 slot free, and the other way round
+        assertEquals(List.of(), tree.overlapping(660, 720));
+        assertEquals(List.of(), tree.overlapping(540, 600));
+        assertFalse(tree.anyOverlap(660, 720));
+        assertFalse(tree.anyOverlap(540, 600));
+        assertEquals(List.of("09:00-10:00"), tree.overlapping(659, 660));
+    }
+
+    @Test
+    void sameBoundsAreKeptApartByKey() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(600, 660, 1, "salle A");
+        tree.insert(600, 660, 2, "salle B");
+        tree.insert(600, 660, 1, "salle A bis");
+
+        assertEquals(2, tree.size());
+        assertEquals(List.of("salle A bis", "salle B"), tree.overlapping(600, 660));
+    }
+
+    @Test
+    void removeMatchesBoundsAndKey() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(600, 660, 1, "a");
+        tree.insert(600, 660, 2, "b");
+
+        assertFalse(tree.remove(600, 661, 1));
+        assertFalse(tree.remove(600, 660, 3));
+        assertTrue(tree.remove(600, 660, 1));
+        assertFalse(tree.remove(600, 660, 1));
+
+        assertEquals(List.of("b"), tree.overlapping(0, 1000));
+        assertTrue(tree.remove(600, 660, 2));
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.anyOverlap(0, 1000));
+    }
+
+    @Test
+    void rejectsAnEndBeforeTheStart() {
+        IntervalTree<String> tree = new IntervalTree<>();
+
+        assertThrows(IllegalArgumentException.class, () -> tree.insert(10, 5, 1, "x"));
+    }
+
+    @Test
+    void agreesWithALinearScanAcrossInsertsAndRemovals() {
+        Random random = new Random(9);
+        IntervalTree<long[]> tree = new IntervalTree<>();
+        List<long[]> live = new ArrayList<>();
+        for (int key = 0; key < 2000; key++) {
+            long start = random.nextInt(10_000);
+            long[] interval = {start, start + 1 + random.nextInt(120), key};
+            tree.insert(interval[0], interval[1], key, interval);
+            live.add(interval);
+            if (random.nextInt(3) == 0) {
+                long[] removed = live.remove(random.nextInt(live.size()));
+                assertTrue(tree.remove(removed[0], removed[1], removed[2]));
+            }
+        }
+        assertEquals(live.size(), tree.size());
+
+        for (int i = 0; i < 500; i++) {
+            long from = random.nextInt(10_200);
+            long to = from + random.nextInt(200);
+            long expected = live.stream().filter(iv -> iv[0] < to && iv[1] > from).count();
+            assertEquals(expected, tree.overlapping(from, to).size(), "[" + from + ", " + to + ")");
+            assertEquals(expected > 0, tree.anyOverlap(from, to), "[" + from + ", " + to + ")");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.cpi2.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThumbnailCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void largePhotoIsSubsampledToFitTheSize() throws Exception {
+        Path source = image("photo.jpg", "jpg", 3000, 2000);
+        Path target = dir.resolve("thumbs").resolve("150").resolve("photo.png");
+
+        assertTrue(ThumbnailCache.generate(source, target, ThumbnailCache.AVATAR_SIZE));
+
+        BufferedImage thumbnail = ImageIO.read(target.toFile());
+        assertEquals(150, thumbnail.getWidth());
+        assertEquals(100, thumbnail.getHeight());
+        // The red top left quarter is still red, give or take the JPEG losses
+        Color topLeft = new Color(thumbnail.getRGB(10, 10));
+        assertTrue(topLeft.getRed() > 150 && topLeft.getBlue() < 80, topLeft.toString());
+        assertEquals(Set.of("photo.png"), files(target.getParent()));
+    }
+
+    @Test
+    void portraitKeepsItsRatioAndSmallImagesAreNotEnlarged() throws Exception {
+        Path portrait = image("portrait.png", "png", 400, 1200);
+        Path small = image("icone.png", "png", 40, 20);
+        Path target = dir.resolve("thumbs");
+
+        assertTrue(ThumbnailCache.generate(portrait, target.resolve("portrait.png"), ThumbnailCache.PREVIEW_SIZE));
+        assertTrue(ThumbnailCache.generate(small, target.resolve("icone.png"), ThumbnailCache.PREVIEW_SIZE));
+
+        BufferedImage thumbnail = ImageIO.read(target.resolve("portrait.png").toFile());
+        assertEquals(27, thumbnail.getWidth());
+        assertEquals(80, thumbnail.getHeight());
+        BufferedImage copy = ImageIO.read(target.resolve("icone.png").toFile());
+        assertEquals(40, copy.getWidth());
+        assertEquals(20, copy.getHeight());
+    }
+
+    @Test
+    void nonImagesAreSkipped() throws Exception {
+        Path pdf = Files.write(dir.resolve("certificat.pdf"), "%PDF-1.4 certificat médical".getBytes());
+        Path empty = Files.createFile(dir.resolve("vide.jpg"));
+        Path target = dir.resolve("thumbs").resolve("x.png");
+
+        assertFalse(ThumbnailCache.generate(pdf, target, ThumbnailCache.PREVIEW_SIZE));
+        assertFalse(ThumbnailCache.generate(empty, target, ThumbnailCache.PREVIEW_SIZE));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void lruKeepsTheMostRecentlyUsedEntries() {
+        Map<String, String> images = ThumbnailCache.lru(3);
+        images.put("a", "A");
+        images.put("b", "B");
+        images.put("c", "C");
+        assertNotNull(images.get("a"));
+
+        images.put("d", "D");
+        images.put("e", "E");
+
+        assertEquals(3, images.size());
+        assertEquals(Set.of("a", "d", "e"), images.keySet());
+    }
+
+    /** Four flat quarters, so the downscale can be checked by colour. */
+    private Path image(String name, String format, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(new Color(200, 30, 30));
+            g.fillRect(0, 0, width / 2, height / 2);
+            g.setColor(new Color(30, 30, 200));
+            g.fillRect(width / 2, 0, width - width / 2, height);
+            g.fillRect(0, height / 2, width, height - height / 2);
+        } finally {
+            g.dispose();
+        }
+        Path file = dir.resolve(name);
+        assertTrue(ImageIO.write(image, format, file.toFile()));
+        return file;
+    }
+
+    private static Set<String> files(Path directory) throws Exception {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.map(f -> f.getFileName().toString()).collect(Collectors.toSet());
+        }
+    }
+}
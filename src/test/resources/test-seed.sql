@@ -0,0 +1,18 @@
+-- Reference rows the application reads at startup; autoecole.sql repeats some of its seed
+-- INSERTs, so the tests load its DDL only and seed from here. Each test adds its own rows.
+INSERT INTO `type_permis` VALUES(1, 'A', 'Moto', 'Permis pour conduire une moto', 18, '2025-03-22 13:11:28');
+INSERT INTO `type_permis` VALUES(2, 'B', 'Voiture', 'Permis pour conduire une voiture', 18, '2025-03-22 13:11:28');
+INSERT INTO `type_permis` VALUES(3, 'C', 'Camion', 'Permis pour conduire un camion', 21, '2025-03-22 13:11:28');
+INSERT INTO `type_document` VALUES(1, 'CIN', 'Carte d''identité nationale', 1, '2025-03-23 22:49:32');
+INSERT INTO `type_document` VALUES(2, 'PERMIS_A', 'Permis de conduire d''un Moto', 0, '2025-03-23 22:49:32');
+INSERT INTO `type_document` VALUES(3, 'CERTIFICAT_MEDICAL', 'Certificat d''aptitude médicale', 1, '2025-03-23 22:49:32');
+INSERT INTO `type_document` VALUES(4, 'PHOTO', 'Photo d''identité', 1, '2025-03-23 22:49:32');
+INSERT INTO `type_document` VALUES(5, 'PROOF_OF_RESIDENCE', 'Justificatif de domicile', 1, '2025-03-23 22:49:32');
+INSERT INTO `type_document` VALUES(6, 'AUTRE', 'Autre document', 0, '2025-03-23 22:49:32');
+INSERT INTO `type_document` VALUES(7, 'PERMIS_B', 'Permis de Counduite d''une Voiture', 1, '2025-03-27 19:33:03');
+INSERT INTO `type_document` VALUES(8, 'PERMIS_C', 'Permis de counduite d''un Camion', 1, '2025-03-27 19:33:36');
+INSERT INTO `type_examen` VALUES(1, 'Code', 'Examen du code de la route', 100.00, '2025-03-22 13:11:28');
+INSERT INTO `type_examen` VALUES(2, 'Conduite', 'Examen de conduite en circulation', 200.00, '2025-03-22 13:11:28');
+INSERT INTO `plan` VALUES(1, 'Basic Motorcycle Course', 'Fundamental motorcycle training for beginners', 1, 700.00, 2, 8, 6, 1, '2025-03-23 22:54:51');
+INSERT INTO `plan` VALUES(3, 'Basic Car Driving Course', 'Essential car driving skills for new drivers', 2, 1200.00, 3, 12, 10, 1, '2025-03-23 22:54:51');
+INSERT INTO `plan` VALUES(7, 'Heavy Truck License Course', 'Complete training for heavy goods vehicle license', 3, 1900.00, 4, 14, 8, 1, '2025-03-23 22:54:51');